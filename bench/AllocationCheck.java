@@ -0,0 +1,194 @@
+/*******************************************************************
+ * CLASS: AllocationCheck                                         *
+ * DESCRIPTION:                                                   *
+ * Counts the bytes allocated by the game tick and by a painted   *
+ * frame, using the per-thread allocation counter of the JVM's    *
+ * ThreadMXBean.                                                  *
+ *                                                                *
+ * The tick (GameWorld.step plus snapshot capture and publish)    *
+ * must not allocate in steady play, including steps that drop a  *
+ * power-up or spawn extra balls, as long as the entity tables    *
+ * have a free row. Steps that grow a table or restart the game   *
+ * are allowed to, and are counted separately. The JIT may        *
+ * allocate once or twice while it deoptimizes a method (it       *
+ * rebuilds objects it had optimized away), so up to JIT_STEPS    *
+ * other allocating steps are tolerated; more than that is a real *
+ * per-step allocation, and the program exits with status 1.      *
+ *                                                                *
+ * The paint path is measured by painting a Gameplay panel into   *
+ * an offscreen image, and fails over PAINT_BYTES per frame on    *
+ * average. The bound is not zero because of Java2D: JDK 17 looks *
+ * up the font strike again on every drawGlyphVector (a 40 byte   *
+ * key, unless the JIT optimizes it away), and the panel puts the *
+ * reused Graphics' hints back after each frame, which costs a    *
+ * new font setup on the next. A glyph layout, path or image made *
+ * per frame goes well over it.                                   *
+ *                                                                *
+ * USAGE (from the project root):                                 *
+ *    javac -d out src/*.java bench/*.java                        *
+ *    java -cp out AllocationCheck [steps]                        *
+ *******************************************************************/
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+public class AllocationCheck {
+    private static final int WARMUP_STEPS = 300_000;  // Let the JIT compile the tick first
+    private static final int PAINT_WARMUP = 10_000;   // Frames painted before measuring
+    private static final int PAINT_FRAMES = 2_000;    // Frames measured on the paint path
+    private static final int PAINT_BYTES = 320;       // Most bytes allocated per painted frame
+    private static final int GAME_STEPS = 60_000;     // New game after this, in case one stalls
+    private static final int JIT_STEPS = 5;           // Allocating steps blamed on deoptimization
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Runs the tick check, then the paint measurement.            *
+     * PARAMETERS:                                                 *
+     *    - String[] args: [number of measured steps].             *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.out.println("This JVM cannot count allocated bytes per thread");
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        int steps = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        boolean ok = checkTick(steps);
+        ok &= checkPaint();
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: checkTick(int steps)                                *
+     * DESCRIPTION:                                                *
+     * Plays games with the ball-tracking policy and measures each *
+     * step, including the snapshot hand-off to a reader. A new    *
+     * world (with the next seed) is started every GAME_STEPS, so  *
+     * a game where the ball is stuck cannot hide spawns.          *
+     * PARAMETERS:                                                 *
+     *    - int steps: Number of measured steps.                   *
+     * RETURN VALUE: True if steady-state steps do not allocate.   *
+     ***************************************************************/
+    private static boolean checkTick(int steps) {
+        GameWorld world = null;
+        SnapshotBuffer snapshots = new SnapshotBuffer();
+        long self = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_STEPS; i++) {
+            if (i % GAME_STEPS == 0) {
+                world = new GameWorld(i);
+            }
+            tick(world, snapshots, i);
+        }
+
+        // Cost of reading the counter itself
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long a = threads.getThreadAllocatedBytes(self);
+            long b = threads.getThreadAllocatedBytes(self);
+            overhead = Math.min(overhead, b - a);
+        }
+
+        long steadySteps = 0, steadyBytes = 0, badSteps = 0;
+        long spawnSteps = 0, spawnBytes = 0;
+        for (int i = 0; i < steps; i++) {
+            if (i % GAME_STEPS == 0) {
+                world = new GameWorld(WARMUP_STEPS + i);
+            }
+            boolean restart = !world.isPlay(); // The next step restarts the game
+            int capacity = world.getBalls().getCapacity() + world.getPowerUps().getCapacity();
+            long before = threads.getThreadAllocatedBytes(self);
+            tick(world, snapshots, i);
+            long bytes = threads.getThreadAllocatedBytes(self) - before - overhead;
+            boolean grown = world.getBalls().getCapacity() + world.getPowerUps().getCapacity() > capacity;
+            if (restart || grown) {
+                spawnSteps++;
+                spawnBytes += bytes;
+            } else {
+                steadySteps++;
+                steadyBytes += bytes;
+                if (bytes > 0) {
+                    badSteps++;
+                    System.out.printf("step %d allocated %d bytes%n", i, bytes);
+                }
+            }
+        }
+
+        System.out.printf("tick:  %d steady steps, %d bytes allocated, %d steps allocating%n",
+                steadySteps, steadyBytes, badSteps);
+        System.out.printf("       %d spawning steps, %d bytes (tables growing, restarts)%n",
+                spawnSteps, spawnBytes);
+        return badSteps <= JIT_STEPS;
+    }
+
+    /***************************************************************
+     * METHOD: tick(GameWorld world, SnapshotBuffer snapshots,     *
+     *              int i)                                         *
+     * DESCRIPTION:                                                *
+     * One game loop step as the Swing game runs it: input, step,  *
+     * capture, publish, and the reader picking up the snapshot.   *
+     * PARAMETERS:                                                 *
+     *    - GameWorld world: The game.                             *
+     *    - SnapshotBuffer snapshots: The hand-off to the reader.  *
+     *    - int i: Step index, used to pace policy decisions.      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private static void tick(GameWorld world, SnapshotBuffer snapshots, int i) {
+        int input;
+        if (!world.isPlay()) {
+            input = GameInput.ENTER;
+        } else if (i % BatchSimulator.DEFAULT_DECISION_STEPS == 0) {
+            input = PaddlePolicy.TRACK_LOWEST_BALL.decide(world);
+        } else {
+            input = GameInput.NONE;
+        }
+        world.step(BatchSimulator.STEP_SECONDS, input);
+        snapshots.back().capture(world, i, 0);
+        snapshots.publish();
+        snapshots.latest();
+    }
+
+    /***************************************************************
+     * METHOD: checkPaint()                                        *
+     * DESCRIPTION:                                                *
+     * Paints a running Gameplay panel into an offscreen image and *
+     * prints the average bytes allocated per frame.               *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: False if the average is over PAINT_BYTES.     *
+     ***************************************************************/
+    private static boolean checkPaint() {
+        Gameplay game = new Gameplay(new GameRandom(1L));
+        game.getLoop().submit(GameInput.ENTER);
+        BufferedImage image = new BufferedImage(GameWorld.WIDTH, GameWorld.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        long self = Thread.currentThread().getId();
+
+        for (int i = 0; i < PAINT_WARMUP; i++) {
+            game.paintComponent(g);
+        }
+        long before = threads.getThreadAllocatedBytes(self);
+        for (int i = 0; i < PAINT_FRAMES; i++) {
+            game.paintComponent(g);
+        }
+        long bytes = threads.getThreadAllocatedBytes(self) - before;
+        game.getLoop().stop();
+        g.dispose();
+
+        System.out.printf("paint: %d bytes per frame (includes Java2D's own allocations)%n",
+                bytes / PAINT_FRAMES);
+        if (bytes / PAINT_FRAMES > PAINT_BYTES) {
+            System.out.println("FAILED: painting allocates more than " + PAINT_BYTES + " bytes per frame");
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,234 @@
+/*******************************************************************
+ * CLASS: ArchetypeCheck                                          *
+ * DESCRIPTION:                                                   *
+ * Checks the entity tables and systems:                          *
+ *    - despawning fills the gap with the last row, its handle    *
+ *      follows it to the new row, and handles kept from before a *
+ *      despawn are stale even once the slot is reused;           *
+ *    - despawning half of 50,000 rows in one pass takes time in  *
+ *      proportion to the rows, not to their square;              *
+ *    - the systems move, bounce and find exactly the rows they   *
+ *      should;                                                   *
+ *    - a power-up takes as long to fall off the screen with 20 ms *
+ *      steps as with 5 ms ones;                                  *
+ *    - in a chaotic session (power-ups dropped and caught over   *
+ *      and over, MANY_BALLS among them) the tables grow only to  *
+ *      the peak number of balls and power-ups, the handles of    *
+ *      balls in play all resolve, and the sizes reach            *
+ *      GameMetrics.                                              *
+ *                                                                *
+ * USAGE (from the project root):                                 *
+ *    javac -d out src/*.java bench/*.java                        *
+ *    java -cp out ArchetypeCheck                                 *
+ *******************************************************************/
+public class ArchetypeCheck {
+    private static final int STEPS = 500_000;        // Steps of the chaotic session
+    private static final double STEP_SECONDS = 0.005;
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Runs the checks and exits with status 1 on the first that   *
+     * fails.                                                      *
+     * PARAMETERS:                                                 *
+     *    - String[] args: Command-line arguments (not used).      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) {
+        checkHandles();
+        checkMassDespawn();
+        checkSystems();
+        checkPowerUpFall();
+        checkSession();
+        System.out.println("all archetype checks passed");
+    }
+
+    // Row order, moving rows and stale handles
+    private static void checkHandles() {
+        Archetype table = new Archetype("test", Archetype.VELOCITY | Archetype.SIZE, 1);
+        int[] handles = new int[5];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = table.handle(table.spawn(i, 10 * i));
+        }
+        table.despawn(1);                // The last row, spawned fifth, moves to row 1
+        table.despawn(2);                // The entity spawned third; the fourth moves in
+        if (table.size() != 3 || table.getX(0) != 0 || table.getX(1) != 4 || table.getX(2) != 3
+                || table.getY(1) != 40 || table.getY(2) != 30) {
+            fail("despawning did not fill the gap with the last row");
+        }
+        if (table.row(handles[0]) != 0 || table.row(handles[4]) != 1 || table.row(handles[3]) != 2) {
+            fail("handles did not follow their entities to their new rows");
+        }
+        if (table.row(handles[1]) != -1 || table.row(handles[2]) != -1 || table.row(Archetype.NONE) != -1) {
+            fail("a despawned handle still names a row");
+        }
+        int row = table.spawn(7, 70);
+        int again = table.handle(row);
+        if (table.row(again) != row || again == handles[1] || again == handles[2]) {
+            fail("a reused slot did not get a new handle");
+        }
+        if (table.row(handles[1]) != -1 || table.row(handles[2]) != -1) {
+            fail("an old handle reached the reused slot");
+        }
+        if (table.getCapacity() != 8 || table.getXVel(row) != 0 || table.getSize(row) != 0) {
+            fail("spawn did not reset the row, or the table grew past 8 rows");
+        }
+        table.clear();
+        if (!table.isEmpty() || table.row(again) != -1) {
+            fail("clear left live entities");
+        }
+        System.out.println("the last row fills a gap; handles follow moves and go stale on despawn");
+    }
+
+    // Losing half of a big table in one step, as GameWorld's loss loop does
+    private static void checkMassDespawn() {
+        int rows = 50_000;
+        Archetype table = new Archetype("test", Archetype.VELOCITY | Archetype.SIZE, 16);
+        int[] handles = new int[rows];
+        long elapsed = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {     // The first rounds warm up the JIT
+            table.clear();
+            for (int i = 0; i < rows; i++) {
+                handles[i] = table.handle(table.spawn(i, (i % 2 == 0) ? 0 : GameWorld.HEIGHT + 10));
+            }
+            long start = System.nanoTime();
+            for (int row = EntitySystems.nextPastBottom(table, 0, GameWorld.HEIGHT); row >= 0;
+                    row = EntitySystems.nextPastBottom(table, row, GameWorld.HEIGHT)) {
+                table.despawn(row);
+            }
+            elapsed = Math.min(elapsed, System.nanoTime() - start);
+        }
+        if (table.size() != rows / 2) {
+            fail(table.size() + " rows left of " + rows + ", expected " + rows / 2);
+        }
+        for (int i = 0; i < rows; i++) {
+            int row = table.row(handles[i]);
+            if ((i % 2 == 0) ? (row < 0 || table.getX(row) != i) : row != -1) {
+                fail("after the mass despawn, the handle of entity " + i + " names row " + row);
+            }
+        }
+        if (elapsed > 50_000_000L) {
+            fail("despawning " + rows / 2 + " of " + rows + " rows took " + elapsed / 1_000_000 + " ms");
+        }
+        System.out.printf("%d of %d rows despawned in one pass in %.2f ms%n", rows / 2, rows, elapsed / 1e6);
+    }
+
+    // The systems on a hand-built table
+    private static void checkSystems() {
+        Archetype table = new Archetype("test", Archetype.VELOCITY | Archetype.TRAIL | Archetype.SIZE, 4);
+        int left = table.spawn(5, 100);       // Flies into the left wall
+        table.setXVel(left, -10);
+        table.setSize(left, 10);
+        int top = table.spawn(100, 5);        // Flies into the ceiling
+        table.setYVel(top, -10);
+        table.setSize(top, 10);
+        int low = table.spawn(300, 395);      // Falls past the bottom
+        table.setYVel(low, 10);
+        table.setSize(low, 10);
+
+        EntitySystems.beginStep(table);
+        EntitySystems.integrate(table, 1.0);
+        if (table.getPrevX(left) != 5 || table.getX(left) != -5 || table.getY(low) != 405) {
+            fail("integrate or beginStep moved the wrong fields");
+        }
+        if (EntitySystems.bounceOffWalls(table, 0, 0, 400) != 2) {
+            fail("expected two wall bounces");
+        }
+        if (table.getX(left) != 0 || table.getXVel(left) != 10 || table.getY(top) != 0 || table.getYVel(top) != 10) {
+            fail("bounceOffWalls did not put the entities back and reflect them");
+        }
+        if (EntitySystems.nextOverlap(table, 0, 295, 400, 20, 10) != low
+                || EntitySystems.nextOverlap(table, low + 1, 295, 400, 20, 10) != -1) {
+            fail("nextOverlap did not find exactly the overlapping row");
+        }
+        if (EntitySystems.nextPastBottom(table, 0, 410) != low || EntitySystems.nextPastBottom(table, 0, 420) != -1) {
+            fail("nextPastBottom did not find exactly the fallen row");
+        }
+        System.out.println("systems move, bounce and find the right rows");
+    }
+
+    // Fall time in seconds does not depend on the step length
+    private static void checkPowerUpFall() {
+        double fast = fallSeconds(STEP_SECONDS);
+        double slow = fallSeconds(4 * STEP_SECONDS);
+        if (Math.abs(fast - slow) > 4 * STEP_SECONDS) {
+            fail("a power-up fell in " + fast + " s with " + STEP_SECONDS + " s steps but "
+                    + slow + " s with " + 4 * STEP_SECONDS + " s steps");
+        }
+        System.out.printf("a power-up falls off the screen in %.3f s with 5 ms steps, %.3f s with 20 ms%n",
+                fast, slow);
+    }
+
+    // Time for a power-up dropped at the top, away from the paddle, to leave the screen
+    private static double fallSeconds(double step) {
+        GameWorld world = new GameWorld(3);
+        int x = (world.getPlayerX() > GameWorld.WIDTH / 2) ? 0 : GameWorld.WIDTH - GameWorld.PowerUp.SIZE;
+        world.spawnPowerUp(x, 0, GameWorld.PowerUp.PowerUpType.BIGGER_BALL);
+        int steps = 0;
+        while (!world.getPowerUps().isEmpty()) {
+            world.updatePowerUps(step);
+            if (++steps > 100_000) {
+                fail("a power-up never left the screen");
+            }
+        }
+        return steps * step;
+    }
+
+    // A long session keeps the tables at the peak entity count
+    private static void checkSession() {
+        GameWorld world = new GameWorld(3);
+        GameMetrics metrics = new GameMetrics();
+        world.setMetrics(metrics);
+        int[] collected = new int[1];
+        world.setListener(new GameWorld.Listener() {
+            @Override
+            public void powerUpCollected(GameWorld.PowerUp.PowerUpType type) {
+                collected[0]++;
+            }
+        });
+        int peakBalls = 0, peakPowerUps = 0;
+        GameWorld.PowerUp.PowerUpType[] types = GameWorld.PowerUp.PowerUpType.VALUES;
+        for (int step = 0; step < STEPS; step++) {
+            if (!world.isPlay()) {
+                world.step(STEP_SECONDS, GameInput.ENTER);
+                continue;
+            }
+            // Rain power-ups onto the paddle, far more than special bricks drop
+            if (step % 50 == 0 && world.getPowerUps().size() < 8) {
+                GameWorld.PowerUp.PowerUpType type = types[(step / 50) % types.length];
+                world.spawnPowerUp(world.getPlayerX() + 20, GameWorld.PADDLE_Y - 200, type);
+            }
+            world.step(STEP_SECONDS, (step % 4 == 0) ? PaddlePolicy.TRACK_LOWEST_BALL.decide(world) : GameInput.NONE);
+            peakBalls = Math.max(peakBalls, world.getBalls().size());
+            peakPowerUps = Math.max(peakPowerUps, world.getPowerUps().size());
+
+            Archetype balls = world.getBalls();
+            for (int row = 0; row < balls.size(); row++) {
+                if (balls.row(balls.handle(row)) != row) {
+                    fail("ball " + row + " is not found by its handle");
+                }
+            }
+        }
+
+        Archetype balls = world.getBalls();
+        Archetype powerUps = world.getPowerUps();
+        // Within a step, MANY_BALLS may add 3 balls that are lost before it ends
+        if (balls.getCapacity() > Math.max(16, 2 * (peakBalls + 3))
+                || powerUps.getCapacity() > Math.max(16, 2 * (peakPowerUps + 1))) {
+            fail(balls.getCapacity() + " ball and " + powerUps.getCapacity() + " power-up rows for peaks of "
+                    + peakBalls + " and " + peakPowerUps);
+        }
+        if (metrics.getEntitiesCreated() != balls.getCapacity() + powerUps.getCapacity()
+                || metrics.getPowerUpsAlive() != powerUps.size()
+                || metrics.getBallsPooled() != balls.getCapacity() - balls.size()) {
+            fail("metrics did not get the table sizes");
+        }
+        System.out.printf("%d power-ups caught: %d ball and %d power-up rows (peaks %d and %d)%n",
+                collected[0], balls.getCapacity(), powerUps.getCapacity(), peakBalls, peakPowerUps);
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,142 @@
+/*******************************************************************
+ * CLASS: AudioMixerCheck                                         *
+ * DESCRIPTION:                                                   *
+ * Runs the AudioMixer offline (no audio device needed) on the    *
+ * game's sound files and checks that:                            *
+ *    - a file loaded twice is decoded only once;                 *
+ *    - two overlapping copies of a sound mix to twice the        *
+ *      amplitude (clipped), instead of the second restarting the *
+ *      first as a rewound Clip did;                              *
+ *    - a burst of effects never uses more than MAX_VOICES voices *
+ *      and steals the oldest ones.                               *
+ * Then it times mixing a full voice pool against the real-time   *
+ * budget of one chunk. Exits with status 1 on a failed check.    *
+ *                                                                *
+ * USAGE (from the project root):                                 *
+ *    javac -d out src/*.java bench/*.java                        *
+ *    java -cp out AudioMixerCheck                                *
+ *******************************************************************/
+import java.io.File;
+import java.util.Arrays;
+
+public class AudioMixerCheck {
+    private static final int CHUNK_BYTES = AudioMixer.CHUNK_FRAMES * AudioMixer.CHANNELS * 2;
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Loads every sound in src/sounds and runs the checks.        *
+     * PARAMETERS:                                                 *
+     *    - String[] args: Command-line arguments (not used).      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) {
+        AudioMixer mixer = new AudioMixer();
+        File[] files = new File("src/sounds").listFiles();
+        if (files == null || files.length == 0) {
+            System.out.println("No sounds in src/sounds; run from the project root");
+            System.exit(1);
+        }
+        Arrays.sort(files);
+        int[] sounds = new int[files.length];
+        long start = System.nanoTime();
+        for (int i = 0; i < files.length; i++) {
+            sounds[i] = mixer.load("sounds/" + files[i].getName());
+        }
+        System.out.printf("decoded %d sounds in %.1f ms%n", files.length, (System.nanoTime() - start) / 1e6);
+        if (mixer.load("sounds/" + files[0].getName()) != sounds[0]) {
+            fail("loading a file twice decoded it again");
+        }
+
+        byte[] reference = new byte[CHUNK_BYTES];
+        byte[] out = new byte[CHUNK_BYTES];
+
+        // One voice up to its first audible chunk, then two overlapping
+        // voices of the same sound up to the same chunk
+        mixer.play(sounds[0]);
+        int audible = 0;
+        do {
+            mixer.render(reference);
+            audible++;
+        } while (isSilent(reference) && audible < 1000);
+        mixer.stop(sounds[0]);
+        mixer.render(out);
+        mixer.play(sounds[0]);
+        mixer.play(sounds[0]);
+        for (int i = 0; i < audible; i++) {
+            mixer.render(out);
+        }
+        if (mixer.getActiveVoices() != 2) {
+            fail("expected 2 overlapping voices, found " + mixer.getActiveVoices());
+        }
+        for (int i = 0; i < CHUNK_BYTES; i += 2) {
+            int one = sample(reference, i);
+            int two = sample(out, i);
+            if (two != Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, 2 * one))) {
+                fail("overlapping voices do not add up at sample " + i / 2);
+            }
+        }
+        mixer.stop(sounds[0]);
+        mixer.render(out);
+
+        // A burst: three times as many effects as voices in one chunk
+        for (int i = 0; i < 3 * AudioMixer.MAX_VOICES; i++) {
+            mixer.play(sounds[i % sounds.length]);
+        }
+        mixer.render(out);
+        if (mixer.getActiveVoices() != AudioMixer.MAX_VOICES) {
+            fail("burst uses " + mixer.getActiveVoices() + " voices, expected " + AudioMixer.MAX_VOICES);
+        }
+        System.out.printf("burst of %d effects: %d voices, %d stolen%n",
+                3 * AudioMixer.MAX_VOICES, mixer.getActiveVoices(), mixer.getStolenVoices());
+
+        // Mixing cost with every voice busy
+        for (int i = 0; i < 20_000; i++) {
+            keepFull(mixer, sounds, i);
+            mixer.render(out);
+        }
+        int chunks = 50_000;
+        start = System.nanoTime();
+        for (int i = 0; i < chunks; i++) {
+            keepFull(mixer, sounds, i);
+            mixer.render(out);
+        }
+        double chunkNanos = (System.nanoTime() - start) / (double) chunks;
+        double budgetNanos = AudioMixer.CHUNK_FRAMES / AudioMixer.SAMPLE_RATE * 1e9;
+        System.out.printf("mixing %d voices: %.1f us per %d-frame chunk, %.2f%% of real time%n",
+                AudioMixer.MAX_VOICES, chunkNanos / 1000, AudioMixer.CHUNK_FRAMES, 100 * chunkNanos / budgetNanos);
+    }
+
+    /***************************************************************
+     * METHOD: keepFull(AudioMixer mixer, int[] sounds, int i)     *
+     * DESCRIPTION:                                                *
+     * Starts another effect every chunk, so the pool stays full   *
+     * and voices keep getting stolen, as in a hectic game.        *
+     * PARAMETERS:                                                 *
+     *    - AudioMixer mixer: The mixer.                           *
+     *    - int[] sounds: Loaded sound ids.                        *
+     *    - int i: Chunk number.                                   *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private static void keepFull(AudioMixer mixer, int[] sounds, int i) {
+        mixer.play(sounds[i % sounds.length]);
+    }
+
+    private static boolean isSilent(byte[] data) {
+        for (byte b : data) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int sample(byte[] data, int index) {
+        return (short) ((data[index] & 0xFF) | (data[index + 1] << 8));
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+}
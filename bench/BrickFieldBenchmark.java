@@ -0,0 +1,212 @@
+/*******************************************************************
+ * CLASS: BrickFieldBenchmark                                     *
+ * DESCRIPTION:                                                   *
+ * Compares the primitive-column `BrickField` with the object      *
+ * store it replaced: an ArrayList of bricks that each own a      *
+ * Rectangle and a Color, removed with List.remove (O(n) search   *
+ * and shift) and with `!iterator().hasNext()` as the win check.  *
+ * Two workloads are timed for 1k, 10k and 100k bricks:           *
+ *    - render: read position and color of every live brick, as  *
+ *      paintComponent does each frame, with half the bricks gone;*
+ *    - clear:  destroy every brick in random order, checking for *
+ *      a win after each one, as the game does on every hit.      *
+ * Both stores must produce the same checksums.                   *
+ *                                                                *
+ * USAGE (from the project root):                                 *
+ *    javac -d out src/*.java bench/*.java                        *
+ *    java -cp out BrickFieldBenchmark                            *
+ *******************************************************************/
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class BrickFieldBenchmark {
+    private static final int[] BRICK_COUNTS = { 1_000, 10_000, 100_000 };
+    private static final int PITCH_X = BrickField.WIDTH + GameWorld.X_SPACING;
+    private static final int PITCH_Y = BrickField.HEIGHT + GameWorld.Y_SPACING;
+
+    /*******************************************************************
+     * CLASS: LegacyBrick                                             *
+     * DESCRIPTION:                                                   *
+     * A brick as the game used to store it: one object per brick     *
+     * with its own bounds and color objects.                         *
+     *******************************************************************/
+    private static final class LegacyBrick {
+        final Rectangle rect;
+        final Color color;
+        final boolean special;
+
+        LegacyBrick(int x, int y, int argb, boolean special) {
+            this.rect = new Rectangle(x, y, BrickField.WIDTH, BrickField.HEIGHT);
+            this.color = new Color(argb, true);
+            this.special = special;
+        }
+    }
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Runs both workloads for every brick count and prints the    *
+     * cost per brick of each store.                               *
+     * PARAMETERS:                                                 *
+     *    - String[] args: Command-line arguments (not used).      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) {
+        System.out.printf("%8s %14s %14s %8s %14s %14s %8s%n", "bricks",
+                "render list", "render field", "speedup", "clear list", "clear field", "speedup");
+        for (int count : BRICK_COUNTS) {
+            run(count);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: run(int brickCount)                                 *
+     * DESCRIPTION:                                                *
+     * Times both workloads on both stores for one layout size.    *
+     * PARAMETERS:                                                 *
+     *    - int brickCount: Number of bricks in the layout.        *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private static void run(int brickCount) {
+        int columns = (int) Math.ceil(Math.sqrt(brickCount));
+        int[] order = shuffledIds(brickCount, new SplittableRandom(42));
+        // Render passes scale down with size so every row takes similar time
+        int passes = Math.max(20, 20_000_000 / brickCount);
+
+        // Warm up both paths, then measure
+        for (int pass = 0; pass < 3; pass++) {
+            measure(brickCount, columns, order, passes / 10, false);
+            measure(brickCount, columns, order, passes / 10, true);
+        }
+        double[] list = measure(brickCount, columns, order, passes, false);
+        double[] field = measure(brickCount, columns, order, passes, true);
+        if (list[2] != field[2]) {
+            throw new IllegalStateException("List and field disagree for " + brickCount + " bricks");
+        }
+        System.out.printf("%8d %11.2f ns %11.2f ns %7.1fx %11.1f ns %11.1f ns %7.0fx%n", brickCount,
+                list[0], field[0], list[0] / field[0], list[1], field[1], list[1] / field[1]);
+    }
+
+    /***************************************************************
+     * METHOD: measure(int brickCount, int columns, int[] order,   *
+     *                 int passes, boolean useField)               *
+     * DESCRIPTION:                                                *
+     * Builds one store, removes half of the bricks, times the     *
+     * render passes, then times clearing the rest.                *
+     * PARAMETERS:                                                 *
+     *    - int brickCount: Number of bricks in the layout.        *
+     *    - int columns: Bricks per row.                           *
+     *    - int[] order: The order bricks are destroyed in.        *
+     *    - int passes: Number of render passes to time.           *
+     *    - boolean useField: True for BrickField, false for list. *
+     * RETURN VALUE: { render ns per brick, clear ns per brick,    *
+     *                 checksum }.                                 *
+     ***************************************************************/
+    private static double[] measure(int brickCount, int columns, int[] order, int passes, boolean useField) {
+        BrickField field = new BrickField(brickCount);
+        List<LegacyBrick> list = new ArrayList<>(brickCount);
+        LegacyBrick[] byId = new LegacyBrick[brickCount];
+        for (int id = 0; id < brickCount; id++) {
+            int x = (id % columns) * PITCH_X;
+            int y = (id / columns) * PITCH_Y;
+            int argb = 0xFF000000 | ((id * 7919) & 0xFFFFFF);
+            boolean special = id % 13 == 0;
+            if (useField) {
+                field.add(x, y, argb, special);
+            } else {
+                byId[id] = new LegacyBrick(x, y, argb, special);
+                list.add(byId[id]);
+            }
+        }
+        if (useField) {
+            field.seal(PITCH_X, PITCH_Y);
+        }
+
+        int half = brickCount / 2;
+        long checksum = 0;
+        for (int i = 0; i < half; i++) {
+            if (useField) {
+                field.remove(order[i]);
+            } else {
+                list.remove(byId[order[i]]);
+            }
+        }
+
+        long start = System.nanoTime();
+        for (int pass = 0; pass < passes; pass++) {
+            checksum += useField ? renderField(field) : renderList(list);
+        }
+        double renderNs = (System.nanoTime() - start) / ((double) passes * (brickCount - half));
+
+        start = System.nanoTime();
+        int wins = 0;
+        for (int i = half; i < brickCount; i++) {
+            if (useField) {
+                field.remove(order[i]);
+                wins += field.isEmpty() ? 1 : 0;
+            } else {
+                list.remove(byId[order[i]]);
+                wins += !list.iterator().hasNext() ? 1 : 0;
+            }
+        }
+        double clearNs = (System.nanoTime() - start) / (double) (brickCount - half);
+        checksum += wins;
+        return new double[] { renderNs, clearNs, checksum };
+    }
+
+    /***************************************************************
+     * METHOD: renderList(List<LegacyBrick> bricks)                *
+     *         renderField(BrickField bricks)                      *
+     * DESCRIPTION:                                                *
+     * One render pass: read what paintComponent needs from every  *
+     * live brick.                                                 *
+     * PARAMETERS:                                                 *
+     *    - The store to read.                                     *
+     * RETURN VALUE: A checksum of the values read.                *
+     ***************************************************************/
+    private static long renderList(List<LegacyBrick> bricks) {
+        long sum = 0;
+        for (LegacyBrick brick : bricks) {
+            sum += brick.rect.x + brick.rect.y + brick.color.getRGB() + (brick.special ? 1 : 0);
+        }
+        return sum;
+    }
+
+    private static long renderField(BrickField bricks) {
+        long sum = 0;
+        int words = bricks.aliveWords();
+        for (int w = 0; w < words; w++) {
+            for (long bits = bricks.aliveWord(w); bits != 0; bits &= bits - 1) {
+                int id = (w << 6) + Long.numberOfTrailingZeros(bits);
+                sum += bricks.getX(id) + bricks.getY(id) + bricks.getArgb(id) + (bricks.isSpecial(id) ? 1 : 0);
+            }
+        }
+        return sum;
+    }
+
+    /***************************************************************
+     * METHOD: shuffledIds(int count, SplittableRandom random)     *
+     * DESCRIPTION:                                                *
+     * Creates the ids 0 to count - 1 in random order.             *
+     * PARAMETERS:                                                 *
+     *    - int count: Number of ids.                              *
+     *    - SplittableRandom random: Source of the shuffle.        *
+     * RETURN VALUE: The shuffled ids.                             *
+     ***************************************************************/
+    private static int[] shuffledIds(int count, SplittableRandom random) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,163 @@
+/*******************************************************************
+ * CLASS: BrickGridBenchmark                                      *
+ * DESCRIPTION:                                                   *
+ * Compares the `BrickGrid` broadphase against the linear brick   *
+ * scan that `Gameplay.actionPerformed` used before the grid. A   *
+ * dense layout of 1k, 10k and 100k bricks is built with the game *
+ * brick size and spacing, and balls are dropped at random points *
+ * over it. Both methods must agree on which brick is hit.        *
+ *                                                                *
+ * USAGE (from the project root):                                 *
+ *    javac -d out src/*.java bench/*.java                        *
+ *    java -cp out BrickGridBenchmark                             *
+ *******************************************************************/
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+public class BrickGridBenchmark {
+    private static final int BRICK_WIDTH = 40;   // Same as BrickField.WIDTH
+    private static final int BRICK_HEIGHT = 20;  // Same as BrickField.HEIGHT
+    private static final int SPACING = 10;       // Same as GameWorld.X_SPACING
+    private static final int BALL_SIZE = 14;     // Default ball diameter
+    private static final int[] BRICK_COUNTS = { 1_000, 10_000, 100_000 };
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Runs the comparison for every brick count and prints the    *
+     * average cost of one ball-vs-bricks test for each method.    *
+     * PARAMETERS:                                                 *
+     *    - String[] args: Command-line arguments (not used).      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) {
+        System.out.printf("%10s %16s %16s %10s%n", "bricks", "linear ns/ball", "grid ns/ball", "speedup");
+        for (int count : BRICK_COUNTS) {
+            run(count);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: run(int brickCount)                                 *
+     * DESCRIPTION:                                                *
+     * Builds a square-ish layout with the given number of bricks  *
+     * and times both collision methods on the same ball points.   *
+     * PARAMETERS:                                                 *
+     *    - int brickCount: Number of bricks in the layout.        *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private static void run(int brickCount) {
+        int columns = (int) Math.ceil(Math.sqrt(brickCount));
+        int rowsNeeded = (brickCount + columns - 1) / columns;
+        int pitchX = BRICK_WIDTH + SPACING;
+        int pitchY = BRICK_HEIGHT + SPACING;
+
+        List<Rectangle> brickList = new ArrayList<>(brickCount);
+        BrickGrid grid = new BrickGrid(0, 0, columns * pitchX, rowsNeeded * pitchY,
+                pitchX, pitchY, BRICK_WIDTH, BRICK_HEIGHT);
+        Rectangle[] byId = new Rectangle[brickCount];
+        for (int id = 0; id < brickCount; id++) {
+            int x = (id % columns) * pitchX;
+            int y = (id / columns) * pitchY;
+            byId[id] = new Rectangle(x, y, BRICK_WIDTH, BRICK_HEIGHT);
+            brickList.add(byId[id]);
+            grid.insert(id, x, y);
+        }
+
+        // Fewer points for the big layouts so the linear scan finishes
+        int balls = Math.max(200, 20_000_000 / brickCount);
+        int[] ballX = new int[balls];
+        int[] ballY = new int[balls];
+        Random random = new Random(42);
+        for (int i = 0; i < balls; i++) {
+            ballX[i] = random.nextInt(columns * pitchX);
+            ballY[i] = random.nextInt(rowsNeeded * pitchY);
+        }
+
+        // Warm up both paths, then measure
+        long check = 0;
+        for (int pass = 0; pass < 3; pass++) {
+            check += linearScan(brickList, ballX, ballY) - gridScan(grid, byId, ballX, ballY);
+        }
+        if (check != 0) {
+            throw new IllegalStateException("Grid and linear scan disagree for " + brickCount + " bricks");
+        }
+
+        long start = System.nanoTime();
+        long linearHits = linearScan(brickList, ballX, ballY);
+        double linearNs = (System.nanoTime() - start) / (double) balls;
+
+        start = System.nanoTime();
+        long gridHits = gridScan(grid, byId, ballX, ballY);
+        double gridNs = (System.nanoTime() - start) / (double) balls;
+
+        if (linearHits != gridHits) {
+            throw new IllegalStateException("Grid and linear scan disagree for " + brickCount + " bricks");
+        }
+        System.out.printf("%10d %16.1f %16.1f %9.0fx%n", brickCount, linearNs, gridNs, linearNs / gridNs);
+    }
+
+    /***************************************************************
+     * METHOD: linearScan(List<Rectangle> bricks, int[] ballX,     *
+     *                    int[] ballY)                             *
+     * DESCRIPTION:                                                *
+     * The pre-grid collision loop: walk every brick with an       *
+     * iterator and build the ball rectangle for each test.        *
+     * PARAMETERS:                                                 *
+     *    - List<Rectangle> bricks: The brick bounding boxes.      *
+     *    - int[] ballX, ballY: Ball positions to test.            *
+     * RETURN VALUE: A checksum of the bricks that were hit.       *
+     ***************************************************************/
+    private static long linearScan(List<Rectangle> bricks, int[] ballX, int[] ballY) {
+        long sum = 0;
+        for (int i = 0; i < ballX.length; i++) {
+            int index = 0;
+            Iterator<Rectangle> iterator = bricks.iterator();
+            while (iterator.hasNext()) {
+                Rectangle brick = iterator.next();
+                if (brick.intersects(new Rectangle(ballX[i], ballY[i], BALL_SIZE, BALL_SIZE))) {
+                    sum += index + 1;
+                    break;
+                }
+                index++;
+            }
+        }
+        return sum;
+    }
+
+    /***************************************************************
+     * METHOD: gridScan(BrickGrid grid, Rectangle[] byId,          *
+     *                  int[] ballX, int[] ballY)                  *
+     * DESCRIPTION:                                                *
+     * The grid collision path: test only the candidates found in  *
+     * the cells around the ball and keep the lowest id, like      *
+     * `BrickField.findCollision`.                               *
+     * PARAMETERS:                                                 *
+     *    - BrickGrid grid: The broadphase index.                  *
+     *    - Rectangle[] byId: Brick bounding boxes by id.          *
+     *    - int[] ballX, ballY: Ball positions to test.            *
+     * RETURN VALUE: A checksum of the bricks that were hit.       *
+     ***************************************************************/
+    private static long gridScan(BrickGrid grid, Rectangle[] byId, int[] ballX, int[] ballY) {
+        long sum = 0;
+        Rectangle ball = new Rectangle(0, 0, BALL_SIZE, BALL_SIZE);
+        for (int i = 0; i < ballX.length; i++) {
+            ball.setLocation(ballX[i], ballY[i]);
+            int hit = -1;
+            int count = grid.query(ballX[i], ballY[i], BALL_SIZE, BALL_SIZE);
+            for (int c = 0; c < count; c++) {
+                int id = grid.result(c);
+                if ((hit < 0 || id < hit) && byId[id].intersects(ball)) {
+                    hit = id;
+                }
+            }
+            if (hit >= 0) {
+                sum += hit + 1;
+            }
+        }
+        return sum;
+    }
+}
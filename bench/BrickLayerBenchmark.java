@@ -0,0 +1,121 @@
+/*******************************************************************
+ * CLASS: BrickLayerBenchmark                                     *
+ * DESCRIPTION:                                                   *
+ * Checks and times the cached brick layer. Games are played with *
+ * the ball-tracking policy, and every FRAME_STEPS steps (about   *
+ * what a 60 Hz display shows) the state is drawn twice into      *
+ * offscreen images:                                              *
+ *    - cached: one BrickLayer kept for the whole game, which     *
+ *      repaints only the cells of broken bricks, then blits;     *
+ *    - full:   what every frame used to cost, background, border *
+ *      and all live bricks drawn from scratch.                   *
+ * After each broken brick the two images must be identical, or   *
+ * the program exits with status 1. Frame times are reported per  *
+ * number of live bricks: the cached column should stay flat.     *
+ *                                                                *
+ * USAGE (from the project root):                                 *
+ *    javac -d out src/*.java bench/*.java                        *
+ *    java -cp out BrickLayerBenchmark [games]                    *
+ *******************************************************************/
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+public class BrickLayerBenchmark {
+    private static final int GAME_STEPS = 30_000;  // Steps per game, in case one stalls
+    private static final int FRAME_STEPS = 3;      // Steps between drawn frames
+    private static final int BUCKET = 10;          // Live bricks per row of the report
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Plays the games, compares the images and prints the average *
+     * frame time of both ways per live brick bucket.              *
+     * PARAMETERS:                                                 *
+     *    - String[] args: [number of games].                      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int maxBricks = new GameWorld(0L).getBricks().size();
+        int buckets = maxBricks / BUCKET + 1;
+        long[] cachedNanos = new long[buckets];
+        long[] fullNanos = new long[buckets];
+        long[] frames = new long[buckets];
+
+        BufferedImage cachedImage = newImage();
+        BufferedImage fullImage = newImage();
+        int[] cachedPixels = new int[GameWorld.WIDTH * GameWorld.HEIGHT];
+        int[] fullPixels = new int[GameWorld.WIDTH * GameWorld.HEIGHT];
+        Graphics2D cachedG = cachedImage.createGraphics();
+        Graphics2D fullG = fullImage.createGraphics();
+        GameSnapshot s = new GameSnapshot();
+        int compared = 0;
+
+        for (int game = 0; game < games; game++) {
+            GameWorld world = new GameWorld(game);
+            BrickLayer layer = new BrickLayer(GameWorld.WIDTH, GameWorld.HEIGHT);
+            int lastCount = -1;
+            for (int i = 0; i < GAME_STEPS && !world.isGameWon(); i++) {
+                int input;
+                if (!world.isPlay()) {
+                    input = GameInput.ENTER;
+                } else if (i % BatchSimulator.DEFAULT_DECISION_STEPS == 0) {
+                    input = PaddlePolicy.TRACK_LOWEST_BALL.decide(world);
+                } else {
+                    input = GameInput.NONE;
+                }
+                world.step(BatchSimulator.STEP_SECONDS, input);
+                if (i % FRAME_STEPS != 0) {
+                    continue;
+                }
+                s.capture(world, i, 0);
+
+                long start = System.nanoTime();
+                layer.draw(cachedG, s, null);
+                long cached = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                new BrickLayer(GameWorld.WIDTH, GameWorld.HEIGHT).draw(fullG, s, null);
+                long full = System.nanoTime() - start;
+
+                // The first game only warms up the JIT
+                int bucket = s.getBrickCount() / BUCKET;
+                if (game > 0) {
+                    cachedNanos[bucket] += cached;
+                    fullNanos[bucket] += full;
+                    frames[bucket]++;
+                }
+
+                if (s.getBrickCount() != lastCount) {
+                    lastCount = s.getBrickCount();
+                    cachedImage.getRGB(0, 0, GameWorld.WIDTH, GameWorld.HEIGHT, cachedPixels, 0, GameWorld.WIDTH);
+                    fullImage.getRGB(0, 0, GameWorld.WIDTH, GameWorld.HEIGHT, fullPixels, 0, GameWorld.WIDTH);
+                    if (!Arrays.equals(cachedPixels, fullPixels)) {
+                        System.out.printf("game %d step %d: cached layer differs from a full redraw%n", game, i);
+                        System.exit(1);
+                    }
+                    compared++;
+                }
+            }
+        }
+        cachedG.dispose();
+        fullG.dispose();
+
+        System.out.printf("%d images identical to a full redraw%n", compared);
+        System.out.printf("%12s %10s %14s %14s%n", "live bricks", "frames", "cached", "full");
+        for (int b = buckets - 1; b >= 0; b--) {
+            if (frames[b] == 0) {
+                continue;
+            }
+            int low = b * BUCKET;
+            System.out.printf("%5d - %-4d %10d %11.1f us %11.1f us%n", low, Math.min(low + BUCKET - 1, maxBricks),
+                    frames[b], cachedNanos[b] / 1000.0 / frames[b], fullNanos[b] / 1000.0 / frames[b]);
+        }
+    }
+
+    private static BufferedImage newImage() {
+        return new BufferedImage(GameWorld.WIDTH, GameWorld.HEIGHT, BufferedImage.TYPE_INT_RGB);
+    }
+}
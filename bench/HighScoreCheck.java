@@ -0,0 +1,198 @@
+/*******************************************************************
+ * CLASS: HighScoreCheck                                          *
+ * DESCRIPTION:                                                   *
+ * Checks the saved leaderboard in a temporary directory:         *
+ *    - scores survive reopening, in order, with only the best    *
+ *      TOP kept;                                                 *
+ *    - a burst of scores is written with far fewer fsyncs than   *
+ *      scores;                                                   *
+ *    - a log record torn by a crash is cut off and every whole   *
+ *      record before it is kept;                                 *
+ *    - compaction empties the log, and a crash after writing the *
+ *      snapshot but before emptying the log adds nothing twice;  *
+ *    - getBest() costs the same however many scores were added.  *
+ *                                                                *
+ * USAGE (from the project root):                                 *
+ *    javac -d out src/*.java bench/*.java                        *
+ *    java -cp out HighScoreCheck                                 *
+ *******************************************************************/
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+public class HighScoreCheck {
+    private static final int BURST = 1_000;  // Scores added back to back
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Runs the checks and exits with status 1 on the first that   *
+     * fails.                                                      *
+     * PARAMETERS:                                                 *
+     *    - String[] args: Command-line arguments (not used).      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("scores");
+        try {
+            checkReopen(dir.resolve("reopen"));
+            checkBatching(dir.resolve("batching"));
+            checkTornRecord(dir.resolve("torn"));
+            checkCompaction(dir.resolve("compaction"));
+            checkBest(dir.resolve("best"));
+            System.out.println("all high score checks passed");
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    // Scores are kept in order across a restart
+    private static void checkReopen(Path dir) throws IOException {
+        HighScoreStore store = new HighScoreStore(dir);
+        int[] added = { 40, 120, 0, 120, 75, 10, 300, 5, 60, 90, 15, 200, 1 };
+        for (int score : added) {
+            store.add(score);
+        }
+        store.close();
+        int[] expected = { 300, 200, 120, 120, 90, 75, 60, 40, 15, 10 };
+        HighScoreStore reopened = new HighScoreStore(dir);
+        if (!Arrays.equals(reopened.getScores(), expected) || reopened.getBest() != 300) {
+            fail("reopened leaderboard is " + Arrays.toString(reopened.getScores()));
+        }
+        reopened.close();
+        System.out.println("leaderboard survives reopening: " + Arrays.toString(expected));
+    }
+
+    // A burst of adds shares fsyncs
+    private static void checkBatching(Path dir) throws IOException {
+        HighScoreStore store = new HighScoreStore(dir);
+        long start = System.nanoTime();
+        for (int i = 0; i < BURST; i++) {
+            store.add(i);
+        }
+        long addNanos = System.nanoTime() - start;
+        store.flush();
+        long flushNanos = System.nanoTime() - start;
+        int syncs = store.getSyncCount();
+        store.close();
+        if (syncs >= BURST / 2) {
+            fail(BURST + " scores took " + syncs + " fsyncs");
+        }
+        System.out.printf("%d scores: add %.2f us each on the caller, %d fsyncs, all on disk after %.1f ms%n",
+                BURST, addNanos / 1e3 / BURST, syncs, flushNanos / 1e6);
+    }
+
+    // A half-written record at the end of the log is dropped
+    private static void checkTornRecord(Path dir) throws IOException {
+        HighScoreStore store = new HighScoreStore(dir);
+        store.add(50);
+        store.add(70);
+        store.close();
+        Path log = dir.resolve(HighScoreStore.LOG_NAME);
+        long whole = Files.size(log);
+        Files.write(log, new byte[] { 0, 0, 0, 0, 0, 0, 0, 3, 0, 0, 0x27 }, StandardOpenOption.APPEND);
+
+        HighScoreStore reopened = new HighScoreStore(dir);
+        if (!Arrays.equals(reopened.getScores(), new int[] { 70, 50 }) || Files.size(log) != whole) {
+            fail("torn record: leaderboard " + Arrays.toString(reopened.getScores()) + ", log " + Files.size(log));
+        }
+        reopened.add(60);
+        reopened.close();
+        if (!Arrays.equals(new HighScoreStore(dir).getScores(), new int[] { 70, 60, 50 })) {
+            fail("score added after a torn record was lost");
+        }
+        System.out.println("torn log record cut off, earlier scores kept");
+    }
+
+    // Compaction, and a crash between the snapshot and emptying the log
+    private static void checkCompaction(Path dir) throws IOException {
+        SplittableRandom random = new SplittableRandom(3);
+        int[] all = new int[HighScoreStore.COMPACT_AFTER - 1];
+        HighScoreStore store = new HighScoreStore(dir);
+        for (int i = 0; i < all.length; i++) {
+            all[i] = random.nextInt(100_000);
+            store.add(all[i]);
+        }
+        store.close();
+
+        // Keep the full log as it was just before compacting
+        Path log = dir.resolve(HighScoreStore.LOG_NAME);
+        Path savedLog = dir.resolve("saved.log");
+        Files.copy(log, savedLog);
+
+        store = new HighScoreStore(dir);
+        store.add(5);
+        store.close();
+        if (Files.size(log) != 5 || !Files.exists(dir.resolve(HighScoreStore.SNAPSHOT_NAME))) {
+            fail("log was not compacted: " + Files.size(log) + " bytes");
+        }
+        int[] expected = top(all);
+        HighScoreStore reopened = new HighScoreStore(dir);
+        if (!Arrays.equals(reopened.getScores(), expected)) {
+            fail("leaderboard changed by compaction: " + Arrays.toString(reopened.getScores()));
+        }
+        reopened.close();
+
+        // Crash after the snapshot moved in, before the log was emptied
+        Files.copy(savedLog, log, StandardCopyOption.REPLACE_EXISTING);
+        reopened = new HighScoreStore(dir);
+        if (!Arrays.equals(reopened.getScores(), expected)) {
+            fail("old log records were added twice: " + Arrays.toString(reopened.getScores()));
+        }
+        reopened.close();
+        System.out.println("compacted after " + HighScoreStore.COMPACT_AFTER
+                + " scores; stale log after a crash adds nothing twice");
+    }
+
+    // Reading the best score does not depend on how many were added
+    private static void checkBest(Path dir) throws IOException {
+        HighScoreStore store = new HighScoreStore(dir);
+        long few = timeBest(store);
+        for (int i = 0; i < 100_000; i++) {
+            store.add(i);
+        }
+        long many = timeBest(store);
+        store.close();
+        if (store.getBest() != 99_999) {
+            fail("best is " + store.getBest());
+        }
+        System.out.printf("getBest(): %.2f ns with no scores, %.2f ns after 100000%n", few / 1e6, many / 1e6);
+    }
+
+    // Nanoseconds for a million reads of the best score
+    private static long timeBest(HighScoreStore store) {
+        long sum = 0;
+        for (int i = 0; i < 2_000_000; i++) {
+            sum += store.getBest();  // Warm up
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < 1_000_000; i++) {
+            sum += store.getBest();
+        }
+        long nanos = System.nanoTime() - start;
+        return (sum == 42) ? 0 : nanos;
+    }
+
+    private static int[] top(int[] scores) {
+        int[] sorted = scores.clone();
+        Arrays.sort(sorted);
+        int[] top = new int[HighScoreStore.TOP];
+        for (int i = 0; i < top.length; i++) {
+            top[i] = sorted[sorted.length - 1 - i];
+        }
+        return top;
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,185 @@
+/*******************************************************************
+ * CLASS: LevelCheck                                              *
+ * DESCRIPTION:                                                   *
+ * Checks the level pipeline and prints how long it takes:        *
+ *    - every text level in src/levels parses, and compiling it   *
+ *      to the binary form and reading that back gives the same   *
+ *      level;                                                    *
+ *    - the first level file builds exactly the layout of the     *
+ *      built-in classic game for many seeds, so switching the    *
+ *      game to level files changed nothing about level 1;        *
+ *    - a game of the listed levels stops after each one, starts  *
+ *      the next on ENTER with score and lives kept, is won only  *
+ *      after the last one, and restarts at level 1;              *
+ *    - with the level list, the step that starts the next level  *
+ *      finds it prefetched and does not wait for a file.         *
+ *                                                                *
+ * USAGE (from the project root):                                 *
+ *    javac -d out src/*.java bench/*.java                        *
+ *    java -cp out LevelCheck                                     *
+ *******************************************************************/
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class LevelCheck {
+    private static final double STEP_SECONDS = 0.005;  // Step length of the game loop
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Runs the checks and exits with status 1 on the first that   *
+     * fails.                                                      *
+     * PARAMETERS:                                                 *
+     *    - String[] args: Command-line arguments (not used).      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) throws IOException {
+        checkRoundTrip();
+        checkClassicLayout();
+        checkProgression();
+        checkPrefetch();
+        System.out.println("all level checks passed");
+    }
+
+    // Text -> Level -> binary -> Level gives the same level
+    private static void checkRoundTrip() throws IOException {
+        File[] files = new File("src/levels").listFiles((dir, name) ->
+                name.endsWith(LevelLoader.TEXT) && !name.equals(Levels.LIST_NAME));
+        if (files == null || files.length == 0) {
+            fail("no levels in src/levels; run from the project root");
+        }
+        Arrays.sort(files);
+        long parseNanos = 0;
+        long readNanos = 0;
+        for (File file : files) {
+            byte[] text = Files.readAllBytes(file.toPath());
+            for (int i = 0; i < 1000; i++) {
+                LevelLoader.read(new ByteArrayInputStream(LevelLoader.compile(text, file.getPath())), file.getPath());
+            }
+            long start = System.nanoTime();
+            byte[] binary = LevelLoader.compile(text, file.getPath());
+            parseNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Level compiled = LevelLoader.read(new ByteArrayInputStream(binary), file.getPath());
+            readNanos += System.nanoTime() - start;
+
+            ByteArrayOutputStream again = new ByteArrayOutputStream();
+            LevelLoader.write(compiled, again);
+            if (!Arrays.equals(binary, again.toByteArray())) {
+                fail(file + ": compiled level does not read back the same");
+            }
+            System.out.printf("%-20s %-10s %2d rows %3d bricks, %d bytes compiled%n", file.getName(),
+                    compiled.getName(), compiled.getRowCounts().length, compiled.getBrickCount(), binary.length);
+        }
+        System.out.printf("warm: parse+compile %.1f us, read compiled %.1f us per level%n",
+                parseNanos / 1e3 / files.length, readNanos / 1e3 / files.length);
+    }
+
+    // Level 1 from the files equals the built-in classic layout
+    private static void checkClassicLayout() {
+        Levels levels = Levels.load();
+        for (long seed = 0; seed < 200; seed++) {
+            BrickField classic = new GameWorld(seed).getBricks();
+            BrickField loaded = new GameWorld(new GameRandom(seed), levels).getBricks();
+            if (classic.getCount() != loaded.getCount()) {
+                fail("seed " + seed + ": level 1 has " + loaded.getCount() + " bricks, classic " + classic.getCount());
+            }
+            for (int id = 0; id < classic.getCount(); id++) {
+                if (classic.getX(id) != loaded.getX(id) || classic.getY(id) != loaded.getY(id)
+                        || classic.getArgb(id) != loaded.getArgb(id) || classic.isSpecial(id) != loaded.isSpecial(id)) {
+                    fail("seed " + seed + ": brick " + id + " of level 1 differs from the classic layout");
+                }
+            }
+        }
+        System.out.println("level 1 matches the classic layout for 200 seeds");
+    }
+
+    // Levels are played one after the other. Clearing a level takes the
+    // autopilot longer than this check should, so each level is played
+    // for a while and then its remaining bricks are removed directly,
+    // which the world sees as a cleared level.
+    private static void checkProgression() {
+        Levels levels = Levels.load();
+        GameWorld world = new GameWorld(new GameRandom(8), levels);
+        int[] cleared = new int[1];
+        world.setListener(new GameWorld.Listener() {
+            @Override
+            public void levelCleared(int level, int score) {
+                cleared[0]++;
+            }
+        });
+
+        world.step(STEP_SECONDS, GameInput.ENTER);
+        int last = levels.count() - 1;
+        for (int level = 0; level <= last; level++) {
+            if (world.getLevel() != level || !world.isPlay()) {
+                fail("level " + (level + 1) + " did not start");
+            }
+            if (world.getBricks().size() != levels.get(level).getBrickCount()) {
+                fail("level " + (level + 1) + " was not built from its file");
+            }
+            for (int step = 0; step < 4000 && world.isPlay(); step++) {
+                world.step(STEP_SECONDS, step % 4 == 0 ? PaddlePolicy.TRACK_LOWEST_BALL.decide(world) : GameInput.NONE);
+            }
+            if (!world.isPlay()) {
+                fail("the autopilot lost level " + (level + 1) + "; pick another seed");
+            }
+            int score = world.getScore();
+            BrickField bricks = world.getBricks();
+            for (int id = bricks.nextAlive(0); id >= 0; id = bricks.nextAlive(id + 1)) {
+                bricks.remove(id);
+            }
+            world.step(STEP_SECONDS, GameInput.NONE);
+            if (level < last) {
+                if (!world.isLevelCleared() || world.isGameWon() || world.isPlay()) {
+                    fail("level " + (level + 1) + " did not stop as cleared");
+                }
+                world.step(STEP_SECONDS, GameInput.ENTER);
+                if (world.getScore() != score || world.getLives() == 0) {
+                    fail("score or lives were not kept when level " + (level + 2) + " started");
+                }
+            } else if (!world.isGameWon() || world.isLevelCleared()) {
+                fail("the last level did not win the game");
+            }
+        }
+        if (cleared[0] != last) {
+            fail(cleared[0] + " levelCleared events, expected " + last);
+        }
+        world.step(STEP_SECONDS, GameInput.ENTER);
+        if (world.getLevel() != 0 || world.getScore() != 0 || !world.isPlay()) {
+            fail("ENTER after winning did not restart at level 1");
+        }
+        System.out.println(levels.count() + " levels played in order, won after the last, restarted at level 1");
+    }
+
+    // Starting the next listed level does not wait for its file
+    private static void checkPrefetch() {
+        Levels levels = Levels.load();
+        if (levels.count() < 2) {
+            fail("the level list needs at least two levels");
+        }
+        long start = System.nanoTime();
+        new GameWorld(new GameRandom(1), levels);   // Prefetches level 2
+        long first = System.nanoTime() - start;
+        levels.get(1);                              // Wait for the prefetch, off the timed path
+        start = System.nanoTime();
+        Level second = levels.get(1);
+        long cached = System.nanoTime() - start;
+        Levels cold = Levels.load();
+        start = System.nanoTime();
+        cold.get(1);
+        long uncached = System.nanoTime() - start;
+        System.out.printf("level 2 (%s): %.1f us from cache, %.1f us loaded on demand; world creation %.1f us%n",
+                second.getName(), cached / 1e3, uncached / 1e3, first / 1e3);
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+}
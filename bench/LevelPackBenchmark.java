@@ -0,0 +1,136 @@
+/*******************************************************************
+ * CLASS: LevelPackBenchmark                                      *
+ * DESCRIPTION:                                                   *
+ * Writes a large pack of generated levels and checks that        *
+ * opening it and getting any level cost the same whatever the    *
+ * size of the pack:                                              *
+ *    - opening maps the file and reads only the header;          *
+ *    - random levels read back equal to the generated ones;      *
+ *    - a random get is timed against the first and last levels   *
+ *      and against decoding every level in the pack.             *
+ *                                                                *
+ * USAGE (from the project root):                                 *
+ *    javac -d out src/*.java bench/*.java                        *
+ *    java -cp out LevelPackBenchmark [levels]                    *
+ *******************************************************************/
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class LevelPackBenchmark {
+    private static final int DEFAULT_LEVELS = 100_000;  // Levels in the generated pack
+    private static final int SAMPLES = 10_000;          // Random levels read back
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Runs the benchmark and exits with status 1 if a level reads *
+     * back wrong.                                                 *
+     * PARAMETERS:                                                 *
+     *    - String[] args: Optionally the number of levels.        *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) throws IOException {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_LEVELS;
+        SplittableRandom random = new SplittableRandom(17);
+        List<Level> levels = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            levels.add(generate("Level " + (i + 1), random));
+        }
+
+        Path file = Files.createTempFile("levels", ".pack");
+        try {
+            long start = System.nanoTime();
+            try (OutputStream out = Files.newOutputStream(file)) {
+                LevelPack.write(levels, out);
+            }
+            long writeNanos = System.nanoTime() - start;
+            System.out.printf("%d levels, %d bytes, written in %.1f ms%n",
+                    count, Files.size(file), writeNanos / 1e6);
+
+            LevelPack.map(file);                    // Load the classes, off the timed path
+            start = System.nanoTime();
+            LevelPack pack = LevelPack.map(file);
+            long openNanos = System.nanoTime() - start;
+            if (pack.count() != count) {
+                fail("pack holds " + pack.count() + " levels, expected " + count);
+            }
+
+            // Warm up, then read random levels and compare them
+            for (int i = 0; i < SAMPLES; i++) {
+                pack.get(random.nextInt(count));
+            }
+            int[] picks = new int[SAMPLES];
+            for (int i = 0; i < SAMPLES; i++) {
+                picks[i] = random.nextInt(count);
+            }
+            start = System.nanoTime();
+            for (int index : picks) {
+                pack.get(index);
+            }
+            long randomNanos = (System.nanoTime() - start) / SAMPLES;
+            for (int index : picks) {
+                Level read = pack.get(index);
+                if (!same(read, levels.get(index)) || pack.getBrickCount(index) != read.getBrickCount()) {
+                    fail("level " + index + " does not read back the same");
+                }
+            }
+
+            long firstNanos = time(pack, 0);
+            long lastNanos = time(pack, count - 1);
+
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                pack.get(i);
+            }
+            long allNanos = System.nanoTime() - start;
+
+            System.out.printf("open %.1f us; get: random %.2f us, first %.2f us, last %.2f us%n",
+                    openNanos / 1e3, randomNanos / 1e3, firstNanos / 1e3, lastNanos / 1e3);
+            System.out.printf("decoding all %d levels: %.1f ms%n", count, allNanos / 1e6);
+            System.out.println(SAMPLES + " random levels read back the same");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // A random level within the limits LevelLoader checks
+    private static Level generate(String name, SplittableRandom random) {
+        int rows = 1 + random.nextInt(GameWorld.MAX_ROWS);
+        int[] rowCounts = new int[rows];
+        int[] colors = new int[rows];
+        boolean[] special = new boolean[rows];
+        for (int row = 0; row < rows; row++) {
+            rowCounts[row] = 1 + random.nextInt(GameWorld.MAX_ROW_BRICKS);
+            colors[row] = random.nextInt(4) == 0 ? Level.RANDOM_COLOR : 0xFF000000 | random.nextInt(0x1000000);
+            special[row] = random.nextBoolean();
+        }
+        return new Level(name, rowCounts, colors, special);
+    }
+
+    // Average time of getting one level, over many gets
+    private static long time(LevelPack pack, int index) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            pack.get(index);
+        }
+        return (System.nanoTime() - start) / 1000;
+    }
+
+    private static boolean same(Level a, Level b) {
+        return a.getName().equals(b.getName())
+                && Arrays.equals(a.getRowCounts(), b.getRowCounts())
+                && Arrays.equals(a.getColors(), b.getColors())
+                && Arrays.equals(a.getSpecialBricks(), b.getSpecialBricks());
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,154 @@
+/*******************************************************************
+ * CLASS: LoopCheck                                               *
+ * DESCRIPTION:                                                   *
+ * Checks the GameLoop against a real GameWorld on its own        *
+ * thread:                                                        *
+ *    - an idle world (the welcome screen) is stepped but never   *
+ *      published, so nothing repaints behind it;                 *
+ *    - a paddle move publishes once, then the world is idle      *
+ *      again;                                                    *
+ *    - a started game publishes after every batch of steps;      *
+ *    - queued presses are applied one per step in order, so five *
+ *      LEFT presses move the paddle five times and LEFT, RIGHT   *
+ *      reach the world as two steps, and a full queue drops the  *
+ *      presses past its capacity (with the default 5 ms step).   *
+ *                                                                *
+ * USAGE (from the project root):                                 *
+ *    javac -d out src/*.java bench/*.java                        *
+ *    java -cp out LoopCheck                                      *
+ *******************************************************************/
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LoopCheck {
+    private static final long STEP_NANOS = (long) (BatchSimulator.STEP_SECONDS * 1e9);
+    private static final long WAIT_MILLIS = 200;  // Time given to the loop per check
+    private static final int CAPACITY = 16;       // GameLoop.INPUT_CAPACITY
+
+    /***************************************************************
+     * CLASS: CountingSimulation                                   *
+     * DESCRIPTION:                                                *
+     * Steps a GameWorld, keeps the input of the first steps and   *
+     * counts the publishes instead of drawing them.               *
+     ***************************************************************/
+    private static class CountingSimulation implements GameLoop.Simulation {
+        final GameWorld world = new GameWorld(7);
+        final AtomicInteger published = new AtomicInteger();
+        final int[] inputs = new int[64]; // Input of the first steps, read after stop()
+        int steps = 0;
+
+        @Override
+        public boolean step(double dt, int input) {
+            if (steps < inputs.length) {
+                inputs[steps] = input;
+            }
+            steps++;
+            return world.step(dt, input);
+        }
+
+        @Override
+        public void publish(long stateNanos) {
+            published.incrementAndGet();
+        }
+    }
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Runs the checks and exits with status 1 on the first that   *
+     * fails.                                                      *
+     * PARAMETERS:                                                 *
+     *    - String[] args: Command-line arguments (not used).      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) throws InterruptedException {
+        checkIdle();
+        checkPresses();
+        System.out.println("all loop checks passed");
+    }
+
+    // Idle, one move, idle again, then a running game
+    private static void checkIdle() throws InterruptedException {
+        CountingSimulation simulation = new CountingSimulation();
+        GameLoop loop = new GameLoop(simulation, STEP_NANOS);
+        loop.start();
+
+        Thread.sleep(WAIT_MILLIS);
+        if (loop.getStepCount() == 0) {
+            fail("the loop did not step");
+        }
+        if (simulation.published.get() != 0) {
+            fail("an idle world was published " + simulation.published.get() + " times");
+        }
+        System.out.println("idle: " + loop.getStepCount() + " steps, nothing published");
+
+        loop.submit(GameInput.LEFT);
+        Thread.sleep(WAIT_MILLIS);
+        if (simulation.published.get() != 1) {
+            fail("a paddle move was published " + simulation.published.get() + " times, not once");
+        }
+        System.out.println("move: published once");
+
+        loop.submit(GameInput.ENTER);
+        Thread.sleep(WAIT_MILLIS);
+        loop.stop();
+        int published = simulation.published.get() - 1;
+        if (published < 2) {
+            fail("a started game was published only " + published + " times");
+        }
+        System.out.println("play: published " + published + " times in " + WAIT_MILLIS + " ms");
+    }
+
+    // Presses queued before the loop starts, so none is applied early
+    private static void checkPresses() {
+        CountingSimulation simulation = run(GameInput.LEFT, GameInput.LEFT, GameInput.LEFT,
+                GameInput.LEFT, GameInput.LEFT);
+        int moved = 310 - simulation.world.getPlayerX();
+        if (moved != 5 * 20) {
+            fail("five LEFT presses moved the paddle " + moved + " px, not 100");
+        }
+        System.out.println("repeat: five presses moved the paddle " + moved + " px");
+
+        simulation = run(GameInput.LEFT, GameInput.RIGHT);
+        if (simulation.inputs[0] != GameInput.LEFT || simulation.inputs[1] != GameInput.RIGHT
+                || simulation.inputs[2] != GameInput.NONE) {
+            fail("LEFT, RIGHT reached the world as " + simulation.inputs[0] + ", "
+                    + simulation.inputs[1] + ", " + simulation.inputs[2]);
+        }
+        System.out.println("order: LEFT, RIGHT applied in two steps");
+
+        int[] many = new int[40];
+        Arrays.fill(many, GameInput.LEFT);
+        simulation = run(many);
+        int applied = 0;
+        for (int input : simulation.inputs) {
+            if (input != GameInput.NONE) applied++;
+        }
+        if (applied != CAPACITY) {
+            fail(applied + " of " + many.length + " queued presses were applied, not " + CAPACITY);
+        }
+        System.out.println("full: " + applied + " of " + many.length + " presses kept");
+    }
+
+    // Queues the presses, then runs a fresh loop for WAIT_MILLIS
+    private static CountingSimulation run(int... inputs) {
+        CountingSimulation simulation = new CountingSimulation();
+        GameLoop loop = new GameLoop(simulation, STEP_NANOS);
+        for (int input : inputs) {
+            loop.submit(input);
+        }
+        loop.start();
+        try {
+            Thread.sleep(WAIT_MILLIS);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        loop.stop();
+        return simulation;
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,179 @@
+/*******************************************************************
+ * CLASS: MetricsCheck                                            *
+ * DESCRIPTION:                                                   *
+ * Checks the timing instrumentation and prints what it costs:    *
+ *    - LatencyHistogram percentiles are within 1/32 of the exact *
+ *      percentiles of the same samples, and a window taken with  *
+ *      copyTo/subtract holds only the samples recorded since;    *
+ *    - recording a sample takes nanoseconds;                     *
+ *    - a measured GameWorld counts every played step and every   *
+ *      brick hit, and costs little more per step than an         *
+ *      unmeasured one;                                           *
+ *    - the counters and histograms can be read over JMX, and the *
+ *      debug overlay draws.                                      *
+ *                                                                *
+ * USAGE (from the project root):                                 *
+ *    javac -d out src/*.java bench/*.java                        *
+ *    java -cp out MetricsCheck                                   *
+ *******************************************************************/
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class MetricsCheck {
+    private static final int SAMPLES = 1_000_000;    // Samples for the accuracy check
+    private static final int STEPS = 200_000;        // World steps per timed run
+    private static final double STEP_SECONDS = 0.005;
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Runs the checks and exits with status 1 on the first that   *
+     * fails.                                                      *
+     * PARAMETERS:                                                 *
+     *    - String[] args: Command-line arguments (not used).      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) throws Exception {
+        checkAccuracy();
+        checkRecordCost();
+        checkWorld();
+        checkJmx();
+        System.out.println("all metrics checks passed");
+    }
+
+    // Percentiles agree with sorting the samples
+    private static void checkAccuracy() {
+        SplittableRandom random = new SplittableRandom(5);
+        LatencyHistogram histogram = new LatencyHistogram("accuracy");
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            // Mostly microseconds with a long tail, like step times
+            samples[i] = (long) Math.exp(6 + 2.5 * random.nextDouble() + (random.nextInt(100) == 0 ? 6 : 0));
+            histogram.record(samples[i]);
+        }
+        Arrays.sort(samples);
+        for (double percentile : new double[] { 50, 90, 99, 99.9, 100 }) {
+            long exact = samples[(int) Math.ceil(SAMPLES * percentile / 100) - 1];
+            long value = histogram.getValueAtPercentile(percentile);
+            if (value < exact || value > exact + exact / 32 + 1) {
+                fail("p" + percentile + " is " + value + " ns, exact " + exact + " ns");
+            }
+        }
+        if (histogram.getCount() != SAMPLES || histogram.getMax() < samples[SAMPLES - 1]) {
+            fail("count or max wrong: " + histogram);
+        }
+
+        LatencyHistogram earlier = new LatencyHistogram("earlier");
+        LatencyHistogram window = new LatencyHistogram("window");
+        histogram.copyTo(earlier);
+        for (int i = 0; i < 1000; i++) {
+            histogram.record(5_000_000);
+        }
+        histogram.copyTo(window);
+        window.subtract(earlier);
+        if (window.getCount() != 1000 || window.getValueAtPercentile(1) < 5_000_000) {
+            fail("window holds " + window);
+        }
+        System.out.println("percentiles within 1/32 of exact over " + SAMPLES + " samples; windows subtract");
+    }
+
+    // Cost of one record() on this thread
+    private static void checkRecordCost() {
+        LatencyHistogram histogram = new LatencyHistogram("cost");
+        long sum = 0;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < SAMPLES; i++) {
+                histogram.record(i & 0xFFFFF);
+            }
+            sum = System.nanoTime() - start;
+        }
+        System.out.printf("record(): %.1f ns per sample%n", (double) sum / SAMPLES);
+    }
+
+    // Counts and overhead of a measured world
+    private static void checkWorld() {
+        timeWorld(null, new long[1]);  // Warm up both paths
+        timeWorld(new GameMetrics(), new long[1]);
+
+        long plain = timeWorld(null, new long[1]);
+        GameMetrics metrics = new GameMetrics();
+        long[] heard = new long[1];
+        long timed = timeWorld(metrics, heard);
+
+        if (metrics.getBricksHit() != heard[0]) {
+            fail(metrics.getBricksHit() + " bricks counted, " + heard[0] + " brickHit events");
+        }
+        if (metrics.getTicks() == 0 || metrics.getPhysics().getCount() != metrics.getTicks()
+                || metrics.getPowerUps().getCount() != metrics.getTicks()) {
+            fail("step phases were not all recorded: " + metrics.getTicks() + " ticks");
+        }
+        System.out.printf("world step: %.2f us unmeasured, %.2f us measured; %d played steps, %d bricks hit%n",
+                plain / 1e3 / STEPS, timed / 1e3 / STEPS, metrics.getTicks(), metrics.getBricksHit());
+        for (LatencyHistogram histogram : new LatencyHistogram[] { metrics.getTick(), metrics.getPhysics(),
+                metrics.getBricks(), metrics.getWinCheck(), metrics.getPowerUps() }) {
+            System.out.println("  " + histogram);
+        }
+    }
+
+    // Plays STEPS steps with the autopilot, restarting finished games
+    private static long timeWorld(GameMetrics metrics, long[] bricksHit) {
+        GameWorld world = new GameWorld(11);
+        world.setMetrics(metrics);
+        world.setListener(new GameWorld.Listener() {
+            @Override
+            public void brickHit(int id, boolean special) {
+                bricksHit[0]++;
+            }
+        });
+        long start = System.nanoTime();
+        for (int step = 0; step < STEPS; step++) {
+            int input = !world.isPlay() ? GameInput.ENTER
+                    : (step % 4 == 0) ? PaddlePolicy.TRACK_LOWEST_BALL.decide(world) : GameInput.NONE;
+            world.step(STEP_SECONDS, input);
+        }
+        return System.nanoTime() - start;
+    }
+
+    // The shared metrics are readable over JMX, and the overlay draws
+    private static void checkJmx() throws Exception {
+        GameMetrics metrics = GameMetrics.shared();
+        metrics.getTick().record(12_000);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Object gcCount = server.getAttribute(new ObjectName("BrickBreaker:type=Metrics"), "GcCount");
+        Object ticks = server.getAttribute(new ObjectName("BrickBreaker:type=Metrics"), "Ticks");
+        Object p99 = server.getAttribute(new ObjectName("BrickBreaker:type=Timing,name=tick"), "P99Micros");
+        if (!(gcCount instanceof Long) || !Long.valueOf(1).equals(ticks) || !(p99 instanceof Double)) {
+            fail("JMX attributes: GcCount " + gcCount + ", Ticks " + ticks + ", tick P99Micros " + p99);
+        }
+        System.out.println("JMX: " + server.queryNames(new ObjectName("BrickBreaker:*"), null).size()
+                + " beans; GcCount " + gcCount + ", tick P99Micros " + p99);
+
+        GameRenderer renderer = new GameRenderer(5_000_000L, new Font(Font.SANS_SERIF, Font.PLAIN, 13),
+                new Font(Font.SANS_SERIF, Font.PLAIN, 40));
+        renderer.setMetrics(metrics);
+        renderer.toggleDebugOverlay();
+        BufferedImage image = new BufferedImage(GameWorld.WIDTH, GameWorld.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        SnapshotBuffer snapshots = new SnapshotBuffer();
+        snapshots.back().capture(new GameWorld(1), System.nanoTime(), 0);
+        snapshots.publish();
+        Graphics2D g2 = image.createGraphics();
+        renderer.render(g2, snapshots.latest(), System.nanoTime(), null);
+        g2.dispose();
+        if (metrics.getFrames() != 1) {
+            fail("frame was not recorded");
+        }
+        System.out.println("debug overlay drawn");
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,168 @@
+/*******************************************************************
+ * CLASS: ParticleCheck                                           *
+ * DESCRIPTION:                                                   *
+ * Checks the particle effects:                                   *
+ *    - a writer thread offering events while the reader drains   *
+ *      them gets every event through, retrying those it was told *
+ *      were dropped;                                             *
+ *    - the ring never holds more than CAPACITY particles, or     *
+ *      more than the budget allows;                              *
+ *    - slow frames cut the budget to nothing, fast frames bring  *
+ *      it back to full;                                          *
+ * and then reports how long drawing a full ring into an image    *
+ * takes, and what it allocates (Java2D included).                *
+ *                                                                *
+ * USAGE (from the project root):                                 *
+ *    javac -d out src/*.java bench/*.java                        *
+ *    java -cp out ParticleCheck                                  *
+ *******************************************************************/
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+public class ParticleCheck {
+    private static final int EVENTS = 200_000;          // Events sent by the writer thread
+    private static final long FRAME_BUDGET = 4_000_000L; // Frame budget of the checked systems
+    private static final int FRAMES = 2_000;            // Frames drawn in the timing
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Runs the checks and exits with status 1 on the first that   *
+     * fails.                                                      *
+     * PARAMETERS:                                                 *
+     *    - String[] args: Command-line arguments (not used).      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) throws InterruptedException {
+        System.setProperty("java.awt.headless", "true");
+        checkQueue();
+        checkCapacity();
+        checkBudget();
+        checkDraw();
+        System.out.println("all particle checks passed");
+    }
+
+    // One writer, one reader, every event through once
+    private static void checkQueue() throws InterruptedException {
+        ParticleQueue queue = new ParticleQueue();
+        ParticleSystem particles = new ParticleSystem(FRAME_BUDGET);
+        long[] retries = new long[1];
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < EVENTS; i++) {
+                while (!queue.offer(ParticleQueue.BRICK, i % GameWorld.WIDTH, 100, 0xFF00FF00,
+                        GameWorld.BRICK_POINTS)) {
+                    retries[0]++;
+                    Thread.yield();
+                }
+            }
+        }, "particle-writer");
+        writer.start();
+        long drained = 0;
+        while (writer.isAlive()) {
+            drained += queue.drain(particles);
+        }
+        writer.join();
+        drained += queue.drain(particles);
+        if (drained != EVENTS || queue.getDropped() != retries[0]) {
+            fail(drained + " of " + EVENTS + " events drained, " + queue.getDropped() + " dropped for "
+                    + retries[0] + " retries");
+        }
+        System.out.printf("queue: %,d events drained, %,d offers refused while the reader was behind%n",
+                drained, retries[0]);
+    }
+
+    // Bursts beyond the ring's size reuse the oldest slots
+    private static void checkCapacity() {
+        ParticleSystem particles = new ParticleSystem(FRAME_BUDGET);
+        for (int i = 0; i < ParticleSystem.CAPACITY; i++) {
+            particles.emit(ParticleQueue.POWER_UP, 300, 300, 0xFFFFA500, i % 4);
+            if (particles.getAlive() > ParticleSystem.CAPACITY) {
+                fail(particles.getAlive() + " particles alive in a ring of " + ParticleSystem.CAPACITY);
+            }
+        }
+        if (particles.getAlive() != ParticleSystem.CAPACITY) {
+            fail("the ring did not fill: " + particles.getAlive());
+        }
+        System.out.println("capacity: " + particles.getAlive() + " particles alive at most");
+    }
+
+    // Slow frames shed particles, fast ones bring them back
+    private static void checkBudget() {
+        ParticleSystem particles = new ParticleSystem(FRAME_BUDGET);
+        long now = 1;
+        int frames = 0;
+        while (particles.getBudget() > 0) {
+            now += 16_000_000L;
+            particles.recordFrame(2 * FRAME_BUDGET, now);
+            if (++frames > 1_000) {
+                fail("slow frames did not cut the budget to nothing");
+            }
+        }
+        System.out.printf("budget: none after %d slow frames (%.1f s)%n", frames, frames * 0.016);
+
+        for (int i = 0; i < ParticleSystem.CAPACITY; i++) {
+            particles.emit(ParticleQueue.BRICK, 300, 300, 0xFF00FF00, GameWorld.BRICK_POINTS);
+        }
+        if (particles.getAlive() != 0) {
+            fail(particles.getAlive() + " particles born with no budget");
+        }
+
+        frames = 0;
+        double half = -1;
+        while (particles.getBudget() < 1) {
+            now += 16_000_000L;
+            particles.recordFrame(FRAME_BUDGET / 4, now);
+            if (half < 0 && particles.getBudget() >= 0.5) {
+                half = particles.getBudget();
+                for (int i = 0; i < ParticleSystem.CAPACITY; i++) {
+                    particles.emit(ParticleQueue.BRICK, 300, 300, 0xFF00FF00, GameWorld.BRICK_POINTS);
+                }
+                if (particles.getAlive() > ParticleSystem.CAPACITY * half) {
+                    fail(particles.getAlive() + " particles alive at a budget of " + half);
+                }
+            }
+            if (++frames > 1_000) {
+                fail("fast frames did not bring the budget back");
+            }
+        }
+        System.out.printf("budget: full again after %d fast frames (%.1f s)%n", frames, frames * 0.016);
+    }
+
+    // A full ring drawn frame after frame
+    private static void checkDraw() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long self = Thread.currentThread().getId();
+        BufferedImage image = new BufferedImage(GameWorld.WIDTH, GameWorld.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        ParticleSystem particles = new ParticleSystem(Long.MAX_VALUE);
+        int[] colors = { 0xFFFF0000, 0xFF00FF00, 0xFF0000FF, 0xFFFFFF00, 0xFF000000, 0xFFFFFFFF };
+        FontRenderContext context = g.getFontRenderContext();
+        long now = System.nanoTime();
+        long elapsed = 0, allocated = 0;
+        for (int round = 0; round < 2; round++) {     // The first round warms up the JIT
+            long start = System.nanoTime();
+            long before = threads.getThreadAllocatedBytes(self);
+            for (int frame = 0; frame < FRAMES; frame++) {
+                for (int i = 0; i < 8; i++) {
+                    particles.emit(ParticleQueue.BRICK, 50 + 80 * i, 200, colors[(frame + i) % colors.length],
+                            GameWorld.BRICK_POINTS);
+                }
+                now += 16_000_000L;
+                particles.draw(g, context, now);
+            }
+            allocated = threads.getThreadAllocatedBytes(self) - before;
+            elapsed = System.nanoTime() - start;
+        }
+        g.dispose();
+        System.out.printf("draw: %d particles, %.1f us and %d bytes per frame (Java2D included)%n",
+                particles.getAlive(), elapsed / 1000.0 / FRAMES, allocated / FRAMES);
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,292 @@
+/*******************************************************************
+ * CLASS: QualityCheck                                            *
+ * DESCRIPTION:                                                   *
+ * Checks the QualityGovernor with made-up frame intervals:       *
+ *    - slow frames step the tier down one window at a time to    *
+ *      MINIMAL, and fast frames bring it back up to HIGH;        *
+ *    - frames between the thresholds change nothing, and neither *
+ *      does one long pause among fast frames;                    *
+ *    - a tier that is too slow while the one below is fast does  *
+ *      not flap: each failed try waits longer before the next;   *
+ *    - a pinned tier never changes;                              *
+ * then drives a real GameRenderer with thresholds no frame can   *
+ * meet, which must end at MINIMAL with flat bricks; checks that  *
+ * with the default thresholds, frames that are quick to draw but *
+ * slow to present step down while frames paced to 60 Hz keep     *
+ * HIGH; and reports how long a frame takes at each tier.         *
+ *                                                                *
+ * USAGE (from the project root):                                 *
+ *    javac -d out src/*.java bench/*.java                        *
+ *    java -cp out QualityCheck                                   *
+ *******************************************************************/
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.locks.LockSupport;
+
+public class QualityCheck {
+    private static final long DOWN = 8_000_000L;    // Step-down threshold of the checked governors
+    private static final long UP = 3_000_000L;      // Step-up threshold
+    private static final int WINDOW = 60;           // Frames per average
+    private static final int FRAMES = 600;          // Frames drawn per tier in the timing
+    private static final QualityGovernor.Tier[] TIERS = QualityGovernor.Tier.values();
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Runs the checks and exits with status 1 on the first that   *
+     * fails.                                                      *
+     * PARAMETERS:                                                 *
+     *    - String[] args: Command-line arguments (not used).      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        checkSteps();
+        checkSteady();
+        checkPause();
+        checkFlapping();
+        checkPinned();
+        checkRenderer();
+        checkPresent();
+        timeTiers();
+        System.out.println("all quality checks passed");
+    }
+
+    // Down to the bottom one window at a time, and back up
+    private static void checkSteps() {
+        QualityGovernor governor = new QualityGovernor(DOWN, UP, WINDOW);
+        int windows = 0;
+        while (governor.getTier() != QualityGovernor.Tier.MINIMAL) {
+            QualityGovernor.Tier before = governor.getTier();
+            if (window(governor, 2 * DOWN) && governor.getTier().ordinal() != before.ordinal() - 1) {
+                fail("stepped from " + before + " to " + governor.getTier());
+            }
+            if (++windows > TIERS.length) {
+                fail("slow frames did not reach MINIMAL");
+            }
+        }
+        for (int i = 0; i < 10; i++) {
+            window(governor, 2 * DOWN);
+        }
+        if (governor.getTier() != QualityGovernor.Tier.MINIMAL) {
+            fail("stepped below MINIMAL to " + governor.getTier());
+        }
+        System.out.println("steps: MINIMAL after " + windows + " slow windows");
+
+        windows = 0;
+        while (governor.getTier() != QualityGovernor.Tier.HIGH) {
+            window(governor, UP / 2);
+            if (++windows > 10 * TIERS.length) {
+                fail("fast frames did not bring HIGH back");
+            }
+        }
+        System.out.println("steps: HIGH again after " + windows + " fast windows, "
+                + governor.getChanges() + " changes in all");
+    }
+
+    // Frames between the thresholds, with single spikes, keep the tier
+    private static void checkSteady() {
+        QualityGovernor governor = new QualityGovernor(DOWN, UP, WINDOW);
+        window(governor, 2 * DOWN);
+        for (int frame = 0; frame < 100 * WINDOW; frame++) {
+            governor.record(frame % WINDOW == 0 ? 10 * DOWN : (UP + DOWN) / 2 - DOWN / 10);
+        }
+        if (governor.getTier() != QualityGovernor.Tier.MEDIUM || governor.getChanges() != 1) {
+            fail("frames between the thresholds moved MEDIUM to " + governor.getTier());
+        }
+        System.out.println("steady: MEDIUM kept for 100 windows between the thresholds");
+    }
+
+    // A pause of seconds (a hidden window) is not a slow window
+    private static void checkPause() {
+        QualityGovernor governor = new QualityGovernor(DOWN, UP, WINDOW);
+        for (int w = 0; w < 10; w++) {
+            governor.record(2_000_000_000L);
+            for (int frame = 1; frame < WINDOW; frame++) {
+                governor.record(UP / 2);
+            }
+        }
+        if (governor.getTier() != QualityGovernor.Tier.HIGH || governor.getChanges() != 0) {
+            fail("a 2 s pause per window moved HIGH to " + governor.getTier());
+        }
+        System.out.println("pause: HIGH kept with a 2 s pause in every window");
+    }
+
+    // HIGH too slow, MEDIUM fast: tries of HIGH must get rarer
+    private static void checkFlapping() {
+        QualityGovernor governor = new QualityGovernor(DOWN, UP, WINDOW);
+        int windows = 2_000;
+        int raises = 0;
+        int lastRaise = -1, lastGap = 0;
+        for (int w = 0; w < windows; w++) {
+            boolean high = (governor.getTier() == QualityGovernor.Tier.HIGH);
+            if (window(governor, high ? 2 * DOWN : UP / 2) && governor.getTier() == QualityGovernor.Tier.HIGH) {
+                raises++;
+                if (lastRaise >= 0) {
+                    int gap = w - lastRaise;
+                    if (gap < lastGap) {
+                        fail("HIGH tried again after " + gap + " windows, " + lastGap + " the time before");
+                    }
+                    lastGap = gap;
+                }
+                lastRaise = w;
+            }
+        }
+        if (raises > windows / 20) {
+            fail(raises + " tries of HIGH in " + windows + " windows");
+        }
+        System.out.println("flapping: " + raises + " tries of HIGH in " + windows + " windows, the last "
+                + lastGap + " windows apart");
+    }
+
+    // A pinned tier ignores frame intervals
+    private static void checkPinned() {
+        QualityGovernor governor = new QualityGovernor(DOWN, UP, WINDOW);
+        governor.pin(QualityGovernor.Tier.LOW);
+        for (int w = 0; w < 20; w++) {
+            window(governor, (w < 10) ? 2 * DOWN : UP / 2);
+        }
+        if (governor.getTier() != QualityGovernor.Tier.LOW || governor.getChanges() != 0 || governor.isAutomatic()) {
+            fail("the pinned tier became " + governor.getTier());
+        }
+        System.out.println("pinned: LOW kept");
+    }
+
+    // A renderer that can never be fast enough ends at the bottom
+    private static void checkRenderer() {
+        System.setProperty("brickbreaker.quality.down", "1");
+        System.setProperty("brickbreaker.quality.up", "0");
+        System.setProperty("brickbreaker.quality.window", "4");
+        GameRenderer renderer = renderer();
+        System.clearProperty("brickbreaker.quality.down");
+        System.clearProperty("brickbreaker.quality.up");
+        System.clearProperty("brickbreaker.quality.window");
+
+        GameSnapshot s = snapshot();
+        BufferedImage image = image();
+        Graphics2D g = image.createGraphics();
+        long last = System.nanoTime();
+        for (int frame = 0; frame < 4 * TIERS.length; frame++) {
+            renderer.render(g, s, System.nanoTime(), null);
+            long now = System.nanoTime();
+            renderer.recordFrameInterval(now - last);
+            last = now;
+        }
+        if (renderer.getQuality().getTier() != QualityGovernor.Tier.MINIMAL) {
+            fail("the renderer stayed at " + renderer.getQuality().getTier());
+        }
+        renderer.render(g, s, System.nanoTime(), null);
+        g.dispose();
+
+        GameRenderer high = renderer();
+        high.getQuality().pin(QualityGovernor.Tier.HIGH);
+        BufferedImage raised = image();
+        Graphics2D h = raised.createGraphics();
+        high.render(h, s, System.nanoTime(), null);
+        h.dispose();
+
+        int id = s.nextBrick(0);
+        int x = s.getBrickX(id), y = s.getBrickY(id);
+        if (image.getRGB(x, y) != image.getRGB(x + BrickField.WIDTH / 2, y + BrickField.HEIGHT / 2)) {
+            fail("MINIMAL drew a brick with a bevel");
+        }
+        if (raised.getRGB(x, y) == raised.getRGB(x + BrickField.WIDTH / 2, y + BrickField.HEIGHT / 2)) {
+            fail("HIGH drew a brick without a bevel");
+        }
+        System.out.println("renderer: MINIMAL after " + renderer.getQuality().getChanges()
+                + " changes, bricks flat");
+    }
+
+    // The interval between presents decides, not the time in render()
+    private static void checkPresent() {
+        System.setProperty("brickbreaker.quality.window", "4");
+        GameRenderer slow = renderer();
+        GameRenderer paced = renderer();
+        System.clearProperty("brickbreaker.quality.window");
+
+        GameSnapshot s = snapshot();
+        Graphics2D g = image().createGraphics();
+        present(slow, g, s, 40, 30_000_000L);        // Drawn in well under 1 ms, shown 30 ms apart
+        if (slow.getQuality().getTier() != QualityGovernor.Tier.MINIMAL) {
+            fail("frames presented 30 ms apart stopped at " + slow.getQuality().getTier());
+        }
+        present(paced, g, s, 40, 16_700_000L);       // Every refresh of a 60 Hz display
+        if (paced.getQuality().getTier() != QualityGovernor.Tier.HIGH || paced.getQuality().getChanges() != 0) {
+            fail("frames paced to 60 Hz moved HIGH to " + paced.getQuality().getTier());
+        }
+        g.dispose();
+        System.out.println("present: slow presents reach MINIMAL, 60 Hz keeps HIGH");
+    }
+
+    // Draws frames and presents each intervalNanos after the one before
+    private static void present(GameRenderer renderer, Graphics2D g, GameSnapshot s, int frames, long intervalNanos) {
+        long last = System.nanoTime();
+        for (int frame = 0; frame < frames; frame++) {
+            renderer.render(g, s, System.nanoTime(), null);
+            long due = last + intervalNanos;
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {  // The present, as slow as asked
+                LockSupport.parkNanos(wait);
+            }
+            long now = System.nanoTime();
+            renderer.recordFrameInterval(now - last);
+            last = now;
+        }
+    }
+
+    // Average frame time at each pinned tier
+    private static void timeTiers() {
+        GameSnapshot s = snapshot();
+        for (int t = TIERS.length - 1; t >= 0; t--) {
+            GameRenderer renderer = renderer();
+            renderer.getQuality().pin(TIERS[t]);
+            BufferedImage image = image();
+            Graphics2D g = image.createGraphics();
+            long elapsed = 0;
+            for (int round = 0; round < 2; round++) {   // The first round warms up the JIT
+                long start = System.nanoTime();
+                for (int frame = 0; frame < FRAMES; frame++) {
+                    renderer.render(g, s, System.nanoTime(), null);
+                }
+                elapsed = System.nanoTime() - start;
+            }
+            g.dispose();
+            System.out.printf("time: %-7s %.1f us per frame%n", TIERS[t], elapsed / 1000.0 / FRAMES);
+        }
+    }
+
+    // Feeds one window of equal frames; true if the tier changed
+    private static boolean window(QualityGovernor governor, long frameNanos) {
+        boolean changed = false;
+        for (int frame = 0; frame < WINDOW; frame++) {
+            changed |= governor.record(frameNanos);
+        }
+        return changed;
+    }
+
+    private static GameRenderer renderer() {
+        Font hudFont = FontLoader.loadFont("ARCADECLASSIC.TTF", 13f);
+        Font messageFont = FontLoader.loadFont("ARCADECLASSIC.TTF", 40f);
+        return new GameRenderer((long) (BatchSimulator.STEP_SECONDS * 1e9), hudFont, messageFont);
+    }
+
+    // A started game with its full brick field and a few balls
+    private static GameSnapshot snapshot() {
+        GameWorld world = new GameWorld(7);
+        world.step(BatchSimulator.STEP_SECONDS, GameInput.ENTER);
+        SnapshotBuffer snapshots = new SnapshotBuffer();
+        snapshots.back().capture(world, System.nanoTime(), 0);
+        snapshots.publish();
+        return snapshots.latest();
+    }
+
+    private static BufferedImage image() {
+        return new BufferedImage(GameWorld.WIDTH, GameWorld.HEIGHT, BufferedImage.TYPE_INT_RGB);
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+}
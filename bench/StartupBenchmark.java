@@ -0,0 +1,142 @@
+/*******************************************************************
+ * CLASS: StartupBenchmark                                        *
+ * DESCRIPTION:                                                   *
+ * Compares loading the game's assets the old way, one after the  *
+ * other on the thread that builds the window, with GameAssets on *
+ * an AssetLoader pool. For each round it reports:                *
+ *    - blocked: how long the starting thread cannot show the     *
+ *      window (all of the loading when serial, only submitting   *
+ *      the loads when parallel);                                 *
+ *    - ready:   how long until every asset is loaded.            *
+ * Every round uses a new AudioMixer, so sounds are really        *
+ * decoded again. The first round is the cold start (class        *
+ * loading, disk cache) and the median of the others is warm.     *
+ * Only the way that runs first gets a cold start, so compare     *
+ * cold times with one JVM per way ("serial", then "parallel").   *
+ * No audio device is needed: the mixers are never started.       *
+ * To compare loose files with the asset pack, run it again with  *
+ * -Dbrickbreaker.assets set to a pack built by AssetPack.        *
+ *                                                                *
+ * USAGE (from the project root):                                 *
+ *    javac -d out src/*.java bench/*.java                        *
+ *    java -cp out StartupBenchmark [rounds] [serial|parallel]    *
+ *    java -cp out AssetPack src /tmp/assets.pack                 *
+ *    java -Dbrickbreaker.assets=/tmp/assets.pack -cp out         *
+ *         StartupBenchmark [rounds] [serial|parallel]            *
+ *******************************************************************/
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+public class StartupBenchmark {
+    private static final String[] SOUNDS = {
+        "sounds/brickHitSound.wav", "sounds/paddleHitSound.wav",
+        "sounds/specialBrickHitSound.wav", "sounds/gameOverSound.wav",
+        "sounds/winnerSound.wav", "sounds/powerUpSound.wav",
+        "sounds/wallHitSound.wav", "sounds/background.wav"
+    };
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Runs the rounds of one or both ways and prints their cold   *
+     * and warm times.                                             *
+     * PARAMETERS:                                                 *
+     *    - String[] args: [number of rounds] [serial|parallel],   *
+     *      both ways when the second is missing.                  *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 15;
+        String only = args.length > 1 ? args[1] : "";
+        boolean runSerial = !only.equals("parallel");
+        boolean runParallel = !only.equals("serial");
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        long[] serial = new long[rounds];
+        long[][] parallel = new long[2][rounds];
+
+        // Missing files print a stack trace on every round; keep the report readable
+        PrintStream err = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        for (int r = 0; r < rounds; r++) {
+            if (runSerial) {
+                serial[r] = loadSerial();
+            }
+            if (runParallel) {
+                long[] times = loadParallel(threads);
+                parallel[0][r] = times[0];
+                parallel[1][r] = times[1];
+            }
+        }
+        System.setErr(err);
+
+        System.out.printf("%d worker threads%n", threads);
+        System.out.printf("%-10s %14s %14s %14s %14s%n", "", "cold blocked", "cold ready", "warm blocked", "warm ready");
+        if (runSerial) {
+            System.out.printf("%-10s %11.1f ms %11.1f ms %11.1f ms %11.1f ms%n", "serial",
+                    serial[0] / 1e6, serial[0] / 1e6, warm(serial) / 1e6, warm(serial) / 1e6);
+        }
+        if (runParallel) {
+            System.out.printf("%-10s %11.1f ms %11.1f ms %11.1f ms %11.1f ms%n", "parallel",
+                    parallel[0][0] / 1e6, parallel[1][0] / 1e6, warm(parallel[0]) / 1e6, warm(parallel[1]) / 1e6);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: loadSerial()                                        *
+     * DESCRIPTION:                                                *
+     * Loads every asset on this thread, as the Gameplay and       *
+     * WelcomePanel constructors used to.                          *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: Nanoseconds until everything was loaded.      *
+     ***************************************************************/
+    private static long loadSerial() {
+        long start = System.nanoTime();
+        AudioMixer mixer = new AudioMixer();
+        for (String sound : SOUNDS) {
+            mixer.load(sound);
+        }
+        FontLoader.loadFont("ARCADECLASSIC.TTF", 16f);
+        FontLoader.loadFont("ARCADECLASSIC.TTF", 40f);
+        try (InputStream in = Resources.shared().open("icon.png")) {
+            ImageIO.read(in);
+        } catch (IOException e) {
+            // Counted like any other failed load
+        }
+        return System.nanoTime() - start;
+    }
+
+    /***************************************************************
+     * METHOD: loadParallel(int threads)                           *
+     * DESCRIPTION:                                                *
+     * Starts GameAssets on a new loader and waits for it.         *
+     * PARAMETERS:                                                 *
+     *    - int threads: Worker threads of the loader.             *
+     * RETURN VALUE: { nanoseconds until start() returned,         *
+     *                 nanoseconds until everything was loaded }.  *
+     ***************************************************************/
+    private static long[] loadParallel(int threads) {
+        long start = System.nanoTime();
+        AssetLoader loader = new AssetLoader(new AudioMixer(), threads);
+        GameAssets assets = GameAssets.start(loader);
+        long blocked = System.nanoTime() - start;
+        assets.whenLoaded().join();
+        long ready = System.nanoTime() - start;
+        loader.shutdown();
+        return new long[] { blocked, ready };
+    }
+
+    // Median of every round but the first
+    private static double warm(long[] times) {
+        if (times.length < 2) {
+            return times[0];
+        }
+        long[] sorted = Arrays.copyOfRange(times, 1, times.length);
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,138 @@
+/*******************************************************************
+ * CLASS: VectorKernelCheck                                       *
+ * DESCRIPTION:                                                   *
+ * Checks that the vector MotionKernel gives exactly the results  *
+ * of the scalar one. Two copies of the same random table are     *
+ * moved, bounced off the walls and searched for fallen rows for  *
+ * STEPS steps, one on each kernel, and every column and every    *
+ * result must match bit for bit. Table sizes cover 0 rows, every *
+ * remainder of the vector length and a stress-sized table, and   *
+ * rows start on, near and past the walls.                        *
+ *                                                                *
+ * It then times both kernels on STRESS_ROWS rows. The figures    *
+ * are only a rough guide; see HotPathBenchmarks.motion for       *
+ * proper ones.                                                   *
+ *                                                                *
+ * USAGE (from the project root):                                 *
+ *    javac -d out src/*.java bench/*.java                        *
+ *    javac --add-modules jdk.incubator.vector -cp out -d out \   *
+ *          vector/*.java                                         *
+ *    java --add-modules jdk.incubator.vector -cp out \           *
+ *          VectorKernelCheck                                     *
+ *******************************************************************/
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class VectorKernelCheck {
+    private static final int STEPS = 200;             // Steps per table
+    private static final int STRESS_ROWS = 50_000;    // Rows of the stress-sized table
+    private static final int TIMED_STEPS = 2_000;     // Steps per kernel in the timing
+    private static final double WIDTH = GameWorld.WIDTH;
+    private static final double HEIGHT = GameWorld.HEIGHT;
+    private static final double STEP_SECONDS = 0.005;
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Runs the comparison, then the timing, and exits with status *
+     * 1 if the vector kernel is missing or differs.               *
+     * PARAMETERS:                                                 *
+     *    - String[] args: Command-line arguments (not used).      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) {
+        MotionKernel vector = EntitySystems.getVectorKernel();
+        if (vector == null) {
+            fail("no vector kernel; compile vector/ and run with --add-modules jdk.incubator.vector");
+        }
+        MotionKernel scalar = EntitySystems.SCALAR;
+        System.out.println("comparing " + vector.getName() + " with " + scalar.getName()
+                + " (systems run on " + EntitySystems.getKernel().getName() + ")");
+
+        SplittableRandom random = new SplittableRandom(7);
+        for (int rows = 0; rows <= 67; rows++) {
+            compare(scalar, vector, rows, random);
+        }
+        compare(scalar, vector, STRESS_ROWS, random);
+        System.out.println("identical results for 0 to 67 rows and " + STRESS_ROWS + " rows");
+
+        time(scalar, random);
+        time(vector, random);
+    }
+
+    // Runs two copies of a random table on the two kernels side by side
+    private static void compare(MotionKernel scalar, MotionKernel vector, int rows, SplittableRandom random) {
+        long seed = random.nextLong();
+        Archetype a = table(rows, new SplittableRandom(seed));
+        Archetype b = table(rows, new SplittableRandom(seed));
+        for (int step = 0; step < STEPS; step++) {
+            scalar.integrate(a, STEP_SECONDS);
+            vector.integrate(b, STEP_SECONDS);
+            int bouncedA = scalar.bounceOffWalls(a, 0, 0, WIDTH);
+            int bouncedB = vector.bounceOffWalls(b, 0, 0, WIDTH);
+            if (bouncedA != bouncedB) {
+                fail(rows + " rows, step " + step + ": " + bouncedA + " bounces against " + bouncedB);
+            }
+            // Every fallen row, from every start, so the search restarts mid-vector
+            int from = step % Math.max(1, rows);
+            int rowA = scalar.nextPastBottom(a, from, HEIGHT);
+            int rowB = vector.nextPastBottom(b, from, HEIGHT);
+            while (rowA >= 0 && rowA == rowB) {
+                a.setYVel(rowA, -Math.abs(a.getYVel(rowA)));
+                b.setYVel(rowB, -Math.abs(b.getYVel(rowB)));
+                rowA = scalar.nextPastBottom(a, rowA + 1, HEIGHT);
+                rowB = vector.nextPastBottom(b, rowB + 1, HEIGHT);
+            }
+            if (rowA != rowB) {
+                fail(rows + " rows, step " + step + ": fallen row " + rowA + " against " + rowB);
+            }
+            if (!Arrays.equals(a.x, 0, rows, b.x, 0, rows) || !Arrays.equals(a.y, 0, rows, b.y, 0, rows)
+                    || !Arrays.equals(a.xVel, 0, rows, b.xVel, 0, rows)
+                    || !Arrays.equals(a.yVel, 0, rows, b.yVel, 0, rows)) {
+                fail(rows + " rows, step " + step + ": the columns differ");
+            }
+        }
+    }
+
+    // Rows anywhere from past the left wall to past the right one and the bottom
+    private static Archetype table(int rows, SplittableRandom random) {
+        Archetype table = new Archetype("check", Archetype.VELOCITY | Archetype.SIZE, rows);
+        for (int i = 0; i < rows; i++) {
+            int row;
+            switch (random.nextInt(4)) {
+                case 0:  row = table.spawn(0, random.nextDouble(HEIGHT)); break;       // On the left wall
+                case 1:  row = table.spawn(random.nextDouble(-20, 0), 0); break;       // Past the corner
+                default: row = table.spawn(random.nextDouble(-10, WIDTH + 10), random.nextDouble(-10, HEIGHT + 10));
+            }
+            table.setXVel(row, random.nextDouble(-2000, 2000));
+            table.setYVel(row, random.nextDouble(-2000, 2000));
+            table.setSize(row, random.nextInt(1, 30));
+        }
+        return table;
+    }
+
+    // Average time of one step's integrate, wall bounce and bottom search
+    private static void time(MotionKernel kernel, SplittableRandom random) {
+        Archetype table = table(STRESS_ROWS, random);
+        long elapsed = 0;
+        for (int round = 0; round < 2; round++) {   // The first round warms up the JIT
+            long start = System.nanoTime();
+            for (int step = 0; step < TIMED_STEPS; step++) {
+                kernel.integrate(table, STEP_SECONDS);
+                kernel.bounceOffWalls(table, 0, 0, WIDTH);
+                for (int row = kernel.nextPastBottom(table, 0, HEIGHT); row >= 0;
+                     row = kernel.nextPastBottom(table, row + 1, HEIGHT)) {
+                    table.setYVel(row, -Math.abs(table.getYVel(row)));
+                }
+            }
+            elapsed = System.nanoTime() - start;
+        }
+        System.out.printf("%-8s %,d rows: %.1f us per step%n", kernel.getName(), STRESS_ROWS,
+                elapsed / 1000.0 / TIMED_STEPS);
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,311 @@
+/*******************************************************************
+ * CLASS: HotPathWorkloads                                        *
+ * DESCRIPTION:                                                   *
+ * The work behind HotPathBenchmarks, one nested class per hot    *
+ * path. Each is built once per trial with the benchmark's ball   *
+ * and brick counts and then run over and over; run() keeps the   *
+ * counts steady (refilling balls and power-ups, restarting a     *
+ * finished game) so every invocation does comparable work.       *
+ * This class is in the default package next to the game's; see   *
+ * brickbreaker.jmh.Workload for why.                             *
+ *******************************************************************/
+import brickbreaker.jmh.Workload;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+
+final class HotPathWorkloads {
+    private static final long SEED = 42;                 // Same layouts and paths every trial
+    private static final double STEP_SECONDS = 0.005;    // Step length of the game loop
+    private static final int BALL_SIZE = 14;             // Size of a new ball
+    private static final int PITCH_X = BrickField.WIDTH + GameWorld.X_SPACING;
+    private static final int PITCH_Y = BrickField.HEIGHT + GameWorld.Y_SPACING;
+
+    private HotPathWorkloads() {
+    }
+
+    /***************************************************************
+     * METHOD: level(int bricks)                                   *
+     * DESCRIPTION:                                                *
+     * Builds a level of full rows of random colors with the given *
+     * number of bricks, every row holding a special brick.        *
+     * PARAMETERS:                                                 *
+     *    - int bricks: 1 to MAX_ROWS * MAX_ROW_BRICKS bricks.     *
+     * RETURN VALUE: The level.                                    *
+     ***************************************************************/
+    static Level level(int bricks) {
+        int rows = (bricks + GameWorld.MAX_ROW_BRICKS - 1) / GameWorld.MAX_ROW_BRICKS;
+        if (rows > GameWorld.MAX_ROWS) {
+            throw new IllegalArgumentException(bricks + " bricks do not fit on the playfield");
+        }
+        int[] rowCounts = new int[rows];
+        boolean[] special = new boolean[rows];
+        for (int row = 0; row < rows; row++) {
+            rowCounts[row] = Math.min(GameWorld.MAX_ROW_BRICKS, bricks - row * GameWorld.MAX_ROW_BRICKS);
+            special[row] = true;
+        }
+        return new Level("Benchmark", rowCounts, new int[rows], special);
+    }
+
+    /***************************************************************
+     * METHOD: world(int bricks)                                   *
+     * DESCRIPTION:                                                *
+     * Creates a world playing a level of the given size, already  *
+     * started.                                                    *
+     * PARAMETERS:                                                 *
+     *    - int bricks: Bricks of the level.                       *
+     * RETURN VALUE: The world.                                    *
+     ***************************************************************/
+    static GameWorld world(int bricks) {
+        GameWorld world = new GameWorld(new GameRandom(SEED), new Levels(new Level[] { level(bricks) }));
+        world.step(STEP_SECONDS, GameInput.ENTER);
+        return world;
+    }
+
+    /***************************************************************
+     * METHOD: fillBalls(GameWorld world, int count,               *
+     *                   SplittableRandom random)                  *
+     * DESCRIPTION:                                                *
+     * Adds balls below the bricks, flying up at the game's speed  *
+     * in random directions, until the world has count of them.    *
+     * PARAMETERS:                                                 *
+     *    - GameWorld world: The world to fill.                    *
+     *    - int count: Balls wanted.                               *
+     *    - SplittableRandom random: Source of positions.          *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    static void fillBalls(GameWorld world, int count, SplittableRandom random) {
+        while (world.getBalls().size() < count) {
+            double x = random.nextDouble(40, GameWorld.WIDTH - 40);
+            double y = random.nextDouble(GameWorld.HEIGHT / 2.0, GameWorld.PADDLE_Y - 40);
+            double xVel = random.nextBoolean() ? 400 : -400;
+            world.spawnBall(x, y, xVel, -500);
+        }
+    }
+
+    /*******************************************************************
+     * CLASS: Collision                                               *
+     * DESCRIPTION:                                                   *
+     * The brick queries of one step without moving anything: for     *
+     * every ball, the overlap test GameWorld.step runs after a move  *
+     * and the swept test moveBall runs for its path. The field is a  *
+     * square grid, so brick counts may go past one screen.           *
+     *******************************************************************/
+    static final class Collision implements Workload {
+        private final BrickField bricks;
+        private final int[] ballX;                  // Ball positions to test
+        private final int[] ballY;
+        private final double[] moveX;               // Ball moves of one step
+        private final double[] moveY;
+        private final Sweep sweep = new Sweep();
+
+        Collision(int balls, int brickCount) {
+            int columns = (int) Math.ceil(Math.sqrt(brickCount));
+            bricks = new BrickField(brickCount);
+            for (int id = 0; id < brickCount; id++) {
+                bricks.add(GameWorld.LAYOUT_X + (id % columns) * PITCH_X,
+                        GameWorld.LAYOUT_Y + (id / columns) * PITCH_Y, 0xFFFFFFFF, false);
+            }
+            bricks.seal(PITCH_X, PITCH_Y);
+
+            // Balls spread over the field and a little around it
+            SplittableRandom random = new SplittableRandom(SEED);
+            int spanX = columns * PITCH_X + 2 * GameWorld.LAYOUT_X;
+            int spanY = (brickCount / columns + 1) * PITCH_Y + 2 * GameWorld.LAYOUT_Y;
+            ballX = new int[balls];
+            ballY = new int[balls];
+            moveX = new double[balls];
+            moveY = new double[balls];
+            for (int i = 0; i < balls; i++) {
+                ballX[i] = random.nextInt(spanX);
+                ballY[i] = random.nextInt(spanY);
+                moveX[i] = (random.nextBoolean() ? 400 : -400) * STEP_SECONDS;
+                moveY[i] = (random.nextBoolean() ? 500 : -500) * STEP_SECONDS;
+            }
+        }
+
+        @Override
+        public long run() {
+            long hits = 0;
+            for (int i = 0; i < ballX.length; i++) {
+                hits += bricks.findCollision(ballX[i], ballY[i], BALL_SIZE, BALL_SIZE);
+                hits += bricks.sweep(ballX[i], ballY[i], BALL_SIZE, moveX[i], moveY[i], sweep);
+            }
+            return hits;
+        }
+    }
+
+    /*******************************************************************
+     * CLASS: Step                                                    *
+     * DESCRIPTION:                                                   *
+     * One GameWorld.step with the given number of balls in play:     *
+     * ball movement with its wall, paddle and brick sweeps, brick    *
+     * hits, the win check and power-ups. Lost balls are replaced     *
+     * before each step, and a cleared level is started again.        *
+     *******************************************************************/
+    static final class Step implements Workload {
+        private final GameWorld world;
+        private final int balls;
+        private final SplittableRandom random = new SplittableRandom(SEED);
+
+        Step(int balls, int bricks) {
+            this.world = world(bricks);
+            this.balls = balls;
+        }
+
+        @Override
+        public long run() {
+            if (!world.isPlay()) {
+                world.step(STEP_SECONDS, GameInput.ENTER);
+            }
+            fillBalls(world, balls, random);
+            world.step(STEP_SECONDS, GameInput.NONE);
+            return world.getScore();
+        }
+    }
+
+    /*******************************************************************
+     * CLASS: Layout                                                  *
+     * DESCRIPTION:                                                   *
+     * Building the bricks of a level, as every level start does.     *
+     *******************************************************************/
+    static final class Layout implements Workload {
+        private final Level level;
+        private final SplittableRandom random = new SplittableRandom(SEED);
+
+        Layout(int bricks) {
+            this.level = level(bricks);
+        }
+
+        @Override
+        public long run() {
+            return GameWorld.createLayout(level, random).getCount();
+        }
+    }
+
+    /*******************************************************************
+     * CLASS: PowerUps                                                *
+     * DESCRIPTION:                                                   *
+     * One power-up update with the given number falling. They fall   *
+     * beside the paddle, so none is caught and the paddle and balls  *
+     * stay as they are; those that leave the screen are replaced.    *
+     *******************************************************************/
+    static final class PowerUps implements Workload {
+        private final GameWorld world = world(GameWorld.MAX_ROW_BRICKS);
+        private final int count;
+        private final SplittableRandom random = new SplittableRandom(SEED);
+
+        PowerUps(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public long run() {
+            while (world.getPowerUps().size() < count) {
+                int x = random.nextBoolean() ? random.nextInt(0, 260) : random.nextInt(440, GameWorld.WIDTH - 20);
+                GameWorld.PowerUp.PowerUpType[] types = GameWorld.PowerUp.PowerUpType.VALUES;
+                world.spawnPowerUp(x, random.nextInt(GameWorld.HEIGHT), types[random.nextInt(types.length)]);
+            }
+            world.updatePowerUps(STEP_SECONDS);
+            return world.getPowerUps().size();
+        }
+    }
+
+    /*******************************************************************
+     * CLASS: Motion                                                  *
+     * DESCRIPTION:                                                   *
+     * One step of the MotionKernel loops over a table of balls       *
+     * flying about the playfield: integrate, the wall bounce, and    *
+     * the bottom check for every row, each fallen row being sent     *
+     * back up so the table stays full. The kernel is "scalar" or     *
+     * "vector" (the Vector API one).                                 *
+     *******************************************************************/
+    static final class Motion implements Workload {
+        private final Archetype table;
+        private final MotionKernel kernel;
+
+        Motion(int rows, String kernel) {
+            this.kernel = kernel.equals("vector") ? EntitySystems.getVectorKernel() : EntitySystems.SCALAR;
+            if (this.kernel == null) {
+                throw new IllegalStateException("the vector kernel did not load");
+            }
+            SplittableRandom random = new SplittableRandom(SEED);
+            table = new Archetype("motion", Archetype.VELOCITY | Archetype.SIZE, rows);
+            for (int i = 0; i < rows; i++) {
+                int row = table.spawn(random.nextDouble(GameWorld.WIDTH - BALL_SIZE),
+                        random.nextDouble(GameWorld.HEIGHT - BALL_SIZE));
+                table.setXVel(row, random.nextBoolean() ? 400 : -400);
+                table.setYVel(row, random.nextBoolean() ? 500 : -500);
+                table.setSize(row, BALL_SIZE);
+            }
+        }
+
+        @Override
+        public long run() {
+            kernel.integrate(table, STEP_SECONDS);
+            long events = kernel.bounceOffWalls(table, 0, 0, GameWorld.WIDTH);
+            for (int row = kernel.nextPastBottom(table, 0, GameWorld.HEIGHT); row >= 0;
+                 row = kernel.nextPastBottom(table, row + 1, GameWorld.HEIGHT)) {
+                table.setYVel(row, -Math.abs(table.getYVel(row)));
+                events++;
+            }
+            return events;
+        }
+    }
+
+    /*******************************************************************
+     * CLASS: Render                                                  *
+     * DESCRIPTION:                                                   *
+     * One frame drawn by GameRenderer (what paintComponent calls)    *
+     * into an offscreen image, from a snapshot of a world with the   *
+     * given numbers of balls and bricks, at a pinned quality tier.   *
+     *******************************************************************/
+    static final class Render implements Workload {
+        private final GameRenderer renderer;
+        private final SnapshotBuffer snapshots = new SnapshotBuffer();
+        private final BufferedImage image =
+                new BufferedImage(GameWorld.WIDTH, GameWorld.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        private final Graphics2D g2 = image.createGraphics();
+
+        Render(int balls, int bricks, String quality) {
+            Font hudFont = FontLoader.loadFont("ARCADECLASSIC.TTF", 13f);
+            Font messageFont = FontLoader.loadFont("ARCADECLASSIC.TTF", 40f);
+            renderer = new GameRenderer((long) (STEP_SECONDS * 1e9), hudFont, messageFont);
+            renderer.getQuality().pin(QualityGovernor.Tier.valueOf(quality));
+            GameWorld world = world(bricks);
+            fillBalls(world, balls, new SplittableRandom(SEED));
+            snapshots.back().capture(world, System.nanoTime(), 0);
+            snapshots.publish();
+        }
+
+        @Override
+        public long run() {
+            renderer.render(g2, snapshots.latest(), System.nanoTime(), null);
+            return image.getRGB(GameWorld.WIDTH / 2, GameWorld.PADDLE_Y);
+        }
+    }
+
+    /*******************************************************************
+     * CLASS: Sound                                                   *
+     * DESCRIPTION:                                                   *
+     * Decoding one sound asset into the mixer format. A new mixer is *
+     * used for every run, since a mixer decodes each sound once.     *
+     *******************************************************************/
+    static final class Sound implements Workload {
+        private final String name;
+
+        Sound(String sound) {
+            this.name = "sounds/" + sound + ".wav";
+        }
+
+        @Override
+        public long run() {
+            int id = new AudioMixer().load(name);
+            if (id < 0) {
+                throw new IllegalStateException("could not load " + name);
+            }
+            return id;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*******************************************************************
+ * CLASS: HotPathBenchmarks                                       *
+ * DESCRIPTION:                                                   *
+ * JMH benchmarks of the paths the game runs every step, every    *
+ * frame or every level:                                          *
+ *    - collision: brick overlap and swept queries for N balls;   *
+ *    - step:      one GameWorld.step, moving N balls (the old    *
+ *                 Ball.move/getRect checks) among M bricks;      *
+ *    - layout:    building the bricks of a level (Bricks.init);  *
+ *    - powerUps:  updatePowerUps with N power-ups falling;       *
+ *    - motion:    the MotionKernel loops (integrate, wall bounce *
+ *                 and bottom check) on N rows, scalar or vector; *
+ *    - render:    one frame (paintComponent's work) drawn into   *
+ *                 an offscreen BufferedImage;                    *
+ *    - sound:     decoding a sound asset (SoundManager.load).    *
+ * Ball and brick counts are @Params; override them with -p, e.g. *
+ * -p balls=1,1024. Results are the average time of one call.     *
+ * The forks load the Vector API, so EntitySystems runs on the    *
+ * vector kernel in every benchmark but motion's scalar runs.     *
+ *                                                                *
+ * USAGE: see jmh/pom.xml.                                        *
+ *******************************************************************/
+package brickbreaker.jmh;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class HotPathBenchmarks {
+
+    /*******************************************************************
+     * CLASS: Collision                                               *
+     * DESCRIPTION:                                                   *
+     * Brick queries on a square grid, which may be larger than the   *
+     * playfield to show how the grid scales.                         *
+     *******************************************************************/
+    @State(Scope.Thread)
+    public static class Collision {
+        @Param({ "1", "16", "256" })
+        int balls;
+        @Param({ "130", "1300", "13000" })
+        int bricks;
+        Workload workload;
+
+        @Setup(Level.Trial)
+        public void setUp() throws ReflectiveOperationException {
+            workload = Workload.create("Collision", balls, bricks);
+        }
+    }
+
+    /*******************************************************************
+     * CLASS: Step                                                    *
+     * DESCRIPTION:                                                   *
+     * A world in play; bricks are capped by the playfield (130).     *
+     *******************************************************************/
+    @State(Scope.Thread)
+    public static class Step {
+        @Param({ "1", "16", "256" })
+        int balls;
+        @Param({ "13", "65", "130" })
+        int bricks;
+        Workload workload;
+
+        @Setup(Level.Trial)
+        public void setUp() throws ReflectiveOperationException {
+            workload = Workload.create("Step", balls, bricks);
+        }
+    }
+
+    /*******************************************************************
+     * CLASS: Layout                                                  *
+     * DESCRIPTION:                                                   *
+     * A level of the given size to build.                            *
+     *******************************************************************/
+    @State(Scope.Thread)
+    public static class Layout {
+        @Param({ "13", "65", "130" })
+        int bricks;
+        Workload workload;
+
+        @Setup(Level.Trial)
+        public void setUp() throws ReflectiveOperationException {
+            workload = Workload.create("Layout", bricks);
+        }
+    }
+
+    /*******************************************************************
+     * CLASS: PowerUps                                                *
+     * DESCRIPTION:                                                   *
+     * A world with the given number of power-ups falling.            *
+     *******************************************************************/
+    @State(Scope.Thread)
+    public static class PowerUps {
+        @Param({ "1", "16", "256" })
+        int powerUps;
+        Workload workload;
+
+        @Setup(Level.Trial)
+        public void setUp() throws ReflectiveOperationException {
+            workload = Workload.create("PowerUps", powerUps);
+        }
+    }
+
+    /*******************************************************************
+     * CLASS: Motion                                                  *
+     * DESCRIPTION:                                                   *
+     * A table of moving rows up to stress-mode sizes, and the        *
+     * kernel to run it on.                                           *
+     *******************************************************************/
+    @State(Scope.Thread)
+    public static class Motion {
+        @Param({ "16", "1024", "65536" })
+        int rows;
+        @Param({ "scalar", "vector" })
+        String kernel;
+        Workload workload;
+
+        @Setup(Level.Trial)
+        public void setUp() throws ReflectiveOperationException {
+            workload = Workload.create("Motion", rows, kernel);
+        }
+    }
+
+    /*******************************************************************
+     * CLASS: Render                                                  *
+     * DESCRIPTION:                                                   *
+     * A snapshot to draw, the image to draw it into and the quality  *
+     * tier to draw it at.                                            *
+     *******************************************************************/
+    @State(Scope.Thread)
+    public static class Render {
+        @Param({ "1", "16", "256" })
+        int balls;
+        @Param({ "13", "130" })
+        int bricks;
+        @Param({ "HIGH", "MINIMAL" })
+        String quality;
+        Workload workload;
+
+        @Setup(Level.Trial)
+        public void setUp() throws ReflectiveOperationException {
+            System.setProperty("java.awt.headless", "true");
+            workload = Workload.create("Render", balls, bricks, quality);
+        }
+    }
+
+    /*******************************************************************
+     * CLASS: Sound                                                   *
+     * DESCRIPTION:                                                   *
+     * The sound to decode: a short effect and the longest one.       *
+     *******************************************************************/
+    @State(Scope.Thread)
+    public static class Sound {
+        @Param({ "brickHitSound", "winnerSound" })
+        String sound;
+        Workload workload;
+
+        @Setup(Level.Trial)
+        public void setUp() throws ReflectiveOperationException {
+            workload = Workload.create("Sound", sound);
+        }
+    }
+
+    @Benchmark
+    public long collision(Collision state) {
+        return state.workload.run();
+    }
+
+    @Benchmark
+    public long step(Step state) {
+        return state.workload.run();
+    }
+
+    @Benchmark
+    public long layout(Layout state) {
+        return state.workload.run();
+    }
+
+    @Benchmark
+    public long powerUps(PowerUps state) {
+        return state.workload.run();
+    }
+
+    @Benchmark
+    public long motion(Motion state) {
+        return state.workload.run();
+    }
+
+    @Benchmark
+    public long render(Render state) {
+        return state.workload.run();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long sound(Sound state) {
+        return state.workload.run();
+    }
+}
@@ -0,0 +1,44 @@
+/*******************************************************************
+ * INTERFACE: Workload                                            *
+ * DESCRIPTION:                                                   *
+ * One prepared piece of game work for a benchmark to repeat.     *
+ * The game's classes live in the default package, which classes  *
+ * in a named package (as JMH requires of benchmarks) cannot      *
+ * import. So the work is written in the default package, in      *
+ * HotPathWorkloads, against this interface, and the benchmarks   *
+ * create it by name and only ever call run().                    *
+ *******************************************************************/
+package brickbreaker.jmh;
+
+import java.lang.reflect.Constructor;
+
+public interface Workload {
+    /***************************************************************
+     * METHOD: run()                                               *
+     * DESCRIPTION:                                                *
+     * Does the work once.                                         *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: A value depending on the work, for the        *
+     *    benchmark to return so it is not optimized away.         *
+     ***************************************************************/
+    long run();
+
+    /***************************************************************
+     * METHOD: create(String name, Object... args)                 *
+     * DESCRIPTION:                                                *
+     * Creates one of the workloads nested in HotPathWorkloads.    *
+     * Done once per trial, so reflection costs nothing measured.  *
+     * PARAMETERS:                                                 *
+     *    - String name: The nested class, e.g. "Collision".       *
+     *    - Object... args: Its constructor's arguments.           *
+     * RETURN VALUE: The workload, ready to run.                   *
+     * THROWS: ReflectiveOperationException if there is no such    *
+     *    workload or its constructor fails.                       *
+     ***************************************************************/
+    static Workload create(String name, Object... args) throws ReflectiveOperationException {
+        Class<?> type = Class.forName("HotPathWorkloads$" + name);
+        Constructor<?> constructor = type.getDeclaredConstructors()[0];
+        constructor.setAccessible(true);
+        return (Workload) constructor.newInstance(args);
+    }
+}
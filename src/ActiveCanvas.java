@@ -0,0 +1,257 @@
+/*******************************************************************
+ * CLASS: ActiveCanvas                                            *
+ * DESCRIPTION:                                                   *
+ * Active rendering: instead of asking Swing to repaint (which    *
+ * the RepaintManager may coalesce or delay), a render thread     *
+ * draws each frame into a `BufferStrategy` and presents it with  *
+ * show(). Page flipping is requested, and a blitted back buffer  *
+ * is used where the platform cannot flip.                        *
+ *                                                                *
+ * The game loop drives the thread: every publish() wakes it, as  *
+ * do paint requests from the system, and it draws the latest     *
+ * snapshot with the same `GameRenderer` the Swing path uses.     *
+ * Frames are paced to the display refresh rate, so a loop        *
+ * publishing every 5 ms does not present 200 frames a second;    *
+ * where show() waits for vertical sync the pacing never has to   *
+ * sleep. Frame intervals and the latency from snapshot capture   *
+ * to present are recorded in FrameStats.                         *
+ *******************************************************************/
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+public class ActiveCanvas extends Canvas implements Runnable {
+    private static final int DEFAULT_REFRESH_RATE = 60; // When the display does not say
+
+    private final GameRenderer renderer;    // Shared draw code
+    private final SnapshotBuffer snapshots; // States published by the game loop
+    private final FrameStats frameStats;    // Time between presented frames
+    private final FrameStats latencyStats;  // Snapshot capture to present
+    private final FrameStats renderStats = new FrameStats("render"); // Time spent drawing a frame
+    private BufferStrategy strategy;        // Created once the canvas is displayable
+    private long refreshNanos;              // Display refresh interval, set with the strategy
+    private volatile boolean running = false; // Render thread state
+    private volatile Thread thread;         // The render thread
+    private long lastPresentNanos = 0;      // When the previous frame was shown
+    private long lastCapturedNanos = 0;     // Capture time of the previous snapshot shown
+
+    /***************************************************************
+     * METHOD: ActiveCanvas(GameRenderer renderer,                 *
+     *                      SnapshotBuffer snapshots,              *
+     *                      FrameStats frameStats,                 *
+     *                      FrameStats latencyStats)               *
+     * DESCRIPTION:                                                *
+     * Creates the canvas. Its render thread only reads snapshots, *
+     * so it must be the only reader of the buffer.                *
+     * PARAMETERS:                                                 *
+     *    - GameRenderer renderer: Draws a frame.                  *
+     *    - SnapshotBuffer snapshots: States to draw.              *
+     *    - FrameStats frameStats, latencyStats: Where frame       *
+     *      intervals and latencies are recorded.                  *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public ActiveCanvas(GameRenderer renderer, SnapshotBuffer snapshots,
+                        FrameStats frameStats, FrameStats latencyStats) {
+        this.renderer = renderer;
+        this.snapshots = snapshots;
+        this.frameStats = frameStats;
+        this.latencyStats = latencyStats;
+        setFocusable(false);    // Keys keep going to the Gameplay panel
+        setPreferredSize(new Dimension(GameWorld.WIDTH, GameWorld.HEIGHT));
+    }
+
+    /***************************************************************
+     * METHOD: start()                                             *
+     * DESCRIPTION:                                                *
+     * Starts the render thread as a daemon.                       *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "active-render");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /***************************************************************
+     * METHOD: stop()                                              *
+     * DESCRIPTION:                                                *
+     * Asks the render thread to finish after its current frame.   *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread = null;
+        }
+    }
+
+    /***************************************************************
+     * METHOD: paint(Graphics g) / update(Graphics g)              *
+     * DESCRIPTION:                                                *
+     * Paint requests from the system (the window first shown or   *
+     * uncovered) wake the render thread instead of drawing here.  *
+     * The loop stops publishing while the world is idle, so       *
+     * without this an idle screen would stay blank.               *
+     * PARAMETERS:                                                 *
+     *    - Graphics g: Unused; the frame goes to the strategy.    *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    @Override
+    public void paint(Graphics g) {
+        frameReady();
+    }
+
+    @Override
+    public void update(Graphics g) {
+        frameReady(); // Skip the background clear, which would flicker
+    }
+
+    /***************************************************************
+     * METHOD: frameReady()                                        *
+     * DESCRIPTION:                                                *
+     * Wakes the render thread after a snapshot was published.     *
+     * Called on the game loop thread; never blocks.               *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void frameReady() {
+        Thread t = thread;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: run()                                               *
+     * DESCRIPTION:                                                *
+     * The render thread: waits for a published snapshot, waits    *
+     * out the rest of the refresh interval, then draws and shows  *
+     * a frame while the canvas is on screen.                      *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    @Override
+    public void run() {
+        while (running) {
+            LockSupport.park(this);
+            if (!running) {
+                break;
+            }
+            if (!isShowing()) {
+                continue;
+            }
+
+            try {
+                if (strategy == null) {
+                    createStrategy();
+                }
+                // Present at most once per refresh; snapshots published
+                // meanwhile (which also unpark us) are picked up below
+                long wait;
+                while ((wait = lastPresentNanos + refreshNanos - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                present();
+            } catch (IllegalStateException e) {
+                // The peer went away (window closing); try again with a new strategy
+                strategy = null;
+            }
+        }
+    }
+
+    /***************************************************************
+     * METHOD: present()                                           *
+     * DESCRIPTION:                                                *
+     * Draws the latest snapshot into the back buffer and shows    *
+     * it, repeating while the buffer contents are lost, as the    *
+     * BufferStrategy contract requires.                           *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void present() {
+        GameSnapshot s = snapshots.latest();
+        long start = System.nanoTime();
+        do {
+            do {
+                Graphics2D g2 = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    renderer.render(g2, s, start, getGraphicsConfiguration());
+                } finally {
+                    g2.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        // Push the frame out now rather than when the window system gets to it
+        Toolkit.getDefaultToolkit().sync();
+
+        long now = System.nanoTime();
+        renderStats.record(now - start);
+        if (s.getCapturedNanos() != lastCapturedNanos) {
+            // A repeat of an idle screen has no new state to measure
+            latencyStats.record(now - s.getCapturedNanos());
+            lastCapturedNanos = s.getCapturedNanos();
+        }
+        if (lastPresentNanos != 0) {
+            frameStats.record(now - lastPresentNanos);
+            renderer.recordFrameInterval(now - lastPresentNanos);
+        }
+        lastPresentNanos = now;
+    }
+
+    /***************************************************************
+     * METHOD: createStrategy()                                    *
+     * DESCRIPTION:                                                *
+     * Creates a double-buffered strategy, with page flipping when *
+     * the platform offers it and a blitted back buffer otherwise, *
+     * and reads the refresh rate of the screen.                   *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void createStrategy() {
+        BufferCapabilities flipping = new BufferCapabilities(
+                new ImageCapabilities(true), new ImageCapabilities(true),
+                BufferCapabilities.FlipContents.UNDEFINED);
+        try {
+            createBufferStrategy(2, flipping);
+        } catch (AWTException e) {
+            createBufferStrategy(2); // Best the platform can do
+        }
+        strategy = getBufferStrategy();
+        refreshNanos = 1_000_000_000L / refreshRate();
+        System.out.println("Active rendering, page flipping "
+                + (strategy.getCapabilities().isPageFlipping() ? "on" : "off"));
+    }
+
+    /***************************************************************
+     * METHOD: refreshRate()                                       *
+     * DESCRIPTION:                                                *
+     * Retrieves the refresh rate of the screen showing the canvas.*
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: Frames per second, DEFAULT_REFRESH_RATE when  *
+     *    unknown.                                                 *
+     ***************************************************************/
+    private int refreshRate() {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        int rate = gc == null ? DisplayMode.REFRESH_RATE_UNKNOWN : gc.getDevice().getDisplayMode().getRefreshRate();
+        return rate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_REFRESH_RATE : rate;
+    }
+
+    /***************************************************************
+     * METHOD: getRenderStats()                                    *
+     * DESCRIPTION:                                                *
+     * Retrieves the time spent drawing and showing each frame.    *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The FrameStats for frame rendering.           *
+     ***************************************************************/
+    public FrameStats getRenderStats() {
+        return renderStats;
+    }
+}
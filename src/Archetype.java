@@ -0,0 +1,297 @@
+/*******************************************************************
+ * CLASS: Archetype                                               *
+ * DESCRIPTION:                                                   *
+ * A table of game entities that share the same components,       *
+ * stored as one primitive array per component field: all X       *
+ * positions together, all Y positions together, and so on. The   *
+ * entities are the rows 0 to size() - 1, kept contiguous, so a   *
+ * system (see EntitySystems) is a plain loop over a few arrays,  *
+ * with nothing to skip and no objects to chase. Each kind of     *
+ * entity (balls, power-ups, ...) gets its own table with only    *
+ * the columns it needs.                                          *
+ *                                                                *
+ * A despawn moves the last row into the gap, so it costs the     *
+ * same at any size and rows are not in spawn order. Code that    *
+ * keeps an entity across steps holds its handle instead: an int  *
+ * with a slot index in the low INDEX_BITS and the slot's         *
+ * generation above. Despawning bumps the generation, so a handle *
+ * kept past despawn is recognized as stale by row().             *
+ *                                                                *
+ * Despawned rows are reused and the arrays only grow (doubling), *
+ * so spawning does not allocate once a table has reached the     *
+ * session's peak. Not thread-safe: a table belongs to the thread *
+ * that steps its world; renderers read GameSnapshot copies.      *
+ *******************************************************************/
+import java.util.Arrays;
+
+public final class Archetype {
+    public static final int VELOCITY = 1;   // Component: xVel, yVel
+    public static final int TRAIL = 2;      // Component: prevX, prevY (position before the step)
+    public static final int SIZE = 4;       // Component: size (width and height)
+    public static final int TAG = 8;        // Component: tag, an int for the kind's own use
+    public static final int NONE = -1;      // Handle of no entity
+
+    private static final int INDEX_BITS = 20;               // Low handle bits: slot index
+    private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+    private static final int MAX_ROWS = 1 << INDEX_BITS;    // Entities one table can hold
+    private static final int GENERATION_MASK = (1 << (31 - INDEX_BITS)) - 1; // Keeps handles positive
+
+    private final String name;      // Label for metrics, e.g. "balls"
+    private final int components;   // Component bits of this table
+    private int count = 0;          // Live rows
+
+    // Columns, indexed by row; null for components the table lacks.
+    // EntitySystems reads and writes them directly.
+    double[] x;                     // Left edge
+    double[] y;                     // Top edge
+    double[] xVel;                  // Horizontal velocity
+    double[] yVel;                  // Vertical velocity
+    double[] prevX;                 // Left edge before the step, for interpolation
+    double[] prevY;                 // Top edge before the step
+    int[] size;                     // Width and height
+    int[] tag;                      // Kind-specific value, e.g. a power-up type
+
+    // Handles
+    private int[] slotOfRow;        // Slot of each row
+    private int[] rowOfSlot;        // Row of each slot, -1 when free
+    private int[] generations;      // Generation of each slot
+    private int[] freeSlots;        // Stack of despawned slots
+    private int freeCount = 0;      // Entries on the stack
+    private int slots = 0;          // Slots ever used
+
+    /***************************************************************
+     * METHOD: Archetype(String name, int components,              *
+     *                   int capacity)                             *
+     * DESCRIPTION:                                                *
+     * Creates an empty table. Every table has positions; the      *
+     * other columns exist only for the given components.          *
+     * PARAMETERS:                                                 *
+     *    - String name: Label for metrics.                        *
+     *    - int components: VELOCITY, TRAIL, SIZE and TAG bits.    *
+     *    - int capacity: Rows to make room for initially.         *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public Archetype(String name, int components, int capacity) {
+        this.name = name;
+        this.components = components;
+        int rows = Math.max(1, capacity);
+        x = new double[rows];
+        y = new double[rows];
+        if (has(VELOCITY)) {
+            xVel = new double[rows];
+            yVel = new double[rows];
+        }
+        if (has(TRAIL)) {
+            prevX = new double[rows];
+            prevY = new double[rows];
+        }
+        if (has(SIZE)) {
+            size = new int[rows];
+        }
+        if (has(TAG)) {
+            tag = new int[rows];
+        }
+        slotOfRow = new int[rows];
+        rowOfSlot = new int[rows];
+        generations = new int[rows];
+        freeSlots = new int[rows];
+    }
+
+    /***************************************************************
+     * METHOD: spawn(double x, double y)                           *
+     * DESCRIPTION:                                                *
+     * Adds an entity as the last row. Its position is set and its *
+     * other columns are zero; the caller fills them in.           *
+     * PARAMETERS:                                                 *
+     *    - double x, y: The position.                             *
+     * RETURN VALUE: The row of the new entity.                    *
+     * THROWS: IllegalStateException if MAX_ROWS entities are      *
+     *    live.                                                    *
+     ***************************************************************/
+    public int spawn(double x, double y) {
+        if (count == MAX_ROWS) {
+            throw new IllegalStateException(name + " table is full (" + MAX_ROWS + " entities)");
+        }
+        if (count == this.x.length) {
+            grow();
+        }
+        int slot = (freeCount > 0) ? freeSlots[--freeCount] : slots++;
+        int row = count++;
+        slotOfRow[row] = slot;
+        rowOfSlot[slot] = row;
+        this.x[row] = x;
+        this.y[row] = y;
+        if (xVel != null) {
+            xVel[row] = 0;
+            yVel[row] = 0;
+        }
+        if (prevX != null) {
+            prevX[row] = x;
+            prevY[row] = y;
+        }
+        if (size != null) {
+            size[row] = 0;
+        }
+        if (tag != null) {
+            tag[row] = 0;
+        }
+        return row;
+    }
+
+    /***************************************************************
+     * METHOD: despawn(int row)                                    *
+     * DESCRIPTION:                                                *
+     * Removes an entity. The last row moves into its place, so a  *
+     * loop removing as it goes tests the same row again next. The *
+     * entity's handle becomes stale.                              *
+     * PARAMETERS:                                                 *
+     *    - int row: The row, 0 to size() - 1.                     *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void despawn(int row) {
+        int slot = slotOfRow[row];
+        rowOfSlot[slot] = -1;
+        generations[slot] = (generations[slot] + 1) & GENERATION_MASK;
+        freeSlots[freeCount++] = slot;
+
+        int last = --count;
+        if (row != last) {
+            x[row] = x[last];
+            y[row] = y[last];
+            if (xVel != null) {
+                xVel[row] = xVel[last];
+                yVel[row] = yVel[last];
+            }
+            if (prevX != null) {
+                prevX[row] = prevX[last];
+                prevY[row] = prevY[last];
+            }
+            if (size != null) {
+                size[row] = size[last];
+            }
+            if (tag != null) {
+                tag[row] = tag[last];
+            }
+            slotOfRow[row] = slotOfRow[last];
+            rowOfSlot[slotOfRow[row]] = row;
+        }
+    }
+
+    /***************************************************************
+     * METHOD: clear()                                             *
+     * DESCRIPTION:                                                *
+     * Despawns every entity, making all handles stale.            *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void clear() {
+        for (int row = 0; row < count; row++) {
+            int slot = slotOfRow[row];
+            rowOfSlot[slot] = -1;
+            generations[slot] = (generations[slot] + 1) & GENERATION_MASK;
+            freeSlots[freeCount++] = slot;
+        }
+        count = 0;
+    }
+
+    /***************************************************************
+     * METHOD: handle(int row)                                     *
+     * DESCRIPTION:                                                *
+     * Retrieves the handle of the entity in a row, which stays    *
+     * valid while the entity lives, wherever its row moves.       *
+     * PARAMETERS:                                                 *
+     *    - int row: The row, 0 to size() - 1.                     *
+     * RETURN VALUE: The handle.                                   *
+     ***************************************************************/
+    public int handle(int row) {
+        int slot = slotOfRow[row];
+        return (generations[slot] << INDEX_BITS) | slot;
+    }
+
+    /***************************************************************
+     * METHOD: row(int handle)                                     *
+     * DESCRIPTION:                                                *
+     * Finds the current row of an entity by its handle.           *
+     * PARAMETERS:                                                 *
+     *    - int handle: Any handle.                                *
+     * RETURN VALUE: The row, or -1 for NONE and stale handles.    *
+     ***************************************************************/
+    public int row(int handle) {
+        if (handle < 0) {
+            return -1;
+        }
+        int slot = handle & INDEX_MASK;
+        if (slot >= slots || generations[slot] != handle >>> INDEX_BITS) {
+            return -1;
+        }
+        return rowOfSlot[slot];
+    }
+
+    /***************************************************************
+     * METHOD: grow()                                              *
+     * DESCRIPTION:                                                *
+     * Doubles every column and the handle tables, up to MAX_ROWS. *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void grow() {
+        int rows = Math.min(MAX_ROWS, x.length * 2);
+        x = Arrays.copyOf(x, rows);
+        y = Arrays.copyOf(y, rows);
+        if (xVel != null) {
+            xVel = Arrays.copyOf(xVel, rows);
+            yVel = Arrays.copyOf(yVel, rows);
+        }
+        if (prevX != null) {
+            prevX = Arrays.copyOf(prevX, rows);
+            prevY = Arrays.copyOf(prevY, rows);
+        }
+        if (size != null) {
+            size = Arrays.copyOf(size, rows);
+        }
+        if (tag != null) {
+            tag = Arrays.copyOf(tag, rows);
+        }
+        slotOfRow = Arrays.copyOf(slotOfRow, rows);
+        rowOfSlot = Arrays.copyOf(rowOfSlot, rows);
+        generations = Arrays.copyOf(generations, rows);
+        freeSlots = Arrays.copyOf(freeSlots, rows);
+    }
+
+    /***************************************************************
+     * METHODS: getX(int row), getY(int row), getXVel(int row),    *
+     *          getYVel(int row), getPrevX(int row),               *
+     *          getPrevY(int row), getSize(int row),               *
+     *          getTag(int row) and their setters                  *
+     * DESCRIPTION:                                                *
+     * One field of one entity. Only the columns of the table's    *
+     * components exist.                                           *
+     ***************************************************************/
+    public double getX(int row) { return x[row]; }
+    public double getY(int row) { return y[row]; }
+    public double getXVel(int row) { return xVel[row]; }
+    public double getYVel(int row) { return yVel[row]; }
+    public double getPrevX(int row) { return prevX[row]; }
+    public double getPrevY(int row) { return prevY[row]; }
+    public int getSize(int row) { return size[row]; }
+    public int getTag(int row) { return tag[row]; }
+    public void setX(int row, double value) { x[row] = value; }
+    public void setY(int row, double value) { y[row] = value; }
+    public void setXVel(int row, double value) { xVel[row] = value; }
+    public void setYVel(int row, double value) { yVel[row] = value; }
+    public void setSize(int row, int value) { size[row] = value; }
+    public void setTag(int row, int value) { tag[row] = value; }
+
+    /***************************************************************
+     * METHODS: getName(), has(int component), size(), isEmpty(),  *
+     *          getCapacity()                                      *
+     * DESCRIPTION:                                                *
+     * The table's label, components, live entities, and the rows  *
+     * it has room for before it must grow.                        *
+     ***************************************************************/
+    public String getName() { return name; }
+    public boolean has(int component) { return (components & component) == component; }
+    public int size() { return count; }
+    public boolean isEmpty() { return count == 0; }
+    public int getCapacity() { return x.length; }
+}
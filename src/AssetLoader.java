@@ -0,0 +1,179 @@
+/*******************************************************************
+ * CLASS: AssetLoader                                             *
+ * DESCRIPTION:                                                   *
+ * Loads the game's assets (sounds, fonts and images, named as in *
+ * Resources) on a small pool of worker threads, so that decoding *
+ * happens in parallel and off the event thread. Every request    *
+ * returns at once with a CompletableFuture; the loader counts    *
+ * requested and finished assets, which the startup screen shows  *
+ * as progress.                                                   *
+ *                                                                *
+ * Failures are handled the way the loaders always did: the error *
+ * is printed and the future completes with the loader's fallback *
+ * (-1 for a sound, Arial for a font, null for an image, the      *
+ * classic level for levels).                                     *
+ *******************************************************************/
+import javax.imageio.ImageIO;
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class AssetLoader {
+    private static AssetLoader shared;      // The loader of the session
+
+    private final AudioMixer mixer;         // Where sounds are decoded to
+    private final ExecutorService workers;  // Decoding threads
+    private final AtomicInteger requested = new AtomicInteger(); // Assets asked for
+    private final AtomicInteger finished = new AtomicInteger();  // Assets done, loaded or not
+
+    /***************************************************************
+     * METHOD: AssetLoader(AudioMixer mixer, int threads)          *
+     * DESCRIPTION:                                                *
+     * Creates a loader with its own pool of daemon workers.       *
+     * PARAMETERS:                                                 *
+     *    - AudioMixer mixer: The mixer sounds are loaded into.    *
+     *    - int threads: Number of worker threads.                 *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public AssetLoader(AudioMixer mixer, int threads) {
+        this.mixer = mixer;
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "asset-loader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /***************************************************************
+     * METHOD: shared()                                            *
+     * DESCRIPTION:                                                *
+     * Retrieves the session's loader, which feeds the shared      *
+     * AudioMixer and uses up to four workers.                     *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The shared AssetLoader.                       *
+     ***************************************************************/
+    public static synchronized AssetLoader shared() {
+        if (shared == null) {
+            int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+            shared = new AssetLoader(AudioMixer.shared(), threads);
+        }
+        return shared;
+    }
+
+    /***************************************************************
+     * METHOD: sound(String name)                                  *
+     * DESCRIPTION:                                                *
+     * Decodes a sound file into the mixer.                        *
+     * PARAMETERS:                                                 *
+     *    - String name: The asset name of the sound file.         *
+     * RETURN VALUE: The future sound id, -1 if it failed to load. *
+     ***************************************************************/
+    public CompletableFuture<Integer> sound(String name) {
+        return submit(() -> mixer.load(name));
+    }
+
+    /***************************************************************
+     * METHOD: font(String name, float size)                       *
+     * DESCRIPTION:                                                *
+     * Loads a TrueType font at the given size (see FontLoader).   *
+     * PARAMETERS:                                                 *
+     *    - String name: The asset name of the font file.          *
+     *    - float size: The font size.                             *
+     * RETURN VALUE: The future font, Arial if it failed to load.  *
+     ***************************************************************/
+    public CompletableFuture<Font> font(String name, float size) {
+        return submit(() -> FontLoader.loadFont(name, size));
+    }
+
+    /***************************************************************
+     * METHOD: image(String name)                                  *
+     * DESCRIPTION:                                                *
+     * Decodes an image file.                                      *
+     * PARAMETERS:                                                 *
+     *    - String name: The asset name of the image file.         *
+     * RETURN VALUE: The future image, null if it failed to load.  *
+     ***************************************************************/
+    public CompletableFuture<BufferedImage> image(String name) {
+        return submit(() -> {
+            try (InputStream in = Resources.shared().open(name)) {
+                BufferedImage image = ImageIO.read(in);
+                if (image == null) {
+                    throw new IOException("Unknown image format: " + name);
+                }
+                return image;
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+        });
+    }
+
+    /***************************************************************
+     * METHOD: levels()                                            *
+     * DESCRIPTION:                                                *
+     * Reads the level list and the first level (see Levels).      *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The future levels, the classic game if the    *
+     *    list failed to load.                                     *
+     ***************************************************************/
+    public CompletableFuture<Levels> levels() {
+        return submit(Levels::load);
+    }
+
+    /***************************************************************
+     * METHOD: highScores()                                        *
+     * DESCRIPTION:                                                *
+     * Reads the saved leaderboard (see HighScoreStore).           *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The future leaderboard, kept in memory only   *
+     *    if it failed to load.                                    *
+     ***************************************************************/
+    public CompletableFuture<HighScoreStore> highScores() {
+        return submit(HighScoreStore::load);
+    }
+
+    /***************************************************************
+     * METHOD: submit(Supplier<T> task)                            *
+     * DESCRIPTION:                                                *
+     * Runs a load on the workers and counts it for progress.      *
+     * PARAMETERS:                                                 *
+     *    - Supplier<T> task: The load; it handles its own errors. *
+     * RETURN VALUE: The future result.                            *
+     ***************************************************************/
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        requested.incrementAndGet();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.get();
+            } finally {
+                finished.incrementAndGet();
+            }
+        }, workers);
+    }
+
+    /***************************************************************
+     * METHODS: getRequested(), getFinished()                      *
+     * DESCRIPTION:                                                *
+     * Assets asked for so far, and how many of them are done.     *
+     ***************************************************************/
+    public int getRequested() { return requested.get(); }
+    public int getFinished() { return finished.get(); }
+
+    /***************************************************************
+     * METHOD: shutdown()                                          *
+     * DESCRIPTION:                                                *
+     * Lets the workers finish queued loads and then exit.         *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,302 @@
+/*******************************************************************
+ * CLASS: AssetPack                                               *
+ * DESCRIPTION:                                                   *
+ * A packed asset archive: every sound, font and image of the     *
+ * game in one file, with an index in front. Opening the pack     *
+ * maps the whole file into memory and reads the index once;      *
+ * after that an asset is a slice of the mapping, so loading it   *
+ * opens no file and copies nothing until it is decoded.          *
+ *                                                                *
+ * FORMAT (big-endian):                                           *
+ *    int    MAGIC ("BBPK")                                       *
+ *    int    VERSION                                              *
+ *    int    number of entries                                    *
+ *    per entry: short name length, UTF-8 name,                   *
+ *               int data offset, int data length                 *
+ *    the data of every entry, in index order                     *
+ *                                                                *
+ * USAGE (from the project root, to build the pack and ship the   *
+ * game as one jar):                                              *
+ *    javac -d out src/*.java                                     *
+ *    java -cp out AssetPack src out/assets.pack                  *
+ *    jar --create --file BrickBreaker.jar --main-class Main      *
+ *        -C out .                                                *
+ *******************************************************************/
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class AssetPack {
+    private static final int MAGIC = 0x42424B50;  // "BBPK"
+    private static final int VERSION = 1;         // Format version written by write()
+
+    private final ByteBuffer data;                // The whole pack, never moved
+    private final Map<String, int[]> index;       // { offset, length } by asset name
+
+    /***************************************************************
+     * METHOD: AssetPack(ByteBuffer data)                          *
+     * DESCRIPTION:                                                *
+     * Reads the index of a pack held in a buffer.                 *
+     * PARAMETERS:                                                 *
+     *    - ByteBuffer data: The pack, from position 0.            *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private AssetPack(ByteBuffer data) throws IOException {
+        this.data = data;
+        ByteBuffer header = data.duplicate();
+        try {
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not an asset pack");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported asset pack version " + version);
+            }
+            int count = header.getInt();
+            index = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[header.getShort() & 0xFFFF];
+                header.get(name);
+                int offset = header.getInt();
+                int length = header.getInt();
+                if (offset < 0 || length < 0 || offset > data.limit() - length) {
+                    throw new IOException("Corrupt asset pack entry " + i);
+                }
+                index.put(new String(name, StandardCharsets.UTF_8), new int[] { offset, length });
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt asset pack", e); // Truncated header or index
+        }
+    }
+
+    /***************************************************************
+     * METHOD: map(Path file)                                      *
+     * DESCRIPTION:                                                *
+     * Opens a pack file by mapping it read-only into memory. The  *
+     * mapping stays valid after the channel is closed.            *
+     * PARAMETERS:                                                 *
+     *    - Path file: The pack file.                              *
+     * RETURN VALUE: The opened pack.                              *
+     ***************************************************************/
+    public static AssetPack map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new AssetPack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /***************************************************************
+     * METHOD: read(InputStream in)                                *
+     * DESCRIPTION:                                                *
+     * Opens a pack that cannot be mapped, such as one inside a    *
+     * jar, by reading all of it into memory with one stream.      *
+     * PARAMETERS:                                                 *
+     *    - InputStream in: The pack; it is not closed.            *
+     * RETURN VALUE: The opened pack.                              *
+     ***************************************************************/
+    public static AssetPack read(InputStream in) throws IOException {
+        byte[] bytes = in.readAllBytes();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return new AssetPack(buffer);
+    }
+
+    /***************************************************************
+     * METHOD: open(String name)                                   *
+     * DESCRIPTION:                                                *
+     * Opens an asset of the pack as a stream over its bytes. The  *
+     * stream supports mark/reset, which the sound decoders need.  *
+     * Safe to call from several threads at once.                  *
+     * PARAMETERS:                                                 *
+     *    - String name: The asset name, e.g. "sounds/x.wav".      *
+     * RETURN VALUE: The stream, or null if the pack lacks it.     *
+     ***************************************************************/
+    public InputStream open(String name) {
+        int[] entry = index.get(name);
+        if (entry == null) {
+            return null;
+        }
+        return new SliceInputStream(data.slice(entry[0], entry[1]));
+    }
+
+    /***************************************************************
+     * METHOD: slice(String name)                                  *
+     * DESCRIPTION:                                                *
+     * Retrieves the bytes of an asset without copying them, for   *
+     * assets that are read in place (see LevelPack).              *
+     * PARAMETERS:                                                 *
+     *    - String name: The asset name.                           *
+     * RETURN VALUE: A read-only slice of the pack, or null if the *
+     *    pack lacks the asset.                                    *
+     ***************************************************************/
+    public ByteBuffer slice(String name) {
+        int[] entry = index.get(name);
+        return entry != null ? data.slice(entry[0], entry[1]).asReadOnlyBuffer() : null;
+    }
+
+    /***************************************************************
+     * METHOD: size()                                              *
+     * DESCRIPTION:                                                *
+     * Retrieves the number of assets in the pack.                 *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The number of assets.                         *
+     ***************************************************************/
+    public int size() {
+        return index.size();
+    }
+
+    /***************************************************************
+     * METHOD: write(Path root, OutputStream out)                  *
+     * DESCRIPTION:                                                *
+     * Packs every file under a directory, except Java sources and *
+     * classes, named by its path relative to the directory. Text  *
+     * levels are compiled on the way (see LevelLoader), so the    *
+     * pack holds levels/<name>.lvl instead of the .txt.           *
+     * PARAMETERS:                                                 *
+     *    - Path root: The asset directory, e.g. src.              *
+     *    - OutputStream out: Where the pack is written.           *
+     * RETURN VALUE: The number of assets packed.                  *
+     ***************************************************************/
+    public static int write(Path root, OutputStream out) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(f -> !f.toString().endsWith(".java") && !f.toString().endsWith(".class"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        // Index first, so every data offset is known before the data is written
+        byte[][] names = new byte[files.size()][];
+        byte[][] compiled = new byte[files.size()][];  // Compiled levels, null for copied files
+        int offset = 12;
+        for (int i = 0; i < files.size(); i++) {
+            String name = root.relativize(files.get(i)).toString().replace('\\', '/');
+            if (name.startsWith(LevelLoader.DIRECTORY) && name.endsWith(LevelLoader.TEXT)
+                    && !name.equals(LevelLoader.DIRECTORY + Levels.LIST_NAME)) {
+                compiled[i] = LevelLoader.compile(Files.readAllBytes(files.get(i)), files.get(i).toString());
+                name = name.substring(0, name.length() - LevelLoader.TEXT.length()) + LevelLoader.BINARY;
+            }
+            names[i] = name.getBytes(StandardCharsets.UTF_8);
+            offset += 2 + names[i].length + 8;
+        }
+        ByteArrayOutputStream header = new ByteArrayOutputStream(offset);
+        DataOutputStream index = new DataOutputStream(header);
+        index.writeInt(MAGIC);
+        index.writeInt(VERSION);
+        index.writeInt(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            long length = compiled[i] != null ? compiled[i].length : Files.size(files.get(i));
+            if (offset + length > Integer.MAX_VALUE) {
+                throw new IOException("Asset pack larger than 2 GB");
+            }
+            index.writeShort(names[i].length);
+            index.write(names[i]);
+            index.writeInt(offset);
+            index.writeInt((int) length);
+            offset += (int) length;
+        }
+        header.writeTo(out);
+        for (int i = 0; i < files.size(); i++) {
+            if (compiled[i] != null) {
+                out.write(compiled[i]);
+            } else {
+                Files.copy(files.get(i), out);
+            }
+        }
+        return files.size();
+    }
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Builds a pack file from an asset directory.                 *
+     * PARAMETERS:                                                 *
+     *    - String[] args: The asset directory and the pack file.  *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: java AssetPack <asset directory> <pack file>");
+            System.exit(1);
+        }
+        Path target = Path.of(args[1]);
+        int count;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            count = write(Path.of(args[0]), out);
+        }
+        System.out.println("Packed " + count + " assets into " + target + " (" + Files.size(target) + " bytes)");
+    }
+
+    /*******************************************************************
+     * CLASS: SliceInputStream                                        *
+     * DESCRIPTION:                                                   *
+     * An InputStream over a slice of the pack. Reading moves only    *
+     * the slice's own position, so streams never disturb each other. *
+     *******************************************************************/
+    private static final class SliceInputStream extends InputStream {
+        private final ByteBuffer slice; // Bytes of one asset
+        private int mark = 0;           // Position saved by mark()
+
+        SliceInputStream(ByteBuffer slice) {
+            this.slice = slice;
+        }
+
+        @Override
+        public int read() {
+            return slice.hasRemaining() ? slice.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!slice.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, slice.remaining());
+            slice.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, slice.remaining()));
+            slice.position(slice.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return slice.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public void mark(int readLimit) {
+            mark = slice.position();
+        }
+
+        @Override
+        public void reset() {
+            slice.position(mark);
+        }
+    }
+}
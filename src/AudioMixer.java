@@ -0,0 +1,404 @@
+/*******************************************************************
+ * CLASS: AudioMixer                                              *
+ * DESCRIPTION:                                                   *
+ * Software mixer for the game's sound effects and music. Every   *
+ * sound is decoded once, when it is loaded, into one shared bank *
+ * of 16-bit stereo PCM samples in the mixer's format. A single   *
+ * audio thread mixes up to MAX_VOICES playing sounds into one    *
+ * SourceDataLine, so any number of effects overlap while only    *
+ * one native line is ever open.                                  *
+ *                                                                *
+ * Other threads never touch the line or the voices: play(),      *
+ * loop() and stop() put a command into a small ring that the     *
+ * audio thread drains before each chunk, so a sound starts at    *
+ * most one line buffer (BUFFER_CHUNKS chunks, about 23 ms) after *
+ * it was asked for. When all voices are busy, a new sound steals *
+ * the voice of the oldest effect that is not looping.            *
+ *                                                                *
+ * Without an audio device the mixer still loads sounds and can   *
+ * be run offline with render(), but nothing is played.           *
+ *******************************************************************/
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.SourceDataLine;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class AudioMixer implements Runnable {
+    public static final float SAMPLE_RATE = 44_100f;  // Frames per second
+    public static final int CHANNELS = 2;             // Stereo
+    public static final int MAX_VOICES = 16;          // Sounds playing at once
+    public static final int CHUNK_FRAMES = 256;       // Frames mixed per pass (5.8 ms)
+    private static final int BUFFER_CHUNKS = 4;       // Line buffer, bounds the latency
+    private static final int COMMAND_CAPACITY = 64;   // Queued commands before new ones are dropped
+
+    private static final int PLAY = 1;                // Command codes, stored above the sound id
+    private static final int LOOP = 2;
+    private static final int STOP = 3;
+
+    private static AudioMixer shared;       // The mixer of the session
+
+    // Mixer format: signed 16-bit little-endian stereo
+    private final AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+
+    // Sound bank, appended to by load() under the lock, read by the audio thread
+    private final Map<String, Integer> ids = new HashMap<>(); // Sound id by asset name
+    private volatile short[] bank = new short[0];  // Samples of all sounds, interleaved
+    private int bankSize = 0;                      // Samples used in bank
+    private volatile int[] offsets = new int[0];   // First sample of each sound in bank
+    private volatile int[] lengths = new int[0];   // Samples of each sound
+
+    // Command ring, filled by any thread, drained by the audio thread
+    private final int[] commands = new int[COMMAND_CAPACITY];
+    private int commandHead = 0;            // Next command to drain
+    private int commandCount = 0;           // Commands waiting
+
+    // Voices, owned by the audio thread
+    private final int[] voiceSound = new int[MAX_VOICES];   // Sound id, -1 when free
+    private final int[] voicePos = new int[MAX_VOICES];     // Next sample to mix
+    private final boolean[] voiceLoop = new boolean[MAX_VOICES]; // Restart at the end
+    private final long[] voiceStart = new long[MAX_VOICES]; // Chunk it started in, for stealing
+    private long chunkIndex = 0;            // Chunks mixed so far
+    private int stolenVoices = 0;           // Effects cut short to make room
+    private final int[] mix = new int[CHUNK_FRAMES * CHANNELS]; // Wide accumulator
+
+    private SourceDataLine line;            // The one native line, null without a device
+    private volatile boolean running = false; // Audio thread state
+
+    /***************************************************************
+     * METHOD: AudioMixer()                                        *
+     * DESCRIPTION:                                                *
+     * Creates a mixer with no sounds and no line open.            *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public AudioMixer() {
+        Arrays.fill(voiceSound, -1);
+    }
+
+    /***************************************************************
+     * METHOD: shared()                                            *
+     * DESCRIPTION:                                                *
+     * Retrieves the session's mixer, opening the line and         *
+     * starting the audio thread on first use.                     *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The shared AudioMixer.                        *
+     ***************************************************************/
+    public static synchronized AudioMixer shared() {
+        if (shared == null) {
+            shared = new AudioMixer();
+            shared.start();
+        }
+        return shared;
+    }
+
+    /***************************************************************
+     * METHOD: load(String name)                                   *
+     * DESCRIPTION:                                                *
+     * Decodes a sound asset (see Resources) into the bank,        *
+     * converting it to the mixer format. A sound that was loaded  *
+     * before is not decoded again. Several threads may load at    *
+     * once: decoding runs outside the lock, only appending to the *
+     * bank is serialized.                                         *
+     * PARAMETERS:                                                 *
+     *    - String name: The asset name of the sound to load.      *
+     * RETURN VALUE: The sound id, or -1 if the sound could not be *
+     *    loaded.                                                  *
+     ***************************************************************/
+    public int load(String name) {
+        synchronized (this) {
+            Integer known = ids.get(name);
+            if (known != null) {
+                return known;
+            }
+        }
+        short[] samples;
+        try (InputStream in = Resources.shared().open(name)) {
+            samples = decode(in);
+        } catch (Exception e) {
+            e.printStackTrace(); // Print error details
+            return -1;
+        }
+        return append(name, samples);
+    }
+
+    /***************************************************************
+     * METHOD: append(String name, short[] samples)                *
+     * DESCRIPTION:                                                *
+     * Adds decoded samples to the bank under a new sound id,      *
+     * unless another thread loaded the same sound meanwhile.      *
+     * PARAMETERS:                                                 *
+     *    - String name: The asset the samples were read from.     *
+     *    - short[] samples: The samples in the mixer format.      *
+     * RETURN VALUE: The sound id.                                 *
+     ***************************************************************/
+    private synchronized int append(String name, short[] samples) {
+        Integer known = ids.get(name);
+        if (known != null) {
+            return known;
+        }
+        short[] grown = bank;
+        if (bankSize + samples.length > grown.length) {
+            grown = Arrays.copyOf(grown, Math.max(bankSize + samples.length, grown.length * 2));
+        }
+        System.arraycopy(samples, 0, grown, bankSize, samples.length);
+        int id = offsets.length;
+        int[] newOffsets = Arrays.copyOf(offsets, id + 1);
+        int[] newLengths = Arrays.copyOf(lengths, id + 1);
+        newOffsets[id] = bankSize;
+        newLengths[id] = samples.length;
+        bankSize += samples.length;
+
+        // Samples first, then the tables that point at them
+        bank = grown;
+        lengths = newLengths;
+        offsets = newOffsets;
+        ids.put(name, id);
+        return id;
+    }
+
+    /***************************************************************
+     * METHOD: decode(InputStream in)                              *
+     * DESCRIPTION:                                                *
+     * Reads a whole sound as samples in the mixer format.         *
+     * PARAMETERS:                                                 *
+     *    - InputStream in: The sound file's bytes, with mark.     *
+     * RETURN VALUE: The interleaved samples.                      *
+     ***************************************************************/
+    private short[] decode(InputStream in) throws Exception {
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(in);
+             AudioInputStream pcm = AudioSystem.getAudioInputStream(format, source)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[16 * 1024];
+            int n;
+            while ((n = pcm.read(buffer)) > 0) {
+                bytes.write(buffer, 0, n);
+            }
+            byte[] data = bytes.toByteArray();
+            short[] samples = new short[data.length / 2];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = (short) ((data[2 * i] & 0xFF) | (data[2 * i + 1] << 8));
+            }
+            return samples;
+        }
+    }
+
+    /***************************************************************
+     * METHODS: play(int sound), loop(int sound), stop(int sound)  *
+     * DESCRIPTION:                                                *
+     * Queue a command for the audio thread: start a sound once,   *
+     * start it looping, or stop every voice playing it. Safe to   *
+     * call from any thread; they never block on audio and do not  *
+     * allocate. Invalid ids (-1 from a failed load) are ignored.  *
+     * PARAMETERS:                                                 *
+     *    - int sound: An id returned by load().                   *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void play(int sound) { command(PLAY, sound); }
+    public void loop(int sound) { command(LOOP, sound); }
+    public void stop(int sound) { command(STOP, sound); }
+
+    private synchronized void command(int op, int sound) {
+        if (sound < 0 || commandCount == COMMAND_CAPACITY) {
+            return;
+        }
+        commands[(commandHead + commandCount) % COMMAND_CAPACITY] = op << 24 | sound;
+        commandCount++;
+    }
+
+    /***************************************************************
+     * METHOD: start()                                             *
+     * DESCRIPTION:                                                *
+     * Opens the line and starts the audio thread. Without an      *
+     * audio device the error is printed and sounds are silent.    *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        try {
+            line = AudioSystem.getSourceDataLine(format);
+            line.open(format, CHUNK_FRAMES * BUFFER_CHUNKS * format.getFrameSize());
+            line.start();
+        } catch (Exception e) {
+            e.printStackTrace(); // No audio device: keep the game silent
+            line = null;
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this, "audio-mixer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    /***************************************************************
+     * METHOD: run()                                               *
+     * DESCRIPTION:                                                *
+     * The audio thread: mixes a chunk and writes it to the line,  *
+     * which blocks while the line buffer is full.                 *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    @Override
+    public void run() {
+        byte[] out = new byte[CHUNK_FRAMES * format.getFrameSize()];
+        while (running) {
+            render(out);
+            line.write(out, 0, out.length);
+        }
+        line.drain();
+        line.close();
+    }
+
+    /***************************************************************
+     * METHOD: stopMixer()                                         *
+     * DESCRIPTION:                                                *
+     * Ends the audio thread; the line is closed after it played   *
+     * what was already written.                                   *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void stopMixer() {
+        running = false;
+    }
+
+    /***************************************************************
+     * METHOD: render(byte[] out)                                  *
+     * DESCRIPTION:                                                *
+     * Applies the queued commands and mixes the next CHUNK_FRAMES *
+     * frames of all voices, clipping the sum to 16 bits. Called   *
+     * by the audio thread, or by a single offline caller when the *
+     * mixer was not started.                                      *
+     * PARAMETERS:                                                 *
+     *    - byte[] out: CHUNK_FRAMES frames in the mixer format.   *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void render(byte[] out) {
+        drainCommands();
+        short[] samples = bank;
+        int[] soundOffsets = offsets;
+        int[] soundLengths = lengths;
+        Arrays.fill(mix, 0);
+
+        for (int v = 0; v < MAX_VOICES; v++) {
+            int sound = voiceSound[v];
+            if (sound < 0) {
+                continue;
+            }
+            int base = soundOffsets[sound];
+            int length = soundLengths[sound];
+            int pos = voicePos[v];
+            for (int i = 0; i < mix.length; i++) {
+                if (pos == length) {
+                    if (!voiceLoop[v] || length == 0) {
+                        voiceSound[v] = -1;
+                        break;
+                    }
+                    pos = 0;
+                }
+                mix[i] += samples[base + pos++];
+            }
+            voicePos[v] = pos;
+        }
+
+        for (int i = 0; i < mix.length; i++) {
+            int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+            out[2 * i] = (byte) sample;
+            out[2 * i + 1] = (byte) (sample >> 8);
+        }
+        chunkIndex++;
+    }
+
+    /***************************************************************
+     * METHOD: drainCommands()                                     *
+     * DESCRIPTION:                                                *
+     * Applies the commands queued since the last chunk.           *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void drainCommands() {
+        while (true) {
+            int command;
+            synchronized (this) {
+                if (commandCount == 0) {
+                    return;
+                }
+                command = commands[commandHead];
+                commandHead = (commandHead + 1) % COMMAND_CAPACITY;
+                commandCount--;
+            }
+            int op = command >>> 24;
+            int sound = command & 0xFFFFFF;
+            if (op == STOP) {
+                for (int v = 0; v < MAX_VOICES; v++) {
+                    if (voiceSound[v] == sound) {
+                        voiceSound[v] = -1;
+                    }
+                }
+            } else {
+                startVoice(sound, op == LOOP);
+            }
+        }
+    }
+
+    /***************************************************************
+     * METHOD: startVoice(int sound, boolean looping)              *
+     * DESCRIPTION:                                                *
+     * Starts a sound on a free voice, or on the voice of the      *
+     * oldest effect that does not loop. If every voice loops the  *
+     * sound is dropped.                                           *
+     * PARAMETERS:                                                 *
+     *    - int sound: The sound id.                               *
+     *    - boolean looping: Restart the sound when it ends.       *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void startVoice(int sound, boolean looping) {
+        int voice = -1;
+        for (int v = 0; v < MAX_VOICES; v++) {
+            if (voiceSound[v] < 0) {
+                voice = v;
+                break;
+            }
+            if (!voiceLoop[v] && (voice < 0 || voiceStart[v] < voiceStart[voice])) {
+                voice = v;
+            }
+        }
+        if (voice < 0) {
+            return;
+        }
+        if (voiceSound[voice] >= 0) {
+            stolenVoices++;
+        }
+        voiceSound[voice] = sound;
+        voicePos[voice] = 0;
+        voiceLoop[voice] = looping;
+        voiceStart[voice] = chunkIndex;
+    }
+
+    /***************************************************************
+     * METHODS: getActiveVoices(), getStolenVoices(), getFormat(), *
+     *          isPlaying()                                        *
+     * DESCRIPTION:                                                *
+     * Mixer state: voices in use (audio thread or offline caller  *
+     * only), effects cut short so far, the sample format, and     *
+     * whether a line is open.                                     *
+     ***************************************************************/
+    public int getActiveVoices() {
+        int active = 0;
+        for (int v = 0; v < MAX_VOICES; v++) {
+            active += voiceSound[v] >= 0 ? 1 : 0;
+        }
+        return active;
+    }
+
+    public int getStolenVoices() { return stolenVoices; }
+    public AudioFormat getFormat() { return format; }
+    public boolean isPlaying() { return running; }
+}
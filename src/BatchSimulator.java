@@ -0,0 +1,313 @@
+/*******************************************************************
+ * CLASS: BatchSimulator                                          *
+ * DESCRIPTION:                                                   *
+ * Plays many complete games headless and in parallel, for        *
+ * balance testing and regression checks. Every game gets its own *
+ * seed, derived from one master seed with SplittableRandom, so a *
+ * batch is reproducible and the games are independent of each    *
+ * other and of the thread that runs them. Games are spread over  *
+ * a fork/join pool; since they share nothing, throughput scales  *
+ * with the number of cores.                                      *
+ *                                                                *
+ * USAGE:                                                         *
+ *    java BatchSimulator [games] [masterSeed] [threads] [scaling]*
+ *    e.g. java BatchSimulator 5000 42                            *
+ *         java BatchSimulator 2000 42 8 scaling                  *
+ *******************************************************************/
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+public class BatchSimulator {
+    public static final double STEP_SECONDS = 0.005;   // Same step as the Swing game
+    public static final int DEFAULT_DECISION_STEPS = 6; // ~30 ms, like keyboard auto-repeat
+    public static final long DEFAULT_MAX_STEPS = 120_000; // 10 simulated minutes per game
+
+    private final PaddlePolicy policy;  // The simulated player
+    private final int decisionSteps;    // Steps between two policy decisions
+    private final long maxSteps;        // Games still running after this are cut off
+
+    /***************************************************************
+     * RECORD: GameResult                                          *
+     * DESCRIPTION:                                                *
+     * The outcome of one simulated game.                          *
+     ***************************************************************/
+    public record GameResult(long seed, int score, long steps, int bricksDestroyed,
+                             boolean won, boolean timedOut) {
+        public double seconds() {
+            return steps * STEP_SECONDS;
+        }
+    }
+
+    /***************************************************************
+     * METHOD: BatchSimulator(PaddlePolicy policy,                 *
+     *                        int decisionSteps, long maxSteps)    *
+     * DESCRIPTION:                                                *
+     * Creates a simulator for the given player.                   *
+     * PARAMETERS:                                                 *
+     *    - PaddlePolicy policy: Stateless policy shared by all    *
+     *      worker threads.                                        *
+     *    - int decisionSteps: Steps between two key decisions.    *
+     *    - long maxSteps: Maximum length of one game in steps.    *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public BatchSimulator(PaddlePolicy policy, int decisionSteps, long maxSteps) {
+        this.policy = policy;
+        this.decisionSteps = Math.max(1, decisionSteps);
+        this.maxSteps = maxSteps;
+    }
+
+    /***************************************************************
+     * METHOD: seeds(long masterSeed, int count)                   *
+     * DESCRIPTION:                                                *
+     * Derives one independent seed per game from a master seed.   *
+     * PARAMETERS:                                                 *
+     *    - long masterSeed: Seed of the whole batch.              *
+     *    - int count: Number of games.                            *
+     * RETURN VALUE: The per-game seeds.                           *
+     ***************************************************************/
+    public static long[] seeds(long masterSeed, int count) {
+        SplittableRandom root = new SplittableRandom(masterSeed);
+        long[] seeds = new long[count];
+        for (int i = 0; i < count; i++) {
+            seeds[i] = root.split().nextLong();
+        }
+        return seeds;
+    }
+
+    /***************************************************************
+     * METHOD: play(long seed)                                     *
+     * DESCRIPTION:                                                *
+     * Plays one game from start to game over, win, or the step   *
+     * limit. The same seed always gives the same result.          *
+     * PARAMETERS:                                                 *
+     *    - long seed: Seed of the game.                           *
+     * RETURN VALUE: The GameResult of the game.                   *
+     ***************************************************************/
+    public GameResult play(long seed) {
+        GameWorld world = new GameWorld(seed);
+        int[] bricksDestroyed = new int[1];
+        world.setListener(new GameWorld.Listener() {
+            @Override
+            public void brickHit(int id, boolean special) {
+                bricksDestroyed[0]++;
+            }
+        });
+
+        world.step(STEP_SECONDS, GameInput.ENTER);
+        long steps = 0;
+        while (world.isPlay() && steps < maxSteps) {
+            int input = (steps % decisionSteps == 0) ? policy.decide(world) : GameInput.NONE;
+            world.step(STEP_SECONDS, input);
+            steps++;
+        }
+        return new GameResult(seed, world.getScore(), steps, bricksDestroyed[0],
+                world.isGameWon(), world.isPlay());
+    }
+
+    /***************************************************************
+     * METHOD: run(long[] seeds, int threads)                      *
+     * DESCRIPTION:                                                *
+     * Plays one game per seed on a fork/join pool of the given    *
+     * size and collects the results in seed order.                *
+     * PARAMETERS:                                                 *
+     *    - long[] seeds: One seed per game.                       *
+     *    - int threads: Number of worker threads.                 *
+     * RETURN VALUE: A Report with the aggregate statistics.       *
+     ***************************************************************/
+    public Report run(long[] seeds, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        try {
+            GameResult[] results = pool.submit(() -> Arrays.stream(seeds)
+                    .parallel()
+                    .mapToObj(this::play)
+                    .toArray(GameResult[]::new)).get();
+            return new Report(results, System.nanoTime() - start, threads);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulated game failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /*******************************************************************
+     * CLASS: Report                                                  *
+     * DESCRIPTION:                                                   *
+     * Aggregate statistics of a batch: score distribution, game      *
+     * length, and throughput in games, steps and bricks per second.  *
+     *******************************************************************/
+    public static final class Report {
+        private final GameResult[] results;
+        private final long elapsedNanos;
+        private final int threads;
+
+        /***************************************************************
+         * METHOD: Report(GameResult[] results, long elapsedNanos,     *
+         *                int threads)                                 *
+         * DESCRIPTION:                                                *
+         * Wraps the results of a finished batch.                      *
+         * PARAMETERS:                                                 *
+         *    - GameResult[] results: One result per game.             *
+         *    - long elapsedNanos: Wall-clock time of the batch.       *
+         *    - int threads: Number of worker threads used.            *
+         * RETURN VALUE: None.                                         *
+         ***************************************************************/
+        public Report(GameResult[] results, long elapsedNanos, int threads) {
+            this.results = results;
+            this.elapsedNanos = elapsedNanos;
+            this.threads = threads;
+        }
+
+        /***************************************************************
+         * METHODS: getResults(), getElapsedSeconds(),                 *
+         *          getGamesPerSecond(), getBricksPerSecond()          *
+         * DESCRIPTION:                                                *
+         * Raw results and wall-clock throughput of the batch.         *
+         ***************************************************************/
+        public GameResult[] getResults() {
+            return results.clone();
+        }
+
+        public double getElapsedSeconds() {
+            return elapsedNanos / 1e9;
+        }
+
+        public double getGamesPerSecond() {
+            return results.length / getElapsedSeconds();
+        }
+
+        public double getBricksPerSecond() {
+            long bricks = 0;
+            for (GameResult result : results) {
+                bricks += result.bricksDestroyed();
+            }
+            return bricks / getElapsedSeconds();
+        }
+
+        /***************************************************************
+         * METHOD: print(PrintStream out)                              *
+         * DESCRIPTION:                                                *
+         * Prints the throughput, outcome counts, score percentiles    *
+         * and a score histogram, and game length percentiles. Games   *
+         * cut off at the step limit are counted, but kept out of the  *
+         * score and length statistics.                                *
+         * PARAMETERS:                                                 *
+         *    - PrintStream out: Where to print, e.g. System.out.      *
+         * RETURN VALUE: None.                                         *
+         ***************************************************************/
+        public void print(PrintStream out) {
+            int won = 0, timedOut = 0;
+            long steps = 0, cutOffScore = 0;
+            for (GameResult result : results) {
+                won += result.won() ? 1 : 0;
+                steps += result.steps();
+                if (result.timedOut()) {
+                    timedOut++;
+                    cutOffScore += result.score();
+                }
+            }
+            // Cut-off games have no final score or length, so they are
+            // left out of the distributions below
+            int games = results.length - timedOut;
+            int[] scores = new int[games];
+            double[] lengths = new double[games];
+            int finished = 0;
+            for (GameResult result : results) {
+                if (!result.timedOut()) {
+                    scores[finished] = result.score();
+                    lengths[finished] = result.seconds();
+                    finished++;
+                }
+            }
+            Arrays.sort(scores);
+            Arrays.sort(lengths);
+
+            out.printf("%d games on %d threads in %.2f s: %.0f games/s, %.2e steps/s, %.0f bricks/s%n",
+                    results.length, threads, getElapsedSeconds(), getGamesPerSecond(),
+                    steps / getElapsedSeconds(), getBricksPerSecond());
+            out.printf("won %d, lost %d, cut off at the step limit %d%n", won, games - won, timedOut);
+            if (timedOut > 0) {
+                out.printf("cut off: mean score %.1f when stopped (not in the statistics below)%n",
+                        (double) cutOffScore / timedOut);
+            }
+            if (games == 0) {
+                return;
+            }
+            out.printf("score:  mean %.1f  min %d  p10 %d  p50 %d  p90 %d  max %d%n",
+                    Arrays.stream(scores).average().orElse(0), scores[0], scores[percentile(games, 10)],
+                    scores[percentile(games, 50)], scores[percentile(games, 90)], scores[games - 1]);
+            out.printf("length: mean %.1f s  p50 %.1f s  p90 %.1f s  max %.1f s (simulated)%n",
+                    Arrays.stream(lengths).average().orElse(0), lengths[percentile(games, 50)],
+                    lengths[percentile(games, 90)], lengths[games - 1]);
+
+            // Score histogram in ten equal buckets
+            int bucketWidth = Math.max(1, (scores[games - 1] + 10) / 10);
+            int[] buckets = new int[10];
+            for (int score : scores) {
+                buckets[Math.min(9, score / bucketWidth)]++;
+            }
+            int largest = Arrays.stream(buckets).max().orElse(1);
+            for (int b = 0; b < buckets.length; b++) {
+                int bar = (int) Math.round(40.0 * buckets[b] / largest);
+                out.printf("  %5d-%-5d %6d %s%n", b * bucketWidth, (b + 1) * bucketWidth - 1,
+                        buckets[b], "#".repeat(bar));
+            }
+        }
+
+        /***************************************************************
+         * METHOD: percentile(int count, int percent)                  *
+         * DESCRIPTION:                                                *
+         * Converts a percentile to an index into a sorted array.      *
+         * PARAMETERS:                                                 *
+         *    - int count: Length of the array.                        *
+         *    - int percent: The percentile, 0 to 100.                 *
+         * RETURN VALUE: The index of that percentile.                 *
+         ***************************************************************/
+        private static int percentile(int count, int percent) {
+            return Math.min(count - 1, (int) ((long) count * percent / 100));
+        }
+    }
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Runs a batch with the ball-tracking policy and prints its   *
+     * report. With "scaling" as fourth argument the batch is run  *
+     * with 1, 2, 4, ... threads to show how throughput scales.    *
+     * PARAMETERS:                                                 *
+     *    - String[] args: [games] [masterSeed] [threads] [scaling]*
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long masterSeed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        boolean scaling = args.length > 3 && args[3].equals("scaling");
+
+        BatchSimulator simulator = new BatchSimulator(PaddlePolicy.TRACK_LOWEST_BALL,
+                DEFAULT_DECISION_STEPS, DEFAULT_MAX_STEPS);
+        long[] seeds = seeds(masterSeed, games);
+
+        if (scaling) {
+            simulator.run(seeds, threads); // Warm up the JIT before timing
+            double baseline = 0;
+            for (int t = 1; t <= threads; t *= 2) {
+                Report report = simulator.run(seeds, t);
+                if (t == 1) {
+                    baseline = report.getGamesPerSecond();
+                }
+                System.out.printf("%3d threads: %8.1f games/s  speedup %.2fx  efficiency %3.0f%%%n",
+                        t, report.getGamesPerSecond(), report.getGamesPerSecond() / baseline,
+                        100 * report.getGamesPerSecond() / baseline / t);
+            }
+        } else {
+            simulator.run(seeds, threads).print(System.out);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/*******************************************************************
+ * CLASS: BrickField                                              *
+ * DESCRIPTION:                                                   *
+ * The bricks of one layout, stored as primitive columns instead  *
+ * of one heap object per brick: `x`, `y` and `argb` arrays       *
+ * indexed by brick id, plus bitsets marking the special and the  *
+ * live bricks. A brick id is its position in the layout and      *
+ * never changes.                                                 *
+ *                                                                *
+ * Removal is a tombstone: the brick's alive bit is cleared, so   *
+ * the columns never shift, the layout order that decides which   *
+ * of two overlapping bricks is hit is preserved, and the count   *
+ * of live bricks (and so the win check) is O(1). Walking the     *
+ * live bricks scans the alive words with numberOfTrailingZeros,  *
+ * touching a few contiguous arrays instead of chasing pointers.  *
+ * A `BrickGrid` over the live ids serves collision queries.      *
+ *                                                                *
+ * A field is filled with add() and then sealed, after which      *
+ * bricks can only be removed. The columns are never written      *
+ * after sealing, so renderers may keep reading them while the    *
+ * simulation removes bricks, as long as they take their own     *
+ * copy of the alive bits (see copyAlive).                        *
+ *******************************************************************/
+import java.util.Arrays;
+
+public final class BrickField {
+    public static final int WIDTH = 40;     // Width of every brick
+    public static final int HEIGHT = 20;    // Height of every brick
+
+    private int[] x;                 // Left edge by id
+    private int[] y;                 // Top edge by id
+    private int[] argb;              // Packed 0xAARRGGBB color by id
+    private long[] special;          // Bit set for bricks that drop power-ups
+    private long[] alive;            // Bit set for bricks not yet destroyed
+    private int count = 0;           // Number of ids in use
+    private int aliveCount = 0;      // Number of set alive bits
+    private BrickGrid grid;          // Broadphase over live ids, null until sealed
+
+    /***************************************************************
+     * METHOD: BrickField(int capacity)                            *
+     * DESCRIPTION:                                                *
+     * Creates an empty field. More than `capacity` bricks may be  *
+     * added; the columns grow as needed.                          *
+     * PARAMETERS:                                                 *
+     *    - int capacity: Expected number of bricks.               *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public BrickField(int capacity) {
+        capacity = Math.max(1, capacity);
+        x = new int[capacity];
+        y = new int[capacity];
+        argb = new int[capacity];
+        special = new long[words(capacity)];
+        alive = new long[words(capacity)];
+    }
+
+    /***************************************************************
+     * METHOD: add(int x, int y, int argb, boolean isSpecial)      *
+     * DESCRIPTION:                                                *
+     * Appends a live brick to the layout.                         *
+     * PARAMETERS:                                                 *
+     *    - int x, y: Top-left corner of the brick.                *
+     *    - int argb: The packed color of the brick.               *
+     *    - boolean isSpecial: True if the brick drops a power-up. *
+     * RETURN VALUE: The id of the new brick.                      *
+     * THROWS: IllegalStateException if the field is sealed.       *
+     ***************************************************************/
+    public int add(int x, int y, int argb, boolean isSpecial) {
+        if (grid != null) {
+            throw new IllegalStateException("Cannot add bricks to a sealed field");
+        }
+        int id = count++;
+        if (id == this.x.length) {
+            int capacity = this.x.length * 2;
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            this.argb = Arrays.copyOf(this.argb, capacity);
+            special = Arrays.copyOf(special, words(capacity));
+            alive = Arrays.copyOf(alive, words(capacity));
+        }
+        this.x[id] = x;
+        this.y[id] = y;
+        this.argb[id] = argb;
+        if (isSpecial) {
+            special[id >>> 6] |= 1L << id;
+        }
+        alive[id >>> 6] |= 1L << id;
+        aliveCount++;
+        return id;
+    }
+
+    /***************************************************************
+     * METHOD: seal(int cellWidth, int cellHeight)                 *
+     * DESCRIPTION:                                                *
+     * Ends the layout and indexes every brick in a uniform grid   *
+     * covering the bounds of the layout.                          *
+     * PARAMETERS:                                                 *
+     *    - int cellWidth, cellHeight: Size of one grid cell,      *
+     *      usually a brick plus its spacing.                      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void seal(int cellWidth, int cellHeight) {
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int id = 0; id < count; id++) {
+            minX = Math.min(minX, x[id]);
+            minY = Math.min(minY, y[id]);
+            maxX = Math.max(maxX, x[id] + WIDTH);
+            maxY = Math.max(maxY, y[id] + HEIGHT);
+        }
+        if (count == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+
+        grid = new BrickGrid(minX, minY, maxX - minX, maxY - minY,
+                cellWidth, cellHeight, WIDTH, HEIGHT);
+        for (int id = 0; id < count; id++) {
+            grid.insert(id, x[id], y[id]);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: findCollision(int x, int y, int width, int height)  *
+     * DESCRIPTION:                                                *
+     * Finds the live brick hit by the given rectangle. Only       *
+     * bricks in the grid cells the rectangle overlaps are tested. *
+     * When several bricks overlap, the one earliest in the layout *
+     * (lowest id) is returned. Overlap follows the rules of       *
+     * `java.awt.Rectangle.intersects`.                            *
+     * PARAMETERS:                                                 *
+     *    - int x, y, width, height: The box to test (e.g. ball).  *
+     * RETURN VALUE: The id of the brick that was hit, or -1.      *
+     ***************************************************************/
+    public int findCollision(int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return -1;
+        }
+        int hit = -1;
+        int candidates = grid.query(x, y, width, height);
+        for (int i = 0; i < candidates; i++) {
+            int id = grid.result(i);
+            if ((hit < 0 || id < hit)
+                    && x < this.x[id] + WIDTH && this.x[id] < x + width
+                    && y < this.y[id] + HEIGHT && this.y[id] < y + height) {
+                hit = id;
+            }
+        }
+        return hit;
+    }
+
+    /***************************************************************
+     * METHOD: sweep(double px, double py, int size, double dx,    *
+     *               double dy, Sweep sweep)                       *
+     * DESCRIPTION:                                                *
+     * Finds the first live brick a moving ball would touch. Only  *
+     * bricks in the grid cells around the swept path are tested, *
+     * each grown by the ball size (see Sweep).                    *
+     * PARAMETERS:                                                 *
+     *    - double px, py: Top-left corner of the ball.            *
+     *    - int size: Diameter of the ball.                        *
+     *    - double dx, dy: Motion of the ball during the step.     *
+     *    - Sweep sweep: Holds the earliest hit so far; updated if *
+     *      a brick is hit earlier.                                *
+     * RETURN VALUE: The id of the brick that became the earliest  *
+     *               hit, or -1 if no brick did.                   *
+     ***************************************************************/
+    public int sweep(double px, double py, int size, double dx, double dy, Sweep sweep) {
+        // Bounding box of the whole motion, widened to whole pixels
+        int minX = (int) Math.floor(Math.min(px, px + dx));
+        int minY = (int) Math.floor(Math.min(py, py + dy));
+        int maxX = (int) Math.ceil(Math.max(px, px + dx)) + size;
+        int maxY = (int) Math.ceil(Math.max(py, py + dy)) + size;
+
+        int hit = -1;
+        int candidates = grid.query(minX, minY, maxX - minX, maxY - minY);
+        for (int i = 0; i < candidates; i++) {
+            int id = grid.result(i);
+            if (sweep.box(px, py, dx, dy, x[id] - size, y[id] - size, x[id] + WIDTH, y[id] + HEIGHT)) {
+                hit = id;
+            }
+        }
+        return hit;
+    }
+
+    /***************************************************************
+     * METHOD: remove(int id)                                      *
+     * DESCRIPTION:                                                *
+     * Destroys a brick: clears its alive bit and drops it from    *
+     * the collision grid. Both are O(1).                          *
+     * PARAMETERS:                                                 *
+     *    - int id: The brick to remove.                           *
+     * RETURN VALUE: True if the brick was alive.                  *
+     ***************************************************************/
+    public boolean remove(int id) {
+        if (!isAlive(id)) {
+            return false;
+        }
+        alive[id >>> 6] &= ~(1L << id);
+        aliveCount--;
+        if (grid != null) {
+            grid.remove(id);
+        }
+        return true;
+    }
+
+    /***************************************************************
+     * METHOD: nextAlive(int from)                                 *
+     * DESCRIPTION:                                                *
+     * Finds the next live brick, for loops of the form            *
+     *    for (int id = f.nextAlive(0); id >= 0;                   *
+     *         id = f.nextAlive(id + 1))                           *
+     * PARAMETERS:                                                 *
+     *    - int from: The first id to consider.                    *
+     * RETURN VALUE: The smallest live id >= from, or -1.          *
+     ***************************************************************/
+    public int nextAlive(int from) {
+        return nextSetBit(alive, count, from);
+    }
+
+    /***************************************************************
+     * METHOD: aliveWord(int index)                                *
+     * DESCRIPTION:                                                *
+     * Retrieves 64 alive bits at once, for the fastest walk over  *
+     * the live bricks:                                            *
+     *    for (int w = 0; w < f.aliveWords(); w++)                 *
+     *        for (long bits = f.aliveWord(w); bits != 0;          *
+     *             bits &= bits - 1)                               *
+     *            id = (w << 6) + numberOfTrailingZeros(bits)      *
+     * PARAMETERS:                                                 *
+     *    - int index: Word index, 0 to aliveWords() - 1.          *
+     * RETURN VALUE: Bit i is set if brick index * 64 + i is alive.*
+     ***************************************************************/
+    public long aliveWord(int index) {
+        return alive[index];
+    }
+
+    /***************************************************************
+     * METHOD: copyAlive(long[] dest)                              *
+     * DESCRIPTION:                                                *
+     * Copies the alive bitset, e.g. into a render snapshot.       *
+     * PARAMETERS:                                                 *
+     *    - long[] dest: Target of at least aliveWords() words, or *
+     *      null.                                                  *
+     * RETURN VALUE: dest, or a new array if dest was too small.   *
+     ***************************************************************/
+    public long[] copyAlive(long[] dest) {
+        int words = aliveWords();
+        if (dest == null || dest.length < words) {
+            dest = new long[Math.max(words, dest == null ? 0 : dest.length * 2)];
+        }
+        System.arraycopy(alive, 0, dest, 0, words);
+        return dest;
+    }
+
+    /***************************************************************
+     * METHOD: nextSetBit(long[] words, int limit, int from)       *
+     * DESCRIPTION:                                                *
+     * Finds the next set bit of a bitset such as the alive bits,  *
+     * skipping empty words at once.                               *
+     * PARAMETERS:                                                 *
+     *    - long[] words: The bitset.                              *
+     *    - int limit: Number of valid bits.                       *
+     *    - int from: The first bit to consider.                   *
+     * RETURN VALUE: The index of the bit, or -1 if none is set.   *
+     ***************************************************************/
+    public static int nextSetBit(long[] words, int limit, int from) {
+        if (from < 0 || from >= limit) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = words[w] & (-1L << from);
+        int lastWord = (limit - 1) >>> 6;
+        while (word == 0) {
+            if (++w > lastWord) {
+                return -1;
+            }
+            word = words[w];
+        }
+        int bit = (w << 6) + Long.numberOfTrailingZeros(word);
+        return bit < limit ? bit : -1;
+    }
+
+    /***************************************************************
+     * METHODS: isAlive(), isSpecial(), getX(), getY(), getArgb(), *
+     *          getCount(), aliveWords(), size(), isEmpty()        *
+     * DESCRIPTION:                                                *
+     * Column reads by brick id. getCount() is the number of ids   *
+     * ever added; size() counts only live bricks, and isEmpty()   *
+     * is the O(1) win check.                                      *
+     ***************************************************************/
+    public boolean isAlive(int id) {
+        return id >= 0 && id < count && (alive[id >>> 6] & (1L << id)) != 0;
+    }
+
+    public boolean isSpecial(int id) {
+        return (special[id >>> 6] & (1L << id)) != 0;
+    }
+
+    public int getX(int id) { return x[id]; }
+    public int getY(int id) { return y[id]; }
+    public int getArgb(int id) { return argb[id]; }
+    public int getCount() { return count; }
+    public int aliveWords() { return words(count); }
+    public int size() { return aliveCount; }
+    public boolean isEmpty() { return aliveCount == 0; }
+
+    /***************************************************************
+     * METHOD: words(int bits)                                     *
+     * DESCRIPTION:                                                *
+     * Number of longs needed for a bitset of the given length.    *
+     * PARAMETERS:                                                 *
+     *    - int bits: Length of the bitset.                        *
+     * RETURN VALUE: The number of 64-bit words.                   *
+     ***************************************************************/
+    private static int words(int bits) {
+        return Math.max(1, (bits + 63) >>> 6);
+    }
+}
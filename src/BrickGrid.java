@@ -0,0 +1,230 @@
+/*******************************************************************
+ * CLASS: BrickGrid                                               *
+ * DESCRIPTION:                                                   *
+ * A uniform spatial grid used as a broadphase for ball-brick     *
+ * collision. Every brick is filed under the single cell that     *
+ * contains its top-left corner, so a query only has to look at   *
+ * the cells a ball can reach instead of walking every brick.     *
+ * Bricks are referred to by integer ids, which keeps the grid    *
+ * independent of how the bricks themselves are stored. Insert    *
+ * and remove are O(1); a query costs O(cells touched).           *
+ *******************************************************************/
+import java.util.Arrays;
+
+public class BrickGrid {
+    private final int originX;      // Left edge of the indexed area
+    private final int originY;      // Top edge of the indexed area
+    private final int cellWidth;    // Cell width (brick width + spacing)
+    private final int cellHeight;   // Cell height (brick height + spacing)
+    private final int itemWidth;    // Width of every indexed brick
+    private final int itemHeight;   // Height of every indexed brick
+    private final int cols;         // Number of cell columns
+    private final int rows;         // Number of cell rows
+
+    private final int[][] cells;    // Brick ids stored in each cell
+    private final int[] cellSizes;  // Number of ids used in each cell
+    private int[] idCell = new int[0]; // Cell of each id (-1 if absent)
+    private int[] idSlot = new int[0]; // Slot of each id inside its cell
+
+    private int[] results = new int[16]; // Ids found by the last query
+    private int size = 0;                // Number of indexed bricks
+
+    /***************************************************************
+     * METHOD: BrickGrid(int originX, int originY, int width,      *
+     *                   int height, int cellWidth, int cellHeight,*
+     *                   int itemWidth, int itemHeight)            *
+     * DESCRIPTION:                                                *
+     * Creates an empty grid covering the given area. Bricks that  *
+     * fall outside the area are clamped into the border cells,   *
+     * so queries stay correct, only slower.                       *
+     * PARAMETERS:                                                 *
+     *    - int originX, originY: Top-left corner of the area.     *
+     *    - int width, height: Size of the area in pixels.         *
+     *    - int cellWidth, cellHeight: Size of one cell.           *
+     *    - int itemWidth, itemHeight: Size of one brick.          *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public BrickGrid(int originX, int originY, int width, int height,
+                     int cellWidth, int cellHeight, int itemWidth, int itemHeight) {
+        this.originX = originX;
+        this.originY = originY;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.itemWidth = itemWidth;
+        this.itemHeight = itemHeight;
+        this.cols = Math.max(1, (width + cellWidth - 1) / cellWidth);
+        this.rows = Math.max(1, (height + cellHeight - 1) / cellHeight);
+        cells = new int[cols * rows][];
+        cellSizes = new int[cols * rows];
+    }
+
+    /***************************************************************
+     * METHOD: insert(int id, int x, int y)                        *
+     * DESCRIPTION:                                                *
+     * Adds a brick to the grid under the cell that contains its   *
+     * top-left corner.                                            *
+     * PARAMETERS:                                                 *
+     *    - int id: Non-negative id of the brick.                  *
+     *    - int x, y: Top-left corner of the brick.                *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void insert(int id, int x, int y) {
+        ensureIdCapacity(id + 1);
+        if (idCell[id] >= 0) {
+            remove(id); // Re-inserting moves the brick
+        }
+        int cell = cellRow(y) * cols + cellCol(x);
+        int[] ids = cells[cell];
+        if (ids == null) {
+            ids = cells[cell] = new int[4];
+        } else if (cellSizes[cell] == ids.length) {
+            ids = cells[cell] = Arrays.copyOf(ids, ids.length * 2);
+        }
+        int slot = cellSizes[cell]++;
+        ids[slot] = id;
+        idCell[id] = cell;
+        idSlot[id] = slot;
+        size++;
+        if (size > results.length) {
+            // Every id sits in one cell, so a query never finds more
+            // than size and never has to grow the buffer mid-game
+            results = new int[Math.max(results.length * 2, size)];
+        }
+    }
+
+    /***************************************************************
+     * METHOD: remove(int id)                                      *
+     * DESCRIPTION:                                                *
+     * Removes a brick from the grid in constant time by moving    *
+     * the last id of its cell into the freed slot.                *
+     * PARAMETERS:                                                 *
+     *    - int id: The id of the brick to remove.                 *
+     * RETURN VALUE: True if the brick was in the grid.            *
+     ***************************************************************/
+    public boolean remove(int id) {
+        if (id < 0 || id >= idCell.length || idCell[id] < 0) {
+            return false;
+        }
+        int cell = idCell[id];
+        int slot = idSlot[id];
+        int[] ids = cells[cell];
+        int last = --cellSizes[cell];
+        if (slot != last) {
+            int moved = ids[last];
+            ids[slot] = moved;
+            idSlot[moved] = slot;
+        }
+        idCell[id] = -1;
+        size--;
+        return true;
+    }
+
+    /***************************************************************
+     * METHOD: query(int x, int y, int width, int height)          *
+     * DESCRIPTION:                                                *
+     * Collects the ids of every brick whose cell could overlap    *
+     * the given rectangle. The result is a superset of the real   *
+     * hits, so callers still run an exact intersection test.      *
+     * Results are read back with result(int).                     *
+     * PARAMETERS:                                                 *
+     *    - int x, y: Top-left corner of the rectangle.            *
+     *    - int width, height: Size of the rectangle.              *
+     * RETURN VALUE: The number of candidate ids found.            *
+     ***************************************************************/
+    public int query(int x, int y, int width, int height) {
+        // A brick anchored in a cell reaches itemWidth/itemHeight past
+        // its corner, so widen the search up and to the left by that much
+        int colStart = cellCol(x - itemWidth);
+        int colEnd = cellCol(x + width);
+        int rowStart = cellRow(y - itemHeight);
+        int rowEnd = cellRow(y + height);
+
+        int count = 0;
+        for (int row = rowStart; row <= rowEnd; row++) {
+            for (int col = colStart; col <= colEnd; col++) {
+                int cell = row * cols + col;
+                int n = cellSizes[cell];
+                if (n == 0) {
+                    continue;
+                }
+                System.arraycopy(cells[cell], 0, results, count, n);
+                count += n;
+            }
+        }
+        return count;
+    }
+
+    /***************************************************************
+     * METHOD: result(int index)                                   *
+     * DESCRIPTION:                                                *
+     * Retrieves a candidate id found by the last query.           *
+     * PARAMETERS:                                                 *
+     *    - int index: Position in the result, 0 to count - 1.     *
+     * RETURN VALUE: The brick id at that position.                *
+     ***************************************************************/
+    public int result(int index) {
+        return results[index];
+    }
+
+    /***************************************************************
+     * METHOD: contains(int id)                                    *
+     * DESCRIPTION:                                                *
+     * Checks whether a brick id is currently indexed.             *
+     * PARAMETERS:                                                 *
+     *    - int id: The id to check.                               *
+     * RETURN VALUE: True if the id is in the grid.                *
+     ***************************************************************/
+    public boolean contains(int id) {
+        return id >= 0 && id < idCell.length && idCell[id] >= 0;
+    }
+
+    /***************************************************************
+     * METHOD: size()                                              *
+     * DESCRIPTION:                                                *
+     * Retrieves the number of bricks currently in the grid.       *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The number of indexed bricks.                 *
+     ***************************************************************/
+    public int size() {
+        return size;
+    }
+
+    /***************************************************************
+     * METHOD: cellCol(int x) / cellRow(int y)                     *
+     * DESCRIPTION:                                                *
+     * Converts a coordinate to a cell column or row, clamped to   *
+     * the grid.                                                   *
+     * PARAMETERS:                                                 *
+     *    - int x / int y: The coordinate to convert.              *
+     * RETURN VALUE: The clamped column or row index.              *
+     ***************************************************************/
+    private int cellCol(int x) {
+        int col = Math.floorDiv(x - originX, cellWidth);
+        return Math.max(0, Math.min(cols - 1, col));
+    }
+
+    private int cellRow(int y) {
+        int row = Math.floorDiv(y - originY, cellHeight);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+
+    /***************************************************************
+     * METHOD: ensureIdCapacity(int capacity)                      *
+     * DESCRIPTION:                                                *
+     * Grows the per-id bookkeeping arrays so that ids below the   *
+     * given capacity can be stored.                               *
+     * PARAMETERS:                                                 *
+     *    - int capacity: The number of ids that must fit.         *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void ensureIdCapacity(int capacity) {
+        if (capacity <= idCell.length) {
+            return;
+        }
+        int oldLength = idCell.length;
+        int newLength = Math.max(capacity, oldLength * 2);
+        idCell = Arrays.copyOf(idCell, newLength);
+        idSlot = Arrays.copyOf(idSlot, newLength);
+        Arrays.fill(idCell, oldLength, newLength, -1);
+    }
+}
@@ -0,0 +1,306 @@
+/*******************************************************************
+ * CLASS: BrickLayer                                              *
+ * DESCRIPTION:                                                   *
+ * The static part of a frame: background, yellow border and the  *
+ * live bricks, kept in an accelerated VolatileImage so that a    *
+ * frame only has to blit it instead of redrawing every brick.    *
+ *                                                                *
+ * The layer remembers which bricks it has drawn. When a snapshot *
+ * shows bricks gone, only their cells are repainted: the cell is *
+ * clipped, the background and border are filled in again, and    *
+ * any live brick reaching into the cell (found with a BrickGrid  *
+ * of the drawn bricks) is redrawn. A new layout, or a lost or    *
+ * incompatible image, repaints the whole layer. The cost of a    *
+ * frame therefore no longer grows with the number of bricks.     *
+ *                                                                *
+ * Without a GraphicsConfiguration (headless, or before the panel *
+ * is shown) a plain BufferedImage is used instead. Bricks are    *
+ * drawn raised unless setBevel(false) asks for flat ones, which  *
+ * the lowest quality tier does. Event thread only.               *
+ *******************************************************************/
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.Arrays;
+
+public class BrickLayer {
+    private static final Color BACKGROUND = new Color(0, 0, 139);        // Dark blue
+    private static final BasicStroke BORDER_STROKE = new BasicStroke(5); // Yellow border
+
+    private final int width;                // Layer width in pixels
+    private final int height;               // Layer height in pixels
+    private VolatileImage volatileImage;    // Accelerated layer, null when not available
+    private BufferedImage fallbackImage;    // Layer used without a GraphicsConfiguration
+    private BrickField layout;              // Layout the layer shows, null before the first draw
+    private long[] drawn = new long[0];     // Bricks currently drawn in the layer
+    private BrickGrid grid;                 // Drawn bricks, for finding neighbors of a dirty cell
+    private int redrawnCells = 0;           // Cells repainted since the last full redraw
+    private int fullRedraws = 0;            // Whole-layer redraws so far
+    private boolean bevel = true;           // Bricks drawn raised, or flat
+
+    private Color[] brickColors = new Color[0]; // Cached brick colors by brick id
+    private Color[] brickLights = new Color[0]; // Their brighter() bevel colors
+    private Color[] brickShades = new Color[0]; // Their darker() bevel colors
+
+    /***************************************************************
+     * METHOD: BrickLayer(int width, int height)                   *
+     * DESCRIPTION:                                                *
+     * Creates an empty layer; the image is made on first draw.    *
+     * PARAMETERS:                                                 *
+     *    - int width, height: Size of the playfield.              *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public BrickLayer(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /***************************************************************
+     * METHOD: draw(Graphics2D g, GameSnapshot s,                  *
+     *              GraphicsConfiguration gc)                      *
+     * DESCRIPTION:                                                *
+     * Brings the layer up to date with a snapshot and blits it.   *
+     * PARAMETERS:                                                 *
+     *    - Graphics2D g: Where to draw the layer.                 *
+     *    - GameSnapshot s: The state to show.                     *
+     *    - GraphicsConfiguration gc: Screen configuration for the *
+     *      accelerated image, or null.                            *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void draw(Graphics2D g, GameSnapshot s, GraphicsConfiguration gc) {
+        if (gc == null) {
+            if (fallbackImage == null) {
+                fallbackImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                layout = null;
+            }
+            update(fallbackImage, s);
+            g.drawImage(fallbackImage, 0, 0, null);
+            return;
+        }
+
+        // The contents of a VolatileImage can be lost at any time (e.g. when
+        // the display mode changes), so repeat until a blit went through
+        do {
+            if (volatileImage == null || volatileImage.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (volatileImage != null) {
+                    volatileImage.flush();
+                }
+                volatileImage = gc.createCompatibleVolatileImage(width, height);
+                layout = null;
+            } else if (volatileImage.contentsLost()) {
+                layout = null;
+            }
+            update(volatileImage, s);
+            g.drawImage(volatileImage, 0, 0, null);
+        } while (volatileImage.contentsLost());
+    }
+
+    /***************************************************************
+     * METHOD: update(Image image, GameSnapshot s)                 *
+     * DESCRIPTION:                                                *
+     * Redraws the whole layer for a new layout, or only the cells *
+     * of the bricks that were destroyed since the last update.    *
+     * PARAMETERS:                                                 *
+     *    - Image image: The layer image.                          *
+     *    - GameSnapshot s: The state to show.                     *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void update(Image image, GameSnapshot s) {
+        BrickField snapshotLayout = s.getBrickLayout();
+        if (snapshotLayout != layout) {
+            redrawAll(image, s);
+            return;
+        }
+
+        Graphics2D g = null;
+        int words = s.getBrickWords();
+        for (int w = 0; w < words; w++) {
+            long removed = drawn[w] & ~s.getBrickWord(w);
+            if (removed == 0) {
+                continue;
+            }
+            drawn[w] &= ~removed;
+            if (g == null) {
+                g = createGraphics(image);
+            }
+            for (; removed != 0; removed &= removed - 1) {
+                int id = (w << 6) + Long.numberOfTrailingZeros(removed);
+                grid.remove(id);
+                redrawCell(g, s, s.getBrickX(id), s.getBrickY(id));
+            }
+        }
+        if (g != null) {
+            g.dispose();
+        }
+    }
+
+    /***************************************************************
+     * METHOD: setBevel(boolean bevel)                             *
+     * DESCRIPTION:                                                *
+     * Chooses raised or flat bricks. A change repaints the whole  *
+     * layer on the next draw.                                     *
+     * PARAMETERS:                                                 *
+     *    - boolean bevel: True for raised bricks.                 *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void setBevel(boolean bevel) {
+        if (bevel != this.bevel) {
+            this.bevel = bevel;
+            layout = null;
+        }
+    }
+
+    /***************************************************************
+     * METHOD: redrawAll(Image image, GameSnapshot s)              *
+     * DESCRIPTION:                                                *
+     * Paints background, border and every live brick, and starts  *
+     * tracking the snapshot's layout.                             *
+     * PARAMETERS:                                                 *
+     *    - Image image: The layer image.                          *
+     *    - GameSnapshot s: The state to show.                     *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void redrawAll(Image image, GameSnapshot s) {
+        layout = s.getBrickLayout();
+        int words = s.getBrickWords();
+        if (drawn.length < words) {
+            drawn = new long[words];
+        }
+        grid = new BrickGrid(0, 0, width, height,
+                BrickField.WIDTH + GameWorld.X_SPACING, BrickField.HEIGHT + GameWorld.Y_SPACING,
+                BrickField.WIDTH, BrickField.HEIGHT);
+
+        Graphics2D g = createGraphics(image);
+        drawBackground(g);
+        Arrays.fill(drawn, 0L);
+        for (int id = s.nextBrick(0); id >= 0; id = s.nextBrick(id + 1)) {
+            drawBrick(g, id, s.getBrickX(id), s.getBrickY(id), s.getBrickArgb(id));
+            drawn[id >>> 6] |= 1L << id;
+            grid.insert(id, s.getBrickX(id), s.getBrickY(id));
+        }
+        g.dispose();
+        fullRedraws++;
+        redrawnCells = 0;
+    }
+
+    /***************************************************************
+     * METHOD: redrawCell(Graphics2D g, GameSnapshot s, int x,     *
+     *                    int y)                                   *
+     * DESCRIPTION:                                                *
+     * Repaints the cell of a destroyed brick: background and      *
+     * border clipped to the cell, then every drawn brick that     *
+     * reaches into it.                                            *
+     * PARAMETERS:                                                 *
+     *    - Graphics2D g: Graphics of the layer image.             *
+     *    - GameSnapshot s: The state to show.                     *
+     *    - int x, y: Top-left corner of the destroyed brick.      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void redrawCell(Graphics2D g, GameSnapshot s, int x, int y) {
+        int w = BrickField.WIDTH;
+        int h = BrickField.HEIGHT;
+        g.setClip(x, y, w, h);
+        drawBackground(g);
+        int candidates = grid.query(x, y, w, h);
+        for (int i = 0; i < candidates; i++) {
+            int id = grid.result(i);
+            int bx = s.getBrickX(id);
+            int by = s.getBrickY(id);
+            if (x < bx + w && bx < x + w && y < by + h && by < y + h) {
+                drawBrick(g, id, bx, by, s.getBrickArgb(id));
+            }
+        }
+        g.setClip(null);
+        redrawnCells++;
+    }
+
+    /***************************************************************
+     * METHOD: createGraphics(Image image)                         *
+     * DESCRIPTION:                                                *
+     * Opens the layer image for drawing with the game's quality   *
+     * settings.                                                   *
+     * PARAMETERS:                                                 *
+     *    - Image image: The layer image.                          *
+     * RETURN VALUE: A Graphics2D the caller must dispose.         *
+     ***************************************************************/
+    private static Graphics2D createGraphics(Image image) {
+        Graphics2D g = (Graphics2D) image.getGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        return g;
+    }
+
+    /***************************************************************
+     * METHOD: drawBackground(Graphics2D g)                        *
+     * DESCRIPTION:                                                *
+     * Fills the background and draws the yellow border.           *
+     * PARAMETERS:                                                 *
+     *    - Graphics2D g: Graphics of the layer image.             *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void drawBackground(Graphics2D g) {
+        g.setColor(BACKGROUND);
+        g.fillRect(0, 0, width, height);
+
+        // Border
+        g.setColor(Color.YELLOW);
+        g.setStroke(BORDER_STROKE);
+        // Adjust border to panel size
+        g.drawRect(1, 1, 686, 562);
+    }
+
+    /***************************************************************
+     * METHOD: drawBrick(Graphics2D g, int id, int x, int y,       *
+     *                   int argb)                                 *
+     * DESCRIPTION:                                                *
+     * Draws a raised brick the way fill3DRect does, but with the  *
+     * face and bevel colors created only the first time a brick   *
+     * id is drawn with that color (fill3DRect makes a brighter()  *
+     * and a darker() Color on every call). Without the bevel the  *
+     * brick is one flat rectangle.                                *
+     * PARAMETERS:                                                 *
+     *    - Graphics2D g: Graphics of the layer image.             *
+     *    - int id: The BrickField id of the brick.                *
+     *    - int x, y: Top-left corner of the brick.                *
+     *    - int argb: The packed color of the brick.               *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void drawBrick(Graphics2D g, int id, int x, int y, int argb) {
+        if (id >= brickColors.length) {
+            int capacity = Math.max(id + 1, brickColors.length * 2);
+            brickColors = Arrays.copyOf(brickColors, capacity);
+            brickLights = Arrays.copyOf(brickLights, capacity);
+            brickShades = Arrays.copyOf(brickShades, capacity);
+        }
+        Color color = brickColors[id];
+        if (color == null || color.getRGB() != argb) {
+            color = brickColors[id] = new Color(argb, true);
+            brickLights[id] = color.brighter();
+            brickShades[id] = color.darker();
+        }
+
+        int w = BrickField.WIDTH;
+        int h = BrickField.HEIGHT;
+        g.setColor(color);
+        if (!bevel) {
+            g.fillRect(x, y, w, h);
+            return;
+        }
+        g.fillRect(x + 1, y + 1, w - 2, h - 2);
+        g.setColor(brickLights[id]);
+        g.fillRect(x, y, 1, h);
+        g.fillRect(x + 1, y, w - 2, 1);
+        g.setColor(brickShades[id]);
+        g.fillRect(x + 1, y + h - 1, w - 1, 1);
+        g.fillRect(x + w - 1, y, 1, h - 1);
+    }
+
+    /***************************************************************
+     * METHODS: getRedrawnCells(), getFullRedraws()                *
+     * DESCRIPTION:                                                *
+     * How much of the layer was repainted: cells since the last   *
+     * full redraw, and full redraws since creation.               *
+     ***************************************************************/
+    public int getRedrawnCells() { return redrawnCells; }
+    public int getFullRedraws() { return fullRedraws; }
+}
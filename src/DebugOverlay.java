@@ -0,0 +1,169 @@
+/*******************************************************************
+ * CLASS: DebugOverlay                                            *
+ * DESCRIPTION:                                                   *
+ * An optional panel in the corner of the game that shows the     *
+ * p50 and p99 of the step (tick) and frame times over the last   *
+ * REFRESH_NANOS, plus balls alive, bricks hit, entity table      *
+ * rows, particles, the quality tier and garbage collections. It  *
+ * is toggled with F3, or shown from the start with               *
+ * -Dbrickbreaker.debug=true.                                     *
+ *                                                                *
+ * The figures come from GameMetrics. They are recomputed and     *
+ * formatted only on refresh; in between, drawing the overlay     *
+ * only draws the cached lines.                                   *
+ *******************************************************************/
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+
+public class DebugOverlay {
+    private static final long REFRESH_NANOS = 500_000_000L;   // Window of the shown percentiles
+    private static final int X = 20;                           // Left edge of the panel
+    private static final int Y = GameWorld.HEIGHT - 150;       // Top edge of the panel
+    private static final int LINE_HEIGHT = 15;                 // Distance between text lines
+    private static final Color BACKGROUND = new Color(0, 0, 0, 160);
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+
+    private final GameMetrics metrics;              // Source of the figures
+    private final Window tick;                      // Recent step times
+    private final Window frame;                     // Recent frame times
+    private final String[] lines = { "", "", "", "", "", "" }; // Formatted figures
+    private volatile boolean visible = Boolean.getBoolean("brickbreaker.debug"); // Drawn or not
+    private long lastRefresh = 0;                   // When lines were last formatted
+
+    /***************************************************************
+     * METHOD: DebugOverlay(GameMetrics metrics)                   *
+     * DESCRIPTION:                                                *
+     * Creates an overlay showing the given metrics.               *
+     * PARAMETERS:                                                 *
+     *    - GameMetrics metrics: The figures to show.              *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public DebugOverlay(GameMetrics metrics) {
+        this.metrics = metrics;
+        this.tick = new Window(metrics.getTick());
+        this.frame = new Window(metrics.getFrame());
+    }
+
+    /***************************************************************
+     * METHOD: toggle()                                            *
+     * DESCRIPTION:                                                *
+     * Shows the overlay if it is hidden and hides it otherwise.   *
+     * Safe to call from any thread.                               *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void toggle() {
+        visible = !visible;
+    }
+
+    /***************************************************************
+     * METHOD: isVisible()                                         *
+     * DESCRIPTION:                                                *
+     * Tells whether the overlay is drawn.                         *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: True when it is shown.                        *
+     ***************************************************************/
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /***************************************************************
+     * METHOD: draw(Graphics2D g2, long now)                       *
+     * DESCRIPTION:                                                *
+     * Draws the overlay if it is shown, first refreshing its      *
+     * figures if REFRESH_NANOS have passed. Call from the         *
+     * rendering thread only.                                      *
+     * PARAMETERS:                                                 *
+     *    - Graphics2D g2: Where to draw.                          *
+     *    - long now: The System.nanoTime() of the frame.          *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void draw(Graphics2D g2, long now) {
+        if (!visible) {
+            return;
+        }
+        if (now - lastRefresh >= REFRESH_NANOS) {
+            lastRefresh = now;
+            refresh();
+        }
+        g2.setColor(BACKGROUND);
+        g2.fillRect(X - 5, Y - LINE_HEIGHT, 300, LINE_HEIGHT * lines.length + 8);
+        g2.setColor(Color.GREEN);
+        g2.setFont(FONT);
+        for (int i = 0; i < lines.length; i++) {
+            g2.drawString(lines[i], X, Y + i * LINE_HEIGHT);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: refresh()                                           *
+     * DESCRIPTION:                                                *
+     * Takes the samples recorded since the last refresh and       *
+     * formats the lines.                                          *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void refresh() {
+        tick.refresh();
+        frame.refresh();
+        lines[0] = "tick   " + tick.describe();
+        lines[1] = "frame  " + frame.describe();
+        lines[2] = "balls " + metrics.getBallsAlive() + "  bricks " + metrics.getBricksHit()
+                + "  gc " + metrics.getGcCount() + " (" + metrics.getGcTimeMillis() + " ms)";
+        lines[3] = "pool  balls " + metrics.getBallsPooled() + "  power-ups " + metrics.getPowerUpsPooled()
+                + "  created " + metrics.getEntitiesCreated();
+        lines[4] = "fx    particles " + metrics.getParticlesAlive() + "  budget " + metrics.getParticleBudget() + "%";
+        lines[5] = "gfx   quality " + metrics.getQualityTier() + "  changes " + metrics.getQualityChanges();
+    }
+
+    /***************************************************************
+     * METHOD: format(long nanos)                                  *
+     * DESCRIPTION:                                                *
+     * Formats a duration in microseconds or milliseconds.         *
+     * PARAMETERS:                                                 *
+     *    - long nanos: The duration.                              *
+     * RETURN VALUE: E.g. "12.3 us" or "4.56 ms".                  *
+     ***************************************************************/
+    static String format(long nanos) {
+        return (nanos < 1_000_000) ? String.format("%5.1f us", nanos / 1e3)
+                : String.format("%5.2f ms", nanos / 1e6);
+    }
+
+    /*******************************************************************
+     * CLASS: Window                                                  *
+     * DESCRIPTION:                                                   *
+     * The samples a histogram got between the last two refreshes,    *
+     * found by subtracting copies of it. The copies are made once,   *
+     * so a refresh does not allocate histograms.                     *
+     *******************************************************************/
+    private static final class Window {
+        private final LatencyHistogram source;    // Histogram being watched
+        private LatencyHistogram current;         // Copy taken at this refresh
+        private LatencyHistogram previous;        // Copy taken at the last refresh
+        private final LatencyHistogram recent;    // current minus previous
+
+        Window(LatencyHistogram source) {
+            this.source = source;
+            this.current = new LatencyHistogram(source.getName());
+            this.previous = new LatencyHistogram(source.getName());
+            this.recent = new LatencyHistogram(source.getName());
+        }
+
+        void refresh() {
+            LatencyHistogram older = previous;
+            previous = current;
+            current = older;
+            source.copyTo(current);
+            current.copyTo(recent);
+            recent.subtract(previous);
+        }
+
+        String describe() {
+            if (recent.getCount() == 0) {
+                return "   -";
+            }
+            return "p50 " + format(recent.getValueAtPercentile(50)) + "  p99 " + format(recent.getValueAtPercentile(99));
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*******************************************************************
+ * CLASS: EntitySystems                                           *
+ * DESCRIPTION:                                                   *
+ * The per-entity work of a step, written once for every kind of  *
+ * entity: each system is a loop over the columns of one          *
+ * Archetype table. A new kind of entity is a new table run       *
+ * through the systems it needs; no system looks at entities it   *
+ * does not apply to, so a kind costs nothing when it has no      *
+ * entities and only its own rows otherwise.                      *
+ *                                                                *
+ * Systems that find entities (nextOverlap, nextPastBottom)       *
+ * return one row at a time, so the caller can react to each      *
+ * (score, sound, despawn) and carry on from there:               *
+ *    for (int row = nextOverlap(t, 0, ...); row >= 0;            *
+ *         row = nextOverlap(t, row + 1, ...)) { ... }            *
+ * A caller that despawns the row carries on from row instead of  *
+ * row + 1, since the table's last row has moved into it.         *
+ *                                                                *
+ * integrate, bounceOffWalls and nextPastBottom run on a          *
+ * MotionKernel: VectorMotionKernel when the JVM was started with *
+ * --add-modules jdk.incubator.vector and the class is on the     *
+ * classpath, SCALAR otherwise or when -Dbrickbreaker.scalar=true *
+ * is set.                                                        *
+ *******************************************************************/
+public final class EntitySystems {
+    public static final MotionKernel SCALAR = new Scalar();    // One row at a time, always available
+    private static final MotionKernel VECTOR = loadVector();   // SIMD lanes, or null
+    private static final MotionKernel KERNEL =                 // The one the systems run on
+            (VECTOR != null && !Boolean.getBoolean("brickbreaker.scalar")) ? VECTOR : SCALAR;
+
+    private EntitySystems() {
+    }
+
+    /***************************************************************
+     * METHOD: loadVector()                                        *
+     * DESCRIPTION:                                                *
+     * Loads VectorMotionKernel if the Vector API module is in the *
+     * boot layer. The class is looked up by name, so the game     *
+     * compiles and runs without it.                               *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The kernel, or null if it cannot be used.     *
+     ***************************************************************/
+    private static MotionKernel loadVector() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (MotionKernel) Class.forName("VectorMotionKernel").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /***************************************************************
+     * METHODS: getKernel(), getVectorKernel()                     *
+     * DESCRIPTION:                                                *
+     * The kernel the systems run on, and the vector kernel, which *
+     * is null when it could not be loaded.                        *
+     ***************************************************************/
+    public static MotionKernel getKernel() { return KERNEL; }
+    public static MotionKernel getVectorKernel() { return VECTOR; }
+
+    /***************************************************************
+     * METHOD: beginStep(Archetype table)                          *
+     * DESCRIPTION:                                                *
+     * Remembers every position before the step, so the renderer   *
+     * can interpolate. Needs TRAIL.                               *
+     * PARAMETERS:                                                 *
+     *    - Archetype table: The entities.                         *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void beginStep(Archetype table) {
+        int n = table.size();
+        System.arraycopy(table.x, 0, table.prevX, 0, n);
+        System.arraycopy(table.y, 0, table.prevY, 0, n);
+    }
+
+    /***************************************************************
+     * METHOD: integrate(Archetype table, double scale)            *
+     * DESCRIPTION:                                                *
+     * Moves every entity by its velocity times scale. Needs       *
+     * VELOCITY.                                                   *
+     * PARAMETERS:                                                 *
+     *    - Archetype table: The entities.                         *
+     *    - double scale: The step length in the velocity's time   *
+     *      unit, e.g. seconds for px/s or 1 for px per step.      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void integrate(Archetype table, double scale) {
+        KERNEL.integrate(table, scale);
+    }
+
+    /***************************************************************
+     * METHOD: bounceOffWalls(Archetype table, double left,        *
+     *                        double top, double right)            *
+     * DESCRIPTION:                                                *
+     * Puts entities that are past the left, top or right wall     *
+     * back against it, and turns their velocity away from the     *
+     * wall if it points into it. Needs VELOCITY and SIZE.         *
+     * PARAMETERS:                                                 *
+     *    - Archetype table: The entities.                         *
+     *    - double left, top, right: The walls.                    *
+     * RETURN VALUE: The number of entities that bounced.          *
+     ***************************************************************/
+    public static int bounceOffWalls(Archetype table, double left, double top, double right) {
+        return KERNEL.bounceOffWalls(table, left, top, right);
+    }
+
+    /***************************************************************
+     * METHOD: nextOverlap(Archetype table, int from, int rx,      *
+     *                     int ry, int rw, int rh)                 *
+     * DESCRIPTION:                                                *
+     * Finds the next entity whose box overlaps a rectangle, e.g.  *
+     * the paddle. Positions are truncated to whole pixels first,  *
+     * as the game's collision rectangles always were. Needs SIZE. *
+     * PARAMETERS:                                                 *
+     *    - Archetype table: The entities.                         *
+     *    - int from: First row to test.                           *
+     *    - int rx, ry, rw, rh: The rectangle.                     *
+     * RETURN VALUE: The row, or -1 if no row from there overlaps. *
+     ***************************************************************/
+    public static int nextOverlap(Archetype table, int from, int rx, int ry, int rw, int rh) {
+        if (rw <= 0 || rh <= 0) {
+            return -1;
+        }
+        int n = table.size();
+        double[] x = table.x, y = table.y;
+        int[] size = table.size;
+        for (int i = from; i < n; i++) {
+            int ex = (int) x[i];
+            int ey = (int) y[i];
+            if (size[i] > 0 && rx < ex + size[i] && ex < rx + rw && ry < ey + size[i] && ey < ry + rh) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /***************************************************************
+     * METHOD: nextPastBottom(Archetype table, int from,           *
+     *                        double bottom)                       *
+     * DESCRIPTION:                                                *
+     * Finds the next entity whose bottom edge is below a line,    *
+     * e.g. one that fell out of the playfield. Needs SIZE.        *
+     * PARAMETERS:                                                 *
+     *    - Archetype table: The entities.                         *
+     *    - int from: First row to test.                           *
+     *    - double bottom: The line.                               *
+     * RETURN VALUE: The row, or -1 if no row from there is past.  *
+     ***************************************************************/
+    public static int nextPastBottom(Archetype table, int from, double bottom) {
+        return KERNEL.nextPastBottom(table, from, bottom);
+    }
+
+    /*******************************************************************
+     * CLASS: Scalar                                                  *
+     * DESCRIPTION:                                                   *
+     * The reference kernel: plain loops, one row at a time.          *
+     *******************************************************************/
+    private static final class Scalar implements MotionKernel {
+        @Override
+        public String getName() {
+            return "scalar";
+        }
+
+        @Override
+        public void integrate(Archetype table, double scale) {
+            int n = table.size();
+            double[] x = table.x, y = table.y, xVel = table.xVel, yVel = table.yVel;
+            for (int i = 0; i < n; i++) {
+                x[i] += xVel[i] * scale;
+                y[i] += yVel[i] * scale;
+            }
+        }
+
+        @Override
+        public int bounceOffWalls(Archetype table, double left, double top, double right) {
+            int n = table.size();
+            double[] x = table.x, y = table.y, xVel = table.xVel, yVel = table.yVel;
+            int[] size = table.size;
+            int bounced = 0;
+            for (int i = 0; i < n; i++) {
+                boolean hit = false;
+                if (x[i] < left) {
+                    x[i] = left;
+                    if (xVel[i] < 0) {
+                        xVel[i] = -xVel[i];
+                        hit = true;
+                    }
+                } else if (x[i] + size[i] > right) {
+                    x[i] = right - size[i];
+                    if (xVel[i] > 0) {
+                        xVel[i] = -xVel[i];
+                        hit = true;
+                    }
+                }
+                if (y[i] < top) {
+                    y[i] = top;
+                    if (yVel[i] < 0) {
+                        yVel[i] = -yVel[i];
+                        hit = true;
+                    }
+                }
+                if (hit) {
+                    bounced++;
+                }
+            }
+            return bounced;
+        }
+
+        @Override
+        public int nextPastBottom(Archetype table, int from, double bottom) {
+            int n = table.size();
+            double[] y = table.y;
+            int[] size = table.size;
+            for (int i = from; i < n; i++) {
+                if (y[i] + size[i] > bottom) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
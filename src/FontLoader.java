@@ -2,39 +2,87 @@
  * CLASS: FontLoader                                              *
  * DESCRIPTION:                                                   *
  * A utility class for loading custom fonts in the game. It       *
- * provides a method to load a font from a file and return it in  *
- * the specified size. If loading fails, a default Arial font is  *
- * returned.                                                      *
+ * provides a method to load a font asset (see Resources) and     *
+ * return it in the specified size. If loading fails, a default   *
+ * Arial font is returned.                                        *
+ *                                                                *
+ * Fonts are cached: a font file is parsed only once, and each    *
+ * (name, size, style) is derived only once, so every panel and   *
+ * the renderer share the same Font objects. The cache is safe to *
+ * use from the asset loader threads.                             *
  *******************************************************************/
 import java.awt.Font;
 import java.awt.FontFormatException;
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class FontLoader {
+    // Parsed font files by asset name; empty if the file could not be loaded
+    private static final Map<String, Optional<Font>> files = new ConcurrentHashMap<>();
+    // Derived fonts by asset name, size and style
+    private static final Map<Key, Font> fonts = new ConcurrentHashMap<>();
+
+    // Cache key of a derived font
+    private record Key(String name, float size, int style) { }
+
     /***************************************************************
-     * METHOD: loadFont(String path, float size)                   *
+     * METHOD: loadFont(String name, float size)                   *
      * DESCRIPTION:                                                *
-     * Loads a custom font from the specified file path and returns*
-     * it at the given size. If the font cannot be loaded, a       *
-     * fallback font (Arial) is returned instead.                  *
+     * Loads a custom font from the named asset and returns it at  *
+     * the given size. If the font cannot be loaded, a fallback    *
+     * font (Arial) is returned instead.                           *
      * PARAMETERS:                                                 *
-     *    - String path: The file path to the font file.           *
+     *    - String name: The asset name of the font file.          *
      *    - float size: The desired size for the loaded font.      *
      * RETURN VALUE:                                               *
      *    A `Font` object representing the loaded font, or a       *
      *    default Arial font if loading fails.                     *
      ***************************************************************/
-    public static Font loadFont(String path, float size) {
-        try {
-            // Load the font from the file path
-            Font font = Font.createFont(Font.TRUETYPE_FONT, new File(path));
-            // Derive the font with the specified size
-            return font.deriveFont(size);
+    public static Font loadFont(String name, float size) {
+        return loadFont(name, size, Font.PLAIN);
+    }
+
+    /***************************************************************
+     * METHOD: loadFont(String name, float size, int style)        *
+     * DESCRIPTION:                                                *
+     * Like loadFont(name, size), in a given style. The first call *
+     * for a name parses the file; later calls reuse it, and later *
+     * calls with the same size and style return the same Font.    *
+     * PARAMETERS:                                                 *
+     *    - String name: The asset name of the font file.          *
+     *    - float size: The desired size for the loaded font.      *
+     *    - int style: Font.PLAIN, Font.BOLD and/or Font.ITALIC.   *
+     * RETURN VALUE:                                               *
+     *    The cached font, or a default Arial font if the file     *
+     *    could not be loaded.                                     *
+     ***************************************************************/
+    public static Font loadFont(String name, float size, int style) {
+        return fonts.computeIfAbsent(new Key(name, size, style), key -> {
+            Optional<Font> font = files.computeIfAbsent(name, FontLoader::parse);
+            // Return a default font if loading failed
+            return font.map(f -> f.deriveFont(style, size))
+                    .orElseGet(() -> new Font("Arial", style, (int) size));
+        });
+    }
+
+    /***************************************************************
+     * METHOD: parse(String name)                                  *
+     * DESCRIPTION:                                                *
+     * Reads a TrueType font file.                                 *
+     * PARAMETERS:                                                 *
+     *    - String name: The asset name of the font file.          *
+     * RETURN VALUE: The font at size 1, or empty if it failed.    *
+     ***************************************************************/
+    private static Optional<Font> parse(String name) {
+        try (InputStream in = Resources.shared().open(name)) {
+            // Load the font from the asset
+            return Optional.of(Font.createFont(Font.TRUETYPE_FONT, in));
         } catch (FontFormatException | IOException e) {
             e.printStackTrace();
-            // Return a default font if loading fails
-            return new Font("Arial", Font.PLAIN, (int) size);
+            return Optional.empty();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+/*******************************************************************
+ * CLASS: FrameStats                                              *
+ * DESCRIPTION:                                                   *
+ * Collects simple timing statistics (count, average, worst case) *
+ * for a repeating event such as a simulation step or a painted   *
+ * frame. One thread records, any thread may read. Reading with   *
+ * drain() returns the window since the last drain and starts a   *
+ * new one.                                                       *
+ *******************************************************************/
+public class FrameStats {
+    private final String name;  // Label used when printing
+    private long count;         // Samples in the current window
+    private long totalNanos;    // Sum of samples in the window
+    private long maxNanos;      // Largest sample in the window
+
+    /***************************************************************
+     * METHOD: FrameStats(String name)                             *
+     * DESCRIPTION:                                                *
+     * Creates an empty statistics window.                         *
+     * PARAMETERS:                                                 *
+     *    - String name: Label used by toString().                 *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public FrameStats(String name) {
+        this.name = name;
+    }
+
+    /***************************************************************
+     * METHOD: record(long nanos)                                  *
+     * DESCRIPTION:                                                *
+     * Adds one sample to the current window.                      *
+     * PARAMETERS:                                                 *
+     *    - long nanos: The measured duration in nanoseconds.      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public synchronized void record(long nanos) {
+        count++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    /***************************************************************
+     * METHOD: drain()                                             *
+     * DESCRIPTION:                                                *
+     * Formats the current window and resets it.                   *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: A one-line summary such as                    *
+     *    "paint: 60 samples, avg 16.67 ms, max 18.20 ms".         *
+     ***************************************************************/
+    public synchronized String drain() {
+        String summary = toString();
+        count = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+        return summary;
+    }
+
+    /***************************************************************
+     * METHOD: getCount() / getAverageNanos() / getMaxNanos()      *
+     * DESCRIPTION:                                                *
+     * Retrieves the statistics of the current window.             *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The sample count, average or maximum.         *
+     ***************************************************************/
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getAverageNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: %d samples, avg %.2f ms, max %.2f ms",
+                name, count, getAverageNanos() / 1e6, maxNanos / 1e6);
+    }
+}
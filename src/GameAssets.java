@@ -0,0 +1,105 @@
+/*******************************************************************
+ * CLASS: GameAssets                                              *
+ * DESCRIPTION:                                                   *
+ * Every asset the game uses: sound effects, music, fonts, the    *
+ * start button icon, the levels and the saved high scores.       *
+ * start() asks an AssetLoader for all of them at once, so they   *
+ * load in parallel while the window already shows the startup    *
+ * screen; the getters wait for their asset if it is not loaded   *
+ * yet.                                                           *
+ *******************************************************************/
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+
+public class GameAssets {
+    private final CompletableFuture<Integer> brickHitSound;
+    private final CompletableFuture<Integer> paddleHitSound;
+    private final CompletableFuture<Integer> specialBrickHitSound;
+    private final CompletableFuture<Integer> gameOverSound;
+    private final CompletableFuture<Integer> winnerSound;
+    private final CompletableFuture<Integer> powerUpSound;
+    private final CompletableFuture<Integer> wallHitSound;
+    private final CompletableFuture<Integer> backgroundMusic;
+    private final CompletableFuture<Font> hudFont;      // Score and lives
+    private final CompletableFuture<Font> messageFont;  // Game over and win messages
+    private final CompletableFuture<Font> welcomeFont;  // Welcome screen title
+    private final CompletableFuture<BufferedImage> startIcon; // Start button
+    private final CompletableFuture<Levels> levels;     // Level list and first level
+    private final CompletableFuture<HighScoreStore> highScores; // Saved leaderboard
+    private final CompletableFuture<Void> all;          // Completes when everything is loaded
+
+    /***************************************************************
+     * METHOD: GameAssets(AssetLoader loader)                      *
+     * DESCRIPTION:                                                *
+     * Starts loading every asset.                                 *
+     * PARAMETERS:                                                 *
+     *    - AssetLoader loader: The loader to use.                 *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private GameAssets(AssetLoader loader) {
+        brickHitSound = loader.sound("sounds/brickHitSound.wav");
+        paddleHitSound = loader.sound("sounds/paddleHitSound.wav");
+        specialBrickHitSound = loader.sound("sounds/specialBrickHitSound.wav");
+        gameOverSound = loader.sound("sounds/gameOverSound.wav");
+        winnerSound = loader.sound("sounds/winnerSound.wav");
+        powerUpSound = loader.sound("sounds/powerUpSound.wav");
+        wallHitSound = loader.sound("sounds/wallHitSound.wav");
+        backgroundMusic = loader.sound("sounds/background.wav");
+        hudFont = loader.font("ARCADECLASSIC.TTF", 13f);
+        messageFont = loader.font("ARCADECLASSIC.TTF", 40f);
+        welcomeFont = loader.font("ARCADECLASSIC.TTF", 40f); // Same cached Font as messageFont
+        startIcon = loader.image("icon.png");
+        levels = loader.levels();
+        highScores = loader.highScores();
+        all = CompletableFuture.allOf(brickHitSound, paddleHitSound, specialBrickHitSound, gameOverSound,
+                winnerSound, powerUpSound, wallHitSound, backgroundMusic, hudFont, messageFont, welcomeFont, startIcon,
+                levels, highScores);
+    }
+
+    /***************************************************************
+     * METHOD: start(AssetLoader loader)                           *
+     * DESCRIPTION:                                                *
+     * Starts loading every asset and returns without waiting.     *
+     * PARAMETERS:                                                 *
+     *    - AssetLoader loader: The loader to use.                 *
+     * RETURN VALUE: The assets, loading.                          *
+     ***************************************************************/
+    public static GameAssets start(AssetLoader loader) {
+        return new GameAssets(loader);
+    }
+
+    /***************************************************************
+     * METHOD: whenLoaded()                                        *
+     * DESCRIPTION:                                                *
+     * Retrieves a future that completes once every asset is done. *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The future.                                   *
+     ***************************************************************/
+    public CompletableFuture<Void> whenLoaded() {
+        return all;
+    }
+
+    /***************************************************************
+     * METHODS: getBrickHitSound(), getPaddleHitSound(), ...,      *
+     *          getHudFont(), getMessageFont(), getWelcomeFont(),  *
+     *          getStartIcon(), getLevels(), getHighScores()       *
+     * DESCRIPTION:                                                *
+     * The loaded assets, waiting for them if necessary. Sounds    *
+     * are AudioMixer ids (-1 if missing), the icon may be null.   *
+     ***************************************************************/
+    public int getBrickHitSound() { return brickHitSound.join(); }
+    public int getPaddleHitSound() { return paddleHitSound.join(); }
+    public int getSpecialBrickHitSound() { return specialBrickHitSound.join(); }
+    public int getGameOverSound() { return gameOverSound.join(); }
+    public int getWinnerSound() { return winnerSound.join(); }
+    public int getPowerUpSound() { return powerUpSound.join(); }
+    public int getWallHitSound() { return wallHitSound.join(); }
+    public int getBackgroundMusic() { return backgroundMusic.join(); }
+    public Font getHudFont() { return hudFont.join(); }
+    public Font getMessageFont() { return messageFont.join(); }
+    public Font getWelcomeFont() { return welcomeFont.join(); }
+    public BufferedImage getStartIcon() { return startIcon.join(); }
+    public Levels getLevels() { return levels.join(); }
+    public HighScoreStore getHighScores() { return highScores.join(); }
+}
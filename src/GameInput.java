@@ -0,0 +1,18 @@
+/*******************************************************************
+ * CLASS: GameInput                                               *
+ * DESCRIPTION:                                                   *
+ * Bit flags for the player input consumed by one simulation      *
+ * step. Key presses are queued by the GameLoop in a ring of ints *
+ * and handed to the simulation one per step, so passing input    *
+ * between threads never allocates.                               *
+ *******************************************************************/
+public final class GameInput {
+    public static final int NONE = 0;       // No input this step
+    public static final int LEFT = 1;       // Move the paddle left
+    public static final int RIGHT = 1 << 1; // Move the paddle right
+    public static final int ENTER = 1 << 2; // Start / restart the game
+
+    private GameInput() {
+        // Constants only
+    }
+}
@@ -0,0 +1,225 @@
+/*******************************************************************
+ * CLASS: GameLoop                                                *
+ * DESCRIPTION:                                                   *
+ * Runs the game simulation on its own thread with a fixed time   *
+ * step. Real elapsed time is added to an accumulator and the     *
+ * simulation is advanced in whole steps, so ball speed no longer *
+ * depends on how busy the Swing event thread is. After each      *
+ * batch of steps that changed something the simulation publishes *
+ * a snapshot for the renderer. Presses submitted from any thread *
+ * are queued and applied one per step, in order.                 *
+ *******************************************************************/
+import java.util.concurrent.locks.LockSupport;
+
+public class GameLoop implements Runnable {
+    /***************************************************************
+     * INTERFACE: Simulation                                       *
+     * DESCRIPTION:                                                *
+     * The work driven by the loop. Both methods are called on the *
+     * loop thread only.                                           *
+     ***************************************************************/
+    public interface Simulation {
+        // Advances the game by dt seconds using the given GameInput bits;
+        // returns false if nothing changed, so there is nothing to publish
+        boolean step(double dt, int input);
+
+        // Publishes the current state; stateNanos is the System.nanoTime()
+        // at which that state is due on screen
+        void publish(long stateNanos);
+    }
+
+    private static final long MAX_FRAME_NANOS = 250_000_000L; // Cap on catch-up after a stall
+    private static final int INPUT_CAPACITY = 16; // Presses queued at most; a power of two
+
+    private final Simulation simulation;    // The game being simulated
+    private final long stepNanos;           // Length of one step in nanoseconds
+    private final double stepSeconds;       // Length of one step in seconds
+    private final int[] presses = new int[INPUT_CAPACITY]; // Ring of presses not yet applied
+    private volatile long pressHead = 0;    // Next press to apply, written by the loop only
+    private volatile long pressTail = 0;    // Next free slot, written under the presses lock
+    private final FrameStats stepStats = new FrameStats("step");    // Time spent in step()
+    private final FrameStats lateStats = new FrameStats("late");    // Wake-up lateness
+    private volatile boolean running = false; // Loop thread state
+    private volatile long stepCount = 0;      // Steps simulated so far
+    private Thread thread;                    // The loop thread
+
+    /***************************************************************
+     * METHOD: GameLoop(Simulation simulation, long stepNanos)     *
+     * DESCRIPTION:                                                *
+     * Creates a loop that advances the simulation in steps of the *
+     * given length. The loop does not run until start() is called.*
+     * PARAMETERS:                                                 *
+     *    - Simulation simulation: The game to drive.              *
+     *    - long stepNanos: Length of one step in nanoseconds.     *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public GameLoop(Simulation simulation, long stepNanos) {
+        this.simulation = simulation;
+        this.stepNanos = stepNanos;
+        this.stepSeconds = stepNanos / 1e9;
+    }
+
+    /***************************************************************
+     * METHOD: start()                                             *
+     * DESCRIPTION:                                                *
+     * Starts the loop on a new daemon thread.                     *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "game-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /***************************************************************
+     * METHOD: stop()                                              *
+     * DESCRIPTION:                                                *
+     * Asks the loop thread to finish after its current step and   *
+     * waits (up to one second) for it to do so. Afterwards the    *
+     * caller may safely read the simulation state.                *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            if (thread != Thread.currentThread()) {
+                try {
+                    thread.join(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            thread = null;
+        }
+    }
+
+    /***************************************************************
+     * METHOD: submit(int input)                                   *
+     * DESCRIPTION:                                                *
+     * Queues a press. Presses are applied in order, one per step, *
+     * so repeated presses each move the paddle and LEFT then      *
+     * RIGHT do not cancel out. At most INPUT_CAPACITY presses     *
+     * wait (80 ms of steps at the default 5 ms); further ones are *
+     * dropped so a held key cannot build up lag. Safe to call     *
+     * from any thread, typically the Swing event thread.          *
+     * PARAMETERS:                                                 *
+     *    - int input: GameInput bits to apply.                    *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void submit(int input) {
+        synchronized (presses) {
+            long tail = pressTail;
+            if (tail - pressHead < INPUT_CAPACITY) {
+                presses[(int) tail & (INPUT_CAPACITY - 1)] = input;
+                pressTail = tail + 1; // Publishes the slot to the loop thread
+            }
+        }
+    }
+
+    /***************************************************************
+     * METHOD: nextInput()                                         *
+     * DESCRIPTION:                                                *
+     * Takes the oldest queued press. Called on the loop thread    *
+     * only, so it needs no lock and never allocates.              *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The GameInput bits for this step, NONE when   *
+     * nothing is queued.                                          *
+     ***************************************************************/
+    private int nextInput() {
+        long head = pressHead;
+        if (head == pressTail) {
+            return GameInput.NONE;
+        }
+        int input = presses[(int) head & (INPUT_CAPACITY - 1)];
+        pressHead = head + 1;
+        return input;
+    }
+
+    /***************************************************************
+     * METHOD: run()                                               *
+     * DESCRIPTION:                                                *
+     * The loop body. Accumulates real time, runs as many fixed    *
+     * steps as fit, publishes once if any of them changed the     *
+     * state, then sleeps until the next step is due.              *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    @Override
+    public void run() {
+        long previous = System.nanoTime();
+        long accumulator = 0;
+        long wakeDue = previous;
+
+        while (running) {
+            long now = System.nanoTime();
+            lateStats.record(Math.max(0, now - wakeDue));
+
+            // Never try to catch up more than MAX_FRAME_NANOS after a stall
+            accumulator += Math.min(now - previous, MAX_FRAME_NANOS);
+            previous = now;
+
+            boolean changed = false;
+            while (accumulator >= stepNanos) {
+                long stepStart = System.nanoTime();
+                changed |= simulation.step(stepSeconds, nextInput());
+                stepStats.record(System.nanoTime() - stepStart);
+                accumulator -= stepNanos;
+                stepCount++;
+            }
+            // An idle world (welcome screen, pause, game over, between
+            // levels) is not published again, so nothing repaints
+            if (changed) {
+                // The state we just produced is shown one step from now
+                simulation.publish(now - accumulator + stepNanos);
+            }
+
+            wakeDue = now + (stepNanos - accumulator);
+            LockSupport.parkNanos(stepNanos - accumulator);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: getStepNanos()                                      *
+     * DESCRIPTION:                                                *
+     * Retrieves the length of one simulation step.                *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The step length in nanoseconds.               *
+     ***************************************************************/
+    public long getStepNanos() {
+        return stepNanos;
+    }
+
+    /***************************************************************
+     * METHOD: getStepCount()                                      *
+     * DESCRIPTION:                                                *
+     * Retrieves the number of steps simulated since start().      *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The step count.                               *
+     ***************************************************************/
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /***************************************************************
+     * METHOD: getStepStats() / getLateStats()                     *
+     * DESCRIPTION:                                                *
+     * Retrieves the timing of step() calls and how late the loop *
+     * thread woke up compared to its schedule.                    *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The FrameStats for steps or wake-up lateness. *
+     ***************************************************************/
+    public FrameStats getStepStats() {
+        return stepStats;
+    }
+
+    public FrameStats getLateStats() {
+        return lateStats;
+    }
+}
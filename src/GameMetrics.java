@@ -0,0 +1,240 @@
+/*******************************************************************
+ * CLASS: GameMetrics                                             *
+ * DESCRIPTION:                                                   *
+ * Where the time of a game goes. GameWorld records each played   *
+ * step and its phases (ball physics, brick collision, the win    *
+ * check and power-ups), GameRenderer each frame and SoundManager *
+ * each sound started, all into LatencyHistograms. Counters for   *
+ * bricks hit, balls and power-ups alive and the entity tables    *
+ * come from the world, particles and the quality tier from the   *
+ * renderer, and garbage collections from the JVM's collector     *
+ * beans.                                                         *
+ *                                                                *
+ * The shared instance is registered with the platform MBean      *
+ * server, so jconsole or any JMX client can read it while the    *
+ * game runs:                                                     *
+ *    BrickBreaker:type=Metrics               counters            *
+ *    BrickBreaker:type=Timing,name=<phase>   one per histogram   *
+ * DebugOverlay shows the same figures on screen.                 *
+ *******************************************************************/
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class GameMetrics implements GameMetricsMBean {
+    public static final String DOMAIN = "BrickBreaker";  // JMX domain of the game's beans
+
+    private static GameMetrics shared;                   // Registered instance, created on first use
+
+    private final LatencyHistogram tick = new LatencyHistogram("tick");         // Whole played step
+    private final LatencyHistogram physics = new LatencyHistogram("physics");   // Ball movement, walls, paddle
+    private final LatencyHistogram bricks = new LatencyHistogram("bricks");     // Brick collision queries
+    private final LatencyHistogram winCheck = new LatencyHistogram("winCheck"); // Cleared, won or lost
+    private final LatencyHistogram powerUps = new LatencyHistogram("powerUps"); // Power-up update
+    private final LatencyHistogram frame = new LatencyHistogram("frame");       // GameRenderer.render
+    private final LatencyHistogram audio = new LatencyHistogram("audio");       // SoundManager.playSound
+    private final AtomicLong bricksHit = new AtomicLong();  // Bricks destroyed
+    private volatile int ballsAlive = 0;                    // Balls after the last step
+    private volatile int ballsPooled = 0;                   // Free ball rows waiting for reuse
+    private volatile int powerUpsAlive = 0;                 // Power-ups falling after the last step
+    private volatile int powerUpsPooled = 0;                // Free power-up rows waiting for reuse
+    private volatile int entitiesCreated = 0;               // Ball and power-up rows allocated
+    private volatile int particlesAlive = 0;                // Particles after the last frame
+    private volatile int particleBudget = 100;              // Percent of full particle effects shown
+    private volatile String qualityTier = QualityGovernor.Tier.HIGH.name(); // Rendering quality tier
+    private volatile int qualityChanges = 0;                // Quality tier changes so far
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+    /***************************************************************
+     * METHOD: shared()                                            *
+     * DESCRIPTION:                                                *
+     * Retrieves the game's metrics, creating and registering them *
+     * with JMX on first use. A failed registration is printed and *
+     * the metrics still work.                                     *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The shared GameMetrics.                       *
+     ***************************************************************/
+    public static synchronized GameMetrics shared() {
+        if (shared == null) {
+            shared = new GameMetrics();
+            try {
+                shared.register(ManagementFactory.getPlatformMBeanServer());
+            } catch (JMException e) {
+                e.printStackTrace();
+            }
+        }
+        return shared;
+    }
+
+    /***************************************************************
+     * METHOD: register(MBeanServer server)                        *
+     * DESCRIPTION:                                                *
+     * Registers the counters and every histogram as MBeans.       *
+     * PARAMETERS:                                                 *
+     *    - MBeanServer server: Where to register them.            *
+     * RETURN VALUE: None.                                         *
+     * THROWS: JMException if a name is taken or invalid.          *
+     ***************************************************************/
+    public void register(MBeanServer server) throws JMException {
+        server.registerMBean(this, new ObjectName(DOMAIN + ":type=Metrics"));
+        for (LatencyHistogram histogram : getHistograms()) {
+            server.registerMBean(histogram, new ObjectName(DOMAIN + ":type=Timing,name=" + histogram.getName()));
+        }
+    }
+
+    /***************************************************************
+     * METHOD: recordStep(long physicsNanos, long brickNanos,      *
+     *                    long winCheckNanos, long powerUpNanos,   *
+     *                    long tickNanos, int balls)               *
+     * DESCRIPTION:                                                *
+     * Records the timing of one played step. Called by GameWorld. *
+     * PARAMETERS:                                                 *
+     *    - long physicsNanos: Moving the balls, brick queries     *
+     *      not included.                                          *
+     *    - long brickNanos: Brick collision queries.              *
+     *    - long winCheckNanos: Checking for a cleared level.      *
+     *    - long powerUpNanos: Updating the power-ups.             *
+     *    - long tickNanos: The whole step.                        *
+     *    - int balls: Balls in play after the step.               *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void recordStep(long physicsNanos, long brickNanos, long winCheckNanos, long powerUpNanos,
+                           long tickNanos, int balls) {
+        physics.record(physicsNanos);
+        bricks.record(brickNanos);
+        winCheck.record(winCheckNanos);
+        powerUps.record(powerUpNanos);
+        tick.record(tickNanos);
+        ballsAlive = balls;
+    }
+
+    /***************************************************************
+     * METHOD: recordEntities(Archetype balls,                     *
+     *                        Archetype powerUps)                  *
+     * DESCRIPTION:                                                *
+     * Takes the sizes of the world's entity tables after a step.  *
+     * The tables are the entity pools: a free row is a pooled     *
+     * entity, ready for the next spawn, and the rows a table has  *
+     * allocated are the entities it has created. Called by        *
+     * GameWorld, on its thread.                                   *
+     * PARAMETERS:                                                 *
+     *    - Archetype balls: The ball table.                       *
+     *    - Archetype powerUps: The power-up table.                *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void recordEntities(Archetype balls, Archetype powerUps) {
+        ballsPooled = balls.getCapacity() - balls.size();
+        powerUpsAlive = powerUps.size();
+        powerUpsPooled = powerUps.getCapacity() - powerUps.size();
+        entitiesCreated = balls.getCapacity() + powerUps.getCapacity();
+    }
+
+    /***************************************************************
+     * METHOD: countBrickHit()                                     *
+     * DESCRIPTION:                                                *
+     * Counts one destroyed brick. Called by GameWorld.            *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void countBrickHit() {
+        bricksHit.incrementAndGet();
+    }
+
+    /***************************************************************
+     * METHOD: recordParticles(int alive, double budget)           *
+     * DESCRIPTION:                                                *
+     * Takes the particle system's state after a frame. Called by  *
+     * GameRenderer, on the rendering thread.                      *
+     * PARAMETERS:                                                 *
+     *    - int alive: Particles alive.                            *
+     *    - double budget: Share of full effects shown, 0 to 1.    *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void recordParticles(int alive, double budget) {
+        particlesAlive = alive;
+        particleBudget = (int) Math.round(budget * 100);
+    }
+
+    /***************************************************************
+     * METHOD: recordQuality(QualityGovernor governor)             *
+     * DESCRIPTION:                                                *
+     * Takes the quality governor's state after a frame. Called by *
+     * GameRenderer, on the rendering thread.                      *
+     * PARAMETERS:                                                 *
+     *    - QualityGovernor governor: The renderer's governor.     *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void recordQuality(QualityGovernor governor) {
+        qualityTier = governor.getTier().name();
+        qualityChanges = governor.getChanges();
+    }
+
+    /***************************************************************
+     * METHODS: getTick(), getPhysics(), getBricks(),              *
+     *          getWinCheck(), getPowerUps(), getFrame(),          *
+     *          getAudio(), getHistograms()                        *
+     * DESCRIPTION:                                                *
+     * The histograms, to record into or read. Durations are in    *
+     * nanoseconds.                                                *
+     ***************************************************************/
+    public LatencyHistogram getTick() { return tick; }
+    public LatencyHistogram getPhysics() { return physics; }
+    public LatencyHistogram getBricks() { return bricks; }
+    public LatencyHistogram getWinCheck() { return winCheck; }
+    public LatencyHistogram getPowerUps() { return powerUps; }
+    public LatencyHistogram getFrame() { return frame; }
+    public LatencyHistogram getAudio() { return audio; }
+
+    public LatencyHistogram[] getHistograms() {
+        return new LatencyHistogram[] { tick, physics, bricks, winCheck, powerUps, frame, audio };
+    }
+
+    /***************************************************************
+     * METHODS: getTicks(), getFrames(), getSoundsPlayed(),        *
+     *          getBricksHit(), getBallsAlive(),                   *
+     *          getBallsPooled(), getPowerUpsAlive(),              *
+     *          getPowerUpsPooled(),                               *
+     *          getEntitiesCreated(), getParticlesAlive(),         *
+     *          getParticleBudget(), getQualityTier(),             *
+     *          getQualityChanges(), getGcCount(),                 *
+     *          getGcTimeMillis()                                  *
+     * DESCRIPTION:                                                *
+     * The GameMetricsMBean attributes. The GC figures add up all  *
+     * collectors of the JVM and are read when asked for.          *
+     ***************************************************************/
+    @Override public long getTicks() { return tick.getCount(); }
+    @Override public long getFrames() { return frame.getCount(); }
+    @Override public long getSoundsPlayed() { return audio.getCount(); }
+    @Override public long getBricksHit() { return bricksHit.get(); }
+    @Override public int getBallsAlive() { return ballsAlive; }
+    @Override public int getBallsPooled() { return ballsPooled; }
+    @Override public int getPowerUpsAlive() { return powerUpsAlive; }
+    @Override public int getPowerUpsPooled() { return powerUpsPooled; }
+    @Override public int getEntitiesCreated() { return entitiesCreated; }
+    @Override public int getParticlesAlive() { return particlesAlive; }
+    @Override public int getParticleBudget() { return particleBudget; }
+    @Override public String getQualityTier() { return qualityTier; }
+    @Override public int getQualityChanges() { return qualityChanges; }
+
+    @Override
+    public long getGcCount() {
+        long count = 0;
+        for (int i = 0; i < collectors.size(); i++) {
+            count += Math.max(0, collectors.get(i).getCollectionCount());
+        }
+        return count;
+    }
+
+    @Override
+    public long getGcTimeMillis() {
+        long millis = 0;
+        for (int i = 0; i < collectors.size(); i++) {
+            millis += Math.max(0, collectors.get(i).getCollectionTime());
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,24 @@
+/*******************************************************************
+ * INTERFACE: GameMetricsMBean                                    *
+ * DESCRIPTION:                                                   *
+ * The JMX view of the game's counters, registered by GameMetrics *
+ * under BrickBreaker:type=Metrics. The timings themselves are    *
+ * separate LatencyHistogramMBeans.                               *
+ *******************************************************************/
+public interface GameMetricsMBean {
+    long getTicks();           // Played steps measured
+    long getFrames();          // Frames drawn
+    long getSoundsPlayed();    // Sound effects started
+    long getBricksHit();       // Bricks destroyed
+    int getBallsAlive();       // Balls in play after the last step
+    int getBallsPooled();      // Free ball rows waiting for reuse
+    int getPowerUpsAlive();    // Power-ups falling after the last step
+    int getPowerUpsPooled();   // Free power-up rows waiting for reuse
+    int getEntitiesCreated();  // Ball and power-up rows allocated, in use or not
+    int getParticlesAlive();   // Particles after the last frame
+    int getParticleBudget();   // Percent of full particle effects shown
+    String getQualityTier();   // Rendering quality tier of the last frame
+    int getQualityChanges();   // Quality tier changes so far
+    long getGcCount();         // Garbage collections since the JVM started
+    long getGcTimeMillis();    // Time spent in them
+}
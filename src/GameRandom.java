@@ -0,0 +1,105 @@
+/*******************************************************************
+ * CLASS: GameRandom                                              *
+ * DESCRIPTION:                                                   *
+ * The single source of randomness for a game session. It is      *
+ * created from one seed and split into an independent stream per *
+ * subsystem (brick layout, power-up drops, extra balls, welcome  *
+ * screen). Each subsystem draws only from its own stream, so a   *
+ * change in how often one of them draws does not shift the       *
+ * numbers the others see, and a session can be reproduced bit   *
+ * for bit from its seed. The streams are not thread-safe; each   *
+ * one must only be used by the thread that owns its subsystem.   *
+ *******************************************************************/
+import java.util.SplittableRandom;
+
+public final class GameRandom {
+    /***************************************************************
+     * ENUM: Stream                                                *
+     * DESCRIPTION:                                                *
+     * The subsystems that get their own random stream. New        *
+     * streams must be added at the end so existing seeds keep     *
+     * producing the same games.                                   *
+     ***************************************************************/
+    public enum Stream {
+        LAYOUT,     // Brick colors and special brick positions
+        POWER_UPS,  // Power-up type dropped by special bricks
+        BALLS,      // Directions of balls added by MANY_BALLS
+        WELCOME     // Bouncing balls and text colors of the welcome screen
+    }
+
+    private final long seed;                  // Seed of the whole session
+    private final SplittableRandom[] streams; // One stream per Stream constant
+
+    /***************************************************************
+     * METHOD: GameRandom(long seed)                               *
+     * DESCRIPTION:                                                *
+     * Creates the session source and splits one stream per       *
+     * subsystem from it, always in the same order.                *
+     * PARAMETERS:                                                 *
+     *    - long seed: The session seed.                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public GameRandom(long seed) {
+        this.seed = seed;
+        SplittableRandom root = new SplittableRandom(seed);
+        Stream[] kinds = Stream.values();
+        streams = new SplittableRandom[kinds.length];
+        for (int i = 0; i < kinds.length; i++) {
+            streams[i] = root.split();
+        }
+    }
+
+    /***************************************************************
+     * METHOD: fromSystem()                                        *
+     * DESCRIPTION:                                                *
+     * Creates the session source for an interactive game. The     *
+     * seed comes from the brickbreaker.seed system property when  *
+     * set, otherwise it is random. The seed is printed so that a  *
+     * bug report can include it.                                  *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: A new GameRandom.                             *
+     ***************************************************************/
+    public static GameRandom fromSystem() {
+        Long configured = Long.getLong("brickbreaker.seed");
+        long seed = (configured != null) ? configured : new SplittableRandom().nextLong();
+        System.out.println("Session seed: " + seed);
+        return new GameRandom(seed);
+    }
+
+    /***************************************************************
+     * METHOD: stream(Stream kind)                                 *
+     * DESCRIPTION:                                                *
+     * Retrieves the random stream of a subsystem. The same object *
+     * is returned on every call.                                  *
+     * PARAMETERS:                                                 *
+     *    - Stream kind: The subsystem.                            *
+     * RETURN VALUE: The subsystem's SplittableRandom.             *
+     ***************************************************************/
+    public SplittableRandom stream(Stream kind) {
+        return streams[kind.ordinal()];
+    }
+
+    /***************************************************************
+     * METHOD: getSeed()                                           *
+     * DESCRIPTION:                                                *
+     * Retrieves the seed this session was created from.           *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The session seed.                             *
+     ***************************************************************/
+    public long getSeed() {
+        return seed;
+    }
+
+    /***************************************************************
+     * METHOD: nextFloat(SplittableRandom random)                  *
+     * DESCRIPTION:                                                *
+     * Draws a float in [0, 1) from 24 random bits, like           *
+     * `Random.nextFloat` (SplittableRandom has no such method).   *
+     * PARAMETERS:                                                 *
+     *    - SplittableRandom random: The stream to draw from.      *
+     * RETURN VALUE: A random float between 0 and 1.               *
+     ***************************************************************/
+    public static float nextFloat(SplittableRandom random) {
+        return (random.nextInt() >>> 8) * 0x1.0p-24f;
+    }
+}
@@ -0,0 +1,439 @@
+/*******************************************************************
+ * CLASS: GameRenderer                                            *
+ * DESCRIPTION:                                                   *
+ * Draws one frame of the game from a `GameSnapshot`: the cached  *
+ * brick layer, the paddle, the interpolated balls, the           *
+ * power-ups, the particle effects and the HUD. Both ways of      *
+ * getting a frame on screen share it: Gameplay.paintComponent    *
+ * when Swing repaints the panel, and `ActiveCanvas` when frames  *
+ * are presented through a BufferStrategy. A renderer keeps       *
+ * caches (brick layer, fonts, ball sprites, HUD text) and must   *
+ * only be used by one thread. The code presenting the frames     *
+ * reports the interval between them (recordFrameInterval), from  *
+ * which a QualityGovernor steps the drawing quality              *
+ * (antialiasing, ball gradient, brick bevel, particle share)     *
+ * down when frames come too slowly and back up when they keep    *
+ * up again; the particle effects shed load on their own, from    *
+ * the time spent drawing, within the tier's share. With metrics  *
+ * set, the times are recorded and the F3 debug overlay can be    *
+ * drawn.                                                         *
+ *******************************************************************/
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+public class GameRenderer {
+    private static final int PANEL_WIDTH = GameWorld.WIDTH;   // Frame width
+    private static final int PANEL_HEIGHT = GameWorld.HEIGHT; // Frame height
+
+    private final double stepNanos;         // Simulation step, for interpolation
+    private final Font hudFont;             // Score and lives font
+    private final Font messageFont;         // Game over and win message font
+    private final BrickLayer brickLayer = new BrickLayer(PANEL_WIDTH, PANEL_HEIGHT); // Cached background and bricks
+    private final HudText scoreLabel = new HudText("Score    ", true, false);     // HUD text caches
+    private final HudText livesLabel = new HudText("Lives    ", true, false);
+    private final HudText highScoreLabel = new HudText("High Score    ", true, false);
+    private final HudText levelLabel = new HudText("Level    ", true, false);
+    private final HudText finalScoreLabel = new HudText("Score    ", true, true); // Message texts, as images
+    private final HudText winnerLabel = new HudText("YOU WIN   Score   ", true, true);
+    private final HudText gameOverText = new HudText("Game Over", false, true);
+    private final HudText restartText = new HudText("Press ENTER to restart", false, true);
+    private final HudText clearedLabel = new HudText("LEVEL   ", true, true);
+    private final HudText clearedText = new HudText("CLEARED", false, true);
+    private final HudText continueText = new HudText("Press ENTER to continue", false, true);
+    private final int[] ballSizes = new int[4];                       // Sizes with a ball sprite, 0 when free
+    private final BufferedImage[] ballSprites = new BufferedImage[4]; // Balls drawn once per size
+    private QualityGovernor.Tier ballTier;  // Tier the ball sprites were drawn at
+    private int nextBallSprite = 0;         // Sprite slot replaced when all are taken
+    private final ParticleQueue effects = new ParticleQueue();  // Effect events from the game loop
+    private final ParticleSystem particles = new ParticleSystem( // Debris and popups, shed when frames are slow
+            Long.getLong("brickbreaker.particleBudget", 6000) * 1000);
+    private final QualityGovernor quality = QualityGovernor.fromSystemProperties(); // Tier from frame intervals
+    private Graphics2D textGraphics;        // Graphics textContext was taken from
+    private QualityGovernor.Tier textTier;  // Tier textContext was taken at
+    private FontRenderContext textContext;  // Layout context of the HUD and popup text
+    private GameMetrics metrics;            // Frame timings, or null when not measured
+    private DebugOverlay overlay;           // Timing overlay, or null without metrics
+
+    /***************************************************************
+     * METHOD: GameRenderer(long stepNanos, Font hudFont,          *
+     *                      Font messageFont)                      *
+     * DESCRIPTION:                                                *
+     * Creates a renderer with the fonts from FontLoader's cache.  *
+     * PARAMETERS:                                                 *
+     *    - long stepNanos: Length of one simulation step.         *
+     *    - Font hudFont: Score and lives font.                    *
+     *    - Font messageFont: Game over and win message font.      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public GameRenderer(long stepNanos, Font hudFont, Font messageFont) {
+        this.stepNanos = stepNanos;
+        this.hudFont = hudFont;
+        this.messageFont = messageFont;
+    }
+
+    /***************************************************************
+     * METHOD: setMetrics(GameMetrics metrics)                     *
+     * DESCRIPTION:                                                *
+     * Sets where the time of each frame is recorded, and creates  *
+     * the debug overlay that shows it.                            *
+     * PARAMETERS:                                                 *
+     *    - GameMetrics metrics: The metrics.                      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+        this.overlay = new DebugOverlay(metrics);
+    }
+
+    /***************************************************************
+     * METHOD: toggleDebugOverlay()                                *
+     * DESCRIPTION:                                                *
+     * Shows or hides the debug overlay. Safe to call from any     *
+     * thread; does nothing without metrics.                       *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void toggleDebugOverlay() {
+        DebugOverlay o = overlay;
+        if (o != null) {
+            o.toggle();
+        }
+    }
+
+    /***************************************************************
+     * METHOD: render(Graphics2D g2, GameSnapshot s, long now,     *
+     *                GraphicsConfiguration gc)                    *
+     * DESCRIPTION:                                                *
+     * Draws the game components, including the paddle, bricks,    *
+     * balls, power-ups, score, and game messages (e.g., Game Over *
+     * or You Win).                                                *
+     * PARAMETERS:                                                 *
+     *    - Graphics2D g2: Where to draw; its rendering hints are  *
+     *      changed.                                               *
+     *    - GameSnapshot s: The state to draw.                     *
+     *    - long now: The System.nanoTime() the frame is drawn at. *
+     *    - GraphicsConfiguration gc: Screen configuration for the *
+     *      accelerated brick layer, or null.                      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void render(Graphics2D g2, GameSnapshot s, long now, GraphicsConfiguration gc) {
+        long start = System.nanoTime();
+        // How far we are from the previous step (0) to the latest one (1)
+        double alpha = 1.0 - (s.getStateNanos() - now) / stepNanos;
+        alpha = Math.max(0.0, Math.min(1.0, alpha));
+
+        // Rendering quality of the current tier, set both ways since g2 may be reused
+        QualityGovernor.Tier tier = quality.getTier();
+        if (tier.isAntialiased()) {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        } else {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+            g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        }
+        // The text layout context, fetched again only for new graphics or
+        // hints (each fetch after a hint or transform change is a new object)
+        if (g2 != textGraphics || tier != textTier) {
+            FontRenderContext context = g2.getFontRenderContext();
+            if (!context.equals(textContext)) {
+                textContext = context;
+            }
+            textGraphics = g2;
+            textTier = tier;
+        }
+        brickLayer.setBevel(tier.hasBevel());
+        particles.setMaxBudget(tier.getParticleBudget());
+
+        // Background, border and bricks, redrawn only where bricks broke
+        brickLayer.draw(g2, s, gc);
+
+        // Draw paddle
+        g2.setColor(Color.WHITE);
+        g2.fillRect(s.getPlayerX(), GameWorld.PADDLE_Y, s.getPaddleWidth(), GameWorld.PADDLE_HEIGHT);
+
+        // Draw balls
+        for (int i = 0; i < s.getBallCount(); i++) {
+            drawBall(g2, s.interpolateBallX(i, alpha), s.interpolateBallY(i, alpha), s.getBallSize(i), tier);
+        }
+
+        // Draw power-ups
+        drawPowerUps(g2, s);
+
+        // Debris and popups of the events since the last frame
+        g2.setFont(hudFont);
+        effects.drain(particles);
+        particles.draw(g2, textContext, now);
+
+        g2.setColor(Color.WHITE);
+        scoreLabel.draw(g2, textContext, hudFont, s.getScore(), PANEL_WIDTH - 120, 25);
+        livesLabel.draw(g2, textContext, hudFont, s.getLives(), PANEL_WIDTH - 120, 45);
+        highScoreLabel.draw(g2, textContext, hudFont, s.getHighScore(), PANEL_WIDTH - 150, PANEL_HEIGHT - 100);
+        levelLabel.draw(g2, textContext, hudFont, s.getLevel() + 1, 20, 25);
+
+        // Game Over or Win Conditions
+        if (s.isGameWon()) {
+            drawWinnerMessage(g2, s.getScore());
+        } else if (s.isLevelCleared()) {
+            drawLevelClearedMessage(g2, s.getLevel() + 1);
+        } else if (!s.isPlay() && s.getLives() <= 0) {
+            drawGameOverMessage(g2, s.getScore());
+        }
+
+        if (metrics != null) {
+            overlay.draw(g2, now);
+        }
+        long end = System.nanoTime();
+        particles.recordFrame(end - start, end);
+        if (metrics != null) {
+            metrics.getFrame().record(end - start);
+            metrics.recordParticles(particles.getAlive(), particles.getBudget());
+            metrics.recordQuality(quality);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: recordFrameInterval(long intervalNanos)             *
+     * DESCRIPTION:                                                *
+     * Takes the time from the previous presented frame to this    *
+     * one, for the quality governor. The caller measures it where *
+     * frames reach the screen, so presenting them (show(), the    *
+     * back buffer blit, Swing's own painting) counts as well as   *
+     * render().                                                   *
+     * PARAMETERS:                                                 *
+     *    - long intervalNanos: Time since the previous frame was  *
+     *      presented.                                             *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void recordFrameInterval(long intervalNanos) {
+        quality.record(intervalNanos);
+    }
+
+    /***************************************************************
+     * METHODS: getEffects(), getParticles(), getQuality()         *
+     * DESCRIPTION:                                                *
+     * The queue the game loop reports effect events to, and the   *
+     * particle system and quality governor, which only the        *
+     * rendering thread may use.                                   *
+     ***************************************************************/
+    public ParticleQueue getEffects() { return effects; }
+    public ParticleSystem getParticles() { return particles; }
+    public QualityGovernor getQuality() { return quality; }
+
+    /***************************************************************
+     * METHOD: drawBall(Graphics2D g2, double x, double y,         *
+     *                  int size, QualityGovernor.Tier tier)       *
+     * DESCRIPTION:                                                *
+     * Draws a ball by blitting a sprite of its size. The sprites  *
+     * (a few sizes at a time) are drawn once per tier, with a     *
+     * gradient fill for visual effect or a flat red one at the    *
+     * lower tiers; filling a gradient oval every frame allocates  *
+     * a paint context of a few KB in Java2D, a blit nothing.      *
+     * PARAMETERS:                                                 *
+     *    - Graphics2D g2: The Graphics2D object for rendering.    *
+     *    - double x, y: Top-left corner of the ball.              *
+     *    - int size: Diameter of the ball.                        *
+     *    - QualityGovernor.Tier tier: The quality to draw at.     *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void drawBall(Graphics2D g2, double x, double y, int size, QualityGovernor.Tier tier) {
+        if (tier != ballTier) {
+            Arrays.fill(ballSizes, 0);
+            Arrays.fill(ballSprites, null);
+            ballTier = tier;
+        }
+        int slot = 0;
+        while (slot < ballSizes.length && ballSizes[slot] != size) {
+            slot++;
+        }
+        if (slot == ballSizes.length) {
+            slot = nextBallSprite;
+            nextBallSprite = (nextBallSprite + 1) % ballSizes.length;
+            ballSizes[slot] = size;
+            ballSprites[slot] = ballSprite(size, tier);
+        }
+        g2.drawImage(ballSprites[slot], (int) x, (int) y, null);
+    }
+
+    /***************************************************************
+     * METHOD: ballSprite(int size, QualityGovernor.Tier tier)     *
+     * DESCRIPTION:                                                *
+     * Draws a ball into a new translucent image.                  *
+     * PARAMETERS:                                                 *
+     *    - int size: Diameter of the ball.                        *
+     *    - QualityGovernor.Tier tier: Gradient or flat, smooth or *
+     *      not.                                                   *
+     * RETURN VALUE: The sprite.                                   *
+     ***************************************************************/
+    private static BufferedImage ballSprite(int size, QualityGovernor.Tier tier) {
+        BufferedImage sprite = new BufferedImage(Math.max(1, size), Math.max(1, size), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = sprite.createGraphics();
+        if (tier.isAntialiased()) {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        }
+        if (tier.hasGradientBalls()) {
+            g.setPaint(new GradientPaint(0, 0, Color.RED, size, size, Color.DARK_GRAY, true));
+        } else {
+            g.setColor(Color.RED);
+        }
+        g.fillOval(0, 0, size, size);
+        g.dispose();
+        return sprite;
+    }
+    /***************************************************************
+     * METHOD: drawPowerUps(Graphics2D g2, GameSnapshot s)         *
+     * DESCRIPTION:                                                *
+     * Draws the falling power-ups of a snapshot.                  *
+     * PARAMETERS:                                                 *
+     *    - Graphics2D g2: The Graphics2D object for rendering.    *
+     *    - GameSnapshot s: The state to draw.                     *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void drawPowerUps(Graphics2D g2, GameSnapshot s) {
+        for (int i = 0; i < s.getPowerUpCount(); i++) {
+            g2.setColor(powerUpColor(s.getPowerUpType(i)));
+            g2.fillOval(s.getPowerUpX(i), s.getPowerUpY(i), GameWorld.PowerUp.SIZE, GameWorld.PowerUp.SIZE);
+        }
+    }
+    /*******************************************************************
+     * METHOD: drawGameOverMessage(Graphics2D g2, int score)          *
+     * DESCRIPTION:                                                   *
+     * Displays the "Game Over" message on the screen along with the  *
+     * player's score and instructions to restart the game.           *
+     * PARAMETERS:                                                    *
+     *    - Graphics2D g2: The Graphics2D object used for rendering.  *
+     *    - int score: The final score to show.                       *
+     * RETURN VALUE: None.                                            *
+     *******************************************************************/
+    private void drawGameOverMessage(Graphics2D g2, int score) {
+        g2.setColor(Color.RED);
+        gameOverText.draw(g2, textContext, messageFont, 0, 240, 230);
+        finalScoreLabel.draw(g2, textContext, messageFont, score, 240, 300);
+        restartText.draw(g2, textContext, messageFont, 0, 120, 400);
+    }
+    /*******************************************************************
+     * METHOD: drawWinnerMessage(Graphics2D g2, int score)            *
+     * DESCRIPTION:                                                   *
+     * Displays the "You Win" message on the screen along with the    *
+     * player's score and instructions to restart the game.           *
+     * PARAMETERS:                                                    *
+     *    - Graphics2D g2: The Graphics2D object used for rendering.  *
+     *    - int score: The final score to show.                       *
+     * RETURN VALUE: None.                                            *
+     *******************************************************************/
+    private void drawWinnerMessage(Graphics2D g2, int score) {
+        g2.setColor(Color.GREEN);
+        winnerLabel.draw(g2, textContext, messageFont, score, 150, 300);
+        restartText.draw(g2, textContext, messageFont, 0, 190, 400);
+    }
+    /*******************************************************************
+     * METHOD: drawLevelClearedMessage(Graphics2D g2, int level)      *
+     * DESCRIPTION:                                                   *
+     * Displays the message between two levels, with instructions to  *
+     * start the next one.                                            *
+     * PARAMETERS:                                                    *
+     *    - Graphics2D g2: The Graphics2D object used for rendering.  *
+     *    - int level: The number of the level that was cleared.      *
+     * RETURN VALUE: None.                                            *
+     *******************************************************************/
+    private void drawLevelClearedMessage(Graphics2D g2, int level) {
+        g2.setColor(Color.YELLOW);
+        clearedLabel.draw(g2, textContext, messageFont, level, 240, 230);
+        clearedText.draw(g2, textContext, messageFont, 0, 240, 300);
+        continueText.draw(g2, textContext, messageFont, 0, 110, 400);
+    }
+    /***************************************************************
+     * METHOD: powerUpColor(GameWorld.PowerUp.PowerUpType type)    *
+     * DESCRIPTION:                                                *
+     * Retrieves the color used to draw a power-up type.           *
+     * PARAMETERS:                                                 *
+     *    - PowerUpType type: The power-up type.                   *
+     * RETURN VALUE: The color associated with the type.           *
+     ***************************************************************/
+    static Color powerUpColor(GameWorld.PowerUp.PowerUpType type) {
+        return switch (type) {
+            case BIGGER_BALL -> Color.BLACK;
+            case LONGER_PADDLE -> Color.BLUE;
+            case MANY_BALLS -> Color.ORANGE;
+            case DOUBLE_SPEED -> Color.RED;
+        };
+    }
+
+    /*******************************************************************
+     * CLASS: HudText                                                 *
+     * DESCRIPTION:                                                   *
+     * A HUD text of a fixed prefix and, optionally, a number. The    *
+     * string and its glyph layout are only rebuilt when the number,  *
+     * the font or the renderer's text context changes, so drawing an *
+     * unchanged score every frame neither creates garbage nor lays   *
+     * the text out again.                                            *
+     *                                                                *
+     * The font is passed in rather than set on the Graphics, since   *
+     * each switch of a Graphics' font allocates a new font setup.    *
+     * Texts in another font than the HUD's (the messages) are also   *
+     * drawn once into an image of their color, which is blitted      *
+     * instead, unless the text context is scaled.                    *
+     *******************************************************************/
+    private static final class HudText {
+        private final String prefix;    // Text before the number
+        private final boolean numbered; // Whether a number follows the prefix
+        private int value;              // Number in text
+        private String text;            // prefix + value, null until first use
+        private GlyphVector glyphs;     // Layout of text, null when out of date
+        private Font glyphFont;         // Font glyphs was laid out in
+        private FontRenderContext glyphContext; // Text context glyphs was laid out for
+        private final boolean sprite;   // Whether to draw through image
+        private BufferedImage image;    // glyphs drawn in imageColor, null when out of date
+        private Color imageColor;       // Color image was drawn in
+        private Rectangle imageBounds;  // Pixel bounds of glyphs at the origin
+
+        HudText(String prefix, boolean numbered, boolean sprite) {
+            this.prefix = prefix;
+            this.numbered = numbered;
+            this.sprite = sprite;
+        }
+
+        String text(int value) {
+            if (text == null || (numbered && value != this.value)) {
+                this.value = value;
+                text = numbered ? prefix + value : prefix;
+                glyphs = null;
+            }
+            return text;
+        }
+
+        void draw(Graphics2D g2, FontRenderContext context, Font font, int value, float x, float y) {
+            String s = text(value);
+            if (glyphs == null || font != glyphFont || context != glyphContext) {
+                glyphs = font.createGlyphVector(context, s);
+                glyphFont = font;
+                glyphContext = context;
+                image = null;
+            }
+            if (!sprite || context.isTransformed()) {
+                g2.drawGlyphVector(glyphs, x, y);
+                return;
+            }
+            Color color = g2.getColor();
+            if (image == null || !color.equals(imageColor)) {
+                imageBounds = glyphs.getPixelBounds(context, 0, 0);
+                image = new BufferedImage(Math.max(1, imageBounds.width), Math.max(1, imageBounds.height),
+                        BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g = image.createGraphics();
+                g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, context.getAntiAliasingHint());
+                g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, context.getFractionalMetricsHint());
+                g.setColor(color);
+                g.drawGlyphVector(glyphs, -imageBounds.x, -imageBounds.y);
+                g.dispose();
+                imageColor = color;
+            }
+            g2.drawImage(image, Math.round(x) + imageBounds.x, Math.round(y) + imageBounds.y, null);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*******************************************************************
+ * CLASS: GameSnapshot                                            *
+ * DESCRIPTION:                                                   *
+ * A copy of everything the renderer needs from one simulation    *
+ * step. The game loop fills a snapshot after each batch of steps *
+ * and hands it to the event thread through a `SnapshotBuffer`,   *
+ * so painting never reads state that the simulation thread is    *
+ * changing. Ball positions are stored for both the previous and  *
+ * the current step so that paintComponent can interpolate        *
+ * between them.                                                  *
+ *                                                                *
+ * Snapshots are recycled: their arrays only grow, so once they   *
+ * have reached the largest ball, brick and power-up counts of a  *
+ * session, capturing a step allocates nothing. A snapshot must   *
+ * only be read by the thread that currently owns it. Bricks are  *
+ * captured as a copy of the alive bits; their positions and      *
+ * colors are read from the BrickField columns, which do not      *
+ * change once a layout is sealed.                                *
+ *******************************************************************/
+import java.util.Arrays;
+
+public final class GameSnapshot {
+    private long stateNanos;        // When this state is due on screen
+    private long capturedNanos;     // When this state was captured, for frame latency
+    private int ballCount;          // Number of balls
+    private double[] ballX = new double[4];      // Ball X at this step
+    private double[] ballY = new double[4];      // Ball Y at this step
+    private double[] prevBallX = new double[4];  // Ball X one step earlier
+    private double[] prevBallY = new double[4];  // Ball Y one step earlier
+    private int[] ballSize = new int[4];         // Ball diameters
+    private BrickField bricks;      // Layout of this step (columns only)
+    private long[] brickAlive = new long[2]; // Alive bits of the layout at this step
+    private int brickCount;         // Number of live bricks
+    private int powerUpCount;       // Number of falling power-ups
+    private int[] powerUpX = new int[4];         // Power-up X positions
+    private int[] powerUpY = new int[4];         // Power-up Y positions
+    private GameWorld.PowerUp.PowerUpType[] powerUpType = new GameWorld.PowerUp.PowerUpType[4]; // Power-up types
+    private int playerX;            // Paddle X position
+    private int paddleWidth;        // Paddle width
+    private int score;              // Player score
+    private int lives;              // Player lives
+    private int highScore;          // Best score so far
+    private boolean play;           // Game in progress
+    private boolean gameWon;        // All bricks of the last level cleared
+    private int level;              // Current level, counting from 0
+    private boolean levelCleared;   // Waiting to start the next level
+
+    /***************************************************************
+     * METHOD: capture(GameWorld world, long stateNanos,           *
+     *                 int highScore)                              *
+     * DESCRIPTION:                                                *
+     * Overwrites this snapshot with the renderable state of a     *
+     * world. Must be called on the thread that steps the world,   *
+     * while no other thread reads this snapshot.                  *
+     * PARAMETERS:                                                 *
+     *    - GameWorld world: The world to copy.                    *
+     *    - long stateNanos: When this state is due on screen.     *
+     *    - int highScore: Best score of the session.              *
+     * RETURN VALUE: This snapshot.                                *
+     ***************************************************************/
+    public GameSnapshot capture(GameWorld world, long stateNanos, int highScore) {
+        this.stateNanos = stateNanos;
+        this.capturedNanos = System.nanoTime();
+
+        Archetype balls = world.getBalls();
+        ballCount = balls.size();
+        if (ballCount > ballSize.length) {
+            int capacity = Math.max(ballCount, ballSize.length * 2);
+            ballX = Arrays.copyOf(ballX, capacity);
+            ballY = Arrays.copyOf(ballY, capacity);
+            prevBallX = Arrays.copyOf(prevBallX, capacity);
+            prevBallY = Arrays.copyOf(prevBallY, capacity);
+            ballSize = Arrays.copyOf(ballSize, capacity);
+        }
+        System.arraycopy(balls.x, 0, ballX, 0, ballCount);
+        System.arraycopy(balls.y, 0, ballY, 0, ballCount);
+        System.arraycopy(balls.prevX, 0, prevBallX, 0, ballCount);
+        System.arraycopy(balls.prevY, 0, prevBallY, 0, ballCount);
+        System.arraycopy(balls.size, 0, ballSize, 0, ballCount);
+
+        bricks = world.getBricks();
+        brickAlive = bricks.copyAlive(brickAlive);
+        brickCount = bricks.size();
+
+        Archetype powerUps = world.getPowerUps();
+        powerUpCount = powerUps.size();
+        if (powerUpCount > powerUpX.length) {
+            int capacity = Math.max(powerUpCount, powerUpX.length * 2);
+            powerUpX = Arrays.copyOf(powerUpX, capacity);
+            powerUpY = Arrays.copyOf(powerUpY, capacity);
+            powerUpType = Arrays.copyOf(powerUpType, capacity);
+        }
+        for (int i = 0; i < powerUpCount; i++) {
+            powerUpX[i] = (int) powerUps.getX(i);
+            powerUpY[i] = (int) powerUps.getY(i);
+            powerUpType[i] = GameWorld.PowerUp.PowerUpType.VALUES[powerUps.getTag(i)];
+        }
+
+        playerX = world.getPlayerX();
+        paddleWidth = world.getPaddleWidth();
+        score = world.getScore();
+        lives = world.getLives();
+        this.highScore = highScore;
+        play = world.isPlay();
+        gameWon = world.isGameWon();
+        level = world.getLevel();
+        levelCleared = world.isLevelCleared();
+        return this;
+    }
+
+    /***************************************************************
+     * METHOD: interpolateBallX(int i, double alpha)               *
+     *         interpolateBallY(int i, double alpha)               *
+     * DESCRIPTION:                                                *
+     * Blends a ball position between the previous and current    *
+     * step.                                                       *
+     * PARAMETERS:                                                 *
+     *    - int i: Ball index, 0 to getBallCount() - 1.            *
+     *    - double alpha: 0 for the previous step, 1 for current.  *
+     * RETURN VALUE: The interpolated coordinate.                  *
+     ***************************************************************/
+    public double interpolateBallX(int i, double alpha) {
+        return prevBallX[i] + (ballX[i] - prevBallX[i]) * alpha;
+    }
+
+    public double interpolateBallY(int i, double alpha) {
+        return prevBallY[i] + (ballY[i] - prevBallY[i]) * alpha;
+    }
+
+    /***************************************************************
+     * METHOD: nextBrick(int from)                                 *
+     * DESCRIPTION:                                                *
+     * Finds the next brick that was alive at this step, for loops *
+     * of the form                                                 *
+     *    for (int id = s.nextBrick(0); id >= 0;                   *
+     *         id = s.nextBrick(id + 1))                           *
+     * PARAMETERS:                                                 *
+     *    - int from: The first brick id to consider.              *
+     * RETURN VALUE: The smallest live id >= from, or -1.          *
+     ***************************************************************/
+    public int nextBrick(int from) {
+        return BrickField.nextSetBit(brickAlive, bricks.getCount(), from);
+    }
+
+    /***************************************************************
+     * METHODS: getBrickLayout(), getBrickWords(), getBrickWord()  *
+     * DESCRIPTION:                                                *
+     * The layout itself and the alive bits of this step, for      *
+     * renderers that cache drawn bricks. Only the identity and    *
+     * the fixed columns (position, color) of the layout may be    *
+     * used here; its own alive bits belong to the game loop.      *
+     * PARAMETERS:                                                 *
+     *    - int w: Word index, 0 to getBrickWords() - 1.           *
+     * RETURN VALUE: The layout, its number of alive words, or     *
+     *    bit i set if brick w * 64 + i was alive at this step.    *
+     ***************************************************************/
+    public BrickField getBrickLayout() { return bricks; }
+    public int getBrickWords() { return bricks.aliveWords(); }
+    public long getBrickWord(int w) { return brickAlive[w]; }
+
+    /***************************************************************
+     * METHODS: getStateNanos(), getCapturedNanos(),              *
+     *          getBallCount(), getBallSize(),                     *
+     *          getBrickCount(), getBrick...(), getPowerUp...(),   *
+     *          getPlayerX(), getPaddleWidth(), getScore(),        *
+     *          getLives(), getHighScore(), isPlay(), isGameWon(), *
+     *          getLevel(), isLevelCleared()                       *
+     * DESCRIPTION:                                                *
+     * Read-only access to the captured state.                     *
+     ***************************************************************/
+    public long getStateNanos() { return stateNanos; }
+    public long getCapturedNanos() { return capturedNanos; }
+    public int getBallCount() { return ballCount; }
+    public int getBallSize(int i) { return ballSize[i]; }
+    public int getBrickCount() { return brickCount; }
+    public int getBrickX(int id) { return bricks.getX(id); }
+    public int getBrickY(int id) { return bricks.getY(id); }
+    public int getBrickArgb(int id) { return bricks.getArgb(id); }
+    public int getPowerUpCount() { return powerUpCount; }
+    public int getPowerUpX(int i) { return powerUpX[i]; }
+    public int getPowerUpY(int i) { return powerUpY[i]; }
+    public GameWorld.PowerUp.PowerUpType getPowerUpType(int i) { return powerUpType[i]; }
+    public int getPlayerX() { return playerX; }
+    public int getPaddleWidth() { return paddleWidth; }
+    public int getScore() { return score; }
+    public int getLives() { return lives; }
+    public int getHighScore() { return highScore; }
+    public boolean isPlay() { return play; }
+    public boolean isGameWon() { return gameWon; }
+    public int getLevel() { return level; }
+    public boolean isLevelCleared() { return levelCleared; }
+}
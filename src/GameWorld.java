@@ -0,0 +1,761 @@
+/*******************************************************************
+ * CLASS: GameWorld                                               *
+ * DESCRIPTION:                                                   *
+ * The complete rules and state of a Brick Breaker game, with no  *
+ * AWT or Swing dependencies. The world is advanced with          *
+ * step(dt, input) and reports sounds and game events through a   *
+ * Listener, so it can be driven by the Swing game (`Gameplay`)   *
+ * or run headless, e.g. for batch simulations on a CI box with   *
+ * no display.                                                    *
+ *******************************************************************/
+import java.util.*;
+
+public class GameWorld {
+    /***************************************************************
+     * INTERFACE: Listener                                         *
+     * DESCRIPTION:                                                *
+     * Receives game events as they happen inside step(). All      *
+     * methods default to doing nothing.                           *
+     ***************************************************************/
+    public interface Listener {
+        default void wallHit() { }                                   // Ball bounced off a wall
+        default void paddleHit() { }                                 // Ball bounced off the paddle
+        default void brickHit(int id, boolean special) { }           // Ball destroyed a BrickField id
+        default void powerUpCollected(PowerUp.PowerUpType type) { }  // Paddle caught a power-up
+        default void gameOver(int score) { }                         // Last ball was lost
+        default void levelCleared(int level, int score) { }          // Last brick of a level, not the last level
+        default void gameWon(int score) { }                          // Last brick of the last level was destroyed
+    }
+
+    public static final int WIDTH = 700;                // Playfield width
+    public static final int HEIGHT = 600;               // Playfield height
+    public static final int PADDLE_Y = HEIGHT - 50;     // Paddle top edge
+    public static final int PADDLE_HEIGHT = 10;         // Paddle thickness
+    public static final int X_SPACING = 10;             // Horizontal spacing between bricks
+    public static final int Y_SPACING = X_SPACING;      // Vertical spacing between bricks
+    public static final int LAYOUT_X = 20;              // Left edge of every brick row
+    public static final int LAYOUT_Y = 50;              // Top edge of the first brick row
+    public static final int MAX_ROW_BRICKS =            // Bricks that fit in a row
+            (WIDTH - 2 * LAYOUT_X + X_SPACING) / (BrickField.WIDTH + X_SPACING);
+    public static final int MAX_ROWS = 10;              // Rows a level may have, keeping bricks well above the paddle
+    private static final float MIN_SAT = 0.8f;          // Green channel of brick colors
+    private static final int SPECIAL_COLOR = 0xFFFF0000; // Color for special bricks (red)
+    public static final int BALL_SIZE = 14;             // Diameter of a new ball
+    public static final int BRICK_POINTS = 5;           // Score for destroying a brick
+    private static final Listener NO_LISTENER = new Listener() { };
+    private static final int MAX_BOUNCES = 4;           // Contacts resolved per ball per step
+    private static final double NO_LIMIT_LOW = Double.NEGATIVE_INFINITY;  // Open side of a wall box
+    private static final double NO_LIMIT_HIGH = Double.POSITIVE_INFINITY; // Open side of a wall box
+
+    private Listener listener = NO_LISTENER;    // Receiver of game events
+    private GameMetrics metrics;                // Step timings, or null when not measured
+    private long brickNanos;                    // Time in brick queries this step, when measured
+    private final Sweep sweep = new Sweep();    // Reused continuous collision test
+    private final GameRandom random;            // All randomness of this game
+    private final Levels levels;                // Levels played in order
+    private int level = 0;                      // Index of the current level
+    private BrickField bricks;                  // Bricks in the game
+    private boolean play = false;               // Game state (playing or paused)
+    private int score = 0;                      // Player score
+    private int paddleWidth = 100;              // Paddle width in pixels
+    private int lives = 1;                      // Player lives
+    private final Archetype balls =             // Balls in play
+            new Archetype("balls", Archetype.VELOCITY | Archetype.TRAIL | Archetype.SIZE, 16);
+    private int playerX = 310;                  // Paddle's X position
+
+    private double ballSpeedX = -400;           // Ball horizontal speed (px/s)
+    private double ballSpeedY = -500;           // Ball vertical speed (px/s)
+
+    private final Archetype powerUps =          // Falling power-ups; the tag is the PowerUpType ordinal
+            new Archetype("powerUps", Archetype.VELOCITY | Archetype.SIZE | Archetype.TAG, 16);
+    private boolean levelCleared = false;       // Level done, waiting for ENTER to start the next
+    private boolean gameWon = false;            // Game won flag
+
+    /***************************************************************
+     * METHOD: GameWorld()                                         *
+     * DESCRIPTION:                                                *
+     * Creates a world with an unpredictable random seed.          *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public GameWorld() {
+        this(new GameRandom(new SplittableRandom().nextLong()));
+    }
+
+    /***************************************************************
+     * METHOD: GameWorld(long seed)                                *
+     * DESCRIPTION:                                                *
+     * Creates a world whose layouts and power-up drops are fully  *
+     * determined by the seed, so a game can be replayed exactly.  *
+     * PARAMETERS:                                                 *
+     *    - long seed: The seed of the game's random stream.       *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public GameWorld(long seed) {
+        this(new GameRandom(seed));
+    }
+
+    /***************************************************************
+     * METHOD: GameWorld(GameRandom random)                        *
+     * DESCRIPTION:                                                *
+     * Creates a world that plays the original single level        *
+     * (Level.CLASSIC), as the game did before it had level files. *
+     * PARAMETERS:                                                 *
+     *    - GameRandom random: The session's random source; its    *
+     *      game streams must only be used by the world's thread.  *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public GameWorld(GameRandom random) {
+        this(random, Levels.classic());
+    }
+
+    /***************************************************************
+     * METHOD: GameWorld(GameRandom random, Levels levels)         *
+     * DESCRIPTION:                                                *
+     * Creates a world with the brick layout of the first level    *
+     * and one ball in the center. The game starts paused until    *
+     * ENTER is given. The world draws from the LAYOUT, POWER_UPS  *
+     * and BALLS streams of the given source.                      *
+     * PARAMETERS:                                                 *
+     *    - GameRandom random: The session's random source; its    *
+     *      game streams must only be used by the world's thread.  *
+     *    - Levels levels: The levels to play, in order.           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public GameWorld(GameRandom random, Levels levels) {
+        this.random = random;
+        this.levels = levels;
+        bricks = createLayout(levels.get(0), random.stream(GameRandom.Stream.LAYOUT));
+        levels.prefetch(1);
+
+        // Ball starts near the center
+        double ballStartX = WIDTH / 2.0;
+        double ballStartY = HEIGHT / 2.0;
+        spawnBall(ballStartX, ballStartY, ballSpeedX, ballSpeedY);
+    }
+
+    /***************************************************************
+     * METHOD: setListener(Listener listener)                      *
+     * DESCRIPTION:                                                *
+     * Sets the receiver of game events.                           *
+     * PARAMETERS:                                                 *
+     *    - Listener listener: The receiver, or null for none.     *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void setListener(Listener listener) {
+        this.listener = (listener != null) ? listener : NO_LISTENER;
+    }
+
+    /***************************************************************
+     * METHOD: setMetrics(GameMetrics metrics)                     *
+     * DESCRIPTION:                                                *
+     * Sets where the timing of each played step and its phases is *
+     * recorded. Unmeasured worlds (the default, e.g. for batch    *
+     * simulations) do not read the clock.                         *
+     * PARAMETERS:                                                 *
+     *    - GameMetrics metrics: The metrics, or null for none.    *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /***************************************************************
+     * METHOD: step(double delta, int input)                       *
+     * DESCRIPTION:                                                *
+     * Advances the game by one step: applies paddle input, moves  *
+     * the balls with swept wall, paddle and brick collisions (see *
+     * moveBall), runs the ball table through the EntitySystems,   *
+     * updates power-ups, and checks for a cleared level, a win or *
+     * a loss. ENTER starts the next level after a cleared one,    *
+     * and otherwise restarts a finished game. With metrics set,   *
+     * played steps are timed phase by phase.                      *
+     * PARAMETERS:                                                 *
+     *    - double delta: The step length in seconds.              *
+     *    - int input: GameInput bits to apply this step.          *
+     * RETURN VALUE: True if the world changed (the game is in    *
+     * play, the paddle moved or ENTER was handled), false if the  *
+     * step left it as it was.                                     *
+     ***************************************************************/
+    public boolean step(double delta, int input) {
+        long start = clock();
+        int oldPlayerX = playerX;
+        boolean entered = false;
+        if ((input & GameInput.LEFT) != 0) {
+            moveLeft();
+        }
+        if ((input & GameInput.RIGHT) != 0) {
+            moveRight();
+        }
+        if ((input & GameInput.ENTER) != 0 && !play) {
+            if (levelCleared) {
+                startLevel(level + 1);
+            } else {
+                restartGame();
+            }
+            entered = true;
+        }
+        if (!play) {
+            return entered || playerX != oldPlayerX;
+        }
+
+        // Balls: swept moves one by one (each may break bricks the next
+        // one would have hit), then the table-wide systems
+        brickNanos = 0;
+        EntitySystems.beginStep(balls);
+        for (int row = 0; row < balls.size(); row++) {
+            moveBall(row, delta);
+        }
+        // A ball that grew past a wall is put back inside and turned
+        if (EntitySystems.bounceOffWalls(balls, 0, 0, WIDTH) > 0) {
+            listener.wallHit();
+        }
+
+        // Overlaps the sweep cannot see because they exist before the
+        // ball moves: the paddle stepping into the ball, or a ball that
+        // grew into a brick. These get the original discrete response.
+        for (int row = EntitySystems.nextOverlap(balls, 0, playerX, PADDLE_Y, paddleWidth, PADDLE_HEIGHT);
+                row >= 0; row = EntitySystems.nextOverlap(balls, row + 1, playerX, PADDLE_Y, paddleWidth, PADDLE_HEIGHT)) {
+            bounceOffPaddle(row);
+        }
+        for (int row = 0; row < balls.size(); row++) {
+            int size = balls.getSize(row);
+            long query = clock();
+            int brick = bricks.findCollision((int) balls.getX(row), (int) balls.getY(row), size, size);
+            brickNanos += clock() - query;
+            if (brick >= 0) {
+                // Invert vertical direction on brick hit
+                balls.setYVel(row, -balls.getYVel(row));
+                destroyBrick(brick);
+            }
+        }
+
+        // Bottom boundary (balls lost)
+        boolean lost = false;
+        for (int row = EntitySystems.nextPastBottom(balls, 0, HEIGHT); row >= 0;
+                row = EntitySystems.nextPastBottom(balls, row, HEIGHT)) {
+            balls.despawn(row);
+            lost = true;
+        }
+        if (lost && balls.isEmpty()) {
+            if (lives > 1) {
+                lives--;
+                spawnNewBall();
+            } else {
+                lives = 0;
+                play = false;
+                listener.gameOver(score);
+            }
+        }
+
+        long moved = clock();
+        checkWinCondition();
+        long checked = clock();
+        // Update power-ups
+        updatePowerUps(delta);
+
+        if (metrics != null) {
+            long end = System.nanoTime();
+            metrics.recordStep(moved - start - brickNanos, brickNanos, checked - moved, end - checked,
+                    end - start, balls.size());
+            metrics.recordEntities(balls, powerUps);
+        }
+        return true;
+    }
+
+    /***************************************************************
+     * METHOD: clock()                                             *
+     * DESCRIPTION:                                                *
+     * Reads the clock for step timings, only if they are wanted.  *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: System.nanoTime(), or 0 without metrics.      *
+     ***************************************************************/
+    private long clock() {
+        return (metrics != null) ? System.nanoTime() : 0;
+    }
+
+    /***************************************************************
+     * METHOD: moveBall(int row, double delta)                     *
+     * DESCRIPTION:                                                *
+     * Moves a ball through one step with continuous collision:   *
+     * the earliest wall, paddle or brick on its path is found     *
+     * with a Sweep, the ball is moved to the time of impact and   *
+     * bounced off the face it hit, and the rest of the step is   *
+     * swept again from there. A fast ball therefore cannot pass  *
+     * through a brick or the paddle between two steps, whatever  *
+     * the step length. At most MAX_BOUNCES contacts are resolved *
+     * per step; any motion left after that is dropped.            *
+     * PARAMETERS:                                                 *
+     *    - int row: The ball's row in the ball table.             *
+     *    - double delta: The step length in seconds.              *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void moveBall(int row, double delta) {
+        double remaining = 1.0; // Fraction of the step still to move
+        for (int bounce = 0; bounce < MAX_BOUNCES && remaining > 0; bounce++) {
+            double px = balls.getX(row);
+            double py = balls.getY(row);
+            double dx = balls.getXVel(row) * delta * remaining;
+            double dy = balls.getYVel(row) * delta * remaining;
+            int size = balls.getSize(row);
+
+            // Walls are boxes reaching to infinity beyond the playfield
+            sweep.reset();
+            boolean wall = sweep.box(px, py, dx, dy, NO_LIMIT_LOW, NO_LIMIT_LOW, 0, NO_LIMIT_HIGH)
+                    | sweep.box(px, py, dx, dy, WIDTH - size, NO_LIMIT_LOW, NO_LIMIT_HIGH, NO_LIMIT_HIGH)
+                    | sweep.box(px, py, dx, dy, NO_LIMIT_LOW, NO_LIMIT_LOW, NO_LIMIT_HIGH, 0);
+            boolean paddle = sweep.box(px, py, dx, dy, playerX - size, PADDLE_Y - size,
+                    playerX + paddleWidth, PADDLE_Y + PADDLE_HEIGHT);
+            long query = clock();
+            int brick = bricks.sweep(px, py, size, dx, dy, sweep);
+            brickNanos += clock() - query;
+
+            if (!sweep.isHit()) {
+                balls.setX(row, px + dx);
+                balls.setY(row, py + dy);
+                break;
+            }
+            double t = sweep.getTime();
+            balls.setX(row, px + dx * t);
+            balls.setY(row, py + dy * t);
+            remaining *= 1.0 - t;
+
+            if (brick >= 0) {
+                bounce(row, sweep);
+                destroyBrick(brick);
+            } else if (paddle) {
+                bounceOffPaddle(row);
+            } else if (wall) {
+                bounce(row, sweep);
+                listener.wallHit();
+            }
+        }
+    }
+
+    /***************************************************************
+     * METHOD: bounce(int row, Sweep hit)                          *
+     * DESCRIPTION:                                                *
+     * Reflects a ball off the face given by the hit normal.       *
+     * PARAMETERS:                                                 *
+     *    - int row: The row of the ball that hit something.       *
+     *    - Sweep hit: The hit, with its normal.                   *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void bounce(int row, Sweep hit) {
+        if (hit.getNormalX() != 0) {
+            balls.setXVel(row, -balls.getXVel(row));
+        }
+        if (hit.getNormalY() != 0) {
+            balls.setYVel(row, -balls.getYVel(row));
+        }
+    }
+
+    /***************************************************************
+     * METHOD: bounceOffPaddle(int row)                            *
+     * DESCRIPTION:                                                *
+     * Sends a ball back up from the paddle, at an angle that      *
+     * depends on how far from the paddle center it landed.        *
+     * PARAMETERS:                                                 *
+     *    - int row: The row of the ball touching the paddle.      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void bounceOffPaddle(int row) {
+        // Variable bounce angle
+        int size = balls.getSize(row);
+        int paddleCenter = playerX + paddleWidth / 2;
+        int ballCenter = (int) (balls.getX(row) + size / 2);
+        int hitPos = ballCenter - paddleCenter;
+
+        // Adjust x velocity based on hit position
+        // More offset -> more horizontal velocity
+        double newXVel = hitPos * 4; // tune factor as desired
+        double newYVel = -Math.abs(balls.getYVel(row));
+
+        balls.setXVel(row, newXVel);
+        balls.setYVel(row, newYVel);
+
+        // Ensure the ball is placed right above the paddle
+        balls.setY(row, PADDLE_Y - size);
+        listener.paddleHit();
+    }
+
+    /***************************************************************
+     * METHOD: destroyBrick(int brick)                             *
+     * DESCRIPTION:                                                *
+     * Removes a brick that was hit, scores it, and drops a        *
+     * power-up if it was special.                                 *
+     * PARAMETERS:                                                 *
+     *    - int brick: The BrickField id of the brick.             *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void destroyBrick(int brick) {
+        bricks.remove(brick);
+        score += BRICK_POINTS;
+        if (metrics != null) {
+            metrics.countBrickHit();
+        }
+        boolean special = bricks.isSpecial(brick);
+        listener.brickHit(brick, special);
+
+        // Special bricks drop a power-up
+        if (special) {
+            dropPowerUp(bricks.getX(brick), bricks.getY(brick));
+        }
+    }
+
+    /*******************************************************************
+     * METHOD: checkWinCondition()                                    *
+     * DESCRIPTION:                                                   *
+     * Checks if all bricks have been cleared from the level. If no   *
+     * bricks remain, the game stops: between levels until ENTER      *
+     * starts the next one, or in a win state after the last level.   *
+     * PARAMETERS: None.                                              *
+     * RETURN VALUE: None.                                            *
+     *******************************************************************/
+    private void checkWinCondition() {
+        if (bricks.isEmpty()) {
+            play = false;    // Stop the game
+            if (level + 1 < levels.count()) {
+                levelCleared = true;
+                listener.levelCleared(level + 1, score);
+            } else {
+                gameWon = true;  // Set the gameWon flag
+                listener.gameWon(score);
+            }
+        }
+    }
+
+    /***************************************************************
+     * METHOD: spawnNewBall()                                      *
+     * DESCRIPTION:                                                *
+     * Adds a new ball to the game with the default speed and size *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void spawnNewBall() {
+        // Spawn ball from paddle center
+        double startX = playerX + paddleWidth / 2.0;
+        double startY = HEIGHT - 60;
+        // Initial speed as before
+        spawnBall(startX, startY, -400, -500);
+    }
+
+    /***************************************************************
+     * METHOD: moveLeft()                                          *
+     * DESCRIPTION:                                                *
+     * Moves the paddle to the left, if within bounds.             *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void moveLeft() {
+        if (playerX > 10) {
+            playerX -= 20;
+        }
+    }
+
+    /***************************************************************
+     * METHOD: moveRight()                                         *
+     * DESCRIPTION:                                                *
+     * Moves the paddle to the right, if within bounds.            *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void moveRight() {
+        if (playerX < WIDTH - paddleWidth - 10) {
+            playerX += 20;
+        }
+    }
+
+    /***************************************************************
+     * METHOD: restartGame()                                       *
+     * DESCRIPTION:                                                *
+     * Resets the game state, including score, lives, paddle size, *
+     * and bricks, and spawns a new ball to start the game from    *
+     * the first level.                                            *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void restartGame() {
+        score = 0;
+        lives = 1;
+        startLevel(0);
+    }
+
+    /***************************************************************
+     * METHOD: startLevel(int index)                               *
+     * DESCRIPTION:                                                *
+     * Builds the bricks of a level, resets the paddle, balls and  *
+     * power-ups, and starts playing. Score and lives carry over.  *
+     * The level after it starts loading in the background, so it  *
+     * is ready when this one is cleared.                          *
+     * PARAMETERS:                                                 *
+     *    - int index: The level, counting from 0.                 *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void startLevel(int index) {
+        level = index;
+        paddleWidth = 100;
+        playerX = (WIDTH - paddleWidth) / 2;
+        bricks = createLayout(levels.get(level), random.stream(GameRandom.Stream.LAYOUT));
+        levels.prefetch(level + 1);
+        balls.clear();
+        powerUps.clear();
+        spawnNewBall();
+        levelCleared = false;
+        gameWon = false;
+        play = true;
+    }
+
+    /***************************************************************
+     * METHOD: createLayout(Level level, SplittableRandom random)  *
+     * DESCRIPTION:                                                *
+     * Creates and positions the bricks of a level in rows with    *
+     * spacing. Each brick gets its row's color, or a random color *
+     * in rows without one, and one special brick is placed        *
+     * randomly in each row marked special. Package-private for    *
+     * the JMH benchmarks (jmh/).                                  *
+     * PARAMETERS:                                                 *
+     *    - Level level: The rows to build.                        *
+     *    - SplittableRandom random: Source of the random colors   *
+     *      and special brick positions.                           *
+     * RETURN VALUE: The sealed BrickField of the layout.          *
+     ***************************************************************/
+    static BrickField createLayout(Level level, SplittableRandom random) {
+        int[] rowCounts = level.getRowCounts();
+        int[] colors = level.getColors();
+        boolean[] specialRows = level.getSpecialBricks();
+        BrickField field = new BrickField(level.getBrickCount());
+        boolean specialBrickPlaced = false;
+
+        for (int row = 0; row < rowCounts.length; row++) {
+            int bricksInRow = rowCounts[row];
+            for (int col = 0; col < bricksInRow; col++) {
+                int x = LAYOUT_X + col * (BrickField.WIDTH + X_SPACING);
+                int y = LAYOUT_Y + row * (BrickField.HEIGHT + Y_SPACING);
+                boolean isSpecial = false;
+                int argb;
+                if (specialRows[row] && !specialBrickPlaced && random.nextInt(bricksInRow) == col) {
+                    // Assign a special brick
+                    argb = SPECIAL_COLOR;
+                    isSpecial = true;
+                    specialBrickPlaced = true;
+                } else if (colors[row] != Level.RANDOM_COLOR) {
+                    // Use the row's color
+                    argb = colors[row];
+                } else {
+                    // Assign a random color
+                    argb = rgb(GameRandom.nextFloat(random), MIN_SAT, GameRandom.nextFloat(random));
+                }
+                // Add the brick to the field
+                field.add(x, y, argb, isSpecial);
+            }
+            specialBrickPlaced = false;
+        }
+        // Grid cells are one brick plus its spacing
+        field.seal(BrickField.WIDTH + X_SPACING, BrickField.HEIGHT + Y_SPACING);
+        return field;
+    }
+
+    /***************************************************************
+     * METHOD: rgb(float r, float g, float b)                      *
+     * DESCRIPTION:                                                *
+     * Packs float color components into an opaque ARGB int, the  *
+     * same way `new java.awt.Color(r, g, b)` does.                *
+     * PARAMETERS:                                                 *
+     *    - float r, g, b: Components between 0 and 1.             *
+     * RETURN VALUE: The packed color.                             *
+     ***************************************************************/
+    private static int rgb(float r, float g, float b) {
+        return 0xFF000000
+                | ((int) (r * 255 + 0.5) << 16)
+                | ((int) (g * 255 + 0.5) << 8)
+                | (int) (b * 255 + 0.5);
+    }
+
+    /*******************************************************************
+     * METHOD: dropPowerUp(int x, int y)                              *
+     * DESCRIPTION:                                                   *
+     * Spawns a power-up at the specified location on the screen.     *
+     * The type of power-up is selected randomly from the available   *
+     * options in the `PowerUp.PowerUpType` enum.                     *
+     * PARAMETERS:                                                    *
+     *    - int x: The X-coordinate of the spawn location.            *
+     *    - int y: The Y-coordinate of the spawn location.            *
+     * RETURN VALUE: None.                                            *
+     *******************************************************************/
+    private void dropPowerUp(int x, int y) {
+        PowerUp.PowerUpType[] powerUpTypes = PowerUp.PowerUpType.VALUES;
+        SplittableRandom rand = random.stream(GameRandom.Stream.POWER_UPS);
+        PowerUp.PowerUpType randomType = powerUpTypes[rand.nextInt(powerUpTypes.length)];
+        spawnPowerUp(x + BrickField.WIDTH / 2 - 10, y + BrickField.HEIGHT, randomType);
+    }
+
+    /*******************************************************************
+     * METHOD: applyPowerUpEffect(PowerUp.PowerUpType type)           *
+     * DESCRIPTION:                                                   *
+     * Applies the effect of a specific power-up type to the game.    *
+     * Depending on the power-up type, the method modifies ball size, *
+     * paddle size, ball speed, or spawns additional balls.           *
+     * PARAMETERS:                                                    *
+     *    - PowerUp.PowerUpType type: The type of power-up effect to  *
+     *      apply.                                                    *
+     * RETURN VALUE: None.                                            *
+     *******************************************************************/
+    private void applyPowerUpEffect(PowerUp.PowerUpType type) {
+        switch (type) {
+            case BIGGER_BALL -> {
+                for (int row = 0; row < balls.size(); row++) {
+                    balls.setSize(row, balls.getSize(row) * 3);
+                }
+            }
+            case LONGER_PADDLE -> paddleWidth += 30;
+            case MANY_BALLS -> spawnExtraBalls(3);
+            case DOUBLE_SPEED -> {
+                for (int row = 0; row < balls.size(); row++) {
+                    balls.setXVel(row, balls.getXVel(row) * 2);
+                    balls.setYVel(row, balls.getYVel(row) * 2);
+                }
+            }
+        }
+    }
+
+    /*******************************************************************
+     * METHOD: spawnExtraBalls(int count)                             *
+     * DESCRIPTION:                                                   *
+     * Spawns a specified number of additional balls in the game,     *
+     * originating from the paddle's center. Each ball is given a     *
+     * random horizontal direction and a predefined vertical speed.   *
+     * PARAMETERS:                                                    *
+     *    - int count: The number of balls to spawn.                  *
+     * RETURN VALUE: None.                                            *
+     *******************************************************************/
+    private void spawnExtraBalls(int count) {
+        SplittableRandom rand = random.stream(GameRandom.Stream.BALLS);
+        for (int i = 0; i < count; i++) {
+            // Calculate the starting position for the new ball
+            double startX = playerX + paddleWidth / 2.0; // Center of the paddle
+            double startY = HEIGHT - 60;                // Slightly above the paddle
+            // Determine a random horizontal velocity direction
+            double xVel = rand.nextBoolean() ? -200 : 200;
+
+            // Set a constant vertical velocity
+            double yVel = -300;
+
+            // Add the ball to the ball table
+            spawnBall(startX, startY, xVel, yVel);
+        }
+    }
+
+    /*******************************************************************
+     * METHOD: updatePowerUps(double delta)                           *
+     * DESCRIPTION:                                                   *
+     * Updates the state of all active power-ups: they fall, those    *
+     * touching the paddle apply their effect, and those out of       *
+     * bounds are removed. Package-private for the JMH benchmarks     *
+     * (jmh/).                                                        *
+     * PARAMETERS:                                                    *
+     *    - double delta: The step length in seconds.                 *
+     * RETURN VALUE: None.                                            *
+     *******************************************************************/
+    void updatePowerUps(double delta) {
+        EntitySystems.integrate(powerUps, delta);
+        for (int row = EntitySystems.nextOverlap(powerUps, 0, playerX, PADDLE_Y, paddleWidth, PADDLE_HEIGHT);
+                row >= 0; row = EntitySystems.nextOverlap(powerUps, row, playerX, PADDLE_Y, paddleWidth, PADDLE_HEIGHT)) {
+            PowerUp.PowerUpType type = PowerUp.PowerUpType.VALUES[powerUps.getTag(row)];
+            powerUps.despawn(row); // Remove the power-up on activation
+            applyPowerUpEffect(type);
+            listener.powerUpCollected(type);
+        }
+        // Remove the power-ups that fell out of the screen
+        for (int row = EntitySystems.nextPastBottom(powerUps, 0, HEIGHT + PowerUp.SIZE); row >= 0;
+                row = EntitySystems.nextPastBottom(powerUps, row, HEIGHT + PowerUp.SIZE)) {
+            powerUps.despawn(row);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: spawnBall(double x, double y, double xVel,          *
+     *                   double yVel)                              *
+     * DESCRIPTION:                                                *
+     * Puts a ball of BALL_SIZE into play as the last row of the   *
+     * ball table. Package-private for the JMH benchmarks (jmh/),  *
+     * which run steps with many balls.                            *
+     * PARAMETERS:                                                 *
+     *    - double x, y: The starting position.                    *
+     *    - double xVel, yVel: The starting velocity in px/s.      *
+     * RETURN VALUE: The ball's handle.                            *
+     ***************************************************************/
+    int spawnBall(double x, double y, double xVel, double yVel) {
+        int row = balls.spawn(x, y);
+        balls.setXVel(row, xVel);
+        balls.setYVel(row, yVel);
+        balls.setSize(row, BALL_SIZE);
+        return balls.handle(row);
+    }
+
+    /***************************************************************
+     * METHOD: spawnPowerUp(int x, int y,                          *
+     *                      PowerUp.PowerUpType type)              *
+     * DESCRIPTION:                                                *
+     * Starts a power-up falling at PowerUp.SPEED. Package-private *
+     * for the JMH benchmarks (jmh/).                              *
+     * PARAMETERS:                                                 *
+     *    - int x, y: The spawn position.                          *
+     *    - PowerUp.PowerUpType type: The type of the power-up.    *
+     * RETURN VALUE: The power-up's handle.                        *
+     ***************************************************************/
+    int spawnPowerUp(int x, int y, PowerUp.PowerUpType type) {
+        int row = powerUps.spawn(x, y);
+        powerUps.setYVel(row, PowerUp.SPEED);
+        powerUps.setSize(row, PowerUp.SIZE);
+        powerUps.setTag(row, type.ordinal());
+        return powerUps.handle(row);
+    }
+
+    /***************************************************************
+     * METHODS: getBricks(), getBalls(), getPowerUps(),            *
+     *          getPlayerX(), getPaddleWidth(), getScore(),        *
+     *          getLives(), isPlay(), isGameWon(), getLevel(),     *
+     *          getLevelCount(), isLevelCleared()                  *
+     * DESCRIPTION:                                                *
+     * Read-only access to the game state for renderers and        *
+     * simulators. The entity tables must not be modified by the   *
+     * caller; the tag of a power-up is its PowerUpType ordinal.   *
+     ***************************************************************/
+    public BrickField getBricks() { return bricks; }
+    public Archetype getBalls() { return balls; }
+    public Archetype getPowerUps() { return powerUps; }
+    public int getPlayerX() { return playerX; }
+    public int getPaddleWidth() { return paddleWidth; }
+    public int getScore() { return score; }
+    public int getLives() { return lives; }
+    public boolean isPlay() { return play; }
+    public boolean isGameWon() { return gameWon; }
+    public int getLevel() { return level; }
+    public int getLevelCount() { return levels.count(); }
+    public boolean isLevelCleared() { return levelCleared; }
+
+    /*******************************************************************
+     * CLASS: PowerUp                                                 *
+     * DESCRIPTION:                                                   *
+     * The kinds of power-ups that fall from destroyed special        *
+     * bricks and take effect when they touch the paddle, and their   *
+     * size and speed. The falling power-ups themselves are rows of   *
+     * the world's power-up table (see getPowerUps()).                *
+     *******************************************************************/
+    public static final class PowerUp {
+        public enum PowerUpType {
+            // Enum : Provides predefined types of power-ups, each associated with a unique effect in the game.
+            BIGGER_BALL, LONGER_PADDLE, MANY_BALLS, DOUBLE_SPEED;
+
+            // Shared copy of values(), which clones its array on every call
+            static final PowerUpType[] VALUES = values();
+        }
+
+        public static final int SIZE = 20;   // Width and height in pixels
+        public static final int SPEED = 400; // Fall speed in px/s (2 px per 5 ms step)
+
+        private PowerUp() {
+        }
+    }
+}
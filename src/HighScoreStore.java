@@ -0,0 +1,453 @@
+/*******************************************************************
+ * CLASS: HighScoreStore                                          *
+ * DESCRIPTION:                                                   *
+ * The leaderboard: the best TOP scores, kept in memory in order  *
+ * and saved on disk so that they survive restarts. getBest() is  *
+ * a field read, so the HUD can show it every frame.              *
+ *                                                                *
+ * Every added score is appended to a log (scores.log) by a       *
+ * writer thread and forced to disk there, never on the game      *
+ * loop. Scores added while a write is in progress go out         *
+ * together with a single fsync. Each log record carries a        *
+ * sequence number and a CRC, so a record torn by a crash is      *
+ * found and cut off when the log is read back.                   *
+ *                                                                *
+ * Once the log holds COMPACT_AFTER records, the top scores are   *
+ * written to a snapshot (scores.dat) and the log is emptied. The *
+ * snapshot is written to a temporary file, forced and then moved *
+ * over the old one, so there is always one whole snapshot. It    *
+ * records the last sequence number it holds; log records up to   *
+ * that number are skipped when reading back, so a crash between  *
+ * the snapshot and emptying the log adds no score twice.         *
+ *                                                                *
+ * FORMAT (big-endian):                                           *
+ *    scores.log: int LOG_MAGIC ("BBHL"), byte VERSION, then per  *
+ *                score: long sequence, int score, long time (ms  *
+ *                since the epoch), int CRC32 of the first 20     *
+ *                bytes                                           *
+ *    scores.dat: int SNAPSHOT_MAGIC ("BBHS"), byte VERSION, long *
+ *                last sequence, int count, then per score: int   *
+ *                score, long time; then int CRC32 of all before  *
+ *******************************************************************/
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+public class HighScoreStore implements Closeable {
+    public static final int LOG_MAGIC = 0x4242484C;       // "BBHL"
+    public static final int SNAPSHOT_MAGIC = 0x42424853;  // "BBHS"
+    public static final byte VERSION = 1;                 // Log and snapshot format version
+    public static final int TOP = 10;                     // Scores kept on the leaderboard
+    public static final int COMPACT_AFTER = 256;          // Log records that trigger a snapshot
+    public static final String LOG_NAME = "scores.log";
+    public static final String SNAPSHOT_NAME = "scores.dat";
+
+    private static final int LOG_HEADER = 5;              // Bytes before the first log record
+    private static final int RECORD = 24;                 // Bytes per log record
+
+    private final int[] scores = new int[TOP];   // Best scores, highest first
+    private final long[] times = new long[TOP];  // When each score was made, ms since the epoch
+    private int size = 0;                        // Scores on the leaderboard
+    private volatile int best = 0;               // scores[0], readable from any thread
+    private long sequence = 0;                   // Sequence number of the last added score
+
+    private final Path directory;                // Where the files are, null when in memory only
+    private final FileChannel log;               // Open log, positioned at its end
+    private final ExecutorService writer;        // Writes and forces the log
+    private List<long[]> pending = new ArrayList<>(); // Scores not written yet: {sequence, score, time}
+    private boolean writeQueued = false;         // A write of pending is queued
+    private boolean closed = false;              // close() was called
+    private int logRecords = 0;                  // Records in the log (writer thread)
+    private int syncs = 0;                       // Log forces so far (writer thread)
+
+    /***************************************************************
+     * METHOD: HighScoreStore()                                    *
+     * DESCRIPTION:                                                *
+     * Creates an empty leaderboard that is not saved, e.g. when   *
+     * the score directory cannot be used.                         *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public HighScoreStore() {
+        directory = null;
+        log = null;
+        writer = null;
+    }
+
+    /***************************************************************
+     * METHOD: HighScoreStore(Path directory)                      *
+     * DESCRIPTION:                                                *
+     * Opens the leaderboard saved in a directory, creating it if  *
+     * needed: reads the snapshot, then the log records after it,  *
+     * and cuts off a torn record at the end of the log.           *
+     * PARAMETERS:                                                 *
+     *    - Path directory: Where the score files are kept.        *
+     * RETURN VALUE: None.                                         *
+     * THROWS: IOException if the files cannot be read or created, *
+     *         or the log is not a score log.                      *
+     ***************************************************************/
+    public HighScoreStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        readSnapshot();
+        log = FileChannel.open(directory.resolve(LOG_NAME),
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            readLog();
+        } catch (IOException e) {
+            log.close();
+            throw e;
+        }
+        writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "score-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (logRecords >= COMPACT_AFTER) {
+            writer.execute(this::compact);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: load()                                              *
+     * DESCRIPTION:                                                *
+     * Opens the game's leaderboard in the directory given by      *
+     * -Dbrickbreaker.scores, by default ~/.brickbreaker. If it    *
+     * cannot be opened, the error is printed and the scores of    *
+     * this session are kept in memory only.                       *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The leaderboard.                              *
+     ***************************************************************/
+    public static HighScoreStore load() {
+        String dir = System.getProperty("brickbreaker.scores");
+        Path path = (dir != null) ? Path.of(dir) : Path.of(System.getProperty("user.home"), ".brickbreaker");
+        try {
+            return new HighScoreStore(path);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new HighScoreStore();
+        }
+    }
+
+    /***************************************************************
+     * METHOD: add(int score)                                      *
+     * DESCRIPTION:                                                *
+     * Adds the final score of a game. The leaderboard changes at  *
+     * once; the score is saved by the writer thread shortly after *
+     * (see flush()). Call once per game.                          *
+     * PARAMETERS:                                                 *
+     *    - int score: The score.                                  *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public synchronized void add(int score) {
+        long time = System.currentTimeMillis();
+        sequence++;
+        insert(score, time);
+        if (log == null || closed) {
+            return;
+        }
+        pending.add(new long[] { sequence, score, time });
+        if (!writeQueued) {
+            writeQueued = true;
+            writer.execute(this::writePending);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: getBest()                                           *
+     * DESCRIPTION:                                                *
+     * Retrieves the best score. Safe to call from any thread.     *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The best score, 0 if there is none.           *
+     ***************************************************************/
+    public int getBest() {
+        return best;
+    }
+
+    /***************************************************************
+     * METHOD: getScores() / getTimes()                            *
+     * DESCRIPTION:                                                *
+     * Retrieves the leaderboard, highest score first, and when    *
+     * each score was made (ms since the epoch).                   *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: Copies of the scores or times.                *
+     ***************************************************************/
+    public synchronized int[] getScores() {
+        return Arrays.copyOf(scores, size);
+    }
+
+    public synchronized long[] getTimes() {
+        return Arrays.copyOf(times, size);
+    }
+
+    /***************************************************************
+     * METHOD: getSyncCount()                                      *
+     * DESCRIPTION:                                                *
+     * Retrieves how often the log was forced to disk, to check    *
+     * that adds are batched. Call after flush().                  *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The number of forces.                         *
+     ***************************************************************/
+    public synchronized int getSyncCount() {
+        return syncs;
+    }
+
+    /***************************************************************
+     * METHOD: flush()                                             *
+     * DESCRIPTION:                                                *
+     * Waits until every score added so far is on disk.            *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void flush() {
+        if (writer != null && !writer.isShutdown()) {
+            CompletableFuture.runAsync(() -> { }, writer).join();
+        }
+    }
+
+    /***************************************************************
+     * METHOD: close()                                             *
+     * DESCRIPTION:                                                *
+     * Saves the scores added so far and closes the log. Later     *
+     * scores are kept in memory only.                             *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (log == null || closed) {
+                return;
+            }
+            closed = true;
+        }
+        flush();
+        writer.shutdown();
+        try {
+            log.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /***************************************************************
+     * METHOD: insert(int score, long time)                        *
+     * DESCRIPTION:                                                *
+     * Puts a score in its place on the leaderboard, after equal   *
+     * scores made before it, dropping the lowest if it is full.   *
+     * PARAMETERS:                                                 *
+     *    - int score: The score.                                  *
+     *    - long time: When it was made.                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void insert(int score, long time) {
+        if (size == TOP && score <= scores[TOP - 1]) {
+            return;
+        }
+        int at = (size == TOP) ? TOP - 1 : size;
+        while (at > 0 && scores[at - 1] < score) {
+            scores[at] = scores[at - 1];
+            times[at] = times[at - 1];
+            at--;
+        }
+        scores[at] = score;
+        times[at] = time;
+        size = Math.min(size + 1, TOP);
+        best = scores[0];
+    }
+
+    /***************************************************************
+     * METHOD: writePending()                                      *
+     * DESCRIPTION:                                                *
+     * Appends every pending score to the log in one write and     *
+     * forces it to disk once. Runs on the writer thread.          *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void writePending() {
+        List<long[]> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new ArrayList<>();
+            writeQueued = false;
+        }
+        ByteBuffer records = ByteBuffer.allocate(batch.size() * RECORD);
+        CRC32 crc = new CRC32();
+        for (long[] entry : batch) {
+            int start = records.position();
+            records.putLong(entry[0]).putInt((int) entry[1]).putLong(entry[2]);
+            crc.reset();
+            crc.update(records.array(), start, RECORD - 4);
+            records.putInt((int) crc.getValue());
+        }
+        records.flip();
+        try {
+            while (records.hasRemaining()) {
+                log.write(records);
+            }
+            log.force(false);
+            synchronized (this) {
+                syncs++;
+            }
+            logRecords += batch.size();
+            if (logRecords >= COMPACT_AFTER) {
+                compact();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /***************************************************************
+     * METHOD: compact()                                           *
+     * DESCRIPTION:                                                *
+     * Replaces the snapshot with the current leaderboard, then    *
+     * empties the log. Runs on the writer thread.                 *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    private void compact() {
+        int count;
+        long lastSequence;
+        ByteBuffer snapshot;
+        synchronized (this) {
+            count = size;
+            lastSequence = sequence;
+            snapshot = ByteBuffer.allocate(21 + 12 * count);
+            snapshot.putInt(SNAPSHOT_MAGIC).put(VERSION).putLong(lastSequence).putInt(count);
+            for (int i = 0; i < count; i++) {
+                snapshot.putInt(scores[i]).putLong(times[i]);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(snapshot.array(), 0, snapshot.position());
+        snapshot.putInt((int) crc.getValue());
+        snapshot.flip();
+
+        Path file = directory.resolve(SNAPSHOT_NAME);
+        Path temporary = directory.resolve(SNAPSHOT_NAME + ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (snapshot.hasRemaining()) {
+                    out.write(snapshot);
+                }
+                out.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // Scores pending now have sequence numbers up to lastSequence
+            // and are in the snapshot; writing them after this is harmless
+            log.truncate(LOG_HEADER);
+            log.position(LOG_HEADER);
+            log.force(true);
+            logRecords = 0;
+        } catch (IOException e) {
+            e.printStackTrace(); // The log still holds everything; try again after more scores
+        }
+    }
+
+    /***************************************************************
+     * METHOD: readSnapshot()                                      *
+     * DESCRIPTION:                                                *
+     * Reads the snapshot into the leaderboard, if there is one. A *
+     * damaged snapshot is reported and ignored.                   *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     * THROWS: IOException if the snapshot cannot be read.         *
+     ***************************************************************/
+    private void readSnapshot() throws IOException {
+        Path file = directory.resolve(SNAPSHOT_NAME);
+        ByteBuffer data;
+        try {
+            data = ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        int limit = data.limit();
+        if (limit < 21 || data.getInt(0) != SNAPSHOT_MAGIC || data.get(4) != VERSION) {
+            System.out.println(file + ": not a score snapshot, ignored");
+            return;
+        }
+        int count = data.getInt(13);
+        CRC32 crc = new CRC32();
+        crc.update(data.array(), 0, limit - 4);
+        if (count < 0 || count > TOP || limit != 21 + 12 * count || data.getInt(limit - 4) != (int) crc.getValue()) {
+            System.out.println(file + ": damaged score snapshot, ignored");
+            return;
+        }
+        sequence = data.getLong(5);
+        for (int i = 0; i < count; i++) {
+            insert(data.getInt(17 + 12 * i), data.getLong(21 + 12 * i));
+        }
+    }
+
+    /***************************************************************
+     * METHOD: readLog()                                           *
+     * DESCRIPTION:                                                *
+     * Adds the log records newer than the snapshot, cuts the log  *
+     * off after the last whole record and leaves it positioned    *
+     * there. Writes the header of a new log.                      *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     * THROWS: IOException if the log cannot be read or written,   *
+     *         or is not a score log.                              *
+     ***************************************************************/
+    private void readLog() throws IOException {
+        long length = log.size();
+        if (length < LOG_HEADER) {
+            ByteBuffer header = ByteBuffer.allocate(LOG_HEADER).putInt(LOG_MAGIC).put(VERSION);
+            header.flip();
+            log.truncate(0);
+            log.write(header, 0);
+            log.force(true);
+            log.position(LOG_HEADER);
+            return;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException(directory.resolve(LOG_NAME) + ": score log too large");
+        }
+        ByteBuffer data = ByteBuffer.allocate((int) length);
+        while (data.hasRemaining() && log.read(data, data.position()) >= 0) {
+            // Read the whole log
+        }
+        if (data.getInt(0) != LOG_MAGIC || data.get(4) != VERSION) {
+            throw new IOException(directory.resolve(LOG_NAME) + ": not a score log");
+        }
+
+        CRC32 crc = new CRC32();
+        int end = LOG_HEADER;
+        while (end + RECORD <= length) {
+            crc.reset();
+            crc.update(data.array(), end, RECORD - 4);
+            if (data.getInt(end + RECORD - 4) != (int) crc.getValue()) {
+                break; // Torn by a crash; nothing after it was acknowledged
+            }
+            long recordSequence = data.getLong(end);
+            if (recordSequence > sequence) {
+                sequence = recordSequence;
+                insert(data.getInt(end + 8), data.getLong(end + 12));
+            }
+            end += RECORD;
+            logRecords++;
+        }
+        if (end < length) {
+            System.out.println(directory.resolve(LOG_NAME) + ": cut off " + (length - end) + " bytes of a torn record");
+            log.truncate(end);
+            log.force(true);
+        }
+        log.position(end);
+    }
+}
@@ -0,0 +1,138 @@
+/*******************************************************************
+ * CLASS: InputRecorder                                           *
+ * DESCRIPTION:                                                   *
+ * Records a game session as a compact binary log: the session    *
+ * seed, followed by every non-empty input together with the      *
+ * simulation step it was applied at. Since `GameWorld` is fully  *
+ * determined by its seed and inputs, `ReplayPlayer` can rebuild  *
+ * the session from the log without a display or a timer.         *
+ *                                                                *
+ * FORMAT (big-endian, see DataOutputStream):                     *
+ *    int   MAGIC ("BBRP")                                        *
+ *    byte  VERSION                                               *
+ *    long  session seed                                          *
+ *    int   step length in nanoseconds                            *
+ *    then per input:   varint empty steps before this input,     *
+ *                      byte   GameInput bits (never 0)           *
+ *    end of session:   varint empty steps before the end,        *
+ *                      byte   0,                                 *
+ *                      int    final score                        *
+ * A log without the end record (e.g. after a crash) can still be *
+ * replayed, but its score cannot be checked.                     *
+ *******************************************************************/
+import java.io.*;
+
+public class InputRecorder implements Closeable {
+    public static final int MAGIC = 0x42425250;  // "BBRP"
+    public static final byte VERSION = 3;        // Bumped whenever GameWorld rules change (2: swept collision, 3: levels)
+
+    private final DataOutputStream out;  // Destination of the log
+    private long nextStep = 0;           // Step after the previous record
+    private boolean finished = false;    // End record written
+
+    /***************************************************************
+     * METHOD: InputRecorder(OutputStream out, long seed,          *
+     *                       long stepNanos)                       *
+     * DESCRIPTION:                                                *
+     * Starts a log by writing its header.                         *
+     * PARAMETERS:                                                 *
+     *    - OutputStream out: Where to write the log.              *
+     *    - long seed: The session seed (GameRandom.getSeed()).    *
+     *    - long stepNanos: The simulation step length.            *
+     * RETURN VALUE: None.                                         *
+     * THROWS: IOException if the header cannot be written.        *
+     ***************************************************************/
+    public InputRecorder(OutputStream out, long seed, long stepNanos) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(VERSION);
+        this.out.writeLong(seed);
+        this.out.writeInt((int) stepNanos);
+    }
+
+    /***************************************************************
+     * METHOD: record(long step, int input)                        *
+     * DESCRIPTION:                                                *
+     * Appends the input applied at a step. Steps must not go      *
+     * backwards; empty input is not stored.                       *
+     * PARAMETERS:                                                 *
+     *    - long step: Index of the step, counting from 0.         *
+     *    - int input: GameInput bits applied at that step.        *
+     * RETURN VALUE: None.                                         *
+     * THROWS: IOException if the log cannot be written.           *
+     ***************************************************************/
+    public void record(long step, int input) throws IOException {
+        if (input == GameInput.NONE || finished) {
+            return;
+        }
+        writeVarLong(step - nextStep);
+        out.writeByte(input);
+        nextStep = step + 1;
+    }
+
+    /***************************************************************
+     * METHOD: flush()                                             *
+     * DESCRIPTION:                                                *
+     * Pushes buffered records to the underlying stream, e.g. when *
+     * a game ends.                                                *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     * THROWS: IOException if the log cannot be written.           *
+     ***************************************************************/
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /***************************************************************
+     * METHOD: finish(long steps, int score)                       *
+     * DESCRIPTION:                                                *
+     * Writes the end record. The player simulates exactly this    *
+     * many steps and expects this score.                          *
+     * PARAMETERS:                                                 *
+     *    - long steps: Total number of steps simulated.           *
+     *    - int score: The score after the last step.              *
+     * RETURN VALUE: None.                                         *
+     * THROWS: IOException if the log cannot be written.           *
+     ***************************************************************/
+    public void finish(long steps, int score) throws IOException {
+        if (finished) {
+            return;
+        }
+        writeVarLong(steps - nextStep);
+        out.writeByte(GameInput.NONE);
+        out.writeInt(score);
+        finished = true;
+        out.flush();
+    }
+
+    /***************************************************************
+     * METHOD: close()                                             *
+     * DESCRIPTION:                                                *
+     * Closes the log. Call finish() first for a checkable log.    *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     * THROWS: IOException if the stream cannot be closed.         *
+     ***************************************************************/
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /***************************************************************
+     * METHOD: writeVarLong(long value)                            *
+     * DESCRIPTION:                                                *
+     * Writes a non-negative number 7 bits at a time, so the usual *
+     * small step gaps take one or two bytes.                      *
+     * PARAMETERS:                                                 *
+     *    - long value: The number to write.                       *
+     * RETURN VALUE: None.                                         *
+     * THROWS: IOException if the log cannot be written.           *
+     ***************************************************************/
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
@@ -0,0 +1,221 @@
+/*******************************************************************
+ * CLASS: LatencyHistogram                                        *
+ * DESCRIPTION:                                                   *
+ * Counts durations in log-linear buckets, the way HdrHistogram   *
+ * does: values below 64 ns get a bucket each, and every power of *
+ * two above that is split into 32 equal buckets, so a recorded   *
+ * value is known to within 1/32 (about 3%) up to about 18        *
+ * minutes. Recording finds the bucket with a few shifts and adds *
+ * one to it with plain ordered writes: no lock, no atomic        *
+ * read-modify-write and no allocation, so it can sit on the game *
+ * loop and paint paths. Each histogram is meant to be recorded   *
+ * by one thread at a time (the game loop, the renderer); two     *
+ * threads recording at the same instant may lose a sample but    *
+ * corrupt nothing. Any thread may read.                          *
+ *                                                                *
+ * The histogram counts from its creation. For recent values,     *
+ * e.g. the last second, copy it now and then and subtract the    *
+ * previous copy (see copyTo() and subtract()).                   *
+ *******************************************************************/
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram implements LatencyHistogramMBean {
+    private static final int SUB_BITS = 5;                      // log2 of buckets per power of two
+    private static final int SUB_COUNT = 1 << SUB_BITS;         // Buckets per power of two
+    private static final int LINEAR = 2 * SUB_COUNT;            // Values with a bucket each
+    private static final long MAX_VALUE = (1L << 40) - 1;       // Larger values count as this
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final String name;                                  // Label, e.g. "tick"
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS); // Samples per bucket
+    private final AtomicLong totalNanos = new AtomicLong();     // Sum of all samples, for the mean
+
+    /***************************************************************
+     * METHOD: LatencyHistogram(String name)                       *
+     * DESCRIPTION:                                                *
+     * Creates an empty histogram.                                 *
+     * PARAMETERS:                                                 *
+     *    - String name: Label for displays and JMX.               *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /***************************************************************
+     * METHOD: record(long nanos)                                  *
+     * DESCRIPTION:                                                *
+     * Adds one sample.                                            *
+     * PARAMETERS:                                                 *
+     *    - long nanos: The duration; negative counts as 0.        *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+        int index = index(value);
+        counts.lazySet(index, counts.get(index) + 1);
+        totalNanos.lazySet(totalNanos.get() + value);
+    }
+
+    /***************************************************************
+     * METHOD: getName()                                           *
+     * DESCRIPTION:                                                *
+     * Retrieves the histogram's label.                            *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The name.                                     *
+     ***************************************************************/
+    public String getName() {
+        return name;
+    }
+
+    /***************************************************************
+     * METHOD: getCount()                                          *
+     * DESCRIPTION:                                                *
+     * Counts the samples.                                         *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The number of samples.                        *
+     ***************************************************************/
+    @Override
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /***************************************************************
+     * METHOD: getValueAtPercentile(double percentile)             *
+     * DESCRIPTION:                                                *
+     * Finds the value that the given share of samples is at or    *
+     * below, rounded up to the end of its bucket.                 *
+     * PARAMETERS:                                                 *
+     *    - double percentile: 0 to 100, e.g. 99 for p99.          *
+     * RETURN VALUE: The value in nanoseconds, 0 with no samples.  *
+     ***************************************************************/
+    public long getValueAtPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * Math.min(percentile, 100.0) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return highestValue(i);
+            }
+        }
+        return getMax();
+    }
+
+    /***************************************************************
+     * METHOD: getMax()                                            *
+     * DESCRIPTION:                                                *
+     * Finds the largest sample, rounded up to the end of its      *
+     * bucket.                                                     *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The value in nanoseconds, 0 with no samples.  *
+     ***************************************************************/
+    public long getMax() {
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (counts.get(i) != 0) {
+                return highestValue(i);
+            }
+        }
+        return 0;
+    }
+
+    /***************************************************************
+     * METHOD: copyTo(LatencyHistogram target)                     *
+     * DESCRIPTION:                                                *
+     * Overwrites another histogram with this one's samples,       *
+     * without allocating.                                         *
+     * PARAMETERS:                                                 *
+     *    - LatencyHistogram target: The histogram to overwrite.   *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void copyTo(LatencyHistogram target) {
+        for (int i = 0; i < BUCKETS; i++) {
+            target.counts.set(i, counts.get(i));
+        }
+        target.totalNanos.set(totalNanos.get());
+    }
+
+    /***************************************************************
+     * METHOD: subtract(LatencyHistogram earlier)                  *
+     * DESCRIPTION:                                                *
+     * Removes the samples of an earlier copy of this histogram,   *
+     * leaving only the samples recorded since that copy.          *
+     * PARAMETERS:                                                 *
+     *    - LatencyHistogram earlier: A copy made before this one. *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void subtract(LatencyHistogram earlier) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, Math.max(0, counts.get(i) - earlier.counts.get(i)));
+        }
+        totalNanos.set(Math.max(0, totalNanos.get() - earlier.totalNanos.get()));
+    }
+
+    /***************************************************************
+     * METHODS: getMeanMicros(), getP50Micros(), getP90Micros(),   *
+     *          getP99Micros(), getP999Micros(), getMaxMicros()    *
+     * DESCRIPTION:                                                *
+     * The LatencyHistogramMBean attributes, in microseconds.      *
+     ***************************************************************/
+    @Override
+    public double getMeanMicros() {
+        long count = getCount();
+        return count == 0 ? 0 : totalNanos.get() / 1e3 / count;
+    }
+
+    @Override public double getP50Micros() { return getValueAtPercentile(50) / 1e3; }
+    @Override public double getP90Micros() { return getValueAtPercentile(90) / 1e3; }
+    @Override public double getP99Micros() { return getValueAtPercentile(99) / 1e3; }
+    @Override public double getP999Micros() { return getValueAtPercentile(99.9) / 1e3; }
+    @Override public double getMaxMicros() { return getMax() / 1e3; }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d samples, p50 %.1f us, p99 %.1f us, max %.1f us",
+                name, getCount(), getP50Micros(), getP99Micros(), getMaxMicros());
+    }
+
+    /***************************************************************
+     * METHOD: index(long value)                                   *
+     * DESCRIPTION:                                                *
+     * Finds the bucket of a value. Below LINEAR the value is its  *
+     * own bucket; above, the top SUB_BITS + 1 bits of the value   *
+     * pick one of SUB_COUNT buckets within its power of two.      *
+     * PARAMETERS:                                                 *
+     *    - long value: 0 to MAX_VALUE.                            *
+     * RETURN VALUE: The bucket index.                             *
+     ***************************************************************/
+    private static int index(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        int sub = (int) (value >>> shift) - SUB_COUNT;
+        return LINEAR + (shift - 1) * SUB_COUNT + sub;
+    }
+
+    /***************************************************************
+     * METHOD: highestValue(int index)                             *
+     * DESCRIPTION:                                                *
+     * Finds the largest value that falls into a bucket.           *
+     * PARAMETERS:                                                 *
+     *    - int index: The bucket.                                 *
+     * RETURN VALUE: The value in nanoseconds.                     *
+     ***************************************************************/
+    private static long highestValue(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int shift = (index - LINEAR) / SUB_COUNT + 1;
+        long sub = (index - LINEAR) % SUB_COUNT + SUB_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,17 @@
+/*******************************************************************
+ * INTERFACE: LatencyHistogramMBean                               *
+ * DESCRIPTION:                                                   *
+ * The JMX view of a LatencyHistogram: its sample count and, in   *
+ * microseconds, its mean, percentiles and maximum since the game *
+ * started. Registered by GameMetrics under                       *
+ * BrickBreaker:type=Timing,name=<histogram name>.                *
+ *******************************************************************/
+public interface LatencyHistogramMBean {
+    long getCount();
+    double getMeanMicros();
+    double getP50Micros();
+    double getP90Micros();
+    double getP99Micros();
+    double getP999Micros();
+    double getMaxMicros();
+}
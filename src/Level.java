@@ -3,6 +3,7 @@
  * DESCRIPTION:
  *   The Level class defines the configuration for a particular level
  *   in the Brick Breaker game. A level is characterized by:
+ *   - Its name, shown when the level starts (name)
  *   - The number of bricks in each row (rowCounts)
  *   - The color of bricks in each row (colors)
  *   - Which rows contain special bricks (specialBricks)
@@ -12,14 +13,34 @@
  *   - Provide access to the configuration data.
  *
  * USAGE:
- *   Create an instance of this class to define a level configuration.
- *   The Gameplay or Bricks class can then use these configurations to
- *   initialize brick layouts.
+ *   Levels are normally read from level files by LevelLoader. GameWorld
+ *   builds the brick field of a level from this configuration. Colors
+ *   are packed ARGB ints, so the class needs no AWT and the game world
+ *   stays headless.
  *******************************************************************/
+public class Level {
+    /**
+     * Row color meaning "a random color for every brick of the row", the
+     * way the original game colored all of its bricks.
+     */
+    public static final int RANDOM_COLOR = 0;
 
-import java.awt.*;
+    /**
+     * The built-in level: the layout of the original game, with random
+     * colors and one special brick in every row. Used for headless runs
+     * and whenever no level files can be loaded.
+     */
+    public static final Level CLASSIC = new Level("Classic",
+            new int[] { 13, 11, 9, 7, 6, 5, 3, 1 },
+            new int[] { RANDOM_COLOR, RANDOM_COLOR, RANDOM_COLOR, RANDOM_COLOR,
+                        RANDOM_COLOR, RANDOM_COLOR, RANDOM_COLOR, RANDOM_COLOR },
+            new boolean[] { true, true, true, true, true, true, true, true });
+
+    /**
+     * The name of the level.
+     */
+    private String name;
 
-public class Level {
     /**
      * An array indicating how many bricks are in each row of the level.
      * For example, { 13, 11, 9 } would mean the first row has 13 bricks,
@@ -28,10 +49,11 @@ public class Level {
     private int[] rowCounts;
 
     /**
-     * An array of Colors corresponding to each row. The i-th element in
-     * this array represents the color of the bricks in row i.
+     * An array of ARGB colors corresponding to each row. The i-th element
+     * in this array represents the color of the bricks in row i, or
+     * RANDOM_COLOR for a random color per brick.
      */
-    private Color[] colors;
+    private int[] colors;
 
     /**
      * A boolean array where each element corresponds to a row. A value of true
@@ -40,31 +62,39 @@ public class Level {
     private boolean[] specialBricks;
 
     /**
-     * CONSTRUCTOR: Level(int[] rowCounts, Color[] colors, boolean[] specialBricks)
+     * CONSTRUCTOR: Level(String name, int[] rowCounts, int[] colors, boolean[] specialBricks)
      * DESCRIPTION:
      *   Constructs a new Level with the specified configuration.
      *
      * PARAMETERS:
+     *   @param name The name of the level.
      *   @param rowCounts An array of integers specifying the number of bricks in each row.
-     *   @param colors An array of Colors specifying the color of each row of bricks.
+     *   @param colors An array of ARGB colors specifying the color of each row of bricks.
      *   @param specialBricks A boolean array indicating which rows contain special bricks.
      *
      * PRECONDITIONS:
      *   - All arrays should be of the same length. The i-th element in each array refers
      *     to the configuration of the i-th row.
-     *   - Each color in colors must be non-null.
+     *   - Each color is opaque (alpha 0xFF) or RANDOM_COLOR.
      */
-    public Level(int[] rowCounts, Color[] colors, boolean[] specialBricks) {
+    public Level(String name, int[] rowCounts, int[] colors, boolean[] specialBricks) {
+        this.name = name;
         this.rowCounts = rowCounts;
         this.colors = colors;
         this.specialBricks = specialBricks;
     }
 
-    // NOTE: This second constructor is identical in signature to the first one
-    // but is empty. If intentional, it should be differentiated (e.g., different parameters).
-    // Otherwise, remove this constructor to avoid confusion.
-    // public Level(int[] rowCounts, Color[] colors, boolean[] specialBricks) {
-    // }
+    /**
+     * METHOD: getName()
+     * DESCRIPTION:
+     *   Retrieves the name of this level.
+     *
+     * RETURN VALUE:
+     *   The level's name.
+     */
+    public String getName() {
+        return name;
+    }
 
     /**
      * METHOD: getRowCounts()
@@ -81,12 +111,13 @@ public class Level {
     /**
      * METHOD: getColors()
      * DESCRIPTION:
-     *   Retrieves the array of Colors for each row in this level.
+     *   Retrieves the array of colors for each row in this level.
      *
      * RETURN VALUE:
-     *   A Color[] where each element specifies the color of the corresponding row of bricks.
+     *   An int[] where each element specifies the ARGB color of the corresponding
+     *   row of bricks, or RANDOM_COLOR.
      */
-    public Color[] getColors() {
+    public int[] getColors() {
         return colors;
     }
 
@@ -101,4 +132,20 @@ public class Level {
     public boolean[] getSpecialBricks() {
         return specialBricks;
     }
+
+    /**
+     * METHOD: getBrickCount()
+     * DESCRIPTION:
+     *   Counts the bricks of all rows.
+     *
+     * RETURN VALUE:
+     *   The number of bricks in this level.
+     */
+    public int getBrickCount() {
+        int count = 0;
+        for (int rowCount : rowCounts) {
+            count += rowCount;
+        }
+        return count;
+    }
 }
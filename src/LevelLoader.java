@@ -0,0 +1,360 @@
+/*******************************************************************
+ * CLASS: LevelLoader                                             *
+ * DESCRIPTION:                                                   *
+ * Reads and writes level files. Levels are authored as text and  *
+ * shipped compiled to a small binary form, which loads without   *
+ * any parsing; load() prefers the compiled file and falls back   *
+ * to the text. Both forms are checked against the playfield, so  *
+ * a bad level file is reported instead of breaking the game.     *
+ *                                                                *
+ * TEXT FORMAT (levels/<name>.txt), one row of bricks per line:   *
+ *    # comment line                                              *
+ *    name Classic                                                *
+ *    row 13 random special                                       *
+ *    row 9 #33CCFF                                               *
+ * A row gives its number of bricks, its color (#RRGGBB, or       *
+ * "random" for a random color per brick) and, optionally,        *
+ * "special" to hide one power-up brick in it.                    *
+ *                                                                *
+ * BINARY FORMAT (levels/<name>.lvl, big-endian):                 *
+ *    int   MAGIC ("BBLV")                                        *
+ *    byte  VERSION                                               *
+ *    then the level body, the same as in a LevelPack:            *
+ *    short name length, UTF-8 name                               *
+ *    byte  number of rows                                        *
+ *    byte  bricks of each row                                    *
+ *    int   ARGB color of each row (0 for random)                 *
+ *    int   special rows, bit i set if row i has a special brick  *
+ *                                                                *
+ * USAGE (from the project root, to compile levels by hand; the   *
+ * asset pack compiles them on its own, see AssetPack):           *
+ *    java -cp out LevelLoader src/levels out/levels              *
+ *******************************************************************/
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LevelLoader {
+    public static final int MAGIC = 0x42424C56;  // "BBLV"
+    public static final byte VERSION = 2;        // Binary format version (2: special rows as a bitmask)
+    public static final String DIRECTORY = "levels/"; // Asset directory of the level files
+    public static final String TEXT = ".txt";    // Extension of authored levels
+    public static final String BINARY = ".lvl";  // Extension of compiled levels
+
+    /***************************************************************
+     * METHOD: load(String name)                                   *
+     * DESCRIPTION:                                                *
+     * Loads a level through Resources: levels/<name>.lvl if it    *
+     * was compiled, otherwise levels/<name>.txt.                  *
+     * PARAMETERS:                                                 *
+     *    - String name: The level's file name, without extension. *
+     * RETURN VALUE: The level.                                    *
+     * THROWS: IOException if neither file can be read or the     *
+     *         level is not valid.                                 *
+     ***************************************************************/
+    public static Level load(String name) throws IOException {
+        String binary = DIRECTORY + name + BINARY;
+        InputStream in;
+        try {
+            in = Resources.shared().open(binary);
+        } catch (FileNotFoundException e) {
+            String text = DIRECTORY + name + TEXT;
+            try (Reader reader = new InputStreamReader(Resources.shared().open(text), StandardCharsets.UTF_8)) {
+                return parse(reader, text);
+            }
+        }
+        try (InputStream data = in) {
+            return read(data, binary);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: parse(Reader in, String source)                     *
+     * DESCRIPTION:                                                *
+     * Parses a level in the text format.                          *
+     * PARAMETERS:                                                 *
+     *    - Reader in: The level text; it is not closed.           *
+     *    - String source: Where the text is from, for errors.     *
+     * RETURN VALUE: The level.                                    *
+     * THROWS: IOException with the line of the first error.       *
+     ***************************************************************/
+    public static Level parse(Reader in, String source) throws IOException {
+        BufferedReader lines = new BufferedReader(in);
+        String name = source;
+        List<int[]> rows = new ArrayList<>(); // { bricks, color, special }
+        String line;
+        int number = 0;
+        while ((line = lines.readLine()) != null) {
+            number++;
+            String[] words = line.trim().split("\\s+");
+            if (words[0].isEmpty() || words[0].startsWith("#")) {
+                continue; // Blank line or comment
+            }
+            String where = source + ":" + number + ": ";
+            if (words[0].equals("name") && words.length > 1) {
+                name = line.trim().substring(4).trim();
+            } else if (words[0].equals("row") && (words.length == 3 || words.length == 4)) {
+                int bricks;
+                try {
+                    bricks = Integer.parseInt(words[1]);
+                } catch (NumberFormatException e) {
+                    throw new IOException(where + "bad brick count " + words[1]);
+                }
+                int color = parseColor(words[2], where);
+                boolean special = words.length == 4;
+                if (special && !words[3].equals("special")) {
+                    throw new IOException(where + "expected 'special', found " + words[3]);
+                }
+                rows.add(new int[] { bricks, color, special ? 1 : 0 });
+            } else {
+                throw new IOException(where + "expected 'name <name>' or 'row <bricks> <color> [special]'");
+            }
+        }
+
+        int[] rowCounts = new int[rows.size()];
+        int[] colors = new int[rows.size()];
+        boolean[] specialBricks = new boolean[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            rowCounts[i] = rows.get(i)[0];
+            colors[i] = rows.get(i)[1];
+            specialBricks[i] = rows.get(i)[2] != 0;
+        }
+        return validate(new Level(name, rowCounts, colors, specialBricks), source);
+    }
+
+    /***************************************************************
+     * METHOD: parseColor(String word, String where)               *
+     * DESCRIPTION:                                                *
+     * Parses a row color: #RRGGBB or "random".                    *
+     * PARAMETERS:                                                 *
+     *    - String word: The color as written.                     *
+     *    - String where: Source and line, for errors.             *
+     * RETURN VALUE: Opaque ARGB, or Level.RANDOM_COLOR.           *
+     ***************************************************************/
+    private static int parseColor(String word, String where) throws IOException {
+        if (word.equals("random")) {
+            return Level.RANDOM_COLOR;
+        }
+        if (word.length() == 7 && word.charAt(0) == '#') {
+            try {
+                return 0xFF000000 | Integer.parseInt(word.substring(1), 16);
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+        }
+        throw new IOException(where + "bad color " + word + ", expected #RRGGBB or random");
+    }
+
+    /***************************************************************
+     * METHOD: read(InputStream in, String source)                 *
+     * DESCRIPTION:                                                *
+     * Reads a level in the binary format.                         *
+     * PARAMETERS:                                                 *
+     *    - InputStream in: The compiled level; it is not closed.  *
+     *    - String source: Where the data is from, for errors.     *
+     * RETURN VALUE: The level.                                    *
+     * THROWS: IOException if it is not a valid compiled level.    *
+     ***************************************************************/
+    public static Level read(InputStream in, String source) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(in.readAllBytes());
+        try {
+            if (data.getInt() != MAGIC) {
+                throw new IOException(source + ": not a compiled level");
+            }
+            int version = data.get();
+            if (version != VERSION) {
+                throw new IOException(source + ": unsupported level version " + version);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException(source + ": not a compiled level");
+        }
+        return decode(data, source);
+    }
+
+    /***************************************************************
+     * METHOD: write(Level level, OutputStream out)                *
+     * DESCRIPTION:                                                *
+     * Writes a level in the binary format.                        *
+     * PARAMETERS:                                                 *
+     *    - Level level: A valid level.                            *
+     *    - OutputStream out: Where to write; it is not closed.    *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void write(Level level, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        encode(level, data);
+        data.flush();
+    }
+
+    /***************************************************************
+     * METHOD: encode(Level level, DataOutputStream out)           *
+     * DESCRIPTION:                                                *
+     * Writes the body of a compiled level: everything after the   *
+     * header, as a LevelPack stores it too.                       *
+     * PARAMETERS:                                                 *
+     *    - Level level: A valid level.                            *
+     *    - DataOutputStream out: Where to write.                  *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    static void encode(Level level, DataOutputStream out) throws IOException {
+        byte[] name = level.getName().getBytes(StandardCharsets.UTF_8);
+        if (name.length > 0xFFFF) {
+            throw new IOException("Level name longer than 65535 bytes");
+        }
+        int rows = level.getRowCounts().length;
+        out.writeShort(name.length);
+        out.write(name);
+        out.writeByte(rows);
+        for (int i = 0; i < rows; i++) {
+            out.writeByte(level.getRowCounts()[i]);
+        }
+        int specialMask = 0;
+        for (int i = 0; i < rows; i++) {
+            out.writeInt(level.getColors()[i]);
+            if (level.getSpecialBricks()[i]) {
+                specialMask |= 1 << i;
+            }
+        }
+        out.writeInt(specialMask);
+    }
+
+    /***************************************************************
+     * METHOD: encodedSize(Level level)                            *
+     * DESCRIPTION:                                                *
+     * Computes how many bytes encode() writes for a level.        *
+     * PARAMETERS:                                                 *
+     *    - Level level: A valid level.                            *
+     * RETURN VALUE: The size of the level's body in bytes.        *
+     ***************************************************************/
+    static int encodedSize(Level level) {
+        int rows = level.getRowCounts().length;
+        return 2 + level.getName().getBytes(StandardCharsets.UTF_8).length + 1 + rows + 4 * rows + 4;
+    }
+
+    /***************************************************************
+     * METHOD: decode(ByteBuffer data, String source)              *
+     * DESCRIPTION:                                                *
+     * Reads the body of a compiled level from the buffer's        *
+     * position, with absolute reads only of the level's own       *
+     * bytes, so it works on a slice of a mapped file.             *
+     * PARAMETERS:                                                 *
+     *    - ByteBuffer data: The body, from its position.          *
+     *    - String source: Where the data is from, for errors.     *
+     * RETURN VALUE: The level.                                    *
+     * THROWS: IOException if the body is truncated or invalid.    *
+     ***************************************************************/
+    static Level decode(ByteBuffer data, String source) throws IOException {
+        try {
+            int at = data.position();
+            int nameLength = data.getShort(at) & 0xFFFF;
+            byte[] name = new byte[nameLength];
+            data.get(at + 2, name);
+            at += 2 + nameLength;
+            int rows = data.get(at++) & 0xFF;
+            if (rows > GameWorld.MAX_ROWS) {
+                throw new IOException(source + ": " + rows + " rows, expected 1 to " + GameWorld.MAX_ROWS);
+            }
+            int[] rowCounts = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                rowCounts[i] = data.get(at++) & 0xFF;
+            }
+            int[] colors = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                colors[i] = data.getInt(at);
+                at += 4;
+            }
+            int specialMask = data.getInt(at);
+            boolean[] specialBricks = new boolean[rows];
+            for (int i = 0; i < rows; i++) {
+                specialBricks[i] = (specialMask & (1 << i)) != 0;
+            }
+            Level level = new Level(new String(name, StandardCharsets.UTF_8), rowCounts, colors, specialBricks);
+            return validate(level, source);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException(source + ": truncated level");
+        }
+    }
+
+    /***************************************************************
+     * METHOD: compile(byte[] text, String source)                 *
+     * DESCRIPTION:                                                *
+     * Turns a text level into its binary form.                    *
+     * PARAMETERS:                                                 *
+     *    - byte[] text: The level text, UTF-8.                    *
+     *    - String source: Where the text is from, for errors.     *
+     * RETURN VALUE: The compiled level.                           *
+     ***************************************************************/
+    public static byte[] compile(byte[] text, String source) throws IOException {
+        Reader reader = new InputStreamReader(new ByteArrayInputStream(text), StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(parse(reader, source), out);
+        return out.toByteArray();
+    }
+
+    /***************************************************************
+     * METHOD: validate(Level level, String source)                *
+     * DESCRIPTION:                                                *
+     * Checks that a level fits the playfield: 1 to                *
+     * GameWorld.MAX_ROWS rows of 1 to GameWorld.MAX_ROW_BRICKS    *
+     * bricks, in opaque colors.                                   *
+     * PARAMETERS:                                                 *
+     *    - Level level: The level to check.                       *
+     *    - String source: Where the level is from, for errors.    *
+     * RETURN VALUE: The level.                                    *
+     ***************************************************************/
+    static Level validate(Level level, String source) throws IOException {
+        int rows = level.getRowCounts().length;
+        if (rows < 1 || rows > GameWorld.MAX_ROWS) {
+            throw new IOException(source + ": " + rows + " rows, expected 1 to " + GameWorld.MAX_ROWS);
+        }
+        for (int i = 0; i < rows; i++) {
+            int bricks = level.getRowCounts()[i];
+            if (bricks < 1 || bricks > GameWorld.MAX_ROW_BRICKS) {
+                throw new IOException(source + ": row " + (i + 1) + " has " + bricks
+                        + " bricks, expected 1 to " + GameWorld.MAX_ROW_BRICKS);
+            }
+            int color = level.getColors()[i];
+            if (color != Level.RANDOM_COLOR && (color >>> 24) != 0xFF) {
+                throw new IOException(source + ": row " + (i + 1) + " color is not opaque");
+            }
+        }
+        return level;
+    }
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Compiles every text level of a directory into another one.  *
+     * PARAMETERS:                                                 *
+     *    - String[] args: The text and the compiled directory.    *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: java LevelLoader <text level directory> <compiled level directory>");
+            System.exit(1);
+        }
+        Path target = Files.createDirectories(Path.of(args[1]));
+        int count = 0;
+        try (DirectoryStream<Path> levels = Files.newDirectoryStream(Path.of(args[0]), "*" + TEXT)) {
+            for (Path level : levels) {
+                String name = level.getFileName().toString();
+                if (name.equals(Levels.LIST_NAME)) {
+                    continue; // The level list is not a level
+                }
+                byte[] compiled = compile(Files.readAllBytes(level), level.toString());
+                Files.write(target.resolve(name.substring(0, name.length() - TEXT.length()) + BINARY), compiled);
+                count++;
+            }
+        }
+        System.out.println("Compiled " + count + " levels into " + target);
+    }
+}
@@ -0,0 +1,222 @@
+/*******************************************************************
+ * CLASS: LevelPack                                               *
+ * DESCRIPTION:                                                   *
+ * A file of many compiled levels behind a fixed-width offset     *
+ * index, for level packs made by generation tools. The file is   *
+ * memory-mapped and nothing is read when it is opened but the    *
+ * header: the offset of level i sits at a known position, so     *
+ * getting any level reads two index entries and that level's own *
+ * bytes, whatever the size of the pack. Only the pages touched   *
+ * are ever loaded from disk.                                     *
+ *                                                                *
+ * FORMAT (big-endian):                                           *
+ *    int   MAGIC ("BBLP")                                        *
+ *    short VERSION                                               *
+ *    short level body version (LevelLoader.VERSION)              *
+ *    int   number of levels N                                    *
+ *    int   offsets[N + 1]: level i is the bytes from offsets[i]  *
+ *          to offsets[i + 1], counted from the start of the file *
+ *    the level bodies (see LevelLoader) in order                 *
+ *                                                                *
+ * USAGE (from the project root, to pack text levels; the level   *
+ * list levels.txt is skipped):                                   *
+ *    java -cp out LevelPack src/levels/levels.pack               *
+ *         src/levels/*.txt                                       *
+ *******************************************************************/
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LevelPack {
+    public static final int MAGIC = 0x42424C50;   // "BBLP"
+    public static final short VERSION = 1;        // Pack layout version
+    private static final int HEADER = 12;         // Bytes before the offset index
+
+    private final ByteBuffer data;                // The whole pack, never moved
+    private final int count;                      // Number of levels
+    private final String source;                  // Where the pack is from, for errors
+
+    /***************************************************************
+     * METHOD: LevelPack(ByteBuffer data, String source)           *
+     * DESCRIPTION:                                                *
+     * Opens a pack held in a buffer, reading only its header.     *
+     * PARAMETERS:                                                 *
+     *    - ByteBuffer data: The pack, from position 0; e.g. a     *
+     *      mapped file or a slice of the asset pack.              *
+     *    - String source: Where the pack is from, for errors.     *
+     * RETURN VALUE: None.                                         *
+     * THROWS: IOException if the header is not a level pack's.    *
+     ***************************************************************/
+    public LevelPack(ByteBuffer data, String source) throws IOException {
+        this.data = data.slice();
+        this.source = source;
+        if (this.data.limit() < HEADER || this.data.getInt(0) != MAGIC) {
+            throw new IOException(source + ": not a level pack");
+        }
+        int version = this.data.getShort(4);
+        int bodyVersion = this.data.getShort(6);
+        if (version != VERSION || bodyVersion != LevelLoader.VERSION) {
+            throw new IOException(source + ": unsupported level pack version " + version + "/" + bodyVersion);
+        }
+        count = this.data.getInt(8);
+        if (count < 1 || count > (this.data.limit() - HEADER) / 4 - 1) {
+            throw new IOException(source + ": bad level count " + count);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: map(Path file)                                      *
+     * DESCRIPTION:                                                *
+     * Opens a pack file by mapping it read-only into memory. The  *
+     * mapping stays valid after the channel is closed.            *
+     * PARAMETERS:                                                 *
+     *    - Path file: The pack file.                              *
+     * RETURN VALUE: The opened pack.                              *
+     ***************************************************************/
+    public static LevelPack map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new LevelPack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file.toString());
+        }
+    }
+
+    /***************************************************************
+     * METHOD: count()                                             *
+     * DESCRIPTION:                                                *
+     * Retrieves the number of levels in the pack.                 *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The number of levels.                         *
+     ***************************************************************/
+    public int count() {
+        return count;
+    }
+
+    /***************************************************************
+     * METHOD: get(int index)                                      *
+     * DESCRIPTION:                                                *
+     * Decodes one level straight from the mapping. Safe to call   *
+     * from several threads at once.                               *
+     * PARAMETERS:                                                 *
+     *    - int index: The level, 0 to count() - 1.                *
+     * RETURN VALUE: The level.                                    *
+     * THROWS: IOException if the level's entry is corrupt.        *
+     ***************************************************************/
+    public Level get(int index) throws IOException {
+        return LevelLoader.decode(body(index), source + " level " + index);
+    }
+
+    /***************************************************************
+     * METHOD: getBrickCount(int index)                            *
+     * DESCRIPTION:                                                *
+     * Counts the bricks of a level without decoding it, e.g. for  *
+     * a level select screen over a large pack.                    *
+     * PARAMETERS:                                                 *
+     *    - int index: The level, 0 to count() - 1.                *
+     * RETURN VALUE: The number of bricks.                         *
+     ***************************************************************/
+    public int getBrickCount(int index) throws IOException {
+        ByteBuffer body = body(index);
+        try {
+            int at = 2 + (body.getShort(0) & 0xFFFF);
+            int rows = body.get(at++) & 0xFF;
+            int bricks = 0;
+            for (int i = 0; i < rows; i++) {
+                bricks += body.get(at + i) & 0xFF;
+            }
+            return bricks;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException(source + " level " + index + ": truncated level");
+        }
+    }
+
+    /***************************************************************
+     * METHOD: body(int index)                                     *
+     * DESCRIPTION:                                                *
+     * Finds a level's bytes through the offset index.             *
+     * PARAMETERS:                                                 *
+     *    - int index: The level, 0 to count() - 1.                *
+     * RETURN VALUE: A slice of the pack holding only that level.  *
+     ***************************************************************/
+    private ByteBuffer body(int index) throws IOException {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Level " + index + " of " + count);
+        }
+        int start = data.getInt(HEADER + 4 * index);
+        int end = data.getInt(HEADER + 4 * (index + 1));
+        if (start < HEADER + 4 * (count + 1) || end < start || end > data.limit()) {
+            throw new IOException(source + ": corrupt index entry for level " + index);
+        }
+        return data.slice(start, end - start);
+    }
+
+    /***************************************************************
+     * METHOD: write(List<Level> levels, OutputStream out)         *
+     * DESCRIPTION:                                                *
+     * Writes a pack of levels. The index is computed from the     *
+     * encoded sizes first, so the levels are written in one pass. *
+     * PARAMETERS:                                                 *
+     *    - List<Level> levels: Valid levels in play order.        *
+     *    - OutputStream out: Where to write; it is not closed.    *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void write(List<Level> levels, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeShort(LevelLoader.VERSION);
+        data.writeInt(levels.size());
+        long offset = HEADER + 4L * (levels.size() + 1);
+        for (int i = 0; i <= levels.size(); i++) {
+            if (offset > Integer.MAX_VALUE) {
+                throw new IOException("Level pack larger than 2 GB");
+            }
+            data.writeInt((int) offset);
+            if (i < levels.size()) {
+                offset += LevelLoader.encodedSize(levels.get(i));
+            }
+        }
+        for (Level level : levels) {
+            LevelLoader.encode(level, data);
+        }
+        data.flush();
+    }
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Packs text levels, in the order given, into a pack file.    *
+     * PARAMETERS:                                                 *
+     *    - String[] args: The pack file, then the text levels.    *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java LevelPack <pack file> <text level>...");
+            System.exit(1);
+        }
+        List<Level> levels = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (Path.of(args[i]).getFileName().toString().equals(Levels.LIST_NAME)) {
+                continue; // The level list is not a level
+            }
+            try (Reader reader = new InputStreamReader(Files.newInputStream(Path.of(args[i])), StandardCharsets.UTF_8)) {
+                levels.add(LevelLoader.parse(reader, args[i]));
+            }
+        }
+        Path target = Path.of(args[0]);
+        try (OutputStream out = Files.newOutputStream(target)) {
+            write(levels, out);
+        }
+        System.out.println("Packed " + levels.size() + " levels into " + target + " (" + Files.size(target) + " bytes)");
+    }
+}
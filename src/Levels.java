@@ -0,0 +1,215 @@
+/*******************************************************************
+ * CLASS: Levels                                                  *
+ * DESCRIPTION:                                                   *
+ * The ordered levels of a game, from a LevelPack or from a list  *
+ * of level files. Only the pack's header or the list of level    *
+ * names is read up front; each level is loaded the first time it *
+ * is asked for and then cached, so a long level list or a pack   *
+ * of thousands of levels costs nothing until it is played.       *
+ * GameWorld prefetches the next level when a level starts, on a  *
+ * background thread, so moving on to it never waits for a file   *
+ * on the game loop thread.                                       *
+ *                                                                *
+ * A level that fails to load is reported and replaced by         *
+ * Level.CLASSIC, so a broken file cannot end a game.             *
+ *******************************************************************/
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+public class Levels {
+    public static final String LIST_NAME = "levels.txt";  // Level list in the level directory
+    public static final String PACK_NAME = "levels.pack"; // Level pack in the level directory
+
+    // Loads levels off the game loop; one thread is plenty for files this small
+    private static final Executor PREFETCH = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "level-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String[] names;   // Level file names in play order, or null
+    private final LevelPack pack;   // Packed levels, or null
+    private final int count;        // Number of levels
+    private final Map<Integer, CompletableFuture<Level>> cache = new ConcurrentHashMap<>(); // Loaded levels
+
+    /***************************************************************
+     * METHOD: Levels(String[] names)                              *
+     * DESCRIPTION:                                                *
+     * Creates the levels of the given files, loading none yet.    *
+     * PARAMETERS:                                                 *
+     *    - String[] names: Level names for LevelLoader.load, in   *
+     *      play order; at least one.                              *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public Levels(String[] names) {
+        this.names = names.clone();
+        this.pack = null;
+        this.count = names.length;
+    }
+
+    /***************************************************************
+     * METHOD: Levels(LevelPack pack)                              *
+     * DESCRIPTION:                                                *
+     * Creates the levels of a pack, loading none yet.             *
+     * PARAMETERS:                                                 *
+     *    - LevelPack pack: The levels in play order.              *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public Levels(LevelPack pack) {
+        this.names = null;
+        this.pack = pack;
+        this.count = pack.count();
+    }
+
+    /***************************************************************
+     * METHOD: Levels(Level[] levels)                              *
+     * DESCRIPTION:                                                *
+     * Creates levels that are already in memory, e.g. built-in    *
+     * ones or levels made by a test.                              *
+     * PARAMETERS:                                                 *
+     *    - Level[] levels: The levels in play order, at least    *
+     *      one.                                                   *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public Levels(Level[] levels) {
+        this.names = null;
+        this.pack = null;
+        this.count = levels.length;
+        for (int i = 0; i < levels.length; i++) {
+            cache.put(i, CompletableFuture.completedFuture(levels[i]));
+        }
+    }
+
+    /***************************************************************
+     * METHOD: classic()                                           *
+     * DESCRIPTION:                                                *
+     * The original one-level game, with no files involved. Used   *
+     * by headless runs and as the fallback.                       *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: Levels holding only Level.CLASSIC.            *
+     ***************************************************************/
+    public static Levels classic() {
+        return new Levels(new Level[] { Level.CLASSIC });
+    }
+
+    /***************************************************************
+     * METHOD: load()                                              *
+     * DESCRIPTION:                                                *
+     * Finds the game's levels and loads the first one. They come  *
+     * from the first of:                                          *
+     *    - the level pack given by -Dbrickbreaker.levels;         *
+     *    - the asset levels/levels.pack;                          *
+     *    - the level list levels/levels.txt, one level name per   *
+     *      line, # for comments.                                  *
+     * If none can be read, the error is printed and the classic   *
+     * game is used.                                               *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The levels.                                   *
+     ***************************************************************/
+    public static Levels load() {
+        try {
+            String file = System.getProperty("brickbreaker.levels");
+            String packName = LevelLoader.DIRECTORY + PACK_NAME;
+            LevelPack pack = (file != null) ? LevelPack.map(Path.of(file))
+                    : new LevelPack(Resources.shared().map(packName), packName);
+            Levels levels = new Levels(pack);
+            levels.get(0);
+            return levels;
+        } catch (FileNotFoundException e) {
+            // No pack; use the level list
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        String list = LevelLoader.DIRECTORY + LIST_NAME;
+        List<String> names = new ArrayList<>();
+        try (BufferedReader lines = new BufferedReader(
+                new InputStreamReader(Resources.shared().open(list), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    names.add(line);
+                }
+            }
+            if (names.isEmpty()) {
+                throw new IOException(list + " lists no levels");
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return classic();
+        }
+        Levels levels = new Levels(names.toArray(new String[0]));
+        levels.get(0);
+        return levels;
+    }
+
+    /***************************************************************
+     * METHOD: count()                                             *
+     * DESCRIPTION:                                                *
+     * Retrieves the number of levels.                             *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The number of levels.                         *
+     ***************************************************************/
+    public int count() {
+        return count;
+    }
+
+    /***************************************************************
+     * METHOD: prefetch(int index)                                 *
+     * DESCRIPTION:                                                *
+     * Starts loading a level in the background unless it is       *
+     * loaded or loading already. Out-of-range indexes are         *
+     * ignored.                                                    *
+     * PARAMETERS:                                                 *
+     *    - int index: The level, counting from 0.                 *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void prefetch(int index) {
+        if (index >= 0 && index < count()) {
+            future(index);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: get(int index)                                      *
+     * DESCRIPTION:                                                *
+     * Retrieves a level, loading it now if it was not prefetched. *
+     * PARAMETERS:                                                 *
+     *    - int index: The level, 0 to count() - 1.                *
+     * RETURN VALUE: The level, or Level.CLASSIC if it failed.     *
+     ***************************************************************/
+    public Level get(int index) {
+        return future(index).join();
+    }
+
+    /***************************************************************
+     * METHOD: future(int index)                                   *
+     * DESCRIPTION:                                                *
+     * Retrieves the cached load of a level, starting it if none.  *
+     * PARAMETERS:                                                 *
+     *    - int index: The level, 0 to count() - 1.                *
+     * RETURN VALUE: The level's future.                           *
+     ***************************************************************/
+    private CompletableFuture<Level> future(int index) {
+        return cache.computeIfAbsent(index, i -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return (pack != null) ? pack.get(i) : LevelLoader.load(names[i]);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return Level.CLASSIC;
+            }
+        }, PREFETCH));
+    }
+}
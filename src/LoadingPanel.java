@@ -0,0 +1,67 @@
+/*******************************************************************
+ * CLASS: LoadingPanel                                            *
+ * DESCRIPTION:                                                   *
+ * The startup screen, shown as soon as the window opens while    *
+ * the AssetLoader decodes sounds, fonts and images in the        *
+ * background. It draws a progress bar of finished assets and     *
+ * stops repainting once it is told that loading is done.         *
+ *******************************************************************/
+import javax.swing.*;
+import java.awt.*;
+
+public class LoadingPanel extends JPanel {
+    private final AssetLoader loader;   // Source of the progress counts
+    private final Timer timer;          // Repaints the progress bar
+
+    /***************************************************************
+     * METHOD: LoadingPanel(AssetLoader loader)                    *
+     * DESCRIPTION:                                                *
+     * Creates the startup screen and starts updating it.          *
+     * PARAMETERS:                                                 *
+     *    - AssetLoader loader: The loader whose progress to show. *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public LoadingPanel(AssetLoader loader) {
+        this.loader = loader;
+        setBackground(Color.BLACK);
+        timer = new Timer(50, e -> repaint());
+        timer.start();
+    }
+
+    /***************************************************************
+     * METHOD: done()                                              *
+     * DESCRIPTION:                                                *
+     * Stops updating the screen once loading has finished.        *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void done() {
+        timer.stop();
+    }
+
+    /***************************************************************
+     * METHOD: paintComponent(Graphics g)                         *
+     * DESCRIPTION:                                                *
+     * Draws the "Loading" text and the progress bar.              *
+     * PARAMETERS:                                                 *
+     *    - Graphics g: The Graphics object for rendering.         *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        int requested = loader.getRequested();
+        int finished = loader.getFinished();
+        double progress = requested == 0 ? 0 : (double) finished / requested;
+
+        int barWidth = getWidth() / 2;
+        int x = (getWidth() - barWidth) / 2;
+        int y = getHeight() / 2;
+        g.setColor(Color.RED);
+        g.setFont(new Font("Arial", Font.BOLD, 24));
+        g.drawString("Loading", x, y - 20);
+        g.setColor(Color.YELLOW);
+        g.drawRect(x, y, barWidth, 16);
+        g.fillRect(x + 2, y + 2, (int) ((barWidth - 3) * progress), 13);
+    }
+}
@@ -18,9 +18,10 @@
  * CLASS: Main                                                    *
  * DESCRIPTION:                                                   *
  * The entry point for the Brick Breaker game. Sets up the main   *
- * game window, initializes the gameplay logic, and displays the  *
- * welcome screen. Utilizes a `CardLayout` for transitioning      *
- * between the welcome panel and gameplay.                        *
+ * game window, shows a loading screen while the assets load in   *
+ * the background, then initializes the gameplay logic and        *
+ * displays the welcome screen. Utilizes a `CardLayout` for       *
+ * switching between the loading, welcome and gameplay panels.    *
  *******************************************************************/
 import javax.swing.*;
 import java.awt.*;
@@ -29,8 +30,8 @@ public class Main {
      * METHOD: main(String[] args)                                 *
      * DESCRIPTION:                                                *
      * The starting point for the program. Creates the main window *
-     * and initializes game components, including the welcome      *
-     * screen and gameplay panel.                                  *
+     * at once, then initializes game components, including the    *
+     * welcome screen and gameplay panel, when the assets are in.  *
      * PARAMETERS:                                                 *
      *    - String[] args: Command-line arguments (not used).      *
      * RETURN VALUE: None.                                         *
@@ -40,13 +41,30 @@ public class Main {
         JFrame obj = new JFrame();
         JPanel mainPanel = new JPanel(new CardLayout());
 
-        // Create instances of the gameplay logic and welcome panel
-        Gameplay gamePlay = new Gameplay();
-        WelcomePanel welcomePanel = new WelcomePanel(mainPanel, gamePlay);
+        // Start loading sounds, fonts and images in the background and
+        // show their progress until the game can be built
+        AssetLoader loader = AssetLoader.shared();
+        GameAssets assets = GameAssets.start(loader);
+        LoadingPanel loadingPanel = new LoadingPanel(loader);
+        mainPanel.add(loadingPanel, "LoadingPanel");
 
-        // Add panels to the mainPanel using CardLayout
-        mainPanel.add(welcomePanel, "WelcomePanel");
-        mainPanel.add(gamePlay, "Gameplay");
+        // One seeded random source for the whole session
+        GameRandom random = GameRandom.fromSystem();
+
+        assets.whenLoaded().thenRun(() -> SwingUtilities.invokeLater(() -> {
+            // Create instances of the gameplay logic and welcome panel;
+            // -Dbrickbreaker.active presents frames through a BufferStrategy
+            // instead of Swing repaints
+            boolean activeRendering = Boolean.getBoolean("brickbreaker.active");
+            Gameplay gamePlay = new Gameplay(random, activeRendering, assets);
+            WelcomePanel welcomePanel = new WelcomePanel(mainPanel, gamePlay, random, assets);
+
+            // Add panels to the mainPanel using CardLayout
+            mainPanel.add(welcomePanel, "WelcomePanel");
+            mainPanel.add(gamePlay, "Gameplay");
+            ((CardLayout) mainPanel.getLayout()).show(mainPanel, "WelcomePanel");
+            loadingPanel.done();
+        }));
 
         // Set up the JFrame properties
         obj.setBounds(10, 10, 700, 600); // Window size and position
@@ -0,0 +1,33 @@
+/*******************************************************************
+ * INTERFACE: MotionKernel                                        *
+ * DESCRIPTION:                                                   *
+ * The loops of EntitySystems that touch every row of a table:    *
+ * moving by velocity, bouncing off the walls and finding rows    *
+ * past the bottom. EntitySystems.SCALAR runs them one row at a   *
+ * time; VectorMotionKernel (under vector/, built and run with     *
+ * --add-modules jdk.incubator.vector) runs them in SIMD lanes.   *
+ * EntitySystems picks one when it is loaded. Every kernel must   *
+ * give exactly the results of SCALAR, down to the last bit.      *
+ *******************************************************************/
+public interface MotionKernel {
+    /***************************************************************
+     * METHOD: getName()                                           *
+     * DESCRIPTION:                                                *
+     * Names the kernel for logs and benchmarks.                   *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: E.g. "scalar".                                *
+     ***************************************************************/
+    String getName();
+
+    /***************************************************************
+     * METHODS: integrate(...), bounceOffWalls(...),               *
+     *          nextPastBottom(...)                                *
+     * DESCRIPTION:                                                *
+     * The systems of the same names; see EntitySystems.           *
+     ***************************************************************/
+    void integrate(Archetype table, double scale);
+
+    int bounceOffWalls(Archetype table, double left, double top, double right);
+
+    int nextPastBottom(Archetype table, int from, double bottom);
+}
@@ -0,0 +1,64 @@
+/*******************************************************************
+ * INTERFACE: PaddlePolicy                                        *
+ * DESCRIPTION:                                                   *
+ * Decides which keys a simulated player presses. The batch       *
+ * simulator asks the policy for GameInput bits every few steps,  *
+ * the way a human's key repeat would. Policies are shared by all *
+ * worker threads, so they must not keep mutable state.           *
+ *******************************************************************/
+@FunctionalInterface
+public interface PaddlePolicy {
+    /***************************************************************
+     * METHOD: decide(GameWorld world)                             *
+     * DESCRIPTION:                                                *
+     * Chooses the input for the next step.                        *
+     * PARAMETERS:                                                 *
+     *    - GameWorld world: The game being played (read only).    *
+     * RETURN VALUE: GameInput bits, e.g. GameInput.LEFT.          *
+     ***************************************************************/
+    int decide(GameWorld world);
+
+    // Never moves the paddle
+    PaddlePolicy IDLE = world -> GameInput.NONE;
+
+    // Keeps the paddle under the lowest ball (the one closest to falling
+    // out), off-centre by as much as it takes to send the ball at the
+    // first brick still standing. The bounce angle grows with the
+    // distance from the paddle centre, so always hitting the centre
+    // would send the ball straight up and down for ever.
+    PaddlePolicy TRACK_LOWEST_BALL = world -> {
+        Archetype balls = world.getBalls();
+        int lowest = -1;
+        for (int row = 0; row < balls.size(); row++) {
+            if (lowest < 0 || balls.getY(row) > balls.getY(lowest)) {
+                lowest = row;
+            }
+        }
+        if (lowest < 0) {
+            return GameInput.NONE;
+        }
+        double ballCenter = balls.getX(lowest) + balls.getSize(lowest) / 2.0;
+        double aim = ballCenter;
+
+        BrickField bricks = world.getBricks();
+        int target = bricks.nextAlive(0);
+        double ySpeed = Math.abs(balls.getYVel(lowest));
+        if (target >= 0 && ySpeed > 0) {
+            // Horizontal speed that reaches the brick on the way up; the
+            // paddle gives the ball 4 px/s of it per pixel off-centre
+            double rise = GameWorld.PADDLE_Y - (bricks.getY(target) + BrickField.HEIGHT);
+            double dx = bricks.getX(target) + BrickField.WIDTH / 2.0 - ballCenter;
+            double hitPos = dx / (rise / ySpeed) / 4;
+            double limit = world.getPaddleWidth() / 2.0 - 5;
+            aim = ballCenter - Math.max(-limit, Math.min(limit, hitPos));
+        }
+
+        double paddleCenter = world.getPlayerX() + world.getPaddleWidth() / 2.0;
+        if (aim < paddleCenter - 10) {
+            return GameInput.LEFT;
+        } else if (aim > paddleCenter + 10) {
+            return GameInput.RIGHT;
+        }
+        return GameInput.NONE;
+    };
+}
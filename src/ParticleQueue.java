@@ -0,0 +1,88 @@
+/*******************************************************************
+ * CLASS: ParticleQueue                                           *
+ * DESCRIPTION:                                                   *
+ * A lock-free ring of effect events from the game loop (one      *
+ * writer) to the thread that renders (one reader): a brick hit   *
+ * or a power-up caught, with where it happened. The writer fills *
+ * the slot at its tail and then releases the new tail; the       *
+ * reader takes slots up to the tail it sees and releases its     *
+ * head. Neither side waits or allocates. Events are only eye     *
+ * candy, so when the reader falls CAPACITY events behind, new    *
+ * ones are dropped and counted rather than blocking the game.    *
+ *******************************************************************/
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class ParticleQueue {
+    public static final int BRICK = 0;          // Event kind: brick destroyed, value = points
+    public static final int POWER_UP = 1;       // Event kind: power-up caught, value = PowerUpType ordinal
+    private static final int CAPACITY = 256;    // Events in flight; a power of two
+    private static final int MASK = CAPACITY - 1;
+
+    private final int[] kind = new int[CAPACITY];   // BRICK or POWER_UP
+    private final int[] x = new int[CAPACITY];      // Center of the event
+    private final int[] y = new int[CAPACITY];
+    private final int[] argb = new int[CAPACITY];   // Color of the debris
+    private final int[] value = new int[CAPACITY];  // Kind-specific value
+    private final AtomicLong head = new AtomicLong(); // Events taken by the reader
+    private final AtomicLong tail = new AtomicLong(); // Events offered by the writer
+    private long dropped = 0;                       // Events lost to a full queue, writer only
+
+    /***************************************************************
+     * METHOD: offer(int kind, int x, int y, int argb, int value)  *
+     * DESCRIPTION:                                                *
+     * Queues an event. Writer thread only.                        *
+     * PARAMETERS:                                                 *
+     *    - int kind: BRICK or POWER_UP.                           *
+     *    - int x, y: Where it happened.                           *
+     *    - int argb: Color of the debris.                         *
+     *    - int value: Points for BRICK, the type for POWER_UP.    *
+     * RETURN VALUE: False if the queue was full and the event was *
+     *    dropped.                                                 *
+     ***************************************************************/
+    public boolean offer(int kind, int x, int y, int argb, int value) {
+        long t = tail.get();
+        if (t - head.get() == CAPACITY) {
+            dropped++;
+            return false;
+        }
+        int slot = (int) t & MASK;
+        this.kind[slot] = kind;
+        this.x[slot] = x;
+        this.y[slot] = y;
+        this.argb[slot] = argb;
+        this.value[slot] = value;
+        tail.lazySet(t + 1);     // Publishes the slot's fields with the new tail
+        return true;
+    }
+
+    /***************************************************************
+     * METHOD: drain(ParticleSystem particles)                     *
+     * DESCRIPTION:                                                *
+     * Hands every queued event to a particle system and frees     *
+     * their slots. Reader thread only.                            *
+     * PARAMETERS:                                                 *
+     *    - ParticleSystem particles: Where the effects go.        *
+     * RETURN VALUE: The number of events taken.                   *
+     ***************************************************************/
+    public int drain(ParticleSystem particles) {
+        long h = head.get();
+        long t = tail.get();
+        for (long i = h; i < t; i++) {
+            int slot = (int) i & MASK;
+            particles.emit(kind[slot], x[slot], y[slot], argb[slot], value[slot]);
+        }
+        head.lazySet(t);
+        return (int) (t - h);
+    }
+
+    /***************************************************************
+     * METHOD: getDropped()                                        *
+     * DESCRIPTION:                                                *
+     * Retrieves how many events were dropped. Writer thread only. *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: Dropped events since the queue was created.   *
+     ***************************************************************/
+    public long getDropped() {
+        return dropped;
+    }
+}
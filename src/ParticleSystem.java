@@ -0,0 +1,315 @@
+/*******************************************************************
+ * CLASS: ParticleSystem                                          *
+ * DESCRIPTION:                                                   *
+ * Debris and score popups, animated and drawn by the renderer.   *
+ * The game loop reports brick hits and caught power-ups through  *
+ * a ParticleQueue; each becomes a burst of particles in the      *
+ * brick's (or power-up's) color and a popup ("+5", the power-up  *
+ * name) that floats up and fades out.                            *
+ *                                                                *
+ * The state has a fixed size: particles live in a ring of        *
+ * CAPACITY slots of primitive columns, oldest first, and a new   *
+ * particle takes the oldest slot when the ring (or the budget)   *
+ * is full. Colors are sorted into a small palette of buckets as  *
+ * particles are born, so a frame draws each bucket's particles   *
+ * with one setColor and one fill of a reused path. Popup texts   *
+ * are laid out once per text and kept, like the HUD's.           *
+ *                                                                *
+ * The budget (0 to 1) scales both the particles per burst and    *
+ * the particles alive. recordFrame() keeps a moving average of   *
+ * the renderer's frame time: above the frame budget the particle *
+ * budget is halved, and well below it the budget climbs back in  *
+ * small steps, at most once per ADJUST_NANOS either way, never   *
+ * above the ceiling setMaxBudget() sets (the quality tier's      *
+ * share). Not thread-safe: it belongs to the rendering thread.   *
+ *******************************************************************/
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public final class ParticleSystem {
+    public static final int CAPACITY = 2048;        // Particles alive at most; a power of two
+    private static final int MASK = CAPACITY - 1;
+    private static final int POPUPS = 32;           // Popups alive at most; a power of two
+    private static final int BRICK_BURST = 16;      // Debris per brick at full budget
+    private static final int POWER_UP_BURST = 24;   // Sparks per caught power-up at full budget
+    private static final double LIFE = 0.7;         // Seconds a particle lives
+    private static final double POPUP_LIFE = 0.9;   // Seconds a popup lives
+    private static final double GRAVITY = 900;      // Pull on debris, px/s^2
+    private static final double POPUP_RISE = 40;    // Popup speed upwards, px/s
+    private static final double MAX_DT = 0.1;       // Longest gap between frames animated at once
+    private static final long ADJUST_NANOS = 250_000_000L; // Least time between two budget changes
+    private static final double BUDGET_STEP = 0.125; // Budget regained per adjustment
+    private static final int HUES = 12;             // Buckets for saturated colors
+    private static final int WHITE = HUES;          // Bucket for light grays and white
+    private static final int GRAY = HUES + 1;       // Bucket for dark grays and black
+    private static final Color[] PALETTE = palette();
+    private static final String[] POWER_UP_NAMES = powerUpNames();
+
+    // Particles, indexed by ring slot
+    private final double[] x = new double[CAPACITY];
+    private final double[] y = new double[CAPACITY];
+    private final double[] xVel = new double[CAPACITY];
+    private final double[] yVel = new double[CAPACITY];
+    private final double[] life = new double[CAPACITY];   // Seconds left, <= 0 when dead
+    private final int[] size = new int[CAPACITY];          // Side of the square at birth
+    private final int[] bucket = new int[CAPACITY];        // Index into PALETTE
+    private int head = 0;                   // Slot of the oldest particle
+    private int count = 0;                  // Slots in use from head on
+
+    // Popups, indexed by ring slot
+    private final double[] popupX = new double[POPUPS];
+    private final double[] popupY = new double[POPUPS];
+    private final double[] popupLife = new double[POPUPS];
+    private final int[] popupValue = new int[POPUPS];          // Points, or the power-up type
+    private final boolean[] popupScore = new boolean[POPUPS]; // Score (yellow) or power-up (white)
+    private int nextPopup = 0;              // Slot the next popup takes
+    private final GlyphVector[] scoreGlyphs = new GlyphVector[64]; // "+n" laid out, made on first use
+    private final GlyphVector[] nameGlyphs = new GlyphVector[POWER_UP_NAMES.length]; // Power-up names
+    private Font glyphFont;                 // Font the glyphs were laid out in
+    private FontRenderContext glyphContext; // Text context they were laid out for
+
+    private final Path2D.Float[] paths = new Path2D.Float[PALETTE.length]; // Reused per bucket
+    private final int[] pathSquares = new int[PALETTE.length];             // Squares in each path
+    private final float[] hsb = new float[3];
+    private final SplittableRandom random = new SplittableRandom();
+    private final long frameBudgetNanos;    // Frame time above which particles are cut
+    private double budget = 1.0;            // Share of the full particle effects shown
+    private double maxBudget = 1.0;         // Most the budget may climb back to
+    private double averageNanos = 0;        // Moving average of recent frame times
+    private long lastAdjust = 0;            // When the budget last changed
+    private long lastFrame = 0;             // When the last frame was drawn, 0 before the first
+
+    /***************************************************************
+     * METHOD: ParticleSystem(long frameBudgetNanos)               *
+     * DESCRIPTION:                                                *
+     * Creates an empty particle system at full budget.            *
+     * PARAMETERS:                                                 *
+     *    - long frameBudgetNanos: Frame time that, on average,    *
+     *      makes the system shed particles.                       *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public ParticleSystem(long frameBudgetNanos) {
+        this.frameBudgetNanos = frameBudgetNanos;
+        for (int b = 0; b < paths.length; b++) {
+            paths[b] = new Path2D.Float(Path2D.WIND_NON_ZERO, 256);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: emit(int kind, int x, int y, int argb, int value)   *
+     * DESCRIPTION:                                                *
+     * Starts the effect of one event: a burst sized by the budget *
+     * and a popup. Called by ParticleQueue.drain.                 *
+     * PARAMETERS:                                                 *
+     *    - int kind: ParticleQueue.BRICK or POWER_UP.             *
+     *    - int x, y: Where it happened.                           *
+     *    - int argb: Color of the debris.                         *
+     *    - int value: Points for BRICK, the type for POWER_UP.    *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void emit(int kind, int x, int y, int argb, int value) {
+        if (budget <= 0) {
+            return;
+        }
+        boolean brick = (kind == ParticleQueue.BRICK);
+        int burst = Math.max(1, (int) Math.round((brick ? BRICK_BURST : POWER_UP_BURST) * budget));
+        int limit = Math.max(burst, (int) (CAPACITY * budget));
+        int color = bucketOf(argb);
+        for (int i = 0; i < burst; i++) {
+            while (count >= limit) {
+                head = (head + 1) & MASK;   // Reuse the oldest
+                count--;
+            }
+            int slot = (head + count) & MASK;
+            count++;
+            double angle = random.nextDouble(2 * Math.PI);
+            double speed = brick ? random.nextDouble(60, 240) : random.nextDouble(120, 320);
+            this.x[slot] = x;
+            this.y[slot] = y;
+            xVel[slot] = Math.cos(angle) * speed;
+            yVel[slot] = Math.sin(angle) * speed - (brick ? 150 : 300);
+            life[slot] = LIFE * random.nextDouble(0.6, 1.0);
+            size[slot] = random.nextInt(2, 5);
+            bucket[slot] = color;
+        }
+
+        int p = nextPopup;
+        nextPopup = (nextPopup + 1) & (POPUPS - 1);
+        popupX[p] = x - 10;
+        popupY[p] = y;
+        popupLife[p] = POPUP_LIFE;
+        popupScore[p] = brick;
+        popupValue[p] = value;
+    }
+
+    /***************************************************************
+     * METHOD: draw(Graphics2D g2, FontRenderContext context,      *
+     *              long now)                                      *
+     * DESCRIPTION:                                                *
+     * Moves everything by the time since the last frame, retires  *
+     * what has died, and draws the particles bucket by bucket,    *
+     * then the popups in the current font.                        *
+     * PARAMETERS:                                                 *
+     *    - Graphics2D g2: Where to draw.                          *
+     *    - FontRenderContext context: g2's text context, kept by  *
+     *      the caller; a different object lays the popups out     *
+     *      again.                                                 *
+     *    - long now: The System.nanoTime() of the frame.          *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void draw(Graphics2D g2, FontRenderContext context, long now) {
+        double dt = (lastFrame == 0) ? 0 : Math.min(MAX_DT, (now - lastFrame) / 1e9);
+        lastFrame = now;
+
+        for (int b = 0; b < paths.length; b++) {
+            paths[b].reset();
+            pathSquares[b] = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            int slot = (head + i) & MASK;
+            life[slot] -= dt;
+            if (life[slot] <= 0) {
+                continue;
+            }
+            yVel[slot] += GRAVITY * dt;
+            x[slot] += xVel[slot] * dt;
+            y[slot] += yVel[slot] * dt;
+            float side = (float) Math.max(1.0, size[slot] * life[slot] / LIFE);
+            float px = (float) x[slot];
+            float py = (float) y[slot];
+            Path2D.Float path = paths[bucket[slot]];
+            pathSquares[bucket[slot]]++;
+            path.moveTo(px, py);
+            path.lineTo(px + side, py);
+            path.lineTo(px + side, py + side);
+            path.lineTo(px, py + side);
+            path.closePath();
+        }
+        while (count > 0 && life[head] <= 0) {    // Oldest first, so the dead gather at the head
+            head = (head + 1) & MASK;
+            count--;
+        }
+        for (int b = 0; b < paths.length; b++) {
+            if (pathSquares[b] > 0) {
+                g2.setColor(PALETTE[b]);
+                g2.fill(paths[b]);
+            }
+        }
+
+        Font font = g2.getFont();
+        if (font != glyphFont || context != glyphContext) {
+            Arrays.fill(scoreGlyphs, null);
+            Arrays.fill(nameGlyphs, null);
+            glyphFont = font;
+            glyphContext = context;
+        }
+        for (int p = 0; p < POPUPS; p++) {
+            if (popupLife[p] <= 0) {
+                continue;
+            }
+            popupLife[p] -= dt;
+            popupY[p] -= POPUP_RISE * dt;
+            if (popupLife[p] > 0) {
+                g2.setColor(popupScore[p] ? Color.YELLOW : Color.WHITE);
+                g2.drawGlyphVector(popupGlyphs(popupScore[p], popupValue[p]), (float) popupX[p], (float) popupY[p]);
+            }
+        }
+    }
+
+    /***************************************************************
+     * METHOD: recordFrame(long frameNanos, long now)              *
+     * DESCRIPTION:                                                *
+     * Takes the time the renderer spent on a frame and adjusts    *
+     * the budget: halved while the average is over the frame      *
+     * budget (down to none), raised by BUDGET_STEP while it is    *
+     * under half of it (up to the ceiling).                       *
+     * PARAMETERS:                                                 *
+     *    - long frameNanos: Time spent drawing the frame.         *
+     *    - long now: The System.nanoTime() after drawing it.      *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void recordFrame(long frameNanos, long now) {
+        averageNanos += (frameNanos - averageNanos) / 8;
+        if (now - lastAdjust < ADJUST_NANOS) {
+            return;
+        }
+        if (averageNanos > frameBudgetNanos && budget > 0) {
+            budget = (budget <= BUDGET_STEP) ? 0 : budget / 2;
+            lastAdjust = now;
+        } else if (averageNanos < frameBudgetNanos / 2 && budget < maxBudget) {
+            budget = Math.min(maxBudget, budget + BUDGET_STEP);
+            lastAdjust = now;
+        }
+    }
+
+    /***************************************************************
+     * METHOD: setMaxBudget(double maxBudget)                      *
+     * DESCRIPTION:                                                *
+     * Sets the most of the full effects that may be shown; a      *
+     * budget above it is cut at once.                             *
+     * PARAMETERS:                                                 *
+     *    - double maxBudget: The ceiling, 0 to 1.                 *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void setMaxBudget(double maxBudget) {
+        this.maxBudget = Math.max(0, Math.min(1, maxBudget));
+        budget = Math.min(budget, this.maxBudget);
+    }
+
+    /***************************************************************
+     * METHODS: getBudget(), getAlive(), getAverageFrameNanos()    *
+     * DESCRIPTION:                                                *
+     * The share of full effects now shown, the particles alive,   *
+     * and the frame time average the budget follows.              *
+     ***************************************************************/
+    public double getBudget() { return budget; }
+    public int getAlive() { return count; }
+    public long getAverageFrameNanos() { return (long) averageNanos; }
+
+    // The laid-out text of a popup, made once per score below
+    // scoreGlyphs.length and per power-up type
+    private GlyphVector popupGlyphs(boolean score, int value) {
+        GlyphVector[] glyphs = score ? scoreGlyphs : nameGlyphs;
+        if (value < 0 || value >= glyphs.length) {
+            return glyphFont.createGlyphVector(glyphContext, "+" + value);
+        }
+        if (glyphs[value] == null) {
+            glyphs[value] = glyphFont.createGlyphVector(glyphContext, score ? "+" + value : POWER_UP_NAMES[value]);
+        }
+        return glyphs[value];
+    }
+
+    // Saturated colors by hue; grays and black by lightness
+    private int bucketOf(int argb) {
+        Color.RGBtoHSB((argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF, hsb);
+        if (hsb[1] < 0.25f || hsb[2] < 0.2f) {
+            return (hsb[2] > 0.6f) ? WHITE : GRAY;
+        }
+        return Math.round(hsb[0] * HUES) % HUES;
+    }
+
+    private static Color[] palette() {
+        Color[] colors = new Color[HUES + 2];
+        for (int h = 0; h < HUES; h++) {
+            colors[h] = Color.getHSBColor(h / (float) HUES, 0.85f, 1f);
+        }
+        colors[WHITE] = Color.WHITE;
+        colors[GRAY] = Color.LIGHT_GRAY;
+        return colors;
+    }
+
+    private static String[] powerUpNames() {
+        GameWorld.PowerUp.PowerUpType[] types = GameWorld.PowerUp.PowerUpType.VALUES;
+        String[] names = new String[types.length];
+        for (int i = 0; i < types.length; i++) {
+            names[i] = types[i].name().replace('_', ' ');
+        }
+        return names;
+    }
+}
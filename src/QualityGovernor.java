@@ -0,0 +1,231 @@
+/*******************************************************************
+ * CLASS: QualityGovernor                                         *
+ * DESCRIPTION:                                                   *
+ * Picks how much the renderer spends on looks, from the interval  *
+ * between presented frames. Gameplay.paintComponent and          *
+ * ActiveCanvas report it through GameRenderer, measured where    *
+ * frames reach the screen, so the time spent presenting a frame  *
+ * (show(), the back buffer blit, Swing's own painting) counts    *
+ * as well as drawing it. Over each window of frames the governor *
+ * averages the intervals, and steps down one Tier when the       *
+ * average is over the down threshold and up one when it has      *
+ * stayed under the up threshold for a few windows in a row.      *
+ * Tiers shed, in order: antialiasing and quality hints, the ball *
+ * gradient, the 3D brick bevel, and on the way a growing share   *
+ * of the particle effects (the tier caps ParticleSystem's own    *
+ * budget).                                                       *
+ *                                                                *
+ * Frames paced to a 60 Hz display come every 16.7 ms however     *
+ * cheap they are, so the default up threshold sits just above    *
+ * that: a tier that keeps up with the display is followed by a   *
+ * try of the next one, which the down threshold (under 40 frames *
+ * a second) drops again if it cannot keep up. A single interval  *
+ * counts as at most MAX_INTERVAL, so a pause (a hidden window, a *
+ * stalled thread) is not taken for a run of slow frames.         *
+ *                                                                *
+ * The windows tumble: each average starts fresh, so a tier is    *
+ * judged only on the frames drawn at that tier, never on frames  *
+ * of the tier before a change.                                   *
+ *                                                                *
+ * A tier raised too early shows itself by being dropped in the   *
+ * next window; each time that happens the governor waits twice   *
+ * as many windows before trying again, so it does not flap       *
+ * between two tiers. Every change is printed with the figures    *
+ * behind it.                                                     *
+ *                                                                *
+ * The thresholds come from system properties, read by            *
+ * fromSystemProperties():                                        *
+ *    brickbreaker.quality         auto (default) or a tier name, *
+ *                                 which pins that tier           *
+ *    brickbreaker.quality.down    frame interval in us to step   *
+ *                                 down at (default 25000)        *
+ *    brickbreaker.quality.up      frame interval in us to step   *
+ *                                 up at (default 18000)          *
+ *    brickbreaker.quality.window  frames per average (default    *
+ *                                 60)                            *
+ * Not thread-safe: it belongs to the rendering thread.           *
+ *******************************************************************/
+public final class QualityGovernor {
+    private static final int FIRST_HOLD = 2;    // Good windows needed before the first step up
+    private static final int MAX_HOLD = 64;     // Most good windows ever needed
+    private static final long MAX_INTERVAL = 100_000_000L; // Most one frame adds to an average
+    private static final long DEFAULT_DOWN = 25_000_000L;  // Under 40 frames a second
+    private static final long DEFAULT_UP = 18_000_000L;    // Keeping up with a 60 Hz display
+
+    /*******************************************************************
+     * ENUM: Tier                                                     *
+     * DESCRIPTION:                                                   *
+     * What a frame draws at each level of quality, cheapest first.   *
+     *******************************************************************/
+    public enum Tier {
+        //      antialias  gradient  bevel  particles
+        MINIMAL(false,     false,    false, 0.0),
+        LOW(    false,     false,    true,  0.25),
+        MEDIUM( false,     true,     true,  0.5),
+        HIGH(   true,      true,     true,  1.0);
+
+        private final boolean antialias;        // Antialiasing, quality rendering, bilinear images
+        private final boolean gradientBalls;    // Balls filled with a gradient instead of flat
+        private final boolean bevel;            // Bricks drawn raised instead of flat
+        private final double particleBudget;    // Most of the particle effects shown, 0 to 1
+
+        Tier(boolean antialias, boolean gradientBalls, boolean bevel, double particleBudget) {
+            this.antialias = antialias;
+            this.gradientBalls = gradientBalls;
+            this.bevel = bevel;
+            this.particleBudget = particleBudget;
+        }
+
+        public boolean isAntialiased() { return antialias; }
+        public boolean hasGradientBalls() { return gradientBalls; }
+        public boolean hasBevel() { return bevel; }
+        public double getParticleBudget() { return particleBudget; }
+    }
+
+    private static final Tier[] TIERS = Tier.values();
+
+    private final long downNanos;           // Average frame interval that steps a tier down
+    private final long upNanos;             // Average frame interval that may step a tier up
+    private final int window;               // Frames per average
+    private Tier tier;                      // Current tier
+    private boolean automatic;              // False when a tier is pinned
+    private int sampled = 0;                // Frames in the current window
+    private long sum = 0;                   // Their total interval
+    private int goodWindows = 0;            // Windows in a row under upNanos
+    private int hold = FIRST_HOLD;          // Good windows needed to step up
+    private boolean justRaised = false;     // The last window stepped up
+    private int changes = 0;                // Tier changes so far
+
+    /***************************************************************
+     * METHOD: QualityGovernor(long downNanos, long upNanos,       *
+     *                         int window)                         *
+     * DESCRIPTION:                                                *
+     * Creates an automatic governor starting at HIGH.             *
+     * PARAMETERS:                                                 *
+     *    - long downNanos: Average frame interval to step down    *
+     *      at.                                                    *
+     *    - long upNanos: Average frame interval to step up under; *
+     *      must be below downNanos.                               *
+     *    - int window: Frames per average.                        *
+     * RETURN VALUE: None.                                         *
+     * THROWS: IllegalArgumentException if the thresholds are not  *
+     *    in order or the window is empty.                         *
+     ***************************************************************/
+    public QualityGovernor(long downNanos, long upNanos, int window) {
+        if (upNanos >= downNanos || window < 1) {
+            throw new IllegalArgumentException("need up < down and a window of at least 1 frame, got up "
+                    + upNanos + " ns, down " + downNanos + " ns, window " + window);
+        }
+        this.downNanos = downNanos;
+        this.upNanos = upNanos;
+        this.window = window;
+        this.tier = Tier.HIGH;
+        this.automatic = true;
+    }
+
+    /***************************************************************
+     * METHOD: fromSystemProperties()                              *
+     * DESCRIPTION:                                                *
+     * Creates the governor the brickbreaker.quality properties    *
+     * describe. Bad values are reported and the defaults used.    *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The governor.                                 *
+     ***************************************************************/
+    public static QualityGovernor fromSystemProperties() {
+        QualityGovernor governor;
+        try {
+            governor = new QualityGovernor(Long.getLong("brickbreaker.quality.down", DEFAULT_DOWN / 1000) * 1000,
+                    Long.getLong("brickbreaker.quality.up", DEFAULT_UP / 1000) * 1000,
+                    Integer.getInteger("brickbreaker.quality.window", 60));
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+            governor = new QualityGovernor(DEFAULT_DOWN, DEFAULT_UP, 60);
+        }
+        String quality = System.getProperty("brickbreaker.quality", "auto");
+        if (!quality.equalsIgnoreCase("auto")) {
+            try {
+                governor.pin(Tier.valueOf(quality.toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                e.printStackTrace();
+            }
+        }
+        return governor;
+    }
+
+    /***************************************************************
+     * METHOD: record(long frameNanos)                             *
+     * DESCRIPTION:                                                *
+     * Takes the interval of one frame and, at the end of a        *
+     * window, decides whether to change tier.                     *
+     * PARAMETERS:                                                 *
+     *    - long frameNanos: Time since the previous frame was     *
+     *      presented.                                             *
+     * RETURN VALUE: True if the tier changed.                     *
+     ***************************************************************/
+    public boolean record(long frameNanos) {
+        if (!automatic) {
+            return false;
+        }
+        sampled++;
+        sum += Math.min(frameNanos, MAX_INTERVAL);
+        if (sampled < window) {
+            return false;
+        }
+        long average = sum / sampled;
+        sampled = 0;
+        sum = 0;
+
+        if (average > downNanos) {
+            goodWindows = 0;
+            if (justRaised) {
+                hold = Math.min(MAX_HOLD, hold * 2);    // That tier was too much; wait longer next time
+            }
+            justRaised = false;
+            return tier.ordinal() > 0 && change(TIERS[tier.ordinal() - 1], average, "over", downNanos);
+        }
+        justRaised = false;
+        if (average < upNanos && ++goodWindows >= hold) {
+            goodWindows = 0;
+            if (tier.ordinal() < TIERS.length - 1) {
+                justRaised = true;
+                return change(TIERS[tier.ordinal() + 1], average, "under", upNanos);
+            }
+        } else if (average >= upNanos) {
+            goodWindows = 0;
+        }
+        return false;
+    }
+
+    /***************************************************************
+     * METHOD: pin(Tier tier)                                      *
+     * DESCRIPTION:                                                *
+     * Sets a tier and stops changing it automatically.            *
+     * PARAMETERS:                                                 *
+     *    - Tier tier: The tier to keep.                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void pin(Tier tier) {
+        this.tier = tier;
+        this.automatic = false;
+        System.out.println("quality: " + tier + " (pinned)");
+    }
+
+    // Moves to another tier and reports why
+    private boolean change(Tier next, long average, String side, long threshold) {
+        System.out.printf("quality: %s -> %s (frame interval %.2f ms over %d frames, %s %.2f ms)%n",
+                tier, next, average / 1e6, window, side, threshold / 1e6);
+        tier = next;
+        changes++;
+        return true;
+    }
+
+    /***************************************************************
+     * METHODS: getTier(), isAutomatic(), getChanges()             *
+     * DESCRIPTION:                                                *
+     * The current tier, whether it may still change, and how     *
+     * often it has changed.                                       *
+     ***************************************************************/
+    public Tier getTier() { return tier; }
+    public boolean isAutomatic() { return automatic; }
+    public int getChanges() { return changes; }
+}
@@ -0,0 +1,144 @@
+/*******************************************************************
+ * CLASS: ReplayPlayer                                            *
+ * DESCRIPTION:                                                   *
+ * Re-simulates a session recorded by `InputRecorder` as fast as  *
+ * the CPU allows: no window, no rendering and no timer, only     *
+ * `GameWorld.step` with the recorded inputs at the recorded      *
+ * steps, through the game's level files (see Levels). It then    *
+ * checks that the final score matches the log.                   *
+ * Used to reproduce bug reports offline and as a repeatable      *
+ * performance fixture.                                           *
+ *                                                                *
+ * USAGE:                                                         *
+ *    java ReplayPlayer session.bbr [repeat]                      *
+ *******************************************************************/
+import java.io.*;
+
+public class ReplayPlayer {
+    /***************************************************************
+     * RECORD: Result                                              *
+     * DESCRIPTION:                                                *
+     * The outcome of one playback.                                *
+     ***************************************************************/
+    public record Result(long seed, long steps, double simulatedSeconds, long elapsedNanos,
+                         int score, int expectedScore, boolean hasExpectedScore) {
+        public boolean matches() {
+            return !hasExpectedScore || score == expectedScore;
+        }
+
+        public double speedup() {
+            return simulatedSeconds / (elapsedNanos / 1e9);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: play(InputStream in)                                *
+     * DESCRIPTION:                                                *
+     * Reads a log and replays it in a new GameWorld.              *
+     * PARAMETERS:                                                 *
+     *    - InputStream in: The recorded log.                      *
+     * RETURN VALUE: The Result of the playback.                   *
+     * THROWS: IOException if the log cannot be read or is not a   *
+     *         recording.                                          *
+     ***************************************************************/
+    public static Result play(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != InputRecorder.MAGIC) {
+            throw new IOException("Not a Brick Breaker recording");
+        }
+        int version = data.readByte();
+        if (version != InputRecorder.VERSION) {
+            throw new IOException("Unsupported recording version " + version);
+        }
+        long seed = data.readLong();
+        long stepNanos = data.readInt();
+        double dt = stepNanos / 1e9;
+
+        long start = System.nanoTime();
+        GameWorld world = new GameWorld(new GameRandom(seed), Levels.load());
+        long step = 0;
+        int expectedScore = 0;
+        boolean hasExpectedScore = false;
+        while (true) {
+            long gap;
+            try {
+                gap = readVarLong(data);
+            } catch (EOFException e) {
+                break; // Log ended without an end record
+            }
+            // Steps without input between the records
+            for (long i = 0; i < gap; i++) {
+                world.step(dt, GameInput.NONE);
+            }
+            step += gap;
+            int input = data.readUnsignedByte();
+            if (input == GameInput.NONE) {
+                expectedScore = data.readInt();
+                hasExpectedScore = true;
+                break;
+            }
+            world.step(dt, input);
+            step++;
+        }
+        long elapsed = System.nanoTime() - start;
+        return new Result(seed, step, step * dt, elapsed, world.getScore(), expectedScore, hasExpectedScore);
+    }
+
+    /***************************************************************
+     * METHOD: readVarLong(DataInputStream in)                     *
+     * DESCRIPTION:                                                *
+     * Reads a number written by InputRecorder.writeVarLong.       *
+     * PARAMETERS:                                                 *
+     *    - DataInputStream in: The log.                           *
+     * RETURN VALUE: The number.                                   *
+     * THROWS: IOException if the log cannot be read.              *
+     ***************************************************************/
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /***************************************************************
+     * METHOD: main(String[] args)                                 *
+     * DESCRIPTION:                                                *
+     * Replays a log (optionally several times, for timing) and    *
+     * prints the score check and the playback speed. Exits with   *
+     * status 1 when the score does not match.                     *
+     * PARAMETERS:                                                 *
+     *    - String[] args: <log file> [repeat count].              *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java ReplayPlayer <session.bbr> [repeat]");
+            System.exit(2);
+        }
+        int repeat = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        Result result = null;
+        for (int i = 0; i < repeat; i++) {
+            try (InputStream in = new FileInputStream(args[0])) {
+                result = play(in);
+            }
+        }
+
+        System.out.printf("seed %d: %d steps (%.1f s of play) replayed in %.1f ms, %.0fx real time%n",
+                result.seed(), result.steps(), result.simulatedSeconds(),
+                result.elapsedNanos() / 1e6, result.speedup());
+        if (!result.hasExpectedScore()) {
+            System.out.println("score " + result.score() + " (recording has no end record, not checked)");
+        } else if (result.matches()) {
+            System.out.println("score " + result.score() + " matches the recording");
+        } else {
+            System.out.println("MISMATCH: replayed score " + result.score()
+                    + ", recorded score " + result.expectedScore());
+            System.exit(1);
+        }
+    }
+}
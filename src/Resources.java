@@ -0,0 +1,182 @@
+/*******************************************************************
+ * CLASS: Resources                                               *
+ * DESCRIPTION:                                                   *
+ * Finds the game's assets by name ("sounds/brickHitSound.wav",   *
+ * "ARCADECLASSIC.TTF", "icon.png") wherever the game runs from,  *
+ * instead of by a path relative to the IDE's working directory.  *
+ * An asset is looked up, in order:                               *
+ *    1. in the asset pack (see AssetPack): the file given by     *
+ *       -Dbrickbreaker.assets, or else assets.pack on the        *
+ *       classpath. A pack in a directory is memory-mapped; a     *
+ *       pack inside the jar is read into memory once;            *
+ *    2. as a loose classpath resource, as the IDE copies them;   *
+ *    3. as a file under src/, for running from the project root. *
+ *******************************************************************/
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class Resources {
+    private static final String PACK_NAME = "assets.pack";  // Pack on the classpath
+    private static final String SOURCE_DIR = "src";         // Loose assets when run from the project root
+
+    private static Resources shared;         // The resources of the session
+
+    private final AssetPack pack;           // Packed assets, or null if there is no pack
+
+    /***************************************************************
+     * METHOD: Resources(AssetPack pack)                           *
+     * DESCRIPTION:                                                *
+     * Creates a lookup that tries the given pack first.           *
+     * PARAMETERS:                                                 *
+     *    - AssetPack pack: The packed assets, or null.            *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public Resources(AssetPack pack) {
+        this.pack = pack;
+    }
+
+    /***************************************************************
+     * METHOD: shared()                                            *
+     * DESCRIPTION:                                                *
+     * Retrieves the session's resources, opening the asset pack   *
+     * on first use. A pack that fails to open is reported and the *
+     * loose assets are used instead.                              *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The shared Resources.                         *
+     ***************************************************************/
+    public static synchronized Resources shared() {
+        if (shared == null) {
+            AssetPack pack = null;
+            try {
+                pack = openPack();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            shared = new Resources(pack);
+        }
+        return shared;
+    }
+
+    /***************************************************************
+     * METHOD: openPack()                                          *
+     * DESCRIPTION:                                                *
+     * Opens the pack named by -Dbrickbreaker.assets, or else the  *
+     * one on the classpath.                                       *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The pack, or null if there is none.           *
+     ***************************************************************/
+    private static AssetPack openPack() throws IOException {
+        String file = System.getProperty("brickbreaker.assets");
+        if (file != null) {
+            return AssetPack.map(Path.of(file));
+        }
+        URL url = Resources.class.getResource("/" + PACK_NAME);
+        if (url == null) {
+            return null;
+        }
+        if (url.getProtocol().equals("file")) {
+            try {
+                return AssetPack.map(Path.of(url.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        try (InputStream in = url.openStream()) {
+            return AssetPack.read(in);
+        }
+    }
+
+    /***************************************************************
+     * METHOD: open(String name)                                   *
+     * DESCRIPTION:                                                *
+     * Opens an asset. The stream supports mark/reset, so it can   *
+     * be handed straight to AudioSystem; the caller closes it. A  *
+     * FileNotFoundException is thrown if no source has the asset. *
+     * PARAMETERS:                                                 *
+     *    - String name: The asset name, relative to src/.         *
+     * RETURN VALUE: The asset's bytes.                            *
+     ***************************************************************/
+    public InputStream open(String name) throws IOException {
+        if (pack != null) {
+            InputStream in = pack.open(name);
+            if (in != null) {
+                return in;
+            }
+        }
+        InputStream in = Resources.class.getResourceAsStream("/" + name);
+        if (in == null) {
+            File file = new File(SOURCE_DIR, name);
+            if (!file.isFile()) {
+                throw new FileNotFoundException("Asset not found: " + name);
+            }
+            in = new FileInputStream(file);
+        }
+        return new BufferedInputStream(in);
+    }
+
+    /***************************************************************
+     * METHOD: map(String name)                                    *
+     * DESCRIPTION:                                                *
+     * Opens an asset as a buffer, for large assets that are read  *
+     * in place rather than streamed: a slice of the asset pack,   *
+     * or else the file mapped into memory. An asset that is       *
+     * neither (e.g. inside a jar) is read into a direct buffer.   *
+     * A FileNotFoundException is thrown if no source has it.      *
+     * PARAMETERS:                                                 *
+     *    - String name: The asset name, relative to src/.         *
+     * RETURN VALUE: The asset's bytes, from position 0.           *
+     ***************************************************************/
+    public ByteBuffer map(String name) throws IOException {
+        if (pack != null) {
+            ByteBuffer slice = pack.slice(name);
+            if (slice != null) {
+                return slice;
+            }
+        }
+        Path file = null;
+        URL url = Resources.class.getResource("/" + name);
+        if (url != null && url.getProtocol().equals("file")) {
+            try {
+                file = Path.of(url.toURI());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        } else if (url == null) {
+            file = Path.of(SOURCE_DIR, name);
+            if (!Files.isRegularFile(file)) {
+                throw new FileNotFoundException("Asset not found: " + name);
+            }
+        }
+        if (file != null) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        try (InputStream in = url.openStream()) {
+            byte[] bytes = in.readAllBytes();
+            return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        }
+    }
+
+    /***************************************************************
+     * METHOD: getPack()                                           *
+     * DESCRIPTION:                                                *
+     * Retrieves the asset pack in use.                            *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The pack, or null if assets are loose files.  *
+     ***************************************************************/
+    public AssetPack getPack() {
+        return pack;
+    }
+}
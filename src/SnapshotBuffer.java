@@ -0,0 +1,62 @@
+/*******************************************************************
+ * CLASS: SnapshotBuffer                                          *
+ * DESCRIPTION:                                                   *
+ * A lock-free triple buffer of GameSnapshots between the game    *
+ * loop (one writer) and the event thread (one reader). The       *
+ * writer fills its back snapshot and swaps it into the middle;   *
+ * the reader swaps the middle out whenever it holds a newer      *
+ * state. Each side always owns one snapshot the other never      *
+ * touches, so three recycled snapshots replace a new one per     *
+ * step, and neither side ever waits for the other.               *
+ *******************************************************************/
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class SnapshotBuffer {
+    private static final int FRESH = 4;  // Set in middle when the writer published after the last read
+
+    private final GameSnapshot[] slots = {
+            new GameSnapshot(), new GameSnapshot(), new GameSnapshot() };
+    private final AtomicInteger middle = new AtomicInteger(1); // Middle slot index | FRESH
+    private int back = 0;   // Slot owned by the writer
+    private int front = 2;  // Slot owned by the reader
+
+    /***************************************************************
+     * METHOD: back()                                              *
+     * DESCRIPTION:                                                *
+     * Retrieves the snapshot the writer may fill next.            *
+     * Writer thread only.                                         *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The back snapshot.                            *
+     ***************************************************************/
+    public GameSnapshot back() {
+        return slots[back];
+    }
+
+    /***************************************************************
+     * METHOD: publish()                                           *
+     * DESCRIPTION:                                                *
+     * Hands the filled back snapshot to the reader and takes the  *
+     * previous middle as the new back. Writer thread only.        *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & ~FRESH;
+    }
+
+    /***************************************************************
+     * METHOD: latest()                                            *
+     * DESCRIPTION:                                                *
+     * Retrieves the newest published snapshot. The returned       *
+     * snapshot stays valid until the next call. Reader thread     *
+     * only.                                                       *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: The front snapshot.                           *
+     ***************************************************************/
+    public GameSnapshot latest() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & ~FRESH;
+        }
+        return slots[front];
+    }
+}
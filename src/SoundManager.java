@@ -3,79 +3,66 @@
  * DESCRIPTION:                                                   *
  * A utility class for managing sound effects and background      *
  * music in the game. It provides methods to load, play, loop,    *
- * and stop audio clips.                                          *
+ * and stop sounds. All SoundManagers share the session's         *
+ * `AudioMixer`, so a sound file is decoded only once and every   *
+ * sound plays through the same audio line; sounds are referred   *
+ * to by the int ids the mixer hands out. The time taken to start *
+ * each sound is recorded in the shared GameMetrics.              *
  *******************************************************************/
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import java.io.File;
-
 public class SoundManager {
+    private final AudioMixer mixer = AudioMixer.shared(); // Decodes and plays all sounds
+    private final LatencyHistogram playTimes = GameMetrics.shared().getAudio(); // Time spent in playSound
 
     /***************************************************************
-     * METHOD: loadSound(String filePath)                          *
+     * METHOD: loadSound(String name)                              *
      * DESCRIPTION:                                                *
-     * Loads a sound file from the specified file path and returns *
-     * a `Clip` object for playback.                               *
+     * Loads a sound asset (see Resources) into the mixer and      *
+     * returns its id for playback.                                *
      * PARAMETERS:                                                 *
-     *    - String filePath: The path to the sound file to load.   *
+     *    - String name: The asset name, e.g. "sounds/x.wav".      *
      * RETURN VALUE:                                               *
-     *    A `Clip` object containing the loaded sound, or null if  *
-     *    the sound could not be loaded.                           *
+     *    The sound id, or -1 if the sound could not be loaded.    *
      ***************************************************************/
-    public Clip loadSound(String filePath) {
-        try {
-            // Load audio file
-            AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(new File(filePath).getAbsoluteFile());
-            Clip clip = AudioSystem.getClip();
-            clip.open(audioInputStream); // Open the audio stream
-            return clip;
-        } catch (Exception e) {
-            e.printStackTrace(); // Print error details
-            return null;
-        }
+    public int loadSound(String name) {
+        return mixer.load(name);
     }
 
     /***************************************************************
-     * METHOD: playSound(Clip clip)                                *
+     * METHOD: playSound(int sound)                                *
      * DESCRIPTION:                                                *
-     * Plays a sound clip from the beginning.                      *
+     * Plays a sound from the beginning, on top of any copies of   *
+     * it that are still playing.                                  *
      * PARAMETERS:                                                 *
-     *    - Clip clip: The sound clip to play.                     *
+     *    - int sound: The sound id to play.                       *
      * RETURN VALUE: None.                                         *
      ***************************************************************/
-    public void playSound(Clip clip) {
-        if (clip != null) {
-            clip.setFramePosition(0); // Rewind to the beginning
-            clip.start();             // Start playback
-        }
+    public void playSound(int sound) {
+        long start = System.nanoTime();
+        mixer.play(sound);
+        playTimes.record(System.nanoTime() - start);
     }
 
     /***************************************************************
-     * METHOD: playLoop(Clip clip)                                 *
+     * METHOD: playLoop(int sound)                                 *
      * DESCRIPTION:                                                *
-     * Plays a sound clip in a continuous loop.                    *
+     * Plays a sound in a continuous loop.                         *
      * PARAMETERS:                                                 *
-     *    - Clip clip: The sound clip to loop.                     *
+     *    - int sound: The sound id to loop.                       *
      * RETURN VALUE: None.                                         *
      ***************************************************************/
-    public void playLoop(Clip clip) {
-        if (clip != null) {
-            clip.loop(Clip.LOOP_CONTINUOUSLY); // Loop playback continuously
-        }
+    public void playLoop(int sound) {
+        mixer.loop(sound); // Loop playback continuously
     }
 
     /***************************************************************
-     * METHOD: stopSound(Clip clip)                                *
+     * METHOD: stopSound(int sound)                                *
      * DESCRIPTION:                                                *
-     * Stops playback of a sound clip if it is currently playing.  *
+     * Stops every playing copy of a sound.                        *
      * PARAMETERS:                                                 *
-     *    - Clip clip: The sound clip to stop.                     *
+     *    - int sound: The sound id to stop.                       *
      * RETURN VALUE: None.                                         *
      ***************************************************************/
-    public void stopSound(Clip clip) {
-        if (clip != null) {
-            clip.stop(); // Stop playback
-        }
+    public void stopSound(int sound) {
+        mixer.stop(sound);
     }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+/*******************************************************************
+ * CLASS: Sweep                                                   *
+ * DESCRIPTION:                                                   *
+ * Continuous collision for a moving box against static boxes.    *
+ * Instead of testing where the ball ends up after a step, the    *
+ * ball's motion is treated as a ray from its top-left corner,    *
+ * and every obstacle is grown by the ball's size (the Minkowski  *
+ * sum), so the ray hits the grown box exactly when the ball      *
+ * would first touch the obstacle. The slab test gives the time   *
+ * of impact as a fraction of the motion and the face that was    *
+ * hit, so no obstacle can be skipped however fast the ball is.   *
+ *                                                                *
+ * A Sweep keeps the earliest hit of all the boxes tested since   *
+ * reset(), so one instance can be reused for every ball and step *
+ * without allocating.                                            *
+ *******************************************************************/
+public final class Sweep {
+    private double time;    // Time of impact of the earliest hit, 0 to 1
+    private int normalX;    // Outward normal of the face hit: -1, 0 or 1
+    private int normalY;
+    private boolean hit;    // Whether any box was hit since reset()
+
+    /***************************************************************
+     * METHOD: reset()                                             *
+     * DESCRIPTION:                                                *
+     * Forgets the previous hit before testing a new motion.       *
+     * PARAMETERS: None.                                           *
+     * RETURN VALUE: None.                                         *
+     ***************************************************************/
+    public void reset() {
+        time = 1.0;
+        normalX = 0;
+        normalY = 0;
+        hit = false;
+    }
+
+    /***************************************************************
+     * METHOD: box(double px, double py, double dx, double dy,     *
+     *             double minX, double minY, double maxX,          *
+     *             double maxY)                                    *
+     * DESCRIPTION:                                                *
+     * Tests the ray p + t * d, 0 <= t <= 1, against an open box   *
+     * (already grown by the ball size). Boxes may be infinite on  *
+     * some sides, e.g. to model a wall. A ray that starts inside  *
+     * the box or only touches its edge does not hit it.           *
+     * PARAMETERS:                                                 *
+     *    - double px, py: Start of the ray (ball top-left).       *
+     *    - double dx, dy: Motion during the step.                 *
+     *    - double minX, minY, maxX, maxY: The box.                *
+     * RETURN VALUE: True if this box is now the earliest hit.     *
+     ***************************************************************/
+    public boolean box(double px, double py, double dx, double dy,
+                       double minX, double minY, double maxX, double maxY) {
+        double enterX, exitX;
+        if (dx == 0) {
+            if (px <= minX || px >= maxX) {
+                return false;
+            }
+            enterX = Double.NEGATIVE_INFINITY;
+            exitX = Double.POSITIVE_INFINITY;
+        } else {
+            double t1 = (minX - px) / dx;
+            double t2 = (maxX - px) / dx;
+            enterX = Math.min(t1, t2);
+            exitX = Math.max(t1, t2);
+        }
+
+        double enterY, exitY;
+        if (dy == 0) {
+            if (py <= minY || py >= maxY) {
+                return false;
+            }
+            enterY = Double.NEGATIVE_INFINITY;
+            exitY = Double.POSITIVE_INFINITY;
+        } else {
+            double t1 = (minY - py) / dy;
+            double t2 = (maxY - py) / dy;
+            enterY = Math.min(t1, t2);
+            exitY = Math.max(t1, t2);
+        }
+
+        double enter = Math.max(enterX, enterY);
+        double exit = Math.min(exitX, exitY);
+        // Entering later than leaving means the ray misses; entering before
+        // 0 means we started inside, which the caller resolves separately
+        if (enter >= exit || enter < 0) {
+            return false;
+        }
+        // Keep the earliest hit; on a tie the box tested first wins
+        if (hit ? enter >= time : enter > time) {
+            return false;
+        }
+
+        time = enter;
+        hit = true;
+        if (enterX > enterY) {
+            normalX = dx > 0 ? -1 : 1;
+            normalY = 0;
+        } else {
+            normalX = 0;
+            normalY = dy > 0 ? -1 : 1;
+        }
+        return true;
+    }
+
+    /***************************************************************
+     * METHODS: isHit(), getTime(), getNormalX(), getNormalY()     *
+     * DESCRIPTION:                                                *
+     * The earliest hit since reset(): whether there was one, its  *
+     * time of impact as a fraction of the motion, and the outward *
+     * normal of the face that was hit.                            *
+     ***************************************************************/
+    public boolean isHit() { return hit; }
+    public double getTime() { return time; }
+    public int getNormalX() { return normalX; }
+    public int getNormalY() { return normalY; }
+}
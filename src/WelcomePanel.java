@@ -6,16 +6,15 @@
  * and a start button to transition to the gameplay screen. It    *
  * also plays background music during the welcome screen.         *
  *******************************************************************/
-import javax.sound.sampled.Clip;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 public class WelcomePanel extends JPanel {
     // Fields
-    private Clip backgroundMusic;          // Background music for the welcome screen
+    private int backgroundMusic;           // Background music for the welcome screen
     private SoundManager soundManager;     // Handles audio playback
     private BallWelcome[] balls;           // Array of animated bouncing balls
     private Timer timer;                   // Timer for ball animations
@@ -23,7 +22,8 @@ public class WelcomePanel extends JPanel {
     private Rectangle textBounds;          // Bounds of the welcome text for collision detection
 
     /***************************************************************
-     * METHOD: WelcomePanel(JPanel mainPanel, Gameplay gamePlay)   *
+     * METHOD: WelcomePanel(JPanel mainPanel, Gameplay gamePlay,   *
+     *                     GameRandom random, GameAssets assets)   *
      * DESCRIPTION:                                                *
      * Constructor to initialize the welcome screen panel. It sets *
      * up the layout, music, animated balls, and start button.     *
@@ -31,19 +31,22 @@ public class WelcomePanel extends JPanel {
      *    - JPanel mainPanel: The main container holding all       *
      *      game panels.                                           *
      *    - Gameplay gamePlay: The gameplay panel to transition to.*
+     *    - GameRandom random: The session's random source; only   *
+     *      its WELCOME stream is used.                            *
+     *    - GameAssets assets: Preloaded music, font and icon.     *
      * RETURN VALUE: None.                                         *
      ***************************************************************/
-    public WelcomePanel(JPanel mainPanel, Gameplay gamePlay) {
+    public WelcomePanel(JPanel mainPanel, Gameplay gamePlay, GameRandom random, GameAssets assets) {
         setLayout(new BorderLayout());
         setBackground(Color.BLACK);
 
         // Initialize SoundManager and play background music
         soundManager = new SoundManager();
-        backgroundMusic = soundManager.loadSound("src/sounds/background.wav");
-        new Thread(() -> soundManager.playLoop(backgroundMusic)).start();
+        backgroundMusic = assets.getBackgroundMusic();
+        soundManager.playLoop(backgroundMusic);
 
         // Load and set the arcade-style font
-        Font arcadeFont = FontLoader.loadFont("src/ARCADECLASSIC.ttf", 40f);
+        Font arcadeFont = assets.getWelcomeFont();
         JLabel welcomeLabel = new JLabel("Welcome  to  BRICK BREAKER  by  Ethan", JLabel.CENTER);
         if (arcadeFont != null) {
             welcomeLabel.setFont(arcadeFont);
@@ -56,7 +59,7 @@ public class WelcomePanel extends JPanel {
         add(welcomeLabel, BorderLayout.CENTER);
 
         // Set up the start button
-        ImageIcon startIcon = new ImageIcon("src/icon.png");
+        ImageIcon startIcon = assets.getStartIcon() != null ? new ImageIcon(assets.getStartIcon()) : new ImageIcon();
         JButton startButton = new JButton(startIcon);
         startButton.setFont(new Font("Arial", Font.BOLD, 10));
         startButton.setContentAreaFilled(false);
@@ -79,7 +82,7 @@ public class WelcomePanel extends JPanel {
         add(startButton, BorderLayout.SOUTH);
 
         // Initialize bouncing balls with random properties
-        Random rand = new Random();
+        SplittableRandom rand = random.stream(GameRandom.Stream.WELCOME);
         balls = new BallWelcome[3];
         for (int i = 0; i < balls.length; i++) {
             balls[i] = new BallWelcome(
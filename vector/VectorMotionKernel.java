@@ -0,0 +1,138 @@
+/*******************************************************************
+ * CLASS: VectorMotionKernel                                      *
+ * DESCRIPTION:                                                   *
+ * The MotionKernel on the Vector API: each loop takes as many    *
+ * rows at a time as the CPU's preferred vector holds doubles     *
+ * (4 with AVX2, 8 with AVX-512), with masks and blends in place  *
+ * of the scalar branches, and finishes the last few rows one at  *
+ * a time. The operations are the scalar kernel's (a multiply     *
+ * then an add, never a fused multiply-add), so both give the     *
+ * same bits for every row.                                       *
+ *                                                                *
+ * jdk.incubator.vector is an incubator module, so this class     *
+ * lives apart from src/ and is only compiled and loaded on       *
+ * request; EntitySystems falls back to its scalar kernel when it *
+ * is missing.                                                    *
+ *                                                                *
+ * USAGE (from the project root):                                 *
+ *    javac -d out src/*.java bench/*.java                        *
+ *    javac --add-modules jdk.incubator.vector -cp out -d out \   *
+ *          vector/*.java                                         *
+ *    java --add-modules jdk.incubator.vector -cp out Main        *
+ *******************************************************************/
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+public final class VectorMotionKernel implements MotionKernel {
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;  // Lanes per step
+    private static final VectorSpecies<Integer> INTS =                                    // Same lane count
+            VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+    private static final int LANES = DOUBLES.length();
+
+    @Override
+    public String getName() {
+        return "vector" + LANES;
+    }
+
+    @Override
+    public void integrate(Archetype table, double scale) {
+        int n = table.size();
+        double[] x = table.x, y = table.y, xVel = table.xVel, yVel = table.yVel;
+        int i = 0;
+        for (int upper = DOUBLES.loopBound(n); i < upper; i += LANES) {
+            DoubleVector.fromArray(DOUBLES, xVel, i).mul(scale).add(DoubleVector.fromArray(DOUBLES, x, i))
+                    .intoArray(x, i);
+            DoubleVector.fromArray(DOUBLES, yVel, i).mul(scale).add(DoubleVector.fromArray(DOUBLES, y, i))
+                    .intoArray(y, i);
+        }
+        for (; i < n; i++) {
+            x[i] += xVel[i] * scale;
+            y[i] += yVel[i] * scale;
+        }
+    }
+
+    @Override
+    public int bounceOffWalls(Archetype table, double left, double top, double right) {
+        int n = table.size();
+        double[] x = table.x, y = table.y, xVel = table.xVel, yVel = table.yVel;
+        int[] size = table.size;
+        int bounced = 0;
+        int i = 0;
+        for (int upper = DOUBLES.loopBound(n); i < upper; i += LANES) {
+            DoubleVector px = DoubleVector.fromArray(DOUBLES, x, i);
+            DoubleVector vx = DoubleVector.fromArray(DOUBLES, xVel, i);
+            DoubleVector py = DoubleVector.fromArray(DOUBLES, y, i);
+            DoubleVector vy = DoubleVector.fromArray(DOUBLES, yVel, i);
+            DoubleVector s = (DoubleVector) IntVector.fromArray(INTS, size, i)
+                    .convertShape(VectorOperators.I2D, DOUBLES, 0);
+
+            VectorMask<Double> pastLeft = px.lt(left);
+            VectorMask<Double> pastRight = pastLeft.not().and(px.add(s).compare(VectorOperators.GT, right));
+            VectorMask<Double> pastTop = py.lt(top);
+            if (!pastLeft.or(pastRight).or(pastTop).anyTrue()) {
+                continue;                           // The usual case: no row near a wall
+            }
+            VectorMask<Double> turnX = pastLeft.and(vx.lt(0)).or(pastRight.and(vx.compare(VectorOperators.GT, 0)));
+            VectorMask<Double> turnY = pastTop.and(vy.lt(0));
+
+            px.blend(left, pastLeft).blend(s.neg().add(right), pastRight).intoArray(x, i);
+            vx.blend(vx.neg(), turnX).intoArray(xVel, i);
+            py.blend(top, pastTop).intoArray(y, i);
+            vy.blend(vy.neg(), turnY).intoArray(yVel, i);
+            bounced += turnX.or(turnY).trueCount();
+        }
+        for (; i < n; i++) {
+            boolean hit = false;
+            if (x[i] < left) {
+                x[i] = left;
+                if (xVel[i] < 0) {
+                    xVel[i] = -xVel[i];
+                    hit = true;
+                }
+            } else if (x[i] + size[i] > right) {
+                x[i] = right - size[i];
+                if (xVel[i] > 0) {
+                    xVel[i] = -xVel[i];
+                    hit = true;
+                }
+            }
+            if (y[i] < top) {
+                y[i] = top;
+                if (yVel[i] < 0) {
+                    yVel[i] = -yVel[i];
+                    hit = true;
+                }
+            }
+            if (hit) {
+                bounced++;
+            }
+        }
+        return bounced;
+    }
+
+    @Override
+    public int nextPastBottom(Archetype table, int from, double bottom) {
+        int n = table.size();
+        double[] y = table.y;
+        int[] size = table.size;
+        int i = from;
+        for (int upper = from + DOUBLES.loopBound(n - from); i < upper; i += LANES) {
+            DoubleVector bottoms = DoubleVector.fromArray(DOUBLES, y, i).add((DoubleVector) IntVector
+                    .fromArray(INTS, size, i).convertShape(VectorOperators.I2D, DOUBLES, 0));
+            VectorMask<Double> past = bottoms.compare(VectorOperators.GT, bottom);
+            if (past.anyTrue()) {
+                return i + past.firstTrue();
+            }
+        }
+        for (; i < n; i++) {
+            if (y[i] + size[i] > bottom) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}